@@ -0,0 +1,103 @@
+package com.hometask.transactionservice.benchmark;
+
+import com.hometask.transactionservice.repository.TransactionRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency of a create answered once stored ({@code createSync}, 201) and of one answered once queued by the ingest
+ * pipeline ({@code createAsync}, 202). Sample mode reports the percentiles; run it with several thread counts to
+ * compare throughput as well. After each iteration the pipeline is left to store everything it accepted, and the
+ * store is emptied, so an iteration neither starts with a backlog nor fills the buffer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AsyncIngestBenchmark {
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private ConfigurableApplicationContext node;
+    private TransactionRepository repository;
+    private URI createUri;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        node = BenchmarkNode.start("--transaction.ingest.enabled=true");
+        repository = node.getBean(TransactionRepository.class);
+        createUri = URI.create("http://localhost:" + BenchmarkNode.port(node) + "/api/transactions");
+    }
+
+    @TearDown(Level.Iteration)
+    public void drain() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (repository.count() < sent.get()) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("Only " + repository.count() + " of " + sent.get()
+                        + " accepted creates were stored");
+            }
+            Thread.sleep(1);
+        }
+        repository.deleteAll();
+        sent.set(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        node.close();
+    }
+
+    private int post(boolean async) throws IOException, InterruptedException {
+        long i = requests.incrementAndGet();
+        // Unique amounts keep the duplicate check from rejecting requests
+        String body = "{\"accountNumber\":\"" + BenchmarkData.account(i) + "\",\"amount\":"
+                + BigDecimal.valueOf(i + 1, 2) + ",\"type\":\"DEPOSIT\",\"description\":\"Ingest benchmark "
+                + i + "\"}";
+        HttpRequest.Builder request = HttpRequest.newBuilder(createUri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (async) {
+            request.header("Prefer", "respond-async");
+        }
+        int status = client.send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+        if (status != (async ? 202 : 201)) {
+            throw new IllegalStateException("Create answered " + status);
+        }
+        sent.incrementAndGet();
+        return status;
+    }
+
+    @Benchmark
+    public int createSync() throws IOException, InterruptedException {
+        return post(false);
+    }
+
+    @Benchmark
+    public int createAsync() throws IOException, InterruptedException {
+        return post(true);
+    }
+}
@@ -0,0 +1,107 @@
+package com.hometask.transactionservice.benchmark;
+
+import com.hometask.transactionservice.repository.TransactionRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cost per transaction of creating over HTTP one at a time ({@code createSingle}) and in batches of
+ * {@value #BATCH_SIZE} ({@code createBatch}). Both report time per transaction, so their ratio is the gain of
+ * batching; the target is at least 10x. The store is emptied before each iteration so it does not grow with the
+ * faster path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchCreateBenchmark {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final AtomicLong requests = new AtomicLong();
+    private ConfigurableApplicationContext node;
+    private URI createUri;
+    private URI batchUri;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        node = BenchmarkNode.start();
+        String baseUrl = "http://localhost:" + BenchmarkNode.port(node) + "/api/transactions";
+        createUri = URI.create(baseUrl);
+        batchUri = URI.create(baseUrl + "/batch");
+    }
+
+    @Setup(Level.Iteration)
+    public void clearStore() {
+        node.getBean(TransactionRepository.class).deleteAll();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        node.close();
+    }
+
+    private void appendRequest(StringBuilder body) {
+        long i = requests.incrementAndGet();
+        // Unique amounts keep the duplicate check from rejecting requests
+        body.append("{\"accountNumber\":\"").append(BenchmarkData.account(i))
+                .append("\",\"amount\":").append(BigDecimal.valueOf(i + 1, 2))
+                .append(",\"type\":\"DEPOSIT\",\"description\":\"Batch benchmark ").append(i).append("\"}");
+    }
+
+    private int post(URI uri, String body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        if (status >= 300) {
+            throw new IllegalStateException("Create answered " + status);
+        }
+        return status;
+    }
+
+    @Benchmark
+    public int createSingle() throws IOException, InterruptedException {
+        StringBuilder body = new StringBuilder(160);
+        appendRequest(body);
+        return post(createUri, body.toString());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public int createBatch() throws IOException, InterruptedException {
+        StringBuilder body = new StringBuilder(BATCH_SIZE * 160).append('[');
+        for (int j = 0; j < BATCH_SIZE; j++) {
+            if (j > 0) {
+                body.append(',');
+            }
+            appendRequest(body);
+        }
+        return post(batchUri, body.append(']').toString());
+    }
+}
@@ -0,0 +1,55 @@
+package com.hometask.transactionservice.benchmark;
+
+import com.hometask.transactionservice.dto.TransactionRequest;
+import com.hometask.transactionservice.model.Transaction;
+import com.hometask.transactionservice.repository.TransactionRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Test data shared by the benchmarks. Prefilled transactions are a day old, so they sit outside the duplicate
+ * window the way most of a long-running store does.
+ */
+final class BenchmarkData {
+
+    static final int ACCOUNTS = 100_000;
+    private static final String[] TYPES = {"DEPOSIT", "WITHDRAWAL", "TRANSFER"};
+
+    private BenchmarkData() {
+    }
+
+    static String account(long i) {
+        return String.valueOf(10_000_000 + i % ACCOUNTS);
+    }
+
+    static Transaction transaction(String id, long i, LocalDateTime timestamp) {
+        String type = TYPES[(int) (i % TYPES.length)];
+        return new Transaction(id, account(i), BigDecimal.valueOf(100 + i % 1_000_000, 2), type,
+                "Benchmark transaction " + i, timestamp, type.equals("TRANSFER") ? account(i + 1) : null);
+    }
+
+    static TransactionRequest request(long i) {
+        TransactionRequest request = new TransactionRequest();
+        request.setAccountNumber(account(i));
+        // Unique amounts keep the duplicate check from rejecting requests
+        request.setAmount(BigDecimal.valueOf(i + 1, 2));
+        request.setType("DEPOSIT");
+        request.setDescription("Benchmark request " + i);
+        return request;
+    }
+
+    /**
+     * Saves {@code size} transactions and returns their ids.
+     */
+    static String[] prefill(TransactionRepository repository, int size) {
+        String[] ids = new String[size];
+        LocalDateTime base = LocalDateTime.now().minusDays(1);
+        for (int i = 0; i < size; i++) {
+            ids[i] = UUID.randomUUID().toString();
+            repository.save(transaction(ids[i], i, base.plusNanos(i * 1_000L)));
+        }
+        return ids;
+    }
+}
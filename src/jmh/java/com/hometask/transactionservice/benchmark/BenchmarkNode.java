@@ -0,0 +1,44 @@
+package com.hometask.transactionservice.benchmark;
+
+import com.hometask.transactionservice.TransactionServiceApplication;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The application for benchmarks that go through HTTP, without the benchmark package, whose contexts would
+ * otherwise be picked up by the scan.
+ */
+@SpringBootConfiguration
+@EnableAutoConfiguration
+@EnableCaching
+@ComponentScan(basePackageClasses = TransactionServiceApplication.class, excludeFilters = {
+        @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = TransactionServiceApplication.class),
+        @ComponentScan.Filter(type = FilterType.REGEX,
+                pattern = "com\\.hometask\\.transactionservice\\.benchmark\\..*")})
+class BenchmarkNode {
+
+    /**
+     * Starts a node with the given {@code --name=value} arguments, on a random port unless one is given.
+     */
+    static ConfigurableApplicationContext start(String... args) {
+        List<String> arguments = new ArrayList<>(List.of(args));
+        arguments.add("--logging.level.root=WARN");
+        if (arguments.stream().noneMatch(argument -> argument.startsWith("--server.port="))) {
+            arguments.add("--server.port=0");
+        }
+        return new SpringApplicationBuilder(BenchmarkNode.class).run(arguments.toArray(String[]::new));
+    }
+
+    static int port(ConfigurableApplicationContext node) {
+        return ((WebServerApplicationContext) node).getWebServer().getPort();
+    }
+}
@@ -0,0 +1,59 @@
+package com.hometask.transactionservice.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Runs the benchmarks once per thread count and writes each run's results as JSON, so runs can be compared across
+ * commits (for example with https://jmh.morethan.io).
+ * <p>
+ * Configured through system properties, which the {@code jmh} Maven profile passes on:
+ * <ul>
+ *     <li>{@code benchmark.include} - regular expression selecting benchmarks, e.g. {@code RepositoryBenchmark.find.*}</li>
+ *     <li>{@code benchmark.threads} - comma-separated thread counts</li>
+ *     <li>{@code benchmark.storeSizes} - comma-separated store sizes for benchmarks with a {@code storeSize} parameter</li>
+ *     <li>{@code benchmark.resultDir} - directory for the {@code threads-N.json} result files</li>
+ *     <li>{@code benchmark.profilers} - comma-separated JMH profilers to run with, e.g. {@code gc} for allocation</li>
+ * </ul>
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        String include = System.getProperty("benchmark.include", ".*");
+        String[] storeSizes = split(System.getProperty("benchmark.storeSizes", "1000,100000"));
+        int[] threadCounts = Arrays.stream(split(System.getProperty("benchmark.threads", "1")))
+                .mapToInt(Integer::parseInt)
+                .toArray();
+        String[] profilers = split(System.getProperty("benchmark.profilers", ""));
+        Path resultDir = Path.of(System.getProperty("benchmark.resultDir", "target/jmh"));
+        Files.createDirectories(resultDir);
+
+        for (int threads : threadCounts) {
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                    .include(BenchmarkRunner.class.getPackageName() + "\\." + include)
+                    .param("storeSize", storeSizes)
+                    .threads(threads)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(resultDir.resolve("threads-" + threads + ".json").toString());
+            for (String profiler : profilers) {
+                options.addProfiler(profiler);
+            }
+            new Runner(options.build()).run();
+        }
+    }
+
+    private static String[] split(String value) {
+        return Arrays.stream(value.split(",")).map(String::trim).filter(s -> !s.isEmpty()).toArray(String[]::new);
+    }
+}
@@ -0,0 +1,52 @@
+package com.hometask.transactionservice.benchmark;
+
+import com.hometask.transactionservice.model.Transaction;
+import com.hometask.transactionservice.repository.TransactionRepository;
+import com.hometask.transactionservice.service.TransactionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Create latency, duplicate check included, against stores of growing size. The latency should stay flat: the
+ * check only looks at the transactions of the last 60 seconds, whatever the store holds. The service is used
+ * without its Spring proxy, so the caches do not take part.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DuplicateDetectionBenchmark {
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    public int storeSize;
+
+    private TransactionService service;
+    private final AtomicLong requests = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        TransactionRepository repository = new TransactionRepository();
+        BenchmarkData.prefill(repository, storeSize);
+        service = new TransactionService(repository);
+    }
+
+    @Benchmark
+    public Transaction createTransaction() {
+        return service.createTransaction(BenchmarkData.request(requests.incrementAndGet()));
+    }
+}
@@ -0,0 +1,105 @@
+package com.hometask.transactionservice.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.hometask.transactionservice.feed.FeedOverflow;
+import com.hometask.transactionservice.feed.FeedSubscription;
+import com.hometask.transactionservice.feed.TransactionFeed;
+import com.hometask.transactionservice.model.Transaction;
+import com.hometask.transactionservice.repository.TransactionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cost of a save with live feed subscribers, each streamed to by a virtual thread as a connection would be. A save
+ * only offers the change to the feed's queue, so it should cost the same with none and with thousands. Every tenth
+ * subscriber follows one account and the rest take everything. The feed's queue is left to drain after each
+ * iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FeedFanOutBenchmark {
+
+    // Smaller than the default, so draining the backlog between iterations does not take minutes on few cores;
+    // changes that do not fit are lost to the subscribers, which does not change the cost of a save
+    private static final int QUEUE = 10_000;
+
+    @Param({"0", "1000", "10000"})
+    public int subscribers;
+
+    private final AtomicLong saves = new AtomicLong();
+    private final List<Thread> connections = new ArrayList<>();
+    private TransactionRepository repository;
+    private MeterRegistry registry;
+    private TransactionFeed feed;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = new TransactionRepository();
+        registry = new SimpleMeterRegistry();
+        feed = new TransactionFeed(repository, new ObjectMapper().registerModule(new JavaTimeModule()), QUEUE,
+                1_000, Math.max(subscribers, 1), FeedOverflow.DROP, Duration.ofSeconds(15), registry);
+        feed.start();
+        OutputStream discard = OutputStream.nullOutputStream();
+        for (int i = 0; i < subscribers; i++) {
+            FeedSubscription subscription = feed.subscribe(i % 10 == 0 ? BenchmarkData.account(i) : null, null,
+                    null);
+            connections.add(Thread.ofVirtual().start(() -> {
+                try {
+                    feed.stream(subscription, discard);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void drain() throws InterruptedException {
+        while (registry.get("transaction.feed.queue").gauge().value() > 0) {
+            Thread.sleep(1);
+        }
+        repository.deleteAll();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        feed.stop();
+        for (Thread connection : connections) {
+            connection.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    @Benchmark
+    public Transaction save() {
+        long i = saves.incrementAndGet();
+        return repository.save(BenchmarkData.transaction("fan-out-" + i, i, LocalDateTime.now()));
+    }
+}
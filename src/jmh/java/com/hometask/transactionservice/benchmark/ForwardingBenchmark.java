@@ -0,0 +1,112 @@
+package com.hometask.transactionservice.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hometask.transactionservice.cluster.PeerDirectory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency a forwarding hop adds to a create: two clustered nodes on localhost, and creates sent to node A for
+ * accounts that A owns ({@code createOnOwner}) and for accounts that B owns, which A forwards to B
+ * ({@code createForwarded}). Both go through the same HTTP client and server stack, so the difference is the hop.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ForwardingBenchmark {
+
+    private static final int ACCOUNTS = 1_000;
+
+    private final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong requests = new AtomicLong();
+    private URI createUri;
+    private String[] ownedAccounts;
+    private String[] forwardedAccounts;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        int[] ports = new int[2];
+        try (ServerSocket a = new ServerSocket(0); ServerSocket b = new ServerSocket(0)) {
+            ports[0] = a.getLocalPort();
+            ports[1] = b.getLocalPort();
+        }
+        String peers = "http://localhost:" + ports[0] + ",http://localhost:" + ports[1];
+        for (int port : ports) {
+            nodes.add(BenchmarkNode.start(
+                    "--server.port=" + port,
+                    "--transaction.cluster.enabled=true",
+                    "--transaction.cluster.self-url=http://localhost:" + port,
+                    "--transaction.cluster.peers=" + peers));
+        }
+        createUri = URI.create("http://localhost:" + ports[0] + "/api/transactions");
+
+        PeerDirectory directory = nodes.get(0).getBean(PeerDirectory.class);
+        List<String> owned = new ArrayList<>();
+        List<String> forwarded = new ArrayList<>();
+        for (int i = 0; owned.size() < ACCOUNTS || forwarded.size() < ACCOUNTS; i++) {
+            String account = BenchmarkData.account(i);
+            (directory.isSelf(directory.ownerOf(account)) ? owned : forwarded).add(account);
+        }
+        ownedAccounts = owned.subList(0, ACCOUNTS).toArray(String[]::new);
+        forwardedAccounts = forwarded.subList(0, ACCOUNTS).toArray(String[]::new);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        nodes.forEach(ConfigurableApplicationContext::close);
+    }
+
+    private int create(String[] accounts) throws IOException, InterruptedException {
+        long i = requests.incrementAndGet();
+        // Unique amounts keep the duplicate check from rejecting requests
+        String body = objectMapper.writeValueAsString(Map.of(
+                "accountNumber", accounts[(int) (i % accounts.length)],
+                "amount", BigDecimal.valueOf(i + 1, 2),
+                "type", "DEPOSIT",
+                "description", "Forwarding benchmark " + i));
+        HttpRequest request = HttpRequest.newBuilder(createUri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    @Benchmark
+    public int createOnOwner() throws IOException, InterruptedException {
+        return create(ownedAccounts);
+    }
+
+    @Benchmark
+    public int createForwarded() throws IOException, InterruptedException {
+        return create(forwardedAccounts);
+    }
+}
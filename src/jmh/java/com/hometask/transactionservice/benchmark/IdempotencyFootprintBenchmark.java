@@ -0,0 +1,109 @@
+package com.hometask.transactionservice.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hometask.transactionservice.idempotency.IdempotencyFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletResponse;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jol.info.GraphStats;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heap retained per idempotency key: the estimate the filter reports in {@code transaction.idempotency.bytes.per.key}
+ * ({@code estimatedBytesPerKey}) against what JOL measures by walking the filter's object graph after
+ * {@value #KEYS} creates, less the graph of an empty filter ({@code measuredBytesPerKey}). The estimate should be
+ * within a factor of two of the measurement. The score is the time to keep the responses. JMH sums such counters
+ * over the measured iterations, so there is one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 1)
+// The filter's graph holds lambdas, whose fields JOL can only locate this way
+@Fork(value = 1, jvmArgsAppend = "-Djol.magicFieldOffset=true")
+public class IdempotencyFootprintBenchmark {
+
+    private static final int KEYS = 20_000;
+
+    // Shared by the filled and the empty filter, so it cancels out of the measurement
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Footprint {
+        public double estimatedBytesPerKey;
+        public double measuredBytesPerKey;
+        private IdempotencyFilter filter;
+        private MeterRegistry registry;
+
+        @TearDown(Level.Iteration)
+        public void measure() {
+            estimatedBytesPerKey = registry.get("transaction.idempotency.bytes.per.key").gauge().value();
+            long empty = GraphStats.parseInstance(filter(new SimpleMeterRegistry())).totalSize();
+            measuredBytesPerKey = (GraphStats.parseInstance(filter).totalSize() - empty) / (double) KEYS;
+            filter = null;
+        }
+    }
+
+    /**
+     * Stands in for the controller: creates a transaction with a new id per execution.
+     */
+    private static final class Create implements FilterChain {
+        private int executions;
+
+        @Override
+        public void doFilter(ServletRequest request, ServletResponse response) throws IOException {
+            request.getInputStream().readAllBytes();
+            HttpServletResponse http = (HttpServletResponse) response;
+            http.setStatus(HttpStatus.CREATED.value());
+            http.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            http.getOutputStream().write(("{\"id\":\"tx-" + ++executions + "\"}").getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static IdempotencyFilter filter(MeterRegistry registry) {
+        return new IdempotencyFilter(KEYS, Duration.ofMinutes(5), OBJECT_MAPPER, registry);
+    }
+
+    @Benchmark
+    public IdempotencyFilter keep(Footprint footprint) throws ServletException, IOException {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        IdempotencyFilter filter = filter(registry);
+        Create create = new Create();
+        for (int i = 0; i < KEYS; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/transactions");
+            request.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            request.setContent(("{\"amount\":" + i + "}").getBytes(StandardCharsets.UTF_8));
+            request.addHeader(IdempotencyFilter.HEADER, "order-" + i + "-7f3c2a9e-1b4d-4c8e-9a6f");
+            filter.doFilter(request, new MockHttpServletResponse(), create);
+        }
+        footprint.filter = filter;
+        footprint.registry = registry;
+        return filter;
+    }
+}
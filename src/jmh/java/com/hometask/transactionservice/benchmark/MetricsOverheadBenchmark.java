@@ -0,0 +1,72 @@
+package com.hometask.transactionservice.benchmark;
+
+import com.hometask.transactionservice.model.Transaction;
+import com.hometask.transactionservice.repository.ConcurrentMapTransactionStore;
+import com.hometask.transactionservice.repository.TransactionRepository;
+import com.hometask.transactionservice.service.TransactionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cost of the operation timers: the same service calls with no-op meters and with the Prometheus registry the
+ * application uses. Compare the two {@code metrics} values of each benchmark. Repository lookups by id are not
+ * timed, so {@code getTransaction} records only the service timer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetricsOverheadBenchmark {
+
+    private static final int STORE_SIZE = 100_000;
+
+    @Param({"none", "prometheus"})
+    public String metrics;
+
+    private TransactionService service;
+    private String[] ids;
+    private final AtomicLong requests = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MeterRegistry registry = metrics.equals("prometheus")
+                ? new PrometheusMeterRegistry(PrometheusConfig.DEFAULT)
+                : new CompositeMeterRegistry();
+        TransactionRepository repository = new TransactionRepository(new ConcurrentMapTransactionStore(), registry);
+        service = new TransactionService(repository, registry);
+        ids = BenchmarkData.prefill(repository, STORE_SIZE);
+    }
+
+    @Benchmark
+    public Transaction getTransaction() {
+        return service.getTransaction(ids[ThreadLocalRandom.current().nextInt(STORE_SIZE)]);
+    }
+
+    /**
+     * Records two timers per call: the service create and the repository save.
+     */
+    @Benchmark
+    public Transaction createTransaction() {
+        return service.createTransaction(BenchmarkData.request(requests.incrementAndGet()));
+    }
+}
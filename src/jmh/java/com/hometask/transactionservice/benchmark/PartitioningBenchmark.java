@@ -0,0 +1,95 @@
+package com.hometask.transactionservice.benchmark;
+
+import com.hometask.transactionservice.model.Transaction;
+import com.hometask.transactionservice.repository.ConcurrentMapTransactionStore;
+import com.hometask.transactionservice.repository.TimelineKey;
+import com.hometask.transactionservice.repository.TransactionRepository;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the unpartitioned repository ({@code partitions=1}) against repositories partitioned by account,
+ * each partition with its own writer thread. Run it with {@code benchmark.threads} up to the number of cores to see
+ * how writes scale; partitioning only pays off when several cores write at once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PartitioningBenchmark {
+
+    private static final int STORE_SIZE = 100_000;
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"1", "4", "16"})
+    public int partitions;
+
+    private TransactionRepository repository;
+    private String[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = new TransactionRepository(ConcurrentMapTransactionStore::new, partitions,
+                new CompositeMeterRegistry());
+        ids = BenchmarkData.prefill(repository, STORE_SIZE);
+    }
+
+    private int randomRow() {
+        return ThreadLocalRandom.current().nextInt(STORE_SIZE);
+    }
+
+    /**
+     * Overwrites a random existing row with a new amount, so the store keeps its size for the whole run.
+     */
+    @Benchmark
+    public Transaction save() {
+        int row = randomRow();
+        Transaction current = repository.findById(ids[row]).orElseThrow();
+        return repository.save(BenchmarkData.transaction(ids[row], row + ThreadLocalRandom.current().nextInt(1_000),
+                current.getTimestamp()));
+    }
+
+    /**
+     * The create path: duplicate check and insert as one step, with a current timestamp so the duplicate window
+     * is maintained as well.
+     */
+    @Benchmark
+    public boolean saveIfNotDuplicate() {
+        int row = randomRow();
+        return repository.saveIfNotDuplicate(BenchmarkData.transaction(ids[row],
+                row + ThreadLocalRandom.current().nextInt(1_000), LocalDateTime.now()));
+    }
+
+    @Benchmark
+    public Optional<Transaction> findById() {
+        return repository.findById(ids[randomRow()]);
+    }
+
+    /**
+     * A page of the global order, which merges every partition's timeline.
+     */
+    @Benchmark
+    public List<Transaction> findPageAfter() {
+        Transaction after = repository.findById(ids[randomRow()]).orElseThrow();
+        return repository.findPageAfter(TimelineKey.of(after), PAGE_SIZE);
+    }
+}
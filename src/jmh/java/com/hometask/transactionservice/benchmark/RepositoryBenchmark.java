@@ -0,0 +1,128 @@
+package com.hometask.transactionservice.benchmark;
+
+import com.hometask.transactionservice.model.Transaction;
+import com.hometask.transactionservice.repository.CompactTransactionStore;
+import com.hometask.transactionservice.repository.ConcurrentMapTransactionStore;
+import com.hometask.transactionservice.repository.TimelineKey;
+import com.hometask.transactionservice.repository.TransactionRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int storeSize;
+
+    @Param({"map", "compact"})
+    public String engine;
+
+    private TransactionRepository repository;
+    private String[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = new TransactionRepository(
+                engine.equals("compact") ? new CompactTransactionStore() : new ConcurrentMapTransactionStore());
+        ids = BenchmarkData.prefill(repository, storeSize);
+    }
+
+    private int randomRow() {
+        return ThreadLocalRandom.current().nextInt(storeSize);
+    }
+
+    /**
+     * Overwrites a random existing row, so the store keeps its size for the whole run.
+     */
+    @Benchmark
+    public Transaction save() {
+        int row = randomRow();
+        Transaction current = repository.findById(ids[row]).orElseThrow();
+        return repository.save(BenchmarkData.transaction(ids[row], row + ThreadLocalRandom.current().nextInt(1_000),
+                current.getTimestamp()));
+    }
+
+    @Benchmark
+    public Optional<Transaction> findById() {
+        return repository.findById(ids[randomRow()]);
+    }
+
+    @Benchmark
+    public boolean isDuplicate() {
+        return repository.isDuplicate(BenchmarkData.transaction("candidate", randomRow(), LocalDateTime.now()));
+    }
+
+    @Benchmark
+    public List<Transaction> findAllPaginated() {
+        return repository.findAllPaginated(randomRow() / PAGE_SIZE, PAGE_SIZE);
+    }
+
+    /**
+     * The keyset alternative to {@link #findAllPaginated()}, for comparison.
+     */
+    @Benchmark
+    public List<Transaction> findPageAfter() {
+        Transaction after = repository.findById(ids[randomRow()]).orElseThrow();
+        return repository.findPageAfter(TimelineKey.of(after), PAGE_SIZE);
+    }
+
+    /**
+     * A narrow time range starting at a random row: prefilled rows are 1µs apart, so it holds {@value #PAGE_SIZE}
+     * transactions.
+     */
+    @Benchmark
+    public List<Transaction> findInRange() {
+        LocalDateTime from = repository.findById(ids[randomRow()]).orElseThrow().getTimestamp();
+        return repository.findInRangeAfter(null, from, from.plusNanos(PAGE_SIZE * 1_000L), null, PAGE_SIZE);
+    }
+
+    /**
+     * One account's transactions in the second starting at a random row.
+     */
+    @Benchmark
+    public List<Transaction> findInRangeByAccount() {
+        Transaction start = repository.findById(ids[randomRow()]).orElseThrow();
+        return repository.findInRangeAfter(start.getAccountNumber(), start.getTimestamp(),
+                start.getTimestamp().plusSeconds(1), null, PAGE_SIZE);
+    }
+
+    /**
+     * The query of {@link #findInRange()} answered by scanning every row, for comparison.
+     */
+    @Benchmark
+    public List<Transaction> findInRangeByScan() {
+        LocalDateTime from = repository.findById(ids[randomRow()]).orElseThrow().getTimestamp();
+        LocalDateTime to = from.plusNanos(PAGE_SIZE * 1_000L);
+        List<Transaction> matches = new ArrayList<>();
+        repository.forEach(transaction -> {
+            if (!transaction.getTimestamp().isBefore(from) && transaction.getTimestamp().isBefore(to)) {
+                matches.add(transaction);
+            }
+        });
+        return matches;
+    }
+}
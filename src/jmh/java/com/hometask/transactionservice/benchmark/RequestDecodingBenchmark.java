@@ -0,0 +1,79 @@
+package com.hometask.transactionservice.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hometask.transactionservice.config.TransactionRequestHttpMessageConverter;
+import com.hometask.transactionservice.dto.TransactionRequest;
+import com.hometask.transactionservice.validation.TransactionRequestValidator;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.http.MockHttpInputMessage;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading and checking a create request: the JSON converter followed by Bean Validation, as {@code @Valid} did
+ * ({@code reflective}), against the streaming converter followed by the compiled validator ({@code streaming}).
+ * Each returns the number of errors, which is zero for the transfer read. Run it with {@code -prof gc}
+ * ({@code -Dbenchmark.profilers=gc}) to compare allocation per request as well as time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestDecodingBenchmark {
+
+    private static final byte[] BODY = ("{\"accountNumber\":\"1234567890\",\"amount\":250.75,\"type\":\"TRANSFER\","
+            + "\"description\":\"Rent for March\",\"destinationAccount\":\"9876543210\"}")
+            .getBytes(StandardCharsets.UTF_8);
+
+    private MappingJackson2HttpMessageConverter jacksonConverter;
+    private TransactionRequestHttpMessageConverter streamingConverter;
+    private Validator beanValidator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        jacksonConverter = new MappingJackson2HttpMessageConverter(objectMapper);
+        streamingConverter = new TransactionRequestHttpMessageConverter(objectMapper);
+        beanValidator = Validation.buildDefaultValidatorFactory().getValidator();
+    }
+
+    private static HttpInputMessage message() {
+        MockHttpInputMessage message = new MockHttpInputMessage(BODY);
+        message.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return message;
+    }
+
+    @Benchmark
+    public int reflective() throws IOException {
+        TransactionRequest request = (TransactionRequest) jacksonConverter.read(TransactionRequest.class, null,
+                message());
+        return beanValidator.validate(request).size();
+    }
+
+    @Benchmark
+    public int streaming() throws IOException {
+        TransactionRequest request = (TransactionRequest) streamingConverter.read(TransactionRequest.class, null,
+                message());
+        return TransactionRequestValidator.validate(request).size();
+    }
+}
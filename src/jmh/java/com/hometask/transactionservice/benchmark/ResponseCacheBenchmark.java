@@ -0,0 +1,101 @@
+package com.hometask.transactionservice.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hometask.transactionservice.cache.TransactionResponseCache;
+import com.hometask.transactionservice.config.CborHttpMessageConverter;
+import com.hometask.transactionservice.model.Transaction;
+import com.hometask.transactionservice.repository.TransactionRepository;
+import com.hometask.transactionservice.service.TransactionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A cached GET with and without the response cache: a hit on a cache of transaction objects followed by JSON
+ * serialization, as {@code transactionCache} and the message converter do ({@code serialized}), against a hit on
+ * the response cache followed by a copy of its bytes ({@code cached}). Run it with {@code -prof gc}
+ * ({@code -Dbenchmark.profilers=gc}) to compare allocation per GET as well as time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseCacheBenchmark {
+
+    private static final int HOT_TRANSACTIONS = 1_000;
+
+    private TransactionResponseCache responseCache;
+    private Cache<String, Transaction> transactionCache;
+    private ObjectWriter writer;
+    private String[] ids;
+
+    /**
+     * Stands in for the response stream, reset before each GET so that only the GET itself allocates.
+     */
+    @State(Scope.Thread)
+    public static class Response {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream(1024);
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        TransactionRepository repository = new TransactionRepository();
+        responseCache = new TransactionResponseCache(repository, new TransactionService(repository), objectMapper,
+                CborHttpMessageConverter.cborMapper(objectMapper), HOT_TRANSACTIONS, new SimpleMeterRegistry());
+        transactionCache = Caffeine.newBuilder().maximumSize(HOT_TRANSACTIONS).build();
+        writer = objectMapper.writerFor(Transaction.class);
+
+        ids = new String[HOT_TRANSACTIONS];
+        LocalDateTime base = LocalDateTime.now();
+        for (int i = 0; i < HOT_TRANSACTIONS; i++) {
+            Transaction transaction = repository.save(BenchmarkData.transaction("hot-" + i, i, base.plusSeconds(i)));
+            transactionCache.put(transaction.getId(), transaction);
+            ids[i] = transaction.getId();
+            // Fill the response cache before measuring, as repeated reads of a hot transaction would
+            responseCache.body(ids[i], false);
+        }
+    }
+
+    private String nextId() {
+        return ids[ThreadLocalRandom.current().nextInt(HOT_TRANSACTIONS)];
+    }
+
+    @Benchmark
+    public int serialized(Response response) throws IOException {
+        response.out.reset();
+        writer.writeValue(response.out, transactionCache.getIfPresent(nextId()));
+        return response.out.size();
+    }
+
+    @Benchmark
+    public int cached(Response response) throws IOException {
+        response.out.reset();
+        response.out.write(responseCache.body(nextId(), false));
+        return response.out.size();
+    }
+}
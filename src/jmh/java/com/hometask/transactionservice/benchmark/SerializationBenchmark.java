@@ -0,0 +1,103 @@
+package com.hometask.transactionservice.benchmark;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.hometask.transactionservice.config.CborHttpMessageConverter;
+import com.hometask.transactionservice.dto.TransactionRequest;
+import com.hometask.transactionservice.model.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * (De)serialization with an ObjectMapper configured the way Spring Boot configures the application's, in JSON or in
+ * the CBOR format clients can negotiate instead: single objects, and pages of {@value #PAGE_SIZE} transactions as a
+ * listing returns them. Compare the two {@code format} values of each benchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"json", "cbor"})
+    private String format;
+
+    private ObjectMapper objectMapper;
+    private Transaction transaction;
+    private byte[] transactionBytes;
+    private byte[] requestBytes;
+    private ObjectWriter pageWriter;
+    private ObjectReader pageReader;
+    private List<Transaction> page;
+    private byte[] pageBytes;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper jsonMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        objectMapper = format.equals("cbor") ? CborHttpMessageConverter.cborMapper(jsonMapper) : jsonMapper;
+        transaction = BenchmarkData.transaction(UUID.randomUUID().toString(), 2, LocalDateTime.now());
+        transactionBytes = objectMapper.writeValueAsBytes(transaction);
+        requestBytes = objectMapper.writeValueAsBytes(BenchmarkData.request(1));
+
+        JavaType pageType = objectMapper.getTypeFactory().constructCollectionType(List.class, Transaction.class);
+        pageWriter = objectMapper.writerFor(pageType);
+        pageReader = objectMapper.readerFor(pageType);
+        page = new ArrayList<>();
+        LocalDateTime base = LocalDateTime.now();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            page.add(BenchmarkData.transaction(UUID.randomUUID().toString(), i, base.plusSeconds(i)));
+        }
+        pageBytes = pageWriter.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] serializeTransaction() throws IOException {
+        return objectMapper.writeValueAsBytes(transaction);
+    }
+
+    @Benchmark
+    public Transaction deserializeTransaction() throws IOException {
+        return objectMapper.readValue(transactionBytes, Transaction.class);
+    }
+
+    @Benchmark
+    public TransactionRequest deserializeRequest() throws IOException {
+        return objectMapper.readValue(requestBytes, TransactionRequest.class);
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws IOException {
+        return pageWriter.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public List<Transaction> deserializePage() throws IOException {
+        return pageReader.readValue(pageBytes);
+    }
+}
@@ -0,0 +1,113 @@
+package com.hometask.transactionservice.benchmark;
+
+import com.hometask.transactionservice.config.CacheConfig;
+import com.hometask.transactionservice.config.StorageConfig;
+import com.hometask.transactionservice.model.Transaction;
+import com.hometask.transactionservice.repository.TransactionRepository;
+import com.hometask.transactionservice.service.TransactionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Benchmarks the service through its Spring proxy, so the {@code @Cacheable} and {@code @CacheEvict} advice runs
+ * just as it does in the application, once with the Caffeine caches and once with caching disabled.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int storeSize;
+
+    @Param({"caffeine", "none"})
+    public String cache;
+
+    private AnnotationConfigApplicationContext context;
+    private TransactionService service;
+    private String[] ids;
+    private final AtomicLong requests = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new AnnotationConfigApplicationContext(
+                cache.equals("caffeine") ? CaffeineCaching.class : NoCaching.class);
+        service = context.getBean(TransactionService.class);
+        ids = BenchmarkData.prefill(context.getBean(TransactionRepository.class), storeSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Transaction createTransaction() {
+        return service.createTransaction(BenchmarkData.request(requests.incrementAndGet()));
+    }
+
+    @Benchmark
+    public Transaction getTransaction() {
+        return service.getTransaction(ids[ThreadLocalRandom.current().nextInt(storeSize)]);
+    }
+
+    @Configuration
+    @EnableCaching
+    @Import({StorageConfig.class, TransactionRepository.class, TransactionService.class})
+    static class ServiceContext {
+
+        @Bean
+        public LocalValidatorFactoryBean validator() {
+            return new LocalValidatorFactoryBean();
+        }
+
+        @Bean
+        public MeterRegistry meterRegistry() {
+            return new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        }
+    }
+
+    @Configuration
+    @Import({ServiceContext.class, CacheConfig.class})
+    static class CaffeineCaching {
+    }
+
+    @Configuration
+    @Import(ServiceContext.class)
+    static class NoCaching {
+
+        @Bean
+        public CacheManager cacheManager() {
+            return new NoOpCacheManager();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.hometask.transactionservice.benchmark;
+
+import com.hometask.transactionservice.model.Transaction;
+import com.hometask.transactionservice.repository.CompactTransactionStore;
+import com.hometask.transactionservice.repository.ConcurrentMapTransactionStore;
+import com.hometask.transactionservice.repository.TransactionStore;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jol.info.GraphStats;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heap retained per transaction by each storage engine, measured with JOL by walking the store's object graph
+ * after it was filled with {@value #ROWS} transactions, and reported as the {@code bytesPerTransaction} counter.
+ * The score is the time to fill the store. JMH sums such counters over the measured iterations, so there is one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 1)
+@Fork(1)
+public class StorageFootprintBenchmark {
+
+    private static final int ROWS = 200_000;
+    private static final String[] TYPES = {"DEPOSIT", "WITHDRAWAL", "TRANSFER"};
+
+    @Param({"map", "compact"})
+    private String engine;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Footprint {
+        public double bytesPerTransaction;
+        private TransactionStore store;
+
+        @TearDown(Level.Iteration)
+        public void measure() {
+            bytesPerTransaction = GraphStats.parseInstance(store).totalSize() / (double) ROWS;
+            store = null;
+        }
+    }
+
+    @Benchmark
+    public TransactionStore fill(Footprint footprint) {
+        TransactionStore store = engine.equals("compact") ? new CompactTransactionStore()
+                : new ConcurrentMapTransactionStore();
+        for (int i = 0; i < ROWS; i++) {
+            Transaction transaction = transaction(i);
+            store.compute(transaction.getId(), (id, previous) -> transaction);
+        }
+        footprint.store = store;
+        return store;
+    }
+
+    /**
+     * Builds a transaction the way a deserialized request would look: every string is its own instance.
+     */
+    private static Transaction transaction(int i) {
+        return new Transaction(
+                new String(String.valueOf(10_000_000 + i % 50_000)),
+                BigDecimal.valueOf(100 + i % 100_000, 2),
+                new String(TYPES[i % TYPES.length]),
+                "Payment reference " + i,
+                i % TYPES.length == 2 ? new String(String.valueOf(20_000_000 + i % 50_000)) : null);
+    }
+}
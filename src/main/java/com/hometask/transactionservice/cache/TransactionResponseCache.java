@@ -0,0 +1,179 @@
+package com.hometask.transactionservice.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hometask.transactionservice.exception.TransactionNotFoundException;
+import com.hometask.transactionservice.model.Transaction;
+import com.hometask.transactionservice.repository.TransactionJournal;
+import com.hometask.transactionservice.repository.TransactionRepository;
+import com.hometask.transactionservice.service.TransactionService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.SmartLifecycle;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+
+/**
+ * The encoded response bodies of recently read transactions, so a repeated {@code GET /api/transactions/{id}}
+ * writes bytes it already has instead of serializing the transaction again. Each entry keeps the version it was
+ * encoded from and its JSON and CBOR bodies, each encoded the first time a client asks for that format.
+ * <p>
+ * The cache hears about writes as a journal of the repository, and a journal is called just before the write
+ * becomes visible to readers. So a read that misses can still load the old version after the journal was called,
+ * and the cache has to remember the write rather than only drop the entry. An update leaves an entry with just the
+ * new version, a delete leaves a deleted entry, and a body is stored only into an entry whose version is not newer
+ * than the body's. A create needs no entry, as no reader can have loaded an older version of it. A clear empties the
+ * cache; a read racing it may keep its body until the entry is evicted or written, which only replaying the log or
+ * resyncing a follower risks.
+ */
+public class TransactionResponseCache implements TransactionJournal, SmartLifecycle {
+
+    private final TransactionRepository repository;
+    private final TransactionService service;
+    private final ObjectWriter jsonWriter;
+    private final ObjectWriter cborWriter;
+    private final Cache<String, Entry> entries;
+    private volatile boolean running;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public TransactionResponseCache(TransactionRepository repository, TransactionService service,
+                                    ObjectMapper jsonMapper, ObjectMapper cborMapper, long maxEntries,
+                                    MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.service = service;
+        this.jsonWriter = jsonMapper.writerFor(Transaction.class);
+        this.cborWriter = cborMapper.writerFor(Transaction.class);
+        this.entries = Caffeine.newBuilder().maximumSize(maxEntries).build();
+
+        hits = Counter.builder("transaction.response.cache")
+                .description("Transaction reads answered with an already encoded body")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        misses = Counter.builder("transaction.response.cache")
+                .description("Transaction reads answered with an already encoded body")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("transaction.response.cache.size", entries, Cache::estimatedSize)
+                .description("Transactions with an entry in the response cache")
+                .register(meterRegistry);
+    }
+
+    /**
+     * The body of the transaction as CBOR, or as JSON if {@code cbor} is false; the same bytes the message
+     * converters would write. The array is shared and must not be changed.
+     *
+     * @throws TransactionNotFoundException if there is no transaction with this id
+     */
+    public byte[] body(String id, boolean cbor) {
+        Entry entry = entries.asMap().get(id);
+        byte[] body = entry != null ? entry.body(cbor) : null;
+        if (body != null) {
+            hits.increment();
+            return body;
+        }
+        misses.increment();
+        entries.asMap().putIfAbsent(id, Entry.EMPTY);
+        Transaction transaction;
+        try {
+            transaction = service.getTransaction(id);
+        } catch (TransactionNotFoundException e) {
+            // Reads of ids that do not exist should not fill the cache with empty entries
+            entries.asMap().remove(id, Entry.EMPTY);
+            throw e;
+        }
+        byte[] encoded = encode(transaction, cbor);
+        long version = transaction.getVersion();
+        entries.asMap().computeIfPresent(id, (key, current) ->
+                current.deleted() || current.version() > version ? current : current.with(version, cbor, encoded));
+        return encoded;
+    }
+
+    @Override
+    public CompletableFuture<Void> recordSave(Transaction transaction) {
+        long version = transaction.getVersion();
+        BiFunction<String, Entry, Entry> saved = (id, current) -> current == null || current.deleted()
+                || current.version() < version ? new Entry(version, false, null, null) : current;
+        if (version == Transaction.INITIAL_VERSION) {
+            entries.asMap().computeIfPresent(transaction.getId(), saved);
+        } else {
+            entries.asMap().compute(transaction.getId(), saved);
+        }
+        return COMPLETED;
+    }
+
+    @Override
+    public CompletableFuture<Void> recordDelete(String id) {
+        entries.put(id, Entry.DELETED);
+        return COMPLETED;
+    }
+
+    @Override
+    public CompletableFuture<Void> recordClear() {
+        entries.invalidateAll();
+        return COMPLETED;
+    }
+
+    long size() {
+        entries.cleanUp();
+        return entries.estimatedSize();
+    }
+
+    private byte[] encode(Transaction transaction, boolean cbor) {
+        try {
+            return (cbor ? cborWriter : jsonWriter).writeValueAsBytes(transaction);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        if (!running) {
+            repository.addJournal(this);
+            running = true;
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (running) {
+            running = false;
+            repository.removeJournal(this);
+            entries.invalidateAll();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * The version the bodies were encoded from, or the latest version saved once a save dropped them. A deleted
+     * entry takes no bodies until the id is saved again.
+     */
+    private record Entry(long version, boolean deleted, byte[] json, byte[] cbor) {
+
+        static final Entry EMPTY = new Entry(0, false, null, null);
+        static final Entry DELETED = new Entry(0, true, null, null);
+
+        byte[] body(boolean cbor) {
+            return cbor ? this.cbor : json;
+        }
+
+        Entry with(long encodedVersion, boolean cbor, byte[] body) {
+            // Bodies of an older version, if any, are dropped
+            byte[] otherBody = encodedVersion == version ? body(!cbor) : null;
+            return cbor
+                    ? new Entry(encodedVersion, false, otherBody, body)
+                    : new Entry(encodedVersion, false, body, otherBody);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.hometask.transactionservice.cluster;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.IntStream;
+
+/**
+ * Consistent-hash ring assigning each key (an account number) to one node. Every node is placed on the ring at
+ * several points, and a key belongs to the node at the first point at or after the key's hash. When a node joins
+ * or leaves, only the keys next to its points change owner. The hash does not depend on the JVM, so every node
+ * with the same member list computes the same owners.
+ */
+public final class HashRing {
+
+    private final long[] points;
+    private final String[] owners;
+    private final Set<String> nodes;
+
+    /**
+     * @param virtualNodes points per node; more points spread keys more evenly
+     */
+    public HashRing(Collection<String> nodes, int virtualNodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("A hash ring needs at least one node");
+        }
+        this.nodes = Set.copyOf(new TreeSet<>(nodes));
+        List<Point> ring = this.nodes.stream()
+                .flatMap(node -> IntStream.range(0, virtualNodes)
+                        .mapToObj(i -> new Point(hash(node + "#" + i), node)))
+                .sorted(Comparator.comparingLong(Point::hash).thenComparing(Point::node))
+                .toList();
+        points = ring.stream().mapToLong(Point::hash).toArray();
+        owners = ring.stream().map(Point::node).toArray(String[]::new);
+    }
+
+    public String ownerOf(String key) {
+        int i = Arrays.binarySearch(points, hash(key));
+        if (i < 0) {
+            i = -i - 1;
+        }
+        return owners[i == points.length ? 0 : i];
+    }
+
+    public Set<String> nodes() {
+        return nodes;
+    }
+
+    static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is not available", e);
+        }
+    }
+
+    private record Point(long hash, String node) {
+    }
+}
@@ -0,0 +1,110 @@
+package com.hometask.transactionservice.cluster;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Sends API requests to other nodes. The underlying HTTP/1.1 client keeps connections to each peer open and
+ * reuses them, so a forwarded request normally costs one round trip and no connection setup. Every request
+ * carries {@value #HOP_HEADER}, which tells the receiving node to answer from its own data instead of routing the
+ * request again.
+ */
+public class PeerClient {
+
+    public static final String HOP_HEADER = "X-Cluster-Hop";
+
+    private final HttpClient client;
+    private final Duration requestTimeout;
+
+    public PeerClient(Duration connectTimeout, Duration requestTimeout) {
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(connectTimeout)
+                .build();
+        this.requestTimeout = requestTimeout;
+    }
+
+    /**
+     * @param target path and query, e.g. {@code /api/accounts/123/balance}
+     * @param body   request body, or null for none
+     */
+    public PeerResponse send(String node, String method, String target, byte[] body, String contentType) {
+        return send(node, method, target, body, contentType, Map.of());
+    }
+
+    /**
+     * Same as {@link #send(String, String, String, byte[], String)} with additional request headers.
+     */
+    public PeerResponse send(String node, String method, String target, byte[] body, String contentType,
+                             Map<String, String> headers) {
+        try {
+            return PeerResponse.of(client.send(request(node, method, target, body, contentType, headers),
+                    HttpResponse.BodyHandlers.ofByteArray()));
+        } catch (IOException e) {
+            throw new PeerUnavailableException(node, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PeerUnavailableException(node, e);
+        }
+    }
+
+    /**
+     * Same as {@link #send} without waiting for the answer; pass the result to {@link #await}.
+     */
+    public CompletableFuture<PeerResponse> sendAsync(String node, String method, String target, byte[] body,
+                                                     String contentType) {
+        return client.sendAsync(request(node, method, target, body, contentType, Map.of()),
+                        HttpResponse.BodyHandlers.ofByteArray())
+                .handle((response, failure) -> {
+                    if (failure != null) {
+                        throw new PeerUnavailableException(node,
+                                failure instanceof CompletionException ? failure.getCause() : failure);
+                    }
+                    return PeerResponse.of(response);
+                });
+    }
+
+    public static PeerResponse await(CompletableFuture<PeerResponse> response) {
+        try {
+            return response.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof PeerUnavailableException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private HttpRequest request(String node, String method, String target, byte[] body, String contentType,
+                                Map<String, String> headers) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(node + target))
+                .timeout(requestTimeout)
+                .header(HOP_HEADER, "1")
+                .method(method, body == null || body.length == 0
+                        ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofByteArray(body));
+        if (contentType != null) {
+            request.header("Content-Type", contentType);
+        }
+        if (!headers.containsKey("Accept")) {
+            request.header("Accept", "application/json");
+        }
+        headers.forEach(request::header);
+        return request.build();
+    }
+
+    public record PeerResponse(int status, String contentType, String location, byte[] body) {
+
+        static PeerResponse of(HttpResponse<byte[]> response) {
+            return new PeerResponse(response.statusCode(),
+                    response.headers().firstValue("Content-Type").orElse(null),
+                    response.headers().firstValue("Location").orElse(null), response.body());
+        }
+    }
+}
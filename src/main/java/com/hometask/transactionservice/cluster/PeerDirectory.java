@@ -0,0 +1,147 @@
+package com.hometask.transactionservice.cluster;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The nodes of the cluster and the {@link HashRing} that assigns accounts to them. Nodes are identified by the base
+ * URL other nodes reach them at, e.g. {@code http://10.0.0.7:8080}.
+ * <p>
+ * The member list is either static or taken from DNS: every address a name resolves to, such as a Kubernetes
+ * headless service, is a node on the given port. DNS is resolved again periodically, and the ring is rebuilt when
+ * the addresses change. This node is always a member, even before DNS lists it.
+ */
+public class PeerDirectory implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(PeerDirectory.class);
+    private static final int VIRTUAL_NODES = 128;
+
+    private final String self;
+    private final String dnsName;
+    private final int port;
+    private final long refreshMillis;
+
+    private volatile HashRing ring;
+    private ScheduledExecutorService resolver;
+    private volatile boolean running;
+
+    private PeerDirectory(String self, List<String> nodes, String dnsName, int port, long refreshMillis) {
+        this.self = normalize(self);
+        this.dnsName = dnsName;
+        this.port = port;
+        this.refreshMillis = refreshMillis;
+        this.ring = new HashRing(nodes.stream().map(PeerDirectory::normalize).toList(), VIRTUAL_NODES);
+    }
+
+    /**
+     * A fixed member list, which must include {@code self}.
+     */
+    public static PeerDirectory fixed(String self, List<String> nodes) {
+        if (!nodes.stream().map(PeerDirectory::normalize).toList().contains(normalize(self))) {
+            throw new IllegalArgumentException("transaction.cluster.peers " + nodes
+                    + " does not contain this node's transaction.cluster.self-url " + self);
+        }
+        return new PeerDirectory(self, nodes, null, 0, 0);
+    }
+
+    /**
+     * Members from the addresses {@code dnsName} resolves to, resolved again every {@code refreshMillis}.
+     */
+    public static PeerDirectory fromDns(String self, String dnsName, int port, long refreshMillis) {
+        return new PeerDirectory(self, List.of(self), dnsName, port, refreshMillis);
+    }
+
+    public String self() {
+        return self;
+    }
+
+    public boolean isSelf(String node) {
+        return self.equals(node);
+    }
+
+    /**
+     * The node that owns the account; this node when the account is unknown.
+     */
+    public String ownerOf(String accountNumber) {
+        return accountNumber == null ? self : ring.ownerOf(accountNumber);
+    }
+
+    /**
+     * Every member, this node included.
+     */
+    public Set<String> nodes() {
+        return ring.nodes();
+    }
+
+    /**
+     * Every member except this node.
+     */
+    public List<String> peers() {
+        return ring.nodes().stream().filter(node -> !isSelf(node)).sorted().toList();
+    }
+
+    void refresh() {
+        Set<String> nodes = new TreeSet<>();
+        nodes.add(self);
+        try {
+            for (InetAddress address : InetAddress.getAllByName(dnsName)) {
+                nodes.add(normalize("http://" + address.getHostAddress() + ":" + port));
+            }
+        } catch (UnknownHostException e) {
+            log.warn("Could not resolve cluster peers from {}, keeping {}", dnsName, ring.nodes());
+            return;
+        }
+        if (!nodes.equals(ring.nodes())) {
+            log.info("Cluster members changed to {}", nodes);
+            ring = new HashRing(nodes, VIRTUAL_NODES);
+        }
+    }
+
+    private static String normalize(String url) {
+        String trimmed = url.trim();
+        return trimmed.endsWith("/") ? trimmed.substring(0, trimmed.length() - 1) : trimmed;
+    }
+
+    // Lifecycle
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        if (dnsName != null) {
+            refresh();
+            resolver = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "cluster-peer-resolver");
+                thread.setDaemon(true);
+                return thread;
+            });
+            resolver.scheduleWithFixedDelay(this::refresh, refreshMillis, refreshMillis, TimeUnit.MILLISECONDS);
+        }
+        running = true;
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (resolver != null) {
+            resolver.shutdownNow();
+            resolver = null;
+        }
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
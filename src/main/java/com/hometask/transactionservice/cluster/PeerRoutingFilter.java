@@ -0,0 +1,468 @@
+package com.hometask.transactionservice.cluster;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.hometask.transactionservice.cluster.PeerClient.PeerResponse;
+import com.hometask.transactionservice.config.CborHttpMessageConverter;
+import com.hometask.transactionservice.dto.AccountBalance;
+import com.hometask.transactionservice.dto.AccountRollups;
+import com.hometask.transactionservice.dto.TransactionBatchItem;
+import com.hometask.transactionservice.dto.TransactionBatchResponse;
+import com.hometask.transactionservice.dto.TransactionPage;
+import com.hometask.transactionservice.exception.GlobalExceptionHandler.ErrorResponse;
+import com.hometask.transactionservice.idempotency.IdempotencyFilter;
+import com.hometask.transactionservice.metrics.OperationTimers;
+import com.hometask.transactionservice.model.Transaction;
+import com.hometask.transactionservice.repository.Rollup;
+import com.hometask.transactionservice.repository.TimelineKey;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Routes API requests in a cluster where each node stores the transactions of the accounts it owns:
+ * <ul>
+ *     <li>A create goes to the owner of its account, so retries of the same request meet the same duplicate
+ *     window wherever they arrive. A batch is split by owner and the results are put back in request order.</li>
+ *     <li>A request for one transaction by id is handled here if this node has it, otherwise by the first peer
+ *     that does.</li>
+ *     <li>Listings, searches and account reads, rollups included, are sent to every node and the answers merged,
+ *     because a transfer is stored only with its source account and a transaction stays where it was created.</li>
+ * </ul>
+ * Requests from other nodes carry {@value PeerClient#HOP_HEADER} and are always handled locally. Export is served
+ * from this node's transactions only. A transaction stays on the node it was created on, so after the members
+ * change, or an update moves it to another account, it is still found but new duplicates of it may be created
+ * through its account's new owner.
+ * <p>
+ * Bodies may be JSON or CBOR. Forwarded requests keep the client's format, and merged answers, which peers return as
+ * JSON, are written in the format the client accepts.
+ */
+public class PeerRoutingFilter extends OncePerRequestFilter {
+
+    private static final String TRANSACTIONS = "/api/transactions";
+    private static final String BATCH = TRANSACTIONS + "/batch";
+    private static final String EXPORT = TRANSACTIONS + "/export";
+    private static final String SEARCH = TRANSACTIONS + "/search";
+    private static final String STREAM = TRANSACTIONS + "/stream";
+    private static final int DEFAULT_SEARCH_LIMIT = 20;
+    private static final String PREFER = "Prefer";
+    private static final String ACCOUNTS = "/api/accounts/";
+    private static final int DEFAULT_PAGE_SIZE = 10;
+    private static final int MAX_OFFSET_ROWS = 1000;
+
+    private final PeerDirectory directory;
+    private final PeerClient client;
+    private final ObjectMapper objectMapper;
+    private final ObjectMapper cborMapper;
+
+    private final Timer forwardTimer;
+    private final Timer forwardBatchTimer;
+    private final Timer locateTimer;
+    private final Timer gatherTimer;
+
+    public PeerRoutingFilter(PeerDirectory directory, PeerClient client, ObjectMapper objectMapper,
+                             ObjectMapper cborMapper, MeterRegistry meterRegistry) {
+        this.directory = directory;
+        this.client = client;
+        this.objectMapper = objectMapper;
+        this.cborMapper = cborMapper;
+
+        OperationTimers timers = new OperationTimers(meterRegistry, "transaction.cluster",
+                "Time spent on requests to other nodes", Duration.ofNanos(100_000), Duration.ofSeconds(10));
+        forwardTimer = timers.timer("forward");
+        forwardBatchTimer = timers.timer("forwardBatch");
+        locateTimer = timers.timer("locate");
+        gatherTimer = timers.timer("gather");
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getHeader(PeerClient.HOP_HEADER) != null || !pathOf(request).startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String path = pathOf(request);
+        boolean get = request.getMethod().equals("GET");
+        boolean post = request.getMethod().equals("POST");
+        try {
+            if (path.equals(TRANSACTIONS) && post) {
+                create(request, response, chain);
+            } else if (path.equals(BATCH) && post) {
+                createBatch(request, response, chain);
+            } else if (path.equals(TRANSACTIONS) && get && isKeysetPage(request)) {
+                gatherPage(request, response);
+            } else if (path.equals(TRANSACTIONS) && get) {
+                gatherOffsetPage(request, response, chain);
+            } else if (path.equals(SEARCH) && get) {
+                gatherSearch(request, response, chain);
+            } else if (path.startsWith(TRANSACTIONS + "/") && !path.equals(EXPORT) && !path.equals(STREAM)) {
+                locate(request, response, chain);
+            } else if (path.startsWith(ACCOUNTS) && get && path.endsWith("/balance")) {
+                gatherBalance(request, response);
+            } else if (path.startsWith(ACCOUNTS) && get && path.endsWith("/rollups")) {
+                gatherRollups(request, response);
+            } else if (path.startsWith(ACCOUNTS) && get && path.endsWith("/transactions")) {
+                gatherPage(request, response);
+            } else {
+                chain.doFilter(request, response);
+            }
+        } catch (PeerUnavailableException e) {
+            write(request, response, HttpStatus.SERVICE_UNAVAILABLE.value(), new ErrorResponse(
+                    HttpStatus.SERVICE_UNAVAILABLE.value(), e.getMessage(), LocalDateTime.now()));
+        }
+    }
+
+    /**
+     * Cursor pages and time-range pages, which also page by cursor.
+     */
+    private static boolean isKeysetPage(HttpServletRequest request) {
+        return request.getParameter("cursor") != null
+                || request.getParameter("from") != null && request.getParameter("to") != null;
+    }
+
+    private void create(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        byte[] body = request.getInputStream().readAllBytes();
+        String owner = directory.ownerOf(accountOf(readTree(body, request.getContentType())));
+        if (directory.isSelf(owner)) {
+            chain.doFilter(new CachedBodyRequest(request, body), response);
+            return;
+        }
+        // The key goes along so that the owner, which stores the transaction, also answers retries of it, and a
+        // request for an asynchronous create is queued by the owner, whose ticket lookups find it
+        Map<String, String> headers = new HashMap<>();
+        for (String name : List.of(IdempotencyFilter.HEADER, PREFER, HttpHeaders.ACCEPT)) {
+            String value = request.getHeader(name);
+            if (value != null) {
+                headers.put(name, value);
+            }
+        }
+        copy(forwardTimer.record(() -> client.send(owner, request.getMethod(), targetOf(request), body,
+                request.getContentType(), headers)), response);
+    }
+
+    private void createBatch(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        byte[] body = request.getInputStream().readAllBytes();
+        JsonNode items = readTree(body, request.getContentType());
+        Map<String, List<Integer>> positions = new LinkedHashMap<>();
+        if (items != null && items.isArray()) {
+            for (int i = 0; i < items.size(); i++) {
+                positions.computeIfAbsent(directory.ownerOf(accountOf(items.get(i))), owner -> new ArrayList<>())
+                        .add(i);
+            }
+        }
+        // Malformed and empty batches are left to the local controller to reject
+        if (positions.isEmpty() || (positions.size() == 1 && positions.containsKey(directory.self()))) {
+            chain.doFilter(new CachedBodyRequest(request, body), response);
+            return;
+        }
+
+        List<TransactionBatchItem> results = new ArrayList<>(items.size());
+        PeerResponse failed = forwardBatchTimer.record(() -> {
+            // This node's share goes through the same path as the others' so every share is answered alike
+            Map<String, CompletableFuture<PeerResponse>> shares = new LinkedHashMap<>();
+            positions.forEach((owner, indexes) -> {
+                ArrayNode share = objectMapper.createArrayNode();
+                indexes.forEach(i -> share.add(items.get(i)));
+                shares.put(owner, client.sendAsync(owner, "POST", targetOf(request),
+                        encode(share, request.getContentType()), request.getContentType()));
+            });
+            for (Map.Entry<String, CompletableFuture<PeerResponse>> share : shares.entrySet()) {
+                PeerResponse answer = PeerClient.await(share.getValue());
+                if (answer.status() != HttpStatus.OK.value()) {
+                    return answer;
+                }
+                List<Integer> indexes = positions.get(share.getKey());
+                for (TransactionBatchItem item : read(answer, TransactionBatchResponse.class).getResults()) {
+                    item.setIndex(indexes.get(item.getIndex()));
+                    results.add(item);
+                }
+            }
+            return null;
+        });
+        if (failed != null) {
+            copy(failed, response);
+            return;
+        }
+        results.sort(Comparator.comparingInt(TransactionBatchItem::getIndex));
+        write(request, response, HttpStatus.OK.value(), new TransactionBatchResponse(results));
+    }
+
+    private void locate(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        byte[] body = request.getInputStream().readAllBytes();
+        ContentCachingResponseWrapper local = new ContentCachingResponseWrapper(response);
+        chain.doFilter(new CachedBodyRequest(request, body), local);
+        if (local.getStatus() != HttpStatus.NOT_FOUND.value()) {
+            local.copyBodyToResponse();
+            return;
+        }
+        Map<String, String> accept = request.getHeader(HttpHeaders.ACCEPT) == null
+                ? Map.of() : Map.of(HttpHeaders.ACCEPT, request.getHeader(HttpHeaders.ACCEPT));
+        PeerResponse found = locateTimer.record(() -> {
+            for (String peer : directory.peers()) {
+                PeerResponse answer = client.send(peer, request.getMethod(), targetOf(request), body,
+                        request.getContentType(), accept);
+                if (answer.status() != HttpStatus.NOT_FOUND.value()) {
+                    return answer;
+                }
+            }
+            return null;
+        });
+        if (found == null) {
+            local.copyBodyToResponse();
+        } else {
+            copy(found, response);
+        }
+    }
+
+    /**
+     * Cursor pages: every node returns its first page after the cursor; the merged page is the first
+     * {@code size} of all of them.
+     */
+    private void gatherPage(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        List<PeerResponse> answers = gather(targetOf(request));
+        PeerResponse failed = firstFailure(answers);
+        if (failed != null) {
+            copy(failed, response);
+            return;
+        }
+        Integer size = intParameter(request, "size", DEFAULT_PAGE_SIZE);
+        List<Transaction> items = new ArrayList<>();
+        boolean more = false;
+        for (PeerResponse answer : answers) {
+            TransactionPage page = read(answer, TransactionPage.class);
+            items.addAll(page.getItems());
+            more |= page.getNextCursor() != null;
+        }
+        items.sort(Comparator.comparing(TimelineKey::of));
+        more |= items.size() > size;
+        List<Transaction> page = new ArrayList<>(items.subList(0, Math.min(size, items.size())));
+        String nextCursor = more && !page.isEmpty() ? TimelineKey.of(page.get(page.size() - 1)).toCursor() : null;
+        write(request, response, HttpStatus.OK.value(), new TransactionPage(page, nextCursor));
+    }
+
+    /**
+     * Offset pages: page {@code n} of the merged order is among the first {@code (n + 1) * size} transactions of
+     * each node, so those are fetched and merged. That grows with the page number on every node, so pages that
+     * reach past the first {@value #MAX_OFFSET_ROWS} transactions are refused and the client is sent to cursor
+     * pages, which cost the same at any depth.
+     */
+    private void gatherOffsetPage(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Integer page = intParameter(request, "page", 0);
+        Integer size = intParameter(request, "size", DEFAULT_PAGE_SIZE);
+        if (page == null || size == null || page < 0 || size < 1) {
+            // Let the controller reject it
+            chain.doFilter(request, response);
+            return;
+        }
+        long end = (long) (page + 1) * size;
+        if (end > MAX_OFFSET_ROWS) {
+            String message = "In clustered mode page and size can reach only the first " + MAX_OFFSET_ROWS
+                    + " transactions; page further with cursor, starting from GET " + TRANSACTIONS
+                    + "?cursor=&size=" + size;
+            write(request, response, HttpStatus.BAD_REQUEST.value(),
+                    new ErrorResponse(HttpStatus.BAD_REQUEST.value(), message, LocalDateTime.now()));
+            return;
+        }
+        List<PeerResponse> answers = gather(TRANSACTIONS + "?page=0&size=" + end);
+        PeerResponse failed = firstFailure(answers);
+        if (failed != null) {
+            copy(failed, response);
+            return;
+        }
+        List<Transaction> items = new ArrayList<>();
+        for (PeerResponse answer : answers) {
+            items.addAll(List.of(read(answer, Transaction[].class)));
+        }
+        items.sort(Comparator.comparing(TimelineKey::of));
+        int from = (int) Math.min((long) page * size, items.size());
+        write(request, response, HttpStatus.OK.value(), items.subList(from, Math.min((int) end, items.size())));
+    }
+
+    /**
+     * Each node searches its own transactions; the newest {@code limit} of all their hits are kept.
+     */
+    private void gatherSearch(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Integer limit = intParameter(request, "limit", DEFAULT_SEARCH_LIMIT);
+        if (limit == null) {
+            // Let the controller reject it
+            chain.doFilter(request, response);
+            return;
+        }
+        List<PeerResponse> answers = gather(targetOf(request));
+        PeerResponse failed = firstFailure(answers);
+        if (failed != null) {
+            copy(failed, response);
+            return;
+        }
+        List<Transaction> items = new ArrayList<>();
+        for (PeerResponse answer : answers) {
+            items.addAll(List.of(read(answer, Transaction[].class)));
+        }
+        items.sort(Comparator.comparing(TimelineKey::of, Comparator.reverseOrder()));
+        write(request, response, HttpStatus.OK.value(), items.subList(0, Math.min(limit, items.size())));
+    }
+
+    private void gatherBalance(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        List<PeerResponse> answers = gather(targetOf(request));
+        PeerResponse failed = firstFailure(answers);
+        if (failed != null) {
+            copy(failed, response);
+            return;
+        }
+        String accountNumber = null;
+        BigDecimal balance = BigDecimal.ZERO;
+        for (PeerResponse answer : answers) {
+            AccountBalance part = read(answer, AccountBalance.class);
+            accountNumber = part.getAccountNumber();
+            balance = balance.add(part.getBalance());
+        }
+        write(request, response, HttpStatus.OK.value(), new AccountBalance(accountNumber, balance));
+    }
+
+    private void gatherRollups(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        List<PeerResponse> answers = gather(targetOf(request));
+        PeerResponse failed = firstFailure(answers);
+        if (failed != null) {
+            copy(failed, response);
+            return;
+        }
+        AccountRollups merged = null;
+        TreeMap<Rollup, Rollup> buckets = new TreeMap<>(Rollup.ORDER);
+        for (PeerResponse answer : answers) {
+            merged = read(answer, AccountRollups.class);
+            for (Rollup rollup : merged.getBuckets()) {
+                buckets.merge(rollup, rollup, Rollup::merge);
+            }
+        }
+        merged.setBuckets(new ArrayList<>(buckets.values()));
+        write(request, response, HttpStatus.OK.value(), merged);
+    }
+
+    /**
+     * Sends the GET to every node, this one included, at the same time.
+     */
+    private List<PeerResponse> gather(String target) {
+        return gatherTimer.record(() -> {
+            List<CompletableFuture<PeerResponse>> answers = directory.nodes().stream()
+                    .map(node -> client.sendAsync(node, "GET", target, null, null))
+                    .toList();
+            return answers.stream().map(PeerClient::await).toList();
+        });
+    }
+
+    private static PeerResponse firstFailure(List<PeerResponse> answers) {
+        return answers.stream()
+                .filter(answer -> answer.status() != HttpStatus.OK.value())
+                .findFirst()
+                .orElse(null);
+    }
+
+    private static String pathOf(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private static String targetOf(HttpServletRequest request) {
+        String query = request.getQueryString();
+        return request.getRequestURI() + (query == null ? "" : "?" + query);
+    }
+
+    /**
+     * @return null if the parameter is not a number
+     */
+    private static Integer intParameter(HttpServletRequest request, String name, int defaultValue) {
+        String value = request.getParameter(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String accountOf(JsonNode request) {
+        JsonNode account = request == null ? null : request.get("accountNumber");
+        return account != null && account.isTextual() ? account.asText() : null;
+    }
+
+    private JsonNode readTree(byte[] body, String contentType) {
+        try {
+            return isCbor(contentType) ? cborMapper.readTree(body) : objectMapper.readTree(body);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private <T> T read(PeerResponse answer, Class<T> type) {
+        try {
+            return objectMapper.readValue(answer.body(), type);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unreadable answer from a peer", e);
+        }
+    }
+
+    private byte[] encode(Object value, String contentType) {
+        try {
+            return isCbor(contentType) ? cborMapper.writeValueAsBytes(value) : objectMapper.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void copy(PeerResponse answer, HttpServletResponse response) throws IOException {
+        response.setStatus(answer.status());
+        if (answer.contentType() != null) {
+            response.setContentType(answer.contentType());
+        }
+        if (answer.location() != null) {
+            response.setHeader(HttpHeaders.LOCATION, answer.location());
+        }
+        response.getOutputStream().write(answer.body());
+    }
+
+    /**
+     * Writes {@code value} as CBOR if the client accepts it, otherwise as JSON.
+     */
+    private void write(HttpServletRequest request, HttpServletResponse response, int status, Object value)
+            throws IOException {
+        boolean cbor = CborHttpMessageConverter.isPreferred(request.getHeader(HttpHeaders.ACCEPT));
+        response.setStatus(status);
+        response.setContentType(cbor ? MediaType.APPLICATION_CBOR_VALUE : MediaType.APPLICATION_JSON_VALUE);
+        (cbor ? cborMapper : objectMapper).writeValue(response.getOutputStream(), value);
+    }
+
+    private static boolean isCbor(String contentType) {
+        return contentType != null && contentType.startsWith(MediaType.APPLICATION_CBOR_VALUE)
+                && !contentType.startsWith(MediaType.APPLICATION_CBOR_VALUE + "-");
+    }
+}
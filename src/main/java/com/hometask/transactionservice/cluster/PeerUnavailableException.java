@@ -0,0 +1,11 @@
+package com.hometask.transactionservice.cluster;
+
+/**
+ * A request to another node failed or timed out.
+ */
+public class PeerUnavailableException extends RuntimeException {
+
+    public PeerUnavailableException(String node, Throwable cause) {
+        super("Peer " + node + " is unavailable: " + cause.getMessage(), cause);
+    }
+}
@@ -1,11 +1,13 @@
 package com.hometask.transactionservice.config;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 @Configuration
@@ -13,8 +15,14 @@ public class CacheConfig {
 
     @Bean
     public CacheManager cacheManager() {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager(
-                "transactionCache", "allTransactionsCache");
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected Cache adaptCaffeineCache(String name,
+                                               com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                return new VersionedCaffeineCache(name, cache, isAllowNullValues());
+            }
+        };
+        cacheManager.setCacheNames(List.of("transactionCache"));
         cacheManager.setCaffeine(caffeineCacheBuilder());
         return cacheManager;
     }
@@ -23,6 +31,8 @@ public class CacheConfig {
         return Caffeine.newBuilder()
                 .initialCapacity(100)
                 .maximumSize(1000)
-                .expireAfterAccess(30, TimeUnit.MINUTES);
+                .expireAfterAccess(30, TimeUnit.MINUTES)
+                // Hit, miss and eviction counts for the cache metrics; Spring Boot binds them to the meter registry
+                .recordStats();
     }
 } 
@@ -0,0 +1,63 @@
+package com.hometask.transactionservice.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Reads and writes {@code application/cbor} bodies, for clients that ask for it with {@code Content-Type} and
+ * {@code Accept}; JSON stays the default. The mapper is a copy of the application's JSON mapper on a CBOR factory,
+ * so both formats carry the same fields. Dates are written as arrays of numbers instead of ISO strings, which are
+ * smaller and cheaper to encode, and amounts as CBOR decimal fractions.
+ */
+@Component
+public class CborHttpMessageConverter extends MappingJackson2CborHttpMessageConverter {
+
+    @Autowired
+    public CborHttpMessageConverter(ObjectMapper objectMapper) {
+        super(cborMapper(objectMapper));
+    }
+
+    public static ObjectMapper cborMapper(ObjectMapper jsonMapper) {
+        return jsonMapper.copyWith(new CBORFactory())
+                .enable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    /**
+     * Whether a client sending this {@code Accept} header prefers CBOR to JSON: of the types either format matches,
+     * the one with the highest quality wins, then a concrete type over a wildcard, then the one listed first. This
+     * is the choice the message converters make, for code that writes a body itself.
+     */
+    public static boolean isPreferred(String accept) {
+        if (accept == null || !accept.contains(MediaType.APPLICATION_CBOR_VALUE)) {
+            return false;
+        }
+        List<MediaType> types;
+        try {
+            types = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+        MediaType best = null;
+        for (MediaType type : types) {
+            boolean either = type.isCompatibleWith(MediaType.APPLICATION_JSON)
+                    || type.isCompatibleWith(MediaType.APPLICATION_CBOR);
+            if (!either) {
+                continue;
+            }
+            if (best == null || type.getQualityValue() > best.getQualityValue()
+                    || type.getQualityValue() == best.getQualityValue() && best.isWildcardSubtype()
+                    && !type.isWildcardSubtype()) {
+                best = type;
+            }
+        }
+        return best != null && best.getQualityValue() > 0 && best.equalsTypeAndSubtype(MediaType.APPLICATION_CBOR);
+    }
+}
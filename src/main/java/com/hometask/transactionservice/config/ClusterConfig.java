@@ -0,0 +1,64 @@
+package com.hometask.transactionservice.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hometask.transactionservice.cluster.PeerClient;
+import com.hometask.transactionservice.cluster.PeerDirectory;
+import com.hometask.transactionservice.cluster.PeerRoutingFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.List;
+
+@Configuration
+@ConditionalOnProperty(name = "transaction.cluster.enabled", havingValue = "true")
+public class ClusterConfig {
+
+    @Bean
+    public PeerDirectory peerDirectory(
+            @Value("${transaction.cluster.self-url:}") String selfUrl,
+            @Value("${transaction.cluster.peers:}") List<String> peers,
+            @Value("${transaction.cluster.dns-name:}") String dnsName,
+            @Value("${transaction.cluster.dns-refresh-ms:10000}") long dnsRefreshMillis,
+            @Value("${server.port:8080}") int port) throws UnknownHostException {
+        String self = selfUrl.isBlank()
+                ? "http://" + InetAddress.getLocalHost().getHostAddress() + ":" + port
+                : selfUrl;
+        if (!dnsName.isBlank()) {
+            return PeerDirectory.fromDns(self, dnsName.trim(), port, dnsRefreshMillis);
+        }
+        List<String> nodes = peers.stream().filter(peer -> !peer.isBlank()).toList();
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException(
+                    "transaction.cluster.enabled needs transaction.cluster.peers or transaction.cluster.dns-name");
+        }
+        return PeerDirectory.fixed(self, nodes);
+    }
+
+    @Bean
+    public PeerClient peerClient(
+            @Value("${transaction.cluster.connect-timeout-ms:1000}") long connectTimeoutMillis,
+            @Value("${transaction.cluster.request-timeout-ms:5000}") long requestTimeoutMillis) {
+        return new PeerClient(Duration.ofMillis(connectTimeoutMillis), Duration.ofMillis(requestTimeoutMillis));
+    }
+
+    @Bean
+    public FilterRegistrationBean<PeerRoutingFilter> peerRoutingFilter(PeerDirectory directory, PeerClient client,
+                                                                       ObjectMapper objectMapper,
+                                                                       CborHttpMessageConverter cborConverter,
+                                                                       MeterRegistry meterRegistry) {
+        FilterRegistrationBean<PeerRoutingFilter> registration = new FilterRegistrationBean<>(
+                new PeerRoutingFilter(directory, client, objectMapper, cborConverter.getObjectMapper(),
+                        meterRegistry));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(Ordered.LOWEST_PRECEDENCE - 1);
+        return registration;
+    }
+}
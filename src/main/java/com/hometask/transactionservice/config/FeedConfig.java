@@ -0,0 +1,30 @@
+package com.hometask.transactionservice.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hometask.transactionservice.feed.FeedOverflow;
+import com.hometask.transactionservice.feed.TransactionFeed;
+import com.hometask.transactionservice.repository.TransactionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class FeedConfig {
+
+    @Bean
+    public TransactionFeed transactionFeed(
+            TransactionRepository repository,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${transaction.feed.queue-capacity:100000}") int queueCapacity,
+            @Value("${transaction.feed.buffer-size:1000}") int bufferSize,
+            @Value("${transaction.feed.max-subscribers:10000}") int maxSubscribers,
+            @Value("${transaction.feed.overflow:drop}") String overflow,
+            @Value("${transaction.feed.heartbeat-ms:15000}") long heartbeatMillis) {
+        return new TransactionFeed(repository, objectMapper, queueCapacity, bufferSize, maxSubscribers,
+                FeedOverflow.fromParameter(overflow), Duration.ofMillis(heartbeatMillis), meterRegistry);
+    }
+}
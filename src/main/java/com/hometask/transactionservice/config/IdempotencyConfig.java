@@ -0,0 +1,30 @@
+package com.hometask.transactionservice.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hometask.transactionservice.idempotency.IdempotencyFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+
+@Configuration
+public class IdempotencyConfig {
+
+    @Bean
+    public FilterRegistrationBean<IdempotencyFilter> idempotencyFilter(
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${transaction.idempotency.max-keys:100000}") long maxKeys,
+            @Value("${transaction.idempotency.ttl-ms:86400000}") long ttlMillis) {
+        FilterRegistrationBean<IdempotencyFilter> registration = new FilterRegistrationBean<>(
+                new IdempotencyFilter(maxKeys, Duration.ofMillis(ttlMillis), objectMapper, meterRegistry));
+        registration.addUrlPatterns("/api/transactions");
+        // After the cluster routing filter, so a key is remembered on the node that owns the transaction
+        registration.setOrder(Ordered.LOWEST_PRECEDENCE);
+        return registration;
+    }
+}
@@ -0,0 +1,29 @@
+package com.hometask.transactionservice.config;
+
+import com.hometask.transactionservice.ingest.IngestPipeline;
+import com.hometask.transactionservice.service.TransactionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnProperty(name = "transaction.ingest.enabled", havingValue = "true")
+public class IngestConfig {
+
+    @Bean
+    public IngestPipeline ingestPipeline(
+            TransactionService service,
+            MeterRegistry meterRegistry,
+            @Value("${transaction.ingest.buffer-capacity:65536}") int capacity,
+            @Value("${transaction.ingest.consumers:2}") int consumers,
+            @Value("${transaction.ingest.batch-size:500}") int batchSize,
+            @Value("${transaction.ingest.max-statuses:1000000}") long maxStatuses,
+            @Value("${transaction.ingest.status-ttl-ms:3600000}") long statusTtlMillis) {
+        return new IngestPipeline(service, capacity, consumers, batchSize, maxStatuses,
+                Duration.ofMillis(statusTtlMillis), meterRegistry);
+    }
+}
@@ -0,0 +1,48 @@
+package com.hometask.transactionservice.config;
+
+import com.hometask.transactionservice.persistence.FsyncPolicy;
+import com.hometask.transactionservice.persistence.SnapshotEndpoint;
+import com.hometask.transactionservice.persistence.SnapshotManager;
+import com.hometask.transactionservice.persistence.WriteAheadLog;
+import com.hometask.transactionservice.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+@Configuration
+@ConditionalOnProperty(name = "transaction.persistence.enabled", havingValue = "true")
+public class PersistenceConfig {
+
+    @Bean
+    public WriteAheadLog writeAheadLog(
+            TransactionRepository repository,
+            @Value("${transaction.persistence.directory:data}") String directory,
+            @Value("${transaction.persistence.fsync-policy:group}") String fsyncPolicy,
+            @Value("${transaction.persistence.fsync-interval-ms:100}") long fsyncIntervalMillis,
+            @Value("${transaction.persistence.segment-size-bytes:67108864}") long segmentSizeBytes) {
+        return new WriteAheadLog(
+                Path.of(directory).resolve("wal"),
+                FsyncPolicy.fromProperty(fsyncPolicy),
+                fsyncIntervalMillis,
+                segmentSizeBytes,
+                repository);
+    }
+
+    @Bean
+    public SnapshotManager snapshotManager(
+            TransactionRepository repository,
+            WriteAheadLog writeAheadLog,
+            @Value("${transaction.persistence.directory:data}") String directory,
+            @Value("${transaction.persistence.snapshot-interval-ms:300000}") long intervalMillis) {
+        return new SnapshotManager(Path.of(directory).resolve("snapshots"), intervalMillis, repository,
+                writeAheadLog);
+    }
+
+    @Bean
+    public SnapshotEndpoint snapshotEndpoint(SnapshotManager snapshotManager, WriteAheadLog writeAheadLog) {
+        return new SnapshotEndpoint(snapshotManager, writeAheadLog);
+    }
+}
@@ -0,0 +1,58 @@
+package com.hometask.transactionservice.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hometask.transactionservice.replication.ReadOnlyFollowerFilter;
+import com.hometask.transactionservice.replication.ReplicationEndpoint;
+import com.hometask.transactionservice.replication.ReplicationFollower;
+import com.hometask.transactionservice.replication.ReplicationLog;
+import com.hometask.transactionservice.repository.TransactionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnProperty(name = "transaction.replication.enabled", havingValue = "true")
+public class ReplicationConfig {
+
+    @Bean
+    public ReplicationLog replicationLog(
+            TransactionRepository repository,
+            @Value("${transaction.replication.log-capacity:100000}") int capacity) {
+        return new ReplicationLog(repository, capacity);
+    }
+
+    @Bean
+    public ReplicationFollower replicationFollower(
+            TransactionRepository repository,
+            CacheManager cacheManager,
+            MeterRegistry meterRegistry,
+            @Value("${transaction.replication.primary-url:}") String primaryUrl,
+            @Value("${transaction.replication.batch-records:2000}") int batchRecords,
+            @Value("${transaction.replication.poll-wait-ms:5000}") long pollWaitMillis,
+            @Value("${transaction.replication.retry-ms:1000}") long retryMillis,
+            @Value("${transaction.replication.connect-timeout-ms:1000}") long connectTimeoutMillis) {
+        return new ReplicationFollower(repository, cacheManager.getCache("transactionCache"),
+                primaryUrl.isBlank() ? null : primaryUrl.trim(), batchRecords, pollWaitMillis, retryMillis,
+                Duration.ofMillis(connectTimeoutMillis), meterRegistry);
+    }
+
+    @Bean
+    public ReplicationEndpoint replicationEndpoint(ReplicationLog replicationLog, ReplicationFollower follower) {
+        return new ReplicationEndpoint(replicationLog, follower);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ReadOnlyFollowerFilter> readOnlyFollowerFilter(ReplicationFollower follower,
+                                                                                 ObjectMapper objectMapper) {
+        FilterRegistrationBean<ReadOnlyFollowerFilter> registration = new FilterRegistrationBean<>(
+                new ReadOnlyFollowerFilter(follower, objectMapper));
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+}
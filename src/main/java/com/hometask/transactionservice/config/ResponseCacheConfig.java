@@ -0,0 +1,28 @@
+package com.hometask.transactionservice.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hometask.transactionservice.cache.TransactionResponseCache;
+import com.hometask.transactionservice.repository.TransactionRepository;
+import com.hometask.transactionservice.service.TransactionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(name = "transaction.response-cache.enabled", havingValue = "true", matchIfMissing = true)
+public class ResponseCacheConfig {
+
+    @Bean
+    public TransactionResponseCache transactionResponseCache(
+            TransactionRepository repository,
+            TransactionService service,
+            ObjectMapper objectMapper,
+            CborHttpMessageConverter cborConverter,
+            MeterRegistry meterRegistry,
+            @Value("${transaction.response-cache.max-entries:10000}") long maxEntries) {
+        return new TransactionResponseCache(repository, service, objectMapper, cborConverter.getObjectMapper(),
+                maxEntries, meterRegistry);
+    }
+}
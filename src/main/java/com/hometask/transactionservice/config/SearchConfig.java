@@ -0,0 +1,22 @@
+package com.hometask.transactionservice.config;
+
+import com.hometask.transactionservice.repository.TransactionRepository;
+import com.hometask.transactionservice.search.DescriptionIndex;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class SearchConfig {
+
+    @Bean
+    public DescriptionIndex descriptionIndex(
+            TransactionRepository repository,
+            MeterRegistry meterRegistry,
+            @Value("${transaction.search.max-postings-per-term:10000}") int maxPostingsPerTerm,
+            @Value("${transaction.search.max-postings:1000000}") long maxPostings,
+            @Value("${transaction.search.queue-capacity:100000}") int queueCapacity) {
+        return new DescriptionIndex(repository, maxPostingsPerTerm, maxPostings, queueCapacity, meterRegistry);
+    }
+}
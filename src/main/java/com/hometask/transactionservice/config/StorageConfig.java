@@ -0,0 +1,28 @@
+package com.hometask.transactionservice.config;
+
+import com.hometask.transactionservice.repository.CompactTransactionStore;
+import com.hometask.transactionservice.repository.ConcurrentMapTransactionStore;
+import com.hometask.transactionservice.repository.TransactionStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Scope;
+
+@Configuration
+public class StorageConfig {
+
+    /**
+     * A new store for each injection point; the repository takes one per partition.
+     */
+    @Bean
+    @Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+    public TransactionStore transactionStore(@Value("${transaction.storage.engine:map}") String engine) {
+        return switch (engine.trim().toLowerCase()) {
+            case "map" -> new ConcurrentMapTransactionStore();
+            case "compact" -> new CompactTransactionStore();
+            default -> throw new IllegalArgumentException(
+                    "Unknown transaction.storage.engine '" + engine + "', expected map or compact");
+        };
+    }
+}
@@ -0,0 +1,190 @@
+package com.hometask.transactionservice.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.hometask.transactionservice.dto.TransactionRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads JSON create and batch requests by walking the parser's tokens straight into {@link TransactionRequest}s,
+ * instead of through Jackson's reflective bean deserializer. It takes the parser from the application's mapper, so
+ * field names are matched against the factory's canonical names without allocating and parse buffers are
+ * recycled between requests. The result is the same as the mapper's: unknown fields are skipped, scalars are
+ * accepted for text fields, and a quoted, empty or {@code "null"} amount is read as the mapper reads it. Malformed
+ * input fails with the same exception type and message prefix as the JSON converter. Everything else, CBOR
+ * included, is left to the other converters.
+ */
+@Component
+public class TransactionRequestHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    private final ObjectMapper objectMapper;
+    private final JsonFactory jsonFactory;
+
+    @Autowired
+    public TransactionRequestHttpMessageConverter(ObjectMapper objectMapper) {
+        super(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+        this.objectMapper = objectMapper;
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return clazz == TransactionRequest.class;
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return (type == TransactionRequest.class || isRequestList(type)) && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    private static boolean isRequestList(Type type) {
+        return type instanceof ParameterizedType parameterized
+                && parameterized.getRawType() == List.class
+                && parameterized.getActualTypeArguments()[0] == TransactionRequest.class;
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage)
+            throws IOException {
+        try (JsonParser parser = createParser(inputMessage)) {
+            JsonToken token = parser.nextToken();
+            if (token == null || token == JsonToken.VALUE_NULL) {
+                return null;
+            }
+            return type == TransactionRequest.class ? readRequest(parser) : readRequests(parser);
+        } catch (JsonProcessingException e) {
+            throw new HttpMessageNotReadableException("JSON parse error: " + e.getOriginalMessage(), e,
+                    inputMessage);
+        }
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        return read(clazz, null, inputMessage);
+    }
+
+    /**
+     * Writes requests with the application's mapper, as the JSON converter would. {@link #canWrite} keeps Spring
+     * from choosing this converter for responses; this is for clients of the converter that write directly.
+     */
+    @Override
+    protected void writeInternal(Object value, Type type, HttpOutputMessage outputMessage)
+            throws IOException {
+        ObjectWriter writer = type != null ? objectMapper.writerFor(objectMapper.constructType(type))
+                : objectMapper.writer();
+        writer.writeValue(StreamUtils.nonClosing(outputMessage.getBody()), value);
+    }
+
+    /**
+     * As the JSON converter does, bodies in a Unicode encoding are read as bytes, so Jackson detects which one, and
+     * anything else through a reader.
+     */
+    private JsonParser createParser(HttpInputMessage inputMessage) throws IOException {
+        MediaType contentType = inputMessage.getHeaders().getContentType();
+        Charset charset = contentType != null ? contentType.getCharset() : null;
+        if (charset == null || charset.name().startsWith("UTF-")) {
+            return jsonFactory.createParser(inputMessage.getBody());
+        }
+        return jsonFactory.createParser(new InputStreamReader(inputMessage.getBody(), charset));
+    }
+
+    private static List<TransactionRequest> readRequests(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            throw mismatched(parser, List.class);
+        }
+        List<TransactionRequest> requests = new ArrayList<>();
+        for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+            requests.add(token == JsonToken.VALUE_NULL ? null : readRequest(parser));
+        }
+        return requests;
+    }
+
+    private static TransactionRequest readRequest(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            throw mismatched(parser, TransactionRequest.class);
+        }
+        TransactionRequest request = new TransactionRequest();
+        // Field names come back canonical from the factory's symbol table, so the switch compares without copying
+        for (String field = parser.nextFieldName(); field != null; field = parser.nextFieldName()) {
+            parser.nextToken();
+            switch (field) {
+                case "accountNumber" -> request.setAccountNumber(text(parser));
+                case "amount" -> request.setAmount(decimal(parser));
+                case "type" -> request.setType(text(parser));
+                case "description" -> request.setDescription(text(parser));
+                case "destinationAccount" -> request.setDestinationAccount(text(parser));
+                default -> parser.skipChildren();
+            }
+        }
+        return request;
+    }
+
+    private static String text(JsonParser parser) throws IOException {
+        return switch (parser.currentToken()) {
+            case VALUE_NULL -> null;
+            case VALUE_STRING, VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT, VALUE_TRUE, VALUE_FALSE -> parser.getText();
+            default -> throw mismatched(parser, String.class);
+        };
+    }
+
+    private static BigDecimal decimal(JsonParser parser) throws IOException {
+        switch (parser.currentToken()) {
+            case VALUE_NULL:
+                return null;
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                return parser.getDecimalValue();
+            case VALUE_STRING:
+                String text = parser.getText().trim();
+                if (text.isEmpty() || text.equals("null")) {
+                    return null;
+                }
+                try {
+                    return new BigDecimal(text);
+                } catch (NumberFormatException e) {
+                    throw InvalidFormatException.from(parser, "Cannot deserialize value of type "
+                            + "`java.math.BigDecimal` from String \"" + text + "\": not a valid representation",
+                            text, BigDecimal.class);
+                }
+            default:
+                throw mismatched(parser, BigDecimal.class);
+        }
+    }
+
+    private static MismatchedInputException mismatched(JsonParser parser, Class<?> target) {
+        return MismatchedInputException.from(parser, target, "Cannot deserialize value of type `"
+                + target.getName() + "` from " + parser.currentToken());
+    }
+}
@@ -0,0 +1,74 @@
+package com.hometask.transactionservice.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.hometask.transactionservice.model.Transaction;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.util.concurrent.Callable;
+
+/**
+ * A Caffeine cache of {@link Transaction} values that never goes back in time. A put never replaces a newer version
+ * with an older one, and an evict leaves a tombstone that no put replaces and that reads treat as a miss. A
+ * {@code @Cacheable} miss that read a version from before an update or a delete, or an update whose
+ * {@code @CachePut} arrives after a later update's, would otherwise leave a stale entry until it expires; after a
+ * delete, GET would keep answering with the deleted transaction. Tombstones expire and count towards the maximum
+ * size like any other entry.
+ */
+class VersionedCaffeineCache extends CaffeineCache {
+
+    /**
+     * Left by an evict, which only a delete issues. It outranks every version: once a transaction is deleted, reads
+     * and updates of its id fail, so any later put comes from one that started before the delete.
+     */
+    private static final Object TOMBSTONE = new Object();
+
+    VersionedCaffeineCache(String name, Cache<Object, Object> cache, boolean allowNullValues) {
+        super(name, cache, allowNullValues);
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        Object value = super.lookup(key);
+        return value == TOMBSTONE ? null : value;
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        if (getNativeCache().asMap().get(key) == TOMBSTONE) {
+            try {
+                return valueLoader.call();
+            } catch (Exception e) {
+                throw new ValueRetrievalException(key, valueLoader, e);
+            }
+        }
+        return super.get(key, valueLoader);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (value instanceof Transaction offered) {
+            getNativeCache().asMap().merge(key, offered, (cached, ignored) -> newer(cached, offered));
+        } else {
+            super.put(key, value);
+        }
+    }
+
+    private static Object newer(Object cached, Transaction offered) {
+        if (cached == TOMBSTONE) {
+            return TOMBSTONE;
+        }
+        return cached instanceof Transaction current && current.getVersion() >= offered.getVersion()
+                ? current : offered;
+    }
+
+    @Override
+    public void evict(Object key) {
+        getNativeCache().put(key, TOMBSTONE);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        Object previous = getNativeCache().asMap().put(key, TOMBSTONE);
+        return previous != null && previous != TOMBSTONE;
+    }
+}
@@ -0,0 +1,47 @@
+package com.hometask.transactionservice.controller;
+
+import com.hometask.transactionservice.dto.AccountBalance;
+import com.hometask.transactionservice.dto.AccountRollups;
+import com.hometask.transactionservice.dto.TransactionPage;
+import com.hometask.transactionservice.service.TransactionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+
+@RestController
+@RequestMapping("/api/accounts")
+public class AccountController {
+
+    private final TransactionService service;
+
+    @Autowired
+    public AccountController(TransactionService service) {
+        this.service = service;
+    }
+
+    @GetMapping("/{accountNumber}/transactions")
+    public ResponseEntity<TransactionPage> getAccountTransactions(
+            @PathVariable String accountNumber,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        return ResponseEntity.ok(service.getAccountTransactionPage(accountNumber, cursor, size));
+    }
+
+    @GetMapping("/{accountNumber}/balance")
+    public ResponseEntity<AccountBalance> getAccountBalance(@PathVariable String accountNumber) {
+        return ResponseEntity.ok(service.getAccountBalance(accountNumber));
+    }
+
+    @GetMapping("/{accountNumber}/rollups")
+    public ResponseEntity<AccountRollups> getAccountRollups(
+            @PathVariable String accountNumber,
+            @RequestParam(defaultValue = "hour") String granularity,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return ResponseEntity.ok(service.getAccountRollups(accountNumber, granularity, type, from, to));
+    }
+}
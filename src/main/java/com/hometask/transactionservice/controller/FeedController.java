@@ -0,0 +1,42 @@
+package com.hometask.transactionservice.controller;
+
+import com.hometask.transactionservice.feed.FeedOverflow;
+import com.hometask.transactionservice.feed.FeedSubscription;
+import com.hometask.transactionservice.feed.TransactionFeed;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/api/transactions")
+public class FeedController {
+
+    private final TransactionFeed feed;
+
+    @Autowired
+    public FeedController(TransactionFeed feed) {
+        this.feed = feed;
+    }
+
+    /**
+     * Streams new, updated and deleted transactions as Server-Sent Events for as long as the client stays
+     * connected. The request thread, which is virtual, waits for the events and writes them.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public void streamTransactions(
+            @RequestParam(required = false) String accountNumber,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) String overflow,
+            HttpServletResponse response) throws IOException {
+        FeedSubscription subscription = feed.subscribe(accountNumber, type,
+                overflow == null ? null : FeedOverflow.fromParameter(overflow));
+        response.setContentType(MediaType.TEXT_EVENT_STREAM_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        feed.stream(subscription, response.getOutputStream());
+    }
+}
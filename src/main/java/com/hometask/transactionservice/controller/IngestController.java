@@ -0,0 +1,28 @@
+package com.hometask.transactionservice.controller;
+
+import com.hometask.transactionservice.dto.IngestStatus;
+import com.hometask.transactionservice.ingest.IngestPipeline;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping(IngestController.STATUS_PATH)
+@ConditionalOnProperty(name = "transaction.ingest.enabled", havingValue = "true")
+public class IngestController {
+
+    public static final String STATUS_PATH = "/api/transactions/ingest";
+
+    private final IngestPipeline pipeline;
+
+    @Autowired
+    public IngestController(IngestPipeline pipeline) {
+        this.pipeline = pipeline;
+    }
+
+    @GetMapping("/{ticket}")
+    public ResponseEntity<IngestStatus> getIngestStatus(@PathVariable String ticket) {
+        return ResponseEntity.ok(pipeline.status(ticket));
+    }
+}
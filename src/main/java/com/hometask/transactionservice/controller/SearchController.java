@@ -0,0 +1,28 @@
+package com.hometask.transactionservice.controller;
+
+import com.hometask.transactionservice.model.Transaction;
+import com.hometask.transactionservice.search.DescriptionIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/transactions")
+public class SearchController {
+
+    private final DescriptionIndex index;
+
+    @Autowired
+    public SearchController(DescriptionIndex index) {
+        this.index = index;
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<List<Transaction>> searchTransactions(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(index.search(q, limit));
+    }
+}
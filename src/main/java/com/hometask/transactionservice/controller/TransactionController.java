@@ -1,33 +1,105 @@
 package com.hometask.transactionservice.controller;
 
+import com.hometask.transactionservice.cache.TransactionResponseCache;
+import com.hometask.transactionservice.config.CborHttpMessageConverter;
+import com.hometask.transactionservice.dto.IngestStatus;
+import com.hometask.transactionservice.dto.TransactionBatchResponse;
+import com.hometask.transactionservice.dto.TransactionPage;
 import com.hometask.transactionservice.dto.TransactionRequest;
+import com.hometask.transactionservice.exception.InvalidTransactionException;
+import com.hometask.transactionservice.idempotency.IdempotencyFilter;
+import com.hometask.transactionservice.ingest.IngestPipeline;
 import com.hometask.transactionservice.model.Transaction;
 import com.hometask.transactionservice.service.TransactionService;
+import com.hometask.transactionservice.validation.TransactionRequestValidator;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.time.LocalDateTime;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api/transactions")
 public class TransactionController {
     
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String CBOR_SEQUENCE = "application/cbor-seq";
+    private static final String PREFER = "Prefer";
+    private static final String PREFERENCE_APPLIED = "Preference-Applied";
+    private static final String RESPOND_ASYNC = "respond-async";
+    private static final int EXPORT_FLUSH_ROWS = 1000;
+    
     private final TransactionService service;
+    private final IngestPipeline ingestPipeline;
+    private final TransactionResponseCache responseCache;
+    private final ObjectWriter exportWriter;
+    private final ObjectWriter cborExportWriter;
     
     @Autowired
-    public TransactionController(TransactionService service) {
+    public TransactionController(TransactionService service, ObjectProvider<IngestPipeline> ingestPipeline,
+                                 ObjectProvider<TransactionResponseCache> responseCache, ObjectMapper objectMapper,
+                                 CborHttpMessageConverter cborConverter) {
         this.service = service;
+        this.ingestPipeline = ingestPipeline.getIfAvailable();
+        this.responseCache = responseCache.getIfAvailable();
+        this.exportWriter = objectMapper.writerFor(Transaction.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.cborExportWriter = cborConverter.getObjectMapper().writerFor(Transaction.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
     
+    /**
+     * Creates the transaction, or with {@code Prefer: respond-async} and asynchronous ingest enabled, queues it and
+     * answers 202 with a ticket whose outcome can be looked up at the {@code Location}. The request is checked by
+     * {@link TransactionRequestValidator} rather than Bean Validation; the errors and their answer are the same.
+     */
     @PostMapping
-    public ResponseEntity<Transaction> createTransaction(@Valid @RequestBody TransactionRequest request) {
-        Transaction created = service.createTransaction(request);
+    public ResponseEntity<?> createTransaction(
+            @RequestBody TransactionRequest request,
+            @RequestHeader(value = IdempotencyFilter.HEADER, required = false) String idempotencyKey,
+            @RequestHeader(value = PREFER, required = false) String prefer) {
+        Map<String, String> errors = TransactionRequestValidator.validate(request);
+        if (!errors.isEmpty()) {
+            throw new InvalidTransactionException(errors);
+        }
+        if (ingestPipeline != null && prefer != null && prefer.contains(RESPOND_ASYNC)) {
+            IngestStatus pending = ingestPipeline.submit(request);
+            return ResponseEntity.accepted()
+                    .location(URI.create(IngestController.STATUS_PATH + "/" + pending.getTicket()))
+                    .header(PREFERENCE_APPLIED, RESPOND_ASYNC)
+                    .body(pending);
+        }
+        // Retries of a request with a key are answered by IdempotencyFilter, so the duplicate window is not needed
+        Transaction created = idempotencyKey == null
+                ? service.createTransaction(request)
+                : service.createTransaction(request, false);
         return new ResponseEntity<>(created, HttpStatus.CREATED);
     }
     
+    @PostMapping("/batch")
+    public ResponseEntity<TransactionBatchResponse> createTransactions(@RequestBody List<TransactionRequest> requests) {
+        // Items are validated one by one so a single bad request does not reject the whole batch
+        return ResponseEntity.ok(service.createTransactions(requests));
+    }
+    
     @GetMapping
     public ResponseEntity<List<Transaction>> getTransactions(
             @RequestParam(defaultValue = "0") int page,
@@ -36,6 +108,79 @@ public class TransactionController {
         return ResponseEntity.ok(transactions);
     }
     
+    @GetMapping(params = "cursor")
+    public ResponseEntity<TransactionPage> getTransactionsAfterCursor(
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        return ResponseEntity.ok(service.getTransactionPage(cursor, size));
+    }
+    
+    /**
+     * Transactions with timestamps in {@code [from, to)}, optionally of one account, in keyset pages. Both
+     * parameters must be present; an empty {@code from} or {@code to} leaves that end open.
+     */
+    @GetMapping(params = {"from", "to"})
+    public ResponseEntity<TransactionPage> getTransactionsInRange(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String accountNumber,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        return ResponseEntity.ok(service.getTransactionRangePage(accountNumber, from, to, cursor, size));
+    }
+    
+    /**
+     * Writes matching transactions as newline-delimited JSON, oldest first, or as a CBOR sequence (one CBOR item
+     * after another) when the client accepts CBOR. Rows are serialized one at a time straight to the response, so a
+     * slow client slows the export down instead of the rows piling up in memory.
+     */
+    @GetMapping("/export")
+    public void exportTransactions(
+            @RequestParam(required = false) String accountNumber,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            HttpServletResponse response) throws IOException {
+        Stream<Transaction> transactions = service.exportTransactions(accountNumber, type, from, to);
+        boolean cbor = CborHttpMessageConverter.isPreferred(accept);
+        ObjectWriter writer = cbor ? cborExportWriter : exportWriter;
+        
+        response.setContentType(cbor ? CBOR_SEQUENCE : NDJSON);
+        OutputStream out = response.getOutputStream();
+        try (JsonGenerator generator = writer.createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            int rows = 0;
+            for (Iterator<Transaction> it = transactions.iterator(); it.hasNext(); ) {
+                writer.writeValue(generator, it.next());
+                if (!cbor) {
+                    generator.writeRaw('\n');
+                }
+                if (++rows % EXPORT_FLUSH_ROWS == 0) {
+                    generator.flush();
+                }
+            }
+        }
+        out.flush();
+    }
+    
+    /**
+     * Answers from the response cache when it is enabled, writing the bytes encoded for an earlier read of the same
+     * version; otherwise the transaction is serialized by the message converters as usual.
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getTransaction(
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        if (responseCache == null) {
+            return ResponseEntity.ok(service.getTransaction(id));
+        }
+        boolean cbor = CborHttpMessageConverter.isPreferred(accept);
+        return ResponseEntity.ok()
+                .contentType(cbor ? MediaType.APPLICATION_CBOR : MediaType.APPLICATION_JSON)
+                .body(responseCache.body(id, cbor));
+    }
+    
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteTransaction(@PathVariable String id) {
         service.deleteTransaction(id);
@@ -49,4 +194,4 @@ public class TransactionController {
         Transaction updated = service.updateTransaction(id, request);
         return ResponseEntity.ok(updated);
     }
-} 
+}
@@ -0,0 +1,32 @@
+package com.hometask.transactionservice.dto;
+
+import java.math.BigDecimal;
+
+public class AccountBalance {
+    private String accountNumber;
+    private BigDecimal balance;
+
+    public AccountBalance() {
+    }
+
+    public AccountBalance(String accountNumber, BigDecimal balance) {
+        this.accountNumber = accountNumber;
+        this.balance = balance;
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public void setAccountNumber(String accountNumber) {
+        this.accountNumber = accountNumber;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    public void setBalance(BigDecimal balance) {
+        this.balance = balance;
+    }
+}
@@ -0,0 +1,44 @@
+package com.hometask.transactionservice.dto;
+
+import com.hometask.transactionservice.repository.Rollup;
+
+import java.util.List;
+
+public class AccountRollups {
+    private String accountNumber;
+    private String granularity;
+    private List<Rollup> buckets;
+
+    public AccountRollups() {
+    }
+
+    public AccountRollups(String accountNumber, String granularity, List<Rollup> buckets) {
+        this.accountNumber = accountNumber;
+        this.granularity = granularity;
+        this.buckets = buckets;
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public void setAccountNumber(String accountNumber) {
+        this.accountNumber = accountNumber;
+    }
+
+    public String getGranularity() {
+        return granularity;
+    }
+
+    public void setGranularity(String granularity) {
+        this.granularity = granularity;
+    }
+
+    public List<Rollup> getBuckets() {
+        return buckets;
+    }
+
+    public void setBuckets(List<Rollup> buckets) {
+        this.buckets = buckets;
+    }
+}
@@ -0,0 +1,92 @@
+package com.hometask.transactionservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.hometask.transactionservice.model.Transaction;
+
+import java.util.Map;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class IngestStatus {
+
+    public enum State {
+        PENDING, CREATED, DUPLICATE, INVALID, FAILED
+    }
+
+    private String ticket;
+    private State state;
+    private Transaction transaction;
+    private String message;
+    private Map<String, String> errors;
+
+    public IngestStatus() {
+    }
+
+    public IngestStatus(String ticket, State state, Transaction transaction, String message,
+                        Map<String, String> errors) {
+        this.ticket = ticket;
+        this.state = state;
+        this.transaction = transaction;
+        this.message = message;
+        this.errors = errors;
+    }
+
+    public static IngestStatus pending(String ticket) {
+        return new IngestStatus(ticket, State.PENDING, null, null, null);
+    }
+
+    /**
+     * The outcome of a request that was stored as part of a batch.
+     */
+    public static IngestStatus of(String ticket, TransactionBatchItem item) {
+        State state = switch (item.getStatus()) {
+            case CREATED -> State.CREATED;
+            case DUPLICATE -> State.DUPLICATE;
+            case INVALID -> State.INVALID;
+        };
+        return new IngestStatus(ticket, state, item.getTransaction(), item.getMessage(), item.getErrors());
+    }
+
+    public static IngestStatus failed(String ticket, String message) {
+        return new IngestStatus(ticket, State.FAILED, null, message, null);
+    }
+
+    public String getTicket() {
+        return ticket;
+    }
+
+    public void setTicket(String ticket) {
+        this.ticket = ticket;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public void setState(State state) {
+        this.state = state;
+    }
+
+    public Transaction getTransaction() {
+        return transaction;
+    }
+
+    public void setTransaction(Transaction transaction) {
+        this.transaction = transaction;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public Map<String, String> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(Map<String, String> errors) {
+        this.errors = errors;
+    }
+}
@@ -0,0 +1,85 @@
+package com.hometask.transactionservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.hometask.transactionservice.model.Transaction;
+
+import java.util.Map;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TransactionBatchItem {
+
+    public enum Status {
+        CREATED, DUPLICATE, INVALID
+    }
+
+    // Position of the request in the submitted array
+    private int index;
+    private Status status;
+    private Transaction transaction;
+    private String message;
+    private Map<String, String> errors;
+
+    public TransactionBatchItem() {
+    }
+
+    public TransactionBatchItem(int index, Status status, Transaction transaction, String message,
+                                Map<String, String> errors) {
+        this.index = index;
+        this.status = status;
+        this.transaction = transaction;
+        this.message = message;
+        this.errors = errors;
+    }
+
+    public static TransactionBatchItem created(int index, Transaction transaction) {
+        return new TransactionBatchItem(index, Status.CREATED, transaction, null, null);
+    }
+
+    public static TransactionBatchItem duplicate(int index, String message) {
+        return new TransactionBatchItem(index, Status.DUPLICATE, null, message, null);
+    }
+
+    public static TransactionBatchItem invalid(int index, Map<String, String> errors) {
+        return new TransactionBatchItem(index, Status.INVALID, null, null, errors);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Transaction getTransaction() {
+        return transaction;
+    }
+
+    public void setTransaction(Transaction transaction) {
+        this.transaction = transaction;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public Map<String, String> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(Map<String, String> errors) {
+        this.errors = errors;
+    }
+}
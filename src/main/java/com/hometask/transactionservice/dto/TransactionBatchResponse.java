@@ -0,0 +1,58 @@
+package com.hometask.transactionservice.dto;
+
+import java.util.List;
+
+public class TransactionBatchResponse {
+    private int created;
+    private int duplicates;
+    private int invalid;
+
+    // One result per submitted request, in request order
+    private List<TransactionBatchItem> results;
+
+    public TransactionBatchResponse() {
+    }
+
+    public TransactionBatchResponse(List<TransactionBatchItem> results) {
+        this.results = results;
+        for (TransactionBatchItem item : results) {
+            switch (item.getStatus()) {
+                case CREATED -> created++;
+                case DUPLICATE -> duplicates++;
+                case INVALID -> invalid++;
+            }
+        }
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    public void setCreated(int created) {
+        this.created = created;
+    }
+
+    public int getDuplicates() {
+        return duplicates;
+    }
+
+    public void setDuplicates(int duplicates) {
+        this.duplicates = duplicates;
+    }
+
+    public int getInvalid() {
+        return invalid;
+    }
+
+    public void setInvalid(int invalid) {
+        this.invalid = invalid;
+    }
+
+    public List<TransactionBatchItem> getResults() {
+        return results;
+    }
+
+    public void setResults(List<TransactionBatchItem> results) {
+        this.results = results;
+    }
+}
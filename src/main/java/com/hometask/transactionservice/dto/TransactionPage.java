@@ -0,0 +1,36 @@
+package com.hometask.transactionservice.dto;
+
+import com.hometask.transactionservice.model.Transaction;
+
+import java.util.List;
+
+public class TransactionPage {
+    private List<Transaction> items;
+
+    // Opaque position to pass back as the cursor parameter; null on the last page
+    private String nextCursor;
+
+    public TransactionPage() {
+    }
+
+    public TransactionPage(List<Transaction> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Transaction> getItems() {
+        return items;
+    }
+
+    public void setItems(List<Transaction> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,8 @@
+package com.hometask.transactionservice.exception;
+
+public class FeedUnavailableException extends RuntimeException {
+
+    public FeedUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.hometask.transactionservice.exception;
+
+public class IngestBufferFullException extends RuntimeException {
+    public IngestBufferFullException(String message) {
+        super(message);
+    }
+}
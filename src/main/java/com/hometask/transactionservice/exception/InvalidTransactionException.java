@@ -0,0 +1,19 @@
+package com.hometask.transactionservice.exception;
+
+import java.util.Map;
+
+/**
+ * A create request that broke the constraints on {@code TransactionRequest}, with the errors by field.
+ */
+public class InvalidTransactionException extends RuntimeException {
+    private final Map<String, String> errors;
+
+    public InvalidTransactionException(Map<String, String> errors) {
+        super("Invalid transaction: " + errors);
+        this.errors = errors;
+    }
+
+    public Map<String, String> getErrors() {
+        return errors;
+    }
+}
@@ -0,0 +1,25 @@
+package com.hometask.transactionservice.feed;
+
+import java.util.Locale;
+
+/**
+ * What happens to a feed subscriber whose buffer is full when the next event arrives.
+ */
+public enum FeedOverflow {
+    /**
+     * The event is dropped for this subscriber, which is told how many it missed before its next event.
+     */
+    DROP,
+    /**
+     * The subscription is closed, so the client reconnects and catches up by reading the transactions it missed.
+     */
+    DISCONNECT;
+
+    public static FeedOverflow fromParameter(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Overflow must be drop or disconnect, was '" + value + "'");
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.hometask.transactionservice.feed;
+
+import io.micrometer.core.instrument.Counter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One subscriber of the {@link TransactionFeed}: its filters and a bounded buffer of encoded events waiting to be
+ * written to it. The feed's dispatcher adds events and the subscriber's connection takes them, so a slow client
+ * holds at most {@code bufferSize} events however far it falls behind.
+ */
+public class FeedSubscription {
+
+    private static final byte[] CLOSED = new byte[0];
+
+    private final String accountNumber;
+    private final String type;
+    private final FeedOverflow overflow;
+    private final BlockingQueue<byte[]> events;
+    // Only the dispatcher delivers, so the count of events dropped since the last one delivered needs no guard
+    private long dropped;
+    private final Counter droppedEvents;
+    private final Counter disconnects;
+    private volatile boolean closed;
+
+    FeedSubscription(String accountNumber, String type, FeedOverflow overflow, int bufferSize,
+                     Counter droppedEvents, Counter disconnects) {
+        this.accountNumber = accountNumber;
+        this.type = type;
+        this.overflow = overflow;
+        this.events = new ArrayBlockingQueue<>(bufferSize);
+        this.droppedEvents = droppedEvents;
+        this.disconnects = disconnects;
+    }
+
+    /**
+     * The next event, encoded as a complete Server-Sent Events message, or null if none arrives within the timeout
+     * or the subscription is closed.
+     */
+    public byte[] next(long timeout, TimeUnit unit) throws InterruptedException {
+        // The wake-up marker may already have been taken by an earlier call that did not wait
+        if (closed) {
+            return null;
+        }
+        byte[] event = timeout == 0 ? events.poll() : events.poll(timeout, unit);
+        return event == CLOSED || closed ? null : event;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    String accountNumber() {
+        return accountNumber;
+    }
+
+    /**
+     * Whether a transaction of {@code transactionType} passes the type filter.
+     */
+    boolean accepts(String transactionType) {
+        return type == null || type.equalsIgnoreCase(transactionType);
+    }
+
+    /**
+     * Adds an event to the buffer. After events were dropped, a {@code dropped} event with their number goes first,
+     * so the client learns where the gap is.
+     */
+    void deliver(byte[] event) {
+        if (closed) {
+            return;
+        }
+        if (dropped > 0) {
+            if (!events.offer(droppedEvent(dropped))) {
+                missed(1);
+                return;
+            }
+            dropped = 0;
+        }
+        if (!events.offer(event)) {
+            missed(1);
+        }
+    }
+
+    /**
+     * Applies the overflow policy to {@code count} events this subscriber did not get.
+     */
+    void missed(long count) {
+        if (closed) {
+            return;
+        }
+        if (overflow == FeedOverflow.DROP) {
+            dropped += count;
+            droppedEvents.increment(count);
+        } else {
+            disconnects.increment();
+            close();
+        }
+    }
+
+    private static byte[] droppedEvent(long count) {
+        return ("event: dropped\ndata: {\"count\":" + count + "}\n\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    void close() {
+        closed = true;
+        events.clear();
+        // Wakes the connection if it waits for an event; if it does not, it sees the flag after its next poll
+        events.offer(CLOSED);
+    }
+}
@@ -0,0 +1,321 @@
+package com.hometask.transactionservice.feed;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.hometask.transactionservice.exception.FeedUnavailableException;
+import com.hometask.transactionservice.model.Transaction;
+import com.hometask.transactionservice.repository.TransactionJournal;
+import com.hometask.transactionservice.repository.TransactionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Pushes every write to the repository to the subscribers interested in it, as Server-Sent Events.
+ * <p>
+ * The feed hears about writes as a journal of the repository, so creates, batches, updates, deletes and writes
+ * replicated from a primary all reach it. A writer only offers the change to a bounded queue, and does not even do
+ * that while nobody is subscribed. One dispatcher thread encodes each change once and hands the same bytes to every
+ * matching subscriber's buffer. A subscriber whose buffer is full has its {@link FeedOverflow} policy applied, so a
+ * slow client never slows down writers or other subscribers. If the dispatcher itself falls behind by more than the
+ * queue holds, the changes that do not fit count as missed by every subscriber.
+ * <p>
+ * A saved transaction is sent as a {@code created} or {@code updated} event to subscribers whose account matches
+ * its account or destination account and whose type matches its type. A delete only carries the id, so it is sent
+ * to every subscriber. Events are numbered in the order they were dispatched; they are not kept, so a client that
+ * reconnects catches up by reading what it missed.
+ */
+public class TransactionFeed implements TransactionJournal, SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionFeed.class);
+    private static final byte[] HEARTBEAT = ":\n\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final TransactionRepository repository;
+    private final ObjectWriter writer;
+    private final BlockingQueue<Change> changes;
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final FeedOverflow defaultOverflow;
+    private final long heartbeatNanos;
+    // Subscribers by the account they filter on, and those that take every account
+    private final Map<String, Set<FeedSubscription>> byAccount = new ConcurrentHashMap<>();
+    private final Set<FeedSubscription> allAccounts = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final AtomicLong lost = new AtomicLong();
+    private long sequence;
+    private Thread dispatcher;
+    private volatile boolean running;
+
+    private final Counter droppedEvents;
+    private final Counter disconnects;
+    private final Counter lostEvents;
+
+    public TransactionFeed(TransactionRepository repository, ObjectMapper objectMapper, int queueCapacity,
+                           int bufferSize, int maxSubscribers, FeedOverflow defaultOverflow, Duration heartbeat,
+                           MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.writer = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+        this.changes = new ArrayBlockingQueue<>(queueCapacity);
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        this.defaultOverflow = defaultOverflow;
+        this.heartbeatNanos = heartbeat.toNanos();
+
+        droppedEvents = Counter.builder("transaction.feed.dropped")
+                .description("Events not sent to a subscriber because its buffer was full")
+                .register(meterRegistry);
+        disconnects = Counter.builder("transaction.feed.disconnects")
+                .description("Subscriptions closed because their buffer was full")
+                .register(meterRegistry);
+        lostEvents = Counter.builder("transaction.feed.lost")
+                .description("Changes not dispatched to any subscriber because the feed queue was full")
+                .register(meterRegistry);
+        Gauge.builder("transaction.feed.subscribers", subscribers, AtomicInteger::get)
+                .description("Open subscriptions to the transaction feed")
+                .register(meterRegistry);
+        Gauge.builder("transaction.feed.queue", changes, BlockingQueue::size)
+                .description("Changes waiting to be dispatched to feed subscribers")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens a subscription; either filter may be null to take every account or type, and a null overflow policy
+     * stands for the configured default.
+     *
+     * @throws FeedUnavailableException if the feed is not running or has {@code maxSubscribers} already
+     */
+    public FeedSubscription subscribe(String accountNumber, String type, FeedOverflow overflow) {
+        if (!running) {
+            throw new FeedUnavailableException("The transaction feed is not running");
+        }
+        if (subscribers.incrementAndGet() > maxSubscribers) {
+            subscribers.decrementAndGet();
+            throw new FeedUnavailableException("The transaction feed has " + maxSubscribers
+                    + " subscribers already, retry later");
+        }
+        FeedSubscription subscription = new FeedSubscription(accountNumber, type,
+                overflow != null ? overflow : defaultOverflow, bufferSize, droppedEvents, disconnects);
+        if (accountNumber == null) {
+            allAccounts.add(subscription);
+        } else {
+            // Inside compute, so an unsubscribe that empties the account's set cannot drop it meanwhile
+            byAccount.compute(accountNumber, (account, subscriptions) -> {
+                Set<FeedSubscription> set = subscriptions != null ? subscriptions : ConcurrentHashMap.newKeySet();
+                set.add(subscription);
+                return set;
+            });
+        }
+        return subscription;
+    }
+
+    public void unsubscribe(FeedSubscription subscription) {
+        subscription.close();
+        boolean[] removed = new boolean[1];
+        if (subscription.accountNumber() == null) {
+            removed[0] = allAccounts.remove(subscription);
+        } else {
+            byAccount.computeIfPresent(subscription.accountNumber(), (account, subscriptions) -> {
+                removed[0] = subscriptions.remove(subscription);
+                return subscriptions.isEmpty() ? null : subscriptions;
+            });
+        }
+        if (removed[0]) {
+            subscribers.decrementAndGet();
+        }
+    }
+
+    /**
+     * Writes the subscription's events to {@code out} until it is closed or the client goes away, then
+     * unsubscribes. Events that are already waiting go out together with one flush. While there are none, a comment
+     * line is sent every heartbeat, which keeps proxies from timing the connection out and finds out when the client
+     * has gone.
+     */
+    public void stream(FeedSubscription subscription, OutputStream out) throws IOException {
+        try {
+            out.write(HEARTBEAT);
+            out.flush();
+            while (true) {
+                byte[] event = subscription.next(heartbeatNanos, TimeUnit.NANOSECONDS);
+                if (subscription.isClosed()) {
+                    return;
+                }
+                if (event == null) {
+                    out.write(HEARTBEAT);
+                }
+                for (; event != null; event = subscription.next(0, TimeUnit.NANOSECONDS)) {
+                    out.write(event);
+                }
+                out.flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            unsubscribe(subscription);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> recordSave(Transaction transaction) {
+        publish(new Change(transaction, null, null));
+        return COMPLETED;
+    }
+
+    @Override
+    public CompletableFuture<Void> recordDelete(String id) {
+        publish(new Change(null, id, null));
+        return COMPLETED;
+    }
+
+    @Override
+    public CompletableFuture<Void> recordClear() {
+        publish(new Change(null, null, null));
+        return COMPLETED;
+    }
+
+    int subscriberCount() {
+        return subscribers.get();
+    }
+
+    /**
+     * Waits until every change published so far has been handed to the subscribers.
+     */
+    void awaitDispatch() throws InterruptedException {
+        CountDownLatch dispatched = new CountDownLatch(1);
+        changes.put(new Change(null, null, dispatched));
+        dispatched.await();
+    }
+
+    private void publish(Change change) {
+        if (subscribers.get() > 0 && !changes.offer(change)) {
+            lost.incrementAndGet();
+            lostEvents.increment();
+        }
+    }
+
+    private void dispatch() {
+        while (true) {
+            Change change;
+            try {
+                change = changes.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (change.dispatched() != null) {
+                change.dispatched().countDown();
+                continue;
+            }
+            long missed = lost.getAndSet(0);
+            if (missed > 0) {
+                forEveryone(subscription -> subscription.missed(missed));
+            }
+            try {
+                deliver(change);
+            } catch (RuntimeException e) {
+                log.error("Failed to dispatch a change to the transaction feed", e);
+            }
+        }
+    }
+
+    private void deliver(Change change) {
+        Transaction transaction = change.transaction();
+        if (transaction == null) {
+            byte[] event = change.deletedId() == null
+                    ? encode("clear", Map.of())
+                    : encode("deleted", Map.of("id", change.deletedId()));
+            forEveryone(subscription -> subscription.deliver(event));
+            return;
+        }
+        byte[] event = encode(transaction.getVersion() == Transaction.INITIAL_VERSION ? "created" : "updated",
+                transaction);
+        deliver(allAccounts, transaction, event);
+        if (transaction.getAccountNumber() != null) {
+            deliver(byAccount.get(transaction.getAccountNumber()), transaction, event);
+        }
+        if (transaction.getDestinationAccount() != null
+                && !transaction.getDestinationAccount().equals(transaction.getAccountNumber())) {
+            deliver(byAccount.get(transaction.getDestinationAccount()), transaction, event);
+        }
+    }
+
+    private static void deliver(Set<FeedSubscription> subscriptions, Transaction transaction, byte[] event) {
+        if (subscriptions == null) {
+            return;
+        }
+        for (FeedSubscription subscription : subscriptions) {
+            if (subscription.accepts(transaction.getType())) {
+                subscription.deliver(event);
+            }
+        }
+    }
+
+    private void forEveryone(Consumer<FeedSubscription> action) {
+        allAccounts.forEach(action);
+        byAccount.values().forEach(subscriptions -> subscriptions.forEach(action));
+    }
+
+    /**
+     * A complete Server-Sent Events message; the JSON is written on a single line, as a data field must be.
+     */
+    private byte[] encode(String event, Object data) {
+        try {
+            return ("id: " + ++sequence + "\nevent: " + event + "\ndata: " + writer.writeValueAsString(data)
+                    + "\n\n").getBytes(StandardCharsets.UTF_8);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        dispatcher = Thread.ofPlatform().name("transaction-feed").daemon().start(this::dispatch);
+        repository.addJournal(this);
+        running = true;
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        repository.removeJournal(this);
+        dispatcher.interrupt();
+        // Ends the open streams, so their connections are released before the web server stops
+        forEveryone(FeedSubscription::close);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * A saved transaction, a deleted id, a clear when both are null, or a marker that counts down its latch.
+     */
+    private record Change(Transaction transaction, String deletedId, CountDownLatch dispatched) {
+    }
+}
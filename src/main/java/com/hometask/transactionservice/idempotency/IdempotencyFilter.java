@@ -0,0 +1,203 @@
+package com.hometask.transactionservice.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hometask.transactionservice.cluster.CachedBodyRequest;
+import com.hometask.transactionservice.exception.GlobalExceptionHandler.ErrorResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Makes {@code POST /api/transactions} idempotent for clients that send an {@value #HEADER} header. The first
+ * response for a key is kept, and a retry with the same key and body gets that response back without being
+ * validated or stored again. A request that arrives while the first one for its key is still running waits for
+ * it. Reusing a key with a different body is rejected with {@code 422 Unprocessable Entity}.
+ * <p>
+ * Responses are kept for {@code ttl} after the first request started, and the least recently used are evicted
+ * beyond {@code maxKeys}. A {@code 5xx} response is passed on but not kept, so the client can retry it.
+ */
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final String PATH = "/api/transactions";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final Cache<String, CompletableFuture<StoredResponse>> responses;
+    private final ObjectMapper objectMapper;
+    private final AtomicLong storedBytes = new AtomicLong();
+    private final Counter executed;
+    private final Counter replayed;
+    private final Counter mismatched;
+
+    public IdempotencyFilter(long maxKeys, Duration ttl, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterWrite(ttl)
+                // Runs on the thread that caused the removal, so the byte count is current when it returns
+                .executor(Runnable::run)
+                .<String, CompletableFuture<StoredResponse>>removalListener((key, response, cause) ->
+                        response.thenAccept(stored -> storedBytes.addAndGet(-stored.estimatedBytes())))
+                .build();
+        this.executed = requests("executed", meterRegistry);
+        this.replayed = requests("replayed", meterRegistry);
+        this.mismatched = requests("mismatched", meterRegistry);
+        Gauge.builder("transaction.idempotency.keys", responses, Cache::estimatedSize)
+                .description("Idempotency keys whose response is kept")
+                .register(meterRegistry);
+        Gauge.builder("transaction.idempotency.bytes", storedBytes, AtomicLong::get)
+                .description("Estimated heap used by the kept responses")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("transaction.idempotency.bytes.per.key", this, IdempotencyFilter::bytesPerKey)
+                .description("Estimated heap used per kept idempotency key")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("transaction.idempotency.hit.ratio", this, IdempotencyFilter::hitRatio)
+                .description("Share of requests with an idempotency key answered with a kept response")
+                .register(meterRegistry);
+    }
+
+    private static Counter requests(String result, MeterRegistry meterRegistry) {
+        return Counter.builder("transaction.idempotency.requests")
+                .description("Requests with an idempotency key")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.POST.matches(request.getMethod())
+                || !PATH.equals(request.getRequestURI())
+                || request.getHeader(HEADER) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String key = request.getHeader(HEADER);
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            writeError(response, HttpStatus.BAD_REQUEST,
+                    HEADER + " must be between 1 and " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+        byte[] body = request.getInputStream().readAllBytes();
+        byte[] fingerprint = fingerprint(body);
+
+        while (true) {
+            CompletableFuture<StoredResponse> mine = new CompletableFuture<>();
+            CompletableFuture<StoredResponse> first = responses.asMap().putIfAbsent(key, mine);
+            if (first == null) {
+                mine.thenAccept(stored -> storedBytes.addAndGet(stored.estimatedBytes()));
+                execute(key, body, fingerprint, mine, request, response, chain);
+                return;
+            }
+            StoredResponse stored;
+            try {
+                stored = first.join();
+            } catch (CompletionException | CancellationException e) {
+                // The first request failed and its key was released; run this one instead
+                continue;
+            }
+            replay(stored, fingerprint, key, response);
+            return;
+        }
+    }
+
+    private void execute(String key, byte[] body, byte[] fingerprint, CompletableFuture<StoredResponse> mine,
+                         HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        executed.increment();
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        try {
+            chain.doFilter(new CachedBodyRequest(request, body), wrapper);
+        } catch (ServletException | IOException | RuntimeException | Error e) {
+            responses.asMap().remove(key, mine);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+        StoredResponse stored = new StoredResponse(key, fingerprint, wrapper.getStatus(), wrapper.getContentType(),
+                wrapper.getContentAsByteArray());
+        if (stored.status() >= 500) {
+            responses.asMap().remove(key, mine);
+        }
+        mine.complete(stored);
+        wrapper.copyBodyToResponse();
+    }
+
+    private void replay(StoredResponse stored, byte[] fingerprint, String key, HttpServletResponse response)
+            throws IOException {
+        if (!Arrays.equals(stored.fingerprint(), fingerprint)) {
+            mismatched.increment();
+            writeError(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                    HEADER + " " + key + " was already used with a different request body");
+            return;
+        }
+        replayed.increment();
+        response.setStatus(stored.status());
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        response.setHeader(REPLAYED_HEADER, "true");
+        response.setContentLength(stored.body().length);
+        response.getOutputStream().write(stored.body());
+    }
+
+    private void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(),
+                new ErrorResponse(status.value(), message, LocalDateTime.now()));
+    }
+
+    private static byte[] fingerprint(byte[] body) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(body);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    long keys() {
+        responses.cleanUp();
+        return responses.estimatedSize();
+    }
+
+    long storedBytes() {
+        return storedBytes.get();
+    }
+
+    double bytesPerKey() {
+        long keys = responses.estimatedSize();
+        return keys == 0 ? 0 : storedBytes.get() / (double) keys;
+    }
+
+    double hitRatio() {
+        double total = executed.count() + replayed.count();
+        return total == 0 ? 0 : replayed.count() / total;
+    }
+}
@@ -0,0 +1,18 @@
+package com.hometask.transactionservice.idempotency;
+
+/**
+ * The response kept for an idempotency key, with a hash of the request body it answered.
+ */
+record StoredResponse(String key, byte[] fingerprint, int status, String contentType, byte[] body) {
+
+    /**
+     * Object headers, references and the cache's own entry, estimated for a 64-bit JVM with compressed pointers
+     * and checked against the heap JOL measures in {@code IdempotencyFootprintBenchmark}.
+     */
+    private static final int OVERHEAD_BYTES = 256;
+
+    long estimatedBytes() {
+        return OVERHEAD_BYTES + key.length() + fingerprint.length + body.length
+                + (contentType != null ? contentType.length() : 0);
+    }
+}
@@ -0,0 +1,105 @@
+package com.hometask.transactionservice.ingest;
+
+import com.hometask.transactionservice.dto.TransactionRequest;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded queue of accepted create requests in a ring of slots allocated up front, so accepting a request
+ * allocates nothing beyond the request itself. Producers never wait: {@link #offer} fails once every slot is taken.
+ * Consumers take what is queued, a batch at a time, in the order it was accepted.
+ */
+final class IngestBuffer {
+
+    private final String[] tickets;
+    private final TransactionRequest[] requests;
+    private final long[] acceptedAt;
+    // A ReentrantLock rather than synchronized so that request threads, which are virtual, are not pinned
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    // Positions of the next slot to take and the next slot to fill; slot = position % capacity
+    private long head;
+    private long tail;
+
+    IngestBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("transaction.ingest.buffer-capacity must be at least 1, was "
+                    + capacity);
+        }
+        tickets = new String[capacity];
+        requests = new TransactionRequest[capacity];
+        acceptedAt = new long[capacity];
+    }
+
+    /**
+     * @return false, leaving the buffer as it was, if it is full
+     */
+    boolean offer(String ticket, TransactionRequest request, long acceptedAtNanos) {
+        lock.lock();
+        try {
+            if (tail - head == tickets.length) {
+                return false;
+            }
+            int slot = (int) (tail % tickets.length);
+            tickets[slot] = ticket;
+            requests[slot] = request;
+            acceptedAt[slot] = acceptedAtNanos;
+            tail++;
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Moves up to {@code ticketsOut.length} queued requests into the given arrays, waiting up to
+     * {@code waitNanos} for the first one.
+     *
+     * @return how many were moved; 0 if none arrived in time
+     */
+    int drainTo(String[] ticketsOut, TransactionRequest[] requestsOut, long[] acceptedAtOut, long waitNanos)
+            throws InterruptedException {
+        lock.lock();
+        try {
+            while (tail == head) {
+                if (waitNanos <= 0) {
+                    return 0;
+                }
+                waitNanos = notEmpty.awaitNanos(waitNanos);
+            }
+            int count = (int) Math.min(ticketsOut.length, tail - head);
+            for (int i = 0; i < count; i++) {
+                int slot = (int) (head % tickets.length);
+                ticketsOut[i] = tickets[slot];
+                requestsOut[i] = requests[slot];
+                acceptedAtOut[i] = acceptedAt[slot];
+                // Let the request be collected once it is stored
+                tickets[slot] = null;
+                requests[slot] = null;
+                head++;
+            }
+            if (tail != head) {
+                // More than one batch is queued: wake another consumer for the rest
+                notEmpty.signal();
+            }
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return (int) (tail - head);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int capacity() {
+        return tickets.length;
+    }
+}
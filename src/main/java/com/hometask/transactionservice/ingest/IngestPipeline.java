@@ -0,0 +1,216 @@
+package com.hometask.transactionservice.ingest;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hometask.transactionservice.dto.IngestStatus;
+import com.hometask.transactionservice.dto.TransactionBatchItem;
+import com.hometask.transactionservice.dto.TransactionBatchResponse;
+import com.hometask.transactionservice.dto.TransactionRequest;
+import com.hometask.transactionservice.exception.IngestBufferFullException;
+import com.hometask.transactionservice.exception.TransactionNotFoundException;
+import com.hometask.transactionservice.service.TransactionService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accepts creates without storing them on the request thread. An accepted request is queued in an
+ * {@link IngestBuffer} and answered with a ticket right away; consumer threads drain the buffer in batches through
+ * {@link TransactionService#createTransactions}, which checks duplicates and stores each batch in one pass, and
+ * record the outcome of every ticket. When the buffer is full a create is refused instead of queued, so a burst
+ * beyond what the consumers keep up with is pushed back to the clients rather than piling up in memory.
+ * <p>
+ * The request is validated before it is accepted; the duplicate check happens when its batch is stored, and the
+ * transaction gets the time it was stored as its timestamp. Outcomes are kept for a while and then forgotten, and
+ * requests still queued when the node stops are stored before it does.
+ */
+public class IngestPipeline implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestPipeline.class);
+    private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final TransactionService service;
+    private final IngestBuffer buffer;
+    private final Cache<String, IngestStatus> statuses;
+    private final int consumers;
+    private final int batchSize;
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean running;
+
+    private final Counter accepted;
+    private final Counter rejected;
+    private final Timer storeDelay;
+    private final Timer batchTimer;
+
+    public IngestPipeline(TransactionService service, int capacity, int consumers, int batchSize,
+                          long maxStatuses, Duration statusTtl, MeterRegistry meterRegistry) {
+        if (consumers < 1) {
+            throw new IllegalArgumentException("transaction.ingest.consumers must be at least 1, was " + consumers);
+        }
+        if (batchSize < 1 || batchSize > TransactionService.MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("transaction.ingest.batch-size must be between 1 and "
+                    + TransactionService.MAX_BATCH_SIZE + ", was " + batchSize);
+        }
+        this.service = service;
+        this.buffer = new IngestBuffer(capacity);
+        this.consumers = consumers;
+        this.batchSize = batchSize;
+        this.statuses = Caffeine.newBuilder()
+                .maximumSize(maxStatuses)
+                .expireAfterWrite(statusTtl)
+                .build();
+
+        accepted = Counter.builder("transaction.ingest.requests")
+                .description("Creates offered to the ingest buffer")
+                .tag("result", "accepted")
+                .register(meterRegistry);
+        rejected = Counter.builder("transaction.ingest.requests")
+                .description("Creates offered to the ingest buffer")
+                .tag("result", "rejected")
+                .register(meterRegistry);
+        storeDelay = Timer.builder("transaction.ingest.delay")
+                .description("Time from accepting a create to storing it")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        batchTimer = Timer.builder("transaction.ingest.batch")
+                .description("Time to store one batch drained from the ingest buffer")
+                .register(meterRegistry);
+        Gauge.builder("transaction.ingest.buffer.size", buffer, IngestBuffer::size)
+                .description("Creates accepted and not yet stored")
+                .register(meterRegistry);
+        Gauge.builder("transaction.ingest.buffer.capacity", buffer, IngestBuffer::capacity)
+                .description("Creates the ingest buffer holds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues a validated create.
+     *
+     * @throws IngestBufferFullException if the buffer is full or the pipeline is not running
+     */
+    public IngestStatus submit(TransactionRequest request) {
+        if (!running) {
+            throw new IngestBufferFullException("Asynchronous ingest is not running");
+        }
+        String ticket = UUID.randomUUID().toString();
+        IngestStatus pending = IngestStatus.pending(ticket);
+        // Before the request is queued, so the outcome a consumer records is never overwritten
+        statuses.put(ticket, pending);
+        if (!buffer.offer(ticket, request, System.nanoTime())) {
+            statuses.invalidate(ticket);
+            rejected.increment();
+            throw new IngestBufferFullException("Ingest buffer is full, retry later");
+        }
+        accepted.increment();
+        return pending;
+    }
+
+    public IngestStatus status(String ticket) {
+        IngestStatus status = statuses.getIfPresent(ticket);
+        if (status == null) {
+            throw new TransactionNotFoundException("Ingest ticket not found: " + ticket);
+        }
+        return status;
+    }
+
+    int queued() {
+        return buffer.size();
+    }
+
+    private void consume() {
+        String[] tickets = new String[batchSize];
+        TransactionRequest[] requests = new TransactionRequest[batchSize];
+        long[] acceptedAt = new long[batchSize];
+        List<TransactionRequest> batch = Arrays.asList(requests);
+        while (true) {
+            int count;
+            try {
+                count = buffer.drainTo(tickets, requests, acceptedAt, POLL_NANOS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (count == 0) {
+                if (!running) {
+                    return;
+                }
+                continue;
+            }
+            store(tickets, batch.subList(0, count), acceptedAt);
+            Arrays.fill(tickets, 0, count, null);
+            Arrays.fill(requests, 0, count, null);
+        }
+    }
+
+    private void store(String[] tickets, List<TransactionRequest> batch, long[] acceptedAt) {
+        try {
+            TransactionBatchResponse response = batchTimer.record(() -> service.createTransactions(batch));
+            for (TransactionBatchItem item : response.getResults()) {
+                statuses.put(tickets[item.getIndex()], IngestStatus.of(tickets[item.getIndex()], item));
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to store a batch of {} accepted transactions", batch.size(), e);
+            for (int i = 0; i < batch.size(); i++) {
+                statuses.put(tickets[i], IngestStatus.failed(tickets[i], "Failed to store: " + e.getMessage()));
+            }
+        }
+        long stored = System.nanoTime();
+        for (int i = 0; i < batch.size(); i++) {
+            storeDelay.record(stored - acceptedAt[i], TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < consumers; i++) {
+            Thread thread = Thread.ofPlatform().name("ingest-consumer-" + i).daemon().start(this::consume);
+            threads.add(thread);
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        // Consumers leave once the buffer is empty, so what was accepted is stored
+        running = false;
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        threads.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Stop after the embedded web server stops taking requests and before the write-ahead log closes, so every
+        // accepted request is stored and made durable
+        return 1;
+    }
+}
@@ -0,0 +1,43 @@
+package com.hometask.transactionservice.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+
+/**
+ * Creates the timers for one component's operations: one metric name, told apart by an {@code operation} tag.
+ * Every timer publishes a percentile histogram, so percentiles can be aggregated across instances when queried
+ * instead of being computed in the process. The expected range bounds the number of histogram buckets.
+ */
+public final class OperationTimers {
+
+    private final MeterRegistry registry;
+    private final String name;
+    private final String description;
+    private final Duration minimumExpected;
+    private final Duration maximumExpected;
+
+    public OperationTimers(MeterRegistry registry, String name, String description,
+                           Duration minimumExpected, Duration maximumExpected) {
+        this.registry = registry;
+        this.name = name;
+        this.description = description;
+        this.minimumExpected = minimumExpected;
+        this.maximumExpected = maximumExpected;
+    }
+
+    /**
+     * Registers (or looks up) the timer for {@code operation}. Call this once and keep the timer; the lookup is
+     * far more expensive than recording.
+     */
+    public Timer timer(String operation) {
+        return Timer.builder(name)
+                .description(description)
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(minimumExpected)
+                .maximumExpectedValue(maximumExpected)
+                .register(registry);
+    }
+}
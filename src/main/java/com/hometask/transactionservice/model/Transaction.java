@@ -1,5 +1,7 @@
 package com.hometask.transactionservice.model;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
@@ -9,41 +11,60 @@ import java.time.LocalDateTime;
 import java.util.Objects;
 import java.util.UUID;
 
-public class Transaction {
-    private String id;
-    
+/**
+ * An immutable transaction. A change produces a new instance with the next {@link #getVersion() version}, so the
+ * instance held by the repository can be shared with the cache and with readers without copying or locking.
+ * Equality is by id, across versions.
+ */
+public final class Transaction {
+
+    public static final long INITIAL_VERSION = 1;
+
+    private final String id;
+
     @NotBlank(message = "Account number is required")
-    private String accountNumber;
-    
+    private final String accountNumber;
+
     @NotNull(message = "Amount is required")
-    private BigDecimal amount;
-    
+    private final BigDecimal amount;
+
     @NotBlank(message = "Transaction type is required")
-    private String type; // DEPOSIT, WITHDRAWAL, TRANSFER
-    
-    private String description;
-    private LocalDateTime timestamp;
-    
+    private final String type; // DEPOSIT, WITHDRAWAL, TRANSFER
+
+    private final String description;
+    private final LocalDateTime timestamp;
+
     // For transfers
-    private String destinationAccount;
+    private final String destinationAccount;
 
-    public Transaction() {
-        this.id = UUID.randomUUID().toString();
-        this.timestamp = LocalDateTime.now();
-    }
+    private final long version;
 
     // Constructor for creating new transactions
     public Transaction(String accountNumber, BigDecimal amount, String type, String description) {
-        this();
-        this.accountNumber = accountNumber;
-        this.amount = amount;
-        this.type = type;
-        this.description = description;
+        this(accountNumber, amount, type, description, null);
+    }
+
+    public Transaction(String accountNumber, BigDecimal amount, String type, String description,
+                       String destinationAccount) {
+        this(UUID.randomUUID().toString(), accountNumber, amount, type, description, LocalDateTime.now(),
+                destinationAccount);
     }
 
     // Full constructor
-    public Transaction(String id, String accountNumber, BigDecimal amount, String type, 
+    public Transaction(String id, String accountNumber, BigDecimal amount, String type,
                       String description, LocalDateTime timestamp, String destinationAccount) {
+        this(id, accountNumber, amount, type, description, timestamp, destinationAccount, INITIAL_VERSION);
+    }
+
+    @JsonCreator
+    public Transaction(@JsonProperty("id") String id,
+                       @JsonProperty("accountNumber") String accountNumber,
+                       @JsonProperty("amount") BigDecimal amount,
+                       @JsonProperty("type") String type,
+                       @JsonProperty("description") String description,
+                       @JsonProperty("timestamp") LocalDateTime timestamp,
+                       @JsonProperty("destinationAccount") String destinationAccount,
+                       @JsonProperty("version") long version) {
         this.id = id;
         this.accountNumber = accountNumber;
         this.amount = amount;
@@ -51,63 +72,51 @@ public class Transaction {
         this.description = description;
         this.timestamp = timestamp;
         this.destinationAccount = destinationAccount;
+        this.version = version;
     }
 
-    // Getters and setters
-    public String getId() {
-        return id;
+    /**
+     * Returns the next version of this transaction with new details; the id and timestamp are kept.
+     */
+    public Transaction withDetails(String accountNumber, BigDecimal amount, String type, String description,
+                                   String destinationAccount) {
+        return new Transaction(id, accountNumber, amount, type, description, timestamp, destinationAccount,
+                version + 1);
     }
 
-    public void setId(String id) {
-        this.id = id;
+    public String getId() {
+        return id;
     }
 
     public String getAccountNumber() {
         return accountNumber;
     }
 
-    public void setAccountNumber(String accountNumber) {
-        this.accountNumber = accountNumber;
-    }
-
     public BigDecimal getAmount() {
         return amount;
     }
 
-    public void setAmount(BigDecimal amount) {
-        this.amount = amount;
-    }
-
     public String getType() {
         return type;
     }
 
-    public void setType(String type) {
-        this.type = type;
-    }
-
     public String getDescription() {
         return description;
     }
 
-    public void setDescription(String description) {
-        this.description = description;
-    }
-
     public LocalDateTime getTimestamp() {
         return timestamp;
     }
 
-    public void setTimestamp(LocalDateTime timestamp) {
-        this.timestamp = timestamp;
-    }
-
     public String getDestinationAccount() {
         return destinationAccount;
     }
 
-    public void setDestinationAccount(String destinationAccount) {
-        this.destinationAccount = destinationAccount;
+    /**
+     * Starts at {@value #INITIAL_VERSION} and goes up by one with every update.
+     */
+    public long getVersion() {
+        return version;
     }
 
     @Override
@@ -122,4 +131,4 @@ public class Transaction {
     public int hashCode() {
         return Objects.hash(id);
     }
-} 
+}
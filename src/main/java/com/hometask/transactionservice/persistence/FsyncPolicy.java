@@ -0,0 +1,19 @@
+package com.hometask.transactionservice.persistence;
+
+import java.util.Locale;
+
+/**
+ * When the write-ahead log forces appended records to disk.
+ */
+public enum FsyncPolicy {
+    /** Every record is forced on its own before the write is acknowledged. */
+    PER_WRITE,
+    /** Records queued while the previous force was running are written and forced together (group commit). */
+    GROUP,
+    /** Writes are acknowledged once queued; the log is forced on a fixed interval. */
+    INTERVAL;
+
+    public static FsyncPolicy fromProperty(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+    }
+}
@@ -0,0 +1,45 @@
+package com.hometask.transactionservice.persistence;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint ({@code /actuator/snapshots}) reporting snapshot and restore statistics.
+ * A POST takes a snapshot immediately.
+ */
+@Endpoint(id = "snapshots")
+public class SnapshotEndpoint {
+
+    private final SnapshotManager snapshotManager;
+    private final WriteAheadLog writeAheadLog;
+
+    public SnapshotEndpoint(SnapshotManager snapshotManager, WriteAheadLog writeAheadLog) {
+        this.snapshotManager = snapshotManager;
+        this.writeAheadLog = writeAheadLog;
+    }
+
+    @ReadOperation
+    public Map<String, Object> snapshots() {
+        Map<String, Object> replay = new LinkedHashMap<>();
+        replay.put("records", writeAheadLog.lastReplayedRecords());
+        replay.put("durationMillis", writeAheadLog.lastReplayMillis());
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("lastSnapshot", snapshotManager.lastSnapshot());
+        result.put("lastRestore", snapshotManager.lastRestore());
+        result.put("logReplay", replay);
+        result.put("lastLogSequence", writeAheadLog.lastAppendedSequence());
+        result.put("logFailed", writeAheadLog.isFailed());
+        return result;
+    }
+
+    @WriteOperation
+    public SnapshotStats takeSnapshot() throws IOException {
+        return snapshotManager.snapshot();
+    }
+}
@@ -0,0 +1,205 @@
+package com.hometask.transactionservice.persistence;
+
+import com.hometask.transactionservice.model.Transaction;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary snapshot of the repository contents.
+ * <p>
+ * Layout: {@code [long magic][int version][long sequence]}, then blocks of up to {@value #BLOCK_RECORDS}
+ * transactions as {@code [int records][int bytes][int crc32c][bytes]}, and a terminating block with zero records.
+ * Blocks are self-contained so they can be decoded in parallel.
+ */
+final class SnapshotFile {
+
+    private static final long MAGIC = 0x5458534e41505348L;
+    private static final int VERSION = 2;
+    private static final int BLOCK_RECORDS = 4096;
+    private static final int HEADER_BYTES = Long.BYTES + Integer.BYTES + Long.BYTES;
+    private static final int BLOCK_HEADER_BYTES = Integer.BYTES * 3;
+
+    private SnapshotFile() {
+    }
+
+    /**
+     * Writes and forces a snapshot of {@code transactions}.
+     *
+     * @param sequence write-ahead log sequence the snapshot was started at
+     * @return the number of transactions written
+     */
+    static long write(Path path, long sequence, Consumer<Consumer<Transaction>> transactions) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            OutputStream stream = new BufferedOutputStream(Channels.newOutputStream(channel), 256 * 1024);
+            DataOutputStream out = new DataOutputStream(stream);
+            out.writeLong(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(sequence);
+
+            BlockWriter blocks = new BlockWriter(out);
+            try {
+                transactions.accept(blocks::add);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            blocks.flush();
+            out.writeInt(0);
+            out.writeInt(0);
+            out.writeInt(0);
+            out.flush();
+            channel.force(true);
+            return blocks.total;
+        }
+    }
+
+    static long readSequence(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = readFully(channel, 0, HEADER_BYTES);
+            checkHeader(path, header);
+            return header.getLong();
+        }
+    }
+
+    /**
+     * Decodes every block of the snapshot, using all available cores, and passes the transactions to
+     * {@code consumer}, which must be thread-safe.
+     *
+     * @return the number of transactions read
+     */
+    static long read(Path path, Consumer<Transaction> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            checkHeader(path, readFully(channel, 0, HEADER_BYTES));
+
+            // Locate the blocks first; that only reads the block headers
+            List<Block> blocks = new ArrayList<>();
+            long position = HEADER_BYTES;
+            long size = channel.size();
+            while (true) {
+                if (size - position < BLOCK_HEADER_BYTES) {
+                    throw new IOException("Snapshot " + path + " is truncated");
+                }
+                ByteBuffer header = readFully(channel, position, BLOCK_HEADER_BYTES);
+                int records = header.getInt();
+                int bytes = header.getInt();
+                int checksum = header.getInt();
+                position += BLOCK_HEADER_BYTES;
+                if (records == 0) {
+                    break;
+                }
+                if (bytes < 0 || bytes > size - position) {
+                    throw new IOException("Snapshot " + path + " is truncated");
+                }
+                blocks.add(new Block(position, bytes, checksum));
+                position += bytes;
+            }
+
+            // Positional reads on a FileChannel are safe to issue from several threads
+            LongAdder total = new LongAdder();
+            try {
+                blocks.parallelStream().forEach(block -> {
+                    try {
+                        ByteBuffer bytes = readFully(channel, block.position(), block.bytes());
+                        CRC32C crc = new CRC32C();
+                        crc.update(bytes.duplicate());
+                        if ((int) crc.getValue() != block.checksum()) {
+                            throw new IOException("Snapshot " + path + " has a corrupted block at byte "
+                                    + block.position());
+                        }
+                        DataInputStream in = new DataInputStream(
+                                new ByteArrayInputStream(bytes.array(), 0, bytes.limit()));
+                        while (in.available() > 0) {
+                            consumer.accept(TransactionCodec.read(in));
+                            total.increment();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            return total.sum();
+        }
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of snapshot");
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static void checkHeader(Path path, ByteBuffer header) throws IOException {
+        if (header.remaining() < HEADER_BYTES || header.getLong() != MAGIC) {
+            throw new IOException(path + " is not a transaction snapshot");
+        }
+        int version = header.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version + " in " + path);
+        }
+    }
+
+    private record Block(long position, int bytes, int checksum) {
+    }
+
+    private static final class BlockWriter {
+        private final DataOutputStream out;
+        private final ByteArrayOutputStream block = new ByteArrayOutputStream(BLOCK_RECORDS * 128);
+        private final DataOutputStream blockOut = new DataOutputStream(block);
+        private final CRC32C crc = new CRC32C();
+        private int records;
+        private long total;
+
+        BlockWriter(DataOutputStream out) {
+            this.out = out;
+        }
+
+        void add(Transaction transaction) {
+            try {
+                TransactionCodec.write(blockOut, transaction);
+                records++;
+                total++;
+                if (records == BLOCK_RECORDS) {
+                    flush();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void flush() throws IOException {
+            if (records == 0) {
+                return;
+            }
+            byte[] bytes = block.toByteArray();
+            crc.reset();
+            crc.update(bytes);
+            out.writeInt(records);
+            out.writeInt(bytes.length);
+            out.writeInt((int) crc.getValue());
+            out.write(bytes);
+            block.reset();
+            records = 0;
+        }
+    }
+}
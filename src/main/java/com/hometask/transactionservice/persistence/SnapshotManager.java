@@ -0,0 +1,202 @@
+package com.hometask.transactionservice.persistence;
+
+import com.hometask.transactionservice.repository.TransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Periodically snapshots the repository so restarts only replay the tail of the write-ahead log.
+ * <p>
+ * A snapshot first rolls the log to a new segment and waits for the mutations behind the records before that point
+ * to reach the store, so they are covered by the snapshot, which is then written while writes continue. Records that land
+ * during the write may or may not be in the snapshot, but they are all in the new segment and replaying a record is
+ * idempotent, so snapshot plus tail always recover the exact state. Once the snapshot is on disk, older snapshots
+ * and the segments before it are deleted.
+ * <p>
+ * Runs in an earlier lifecycle phase than the {@link WriteAheadLog}: the newest snapshot is loaded before the log
+ * replays its tail.
+ */
+public class SnapshotManager implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(SnapshotManager.class);
+
+    static final String SNAPSHOT_PREFIX = "snapshot-";
+    static final String SNAPSHOT_SUFFIX = ".snap";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path directory;
+    private final long intervalMillis;
+    private final TransactionRepository repository;
+    private final WriteAheadLog writeAheadLog;
+
+    private final Object snapshotLock = new Object();
+    private ScheduledExecutorService scheduler;
+    private volatile boolean running;
+    private volatile SnapshotStats lastSnapshot;
+    private volatile SnapshotStats lastRestore;
+
+    public SnapshotManager(Path directory, long intervalMillis, TransactionRepository repository,
+                           WriteAheadLog writeAheadLog) {
+        this.directory = directory;
+        this.intervalMillis = intervalMillis;
+        this.repository = repository;
+        this.writeAheadLog = writeAheadLog;
+    }
+
+    /**
+     * Writes a snapshot now, unless nothing was logged since the previous one.
+     */
+    public SnapshotStats snapshot() throws IOException {
+        synchronized (snapshotLock) {
+            SnapshotStats previous = lastSnapshot;
+            if (previous != null && previous.sequence() == writeAheadLog.lastAppendedSequence()) {
+                return previous;
+            }
+
+            long started = System.nanoTime();
+            CompletableFuture<Long> rolled = writeAheadLog.rollSegment();
+            // A record queued before the roll may belong to a mutation that has not reached the store yet
+            repository.awaitMutationsInFlight();
+            long firstSequenceAfter = rolled.join();
+            long sequence = firstSequenceAfter - 1;
+
+            Path target = directory.resolve(snapshotName(sequence));
+            Path temp = directory.resolve(snapshotName(sequence) + TEMP_SUFFIX);
+            Files.deleteIfExists(temp);
+            long records = SnapshotFile.write(temp, sequence, repository::forEach);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+            for (Path old : snapshots()) {
+                if (!old.equals(target)) {
+                    Files.delete(old);
+                }
+            }
+            writeAheadLog.deleteSegmentsBefore(firstSequenceAfter);
+
+            SnapshotStats stats = new SnapshotStats(sequence, records, Files.size(target),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), Instant.now());
+            lastSnapshot = stats;
+            log.info("Wrote snapshot of {} transactions at sequence {} in {} ms", records, sequence,
+                    stats.durationMillis());
+            return stats;
+        }
+    }
+
+    public SnapshotStats lastSnapshot() {
+        return lastSnapshot;
+    }
+
+    public SnapshotStats lastRestore() {
+        return lastRestore;
+    }
+
+    private void restore() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path temp : files.filter(path -> path.toString().endsWith(TEMP_SUFFIX)).toList()) {
+                Files.delete(temp);
+            }
+        }
+
+        List<Path> snapshots = snapshots();
+        if (snapshots.isEmpty()) {
+            return;
+        }
+        Path latest = snapshots.get(snapshots.size() - 1);
+        long started = System.nanoTime();
+        long sequence = SnapshotFile.readSequence(latest);
+        long records = SnapshotFile.read(latest, repository::save);
+        writeAheadLog.recoverAfter(sequence);
+
+        SnapshotStats stats = new SnapshotStats(sequence, records, Files.size(latest),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), Instant.now());
+        lastRestore = stats;
+        lastSnapshot = stats;
+        log.info("Restored {} transactions from snapshot {} in {} ms", records, latest, stats.durationMillis());
+    }
+
+    List<Path> snapshots() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    static String snapshotName(long sequence) {
+        return String.format("%s%020d%s", SNAPSHOT_PREFIX, sequence, SNAPSHOT_SUFFIX);
+    }
+
+    // Lifecycle
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            restore();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not restore snapshot from " + directory, e);
+        }
+        if (intervalMillis > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "snapshot-writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::scheduledSnapshot, intervalMillis, intervalMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+        running = true;
+    }
+
+    private void scheduledSnapshot() {
+        if (!writeAheadLog.isRunning()) {
+            return;
+        }
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to write snapshot", e);
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Restore before the write-ahead log replays its tail
+        return -1;
+    }
+}
@@ -0,0 +1,11 @@
+package com.hometask.transactionservice.persistence;
+
+import java.time.Instant;
+
+/**
+ * Outcome of writing or restoring a snapshot.
+ *
+ * @param sequence last write-ahead log sequence covered by the snapshot
+ */
+public record SnapshotStats(long sequence, long records, long sizeBytes, long durationMillis, Instant completedAt) {
+}
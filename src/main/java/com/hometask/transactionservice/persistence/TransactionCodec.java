@@ -0,0 +1,94 @@
+package com.hometask.transactionservice.persistence;
+
+import com.hometask.transactionservice.model.Transaction;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Compact binary encoding of a {@link Transaction} shared by the write-ahead log and snapshots.
+ * Amounts are written as unscaled value plus scale and timestamps as epoch second plus nanos,
+ * so a decoded transaction is equal field by field to the one that was encoded. The version comes last.
+ */
+public final class TransactionCodec {
+
+    private TransactionCodec() {
+    }
+
+    public static void write(DataOutput out, Transaction transaction) throws IOException {
+        out.writeUTF(transaction.getId());
+        writeNullableString(out, transaction.getAccountNumber());
+        writeAmount(out, transaction.getAmount());
+        writeNullableString(out, transaction.getType());
+        writeNullableString(out, transaction.getDescription());
+        writeTimestamp(out, transaction.getTimestamp());
+        writeNullableString(out, transaction.getDestinationAccount());
+        out.writeLong(transaction.getVersion());
+    }
+
+    public static Transaction read(DataInput in) throws IOException {
+        String id = in.readUTF();
+        String accountNumber = readNullableString(in);
+        BigDecimal amount = readAmount(in);
+        String type = readNullableString(in);
+        String description = readNullableString(in);
+        LocalDateTime timestamp = readTimestamp(in);
+        String destinationAccount = readNullableString(in);
+        long version = in.readLong();
+        return new Transaction(id, accountNumber, amount, type, description, timestamp, destinationAccount,
+                version);
+    }
+
+    private static void writeNullableString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullableString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeAmount(DataOutput out, BigDecimal amount) throws IOException {
+        out.writeBoolean(amount != null);
+        if (amount != null) {
+            byte[] unscaled = amount.unscaledValue().toByteArray();
+            out.writeInt(amount.scale());
+            out.writeShort(unscaled.length);
+            out.write(unscaled);
+        }
+    }
+
+    private static BigDecimal readAmount(DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        int scale = in.readInt();
+        byte[] unscaled = new byte[in.readUnsignedShort()];
+        in.readFully(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+
+    private static void writeTimestamp(DataOutput out, LocalDateTime timestamp) throws IOException {
+        out.writeBoolean(timestamp != null);
+        if (timestamp != null) {
+            out.writeLong(timestamp.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(timestamp.getNano());
+        }
+    }
+
+    private static LocalDateTime readTimestamp(DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        long epochSecond = in.readLong();
+        int nano = in.readInt();
+        return LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC);
+    }
+}
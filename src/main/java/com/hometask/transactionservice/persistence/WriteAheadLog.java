@@ -0,0 +1,540 @@
+package com.hometask.transactionservice.persistence;
+
+import com.hometask.transactionservice.model.Transaction;
+import com.hometask.transactionservice.repository.TransactionJournal;
+import com.hometask.transactionservice.repository.TransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Segmented, append-only log of every repository mutation.
+ * <p>
+ * Writers encode their record while holding the repository's per-id lock and hand it to a queue; a single appender
+ * thread assigns sequence numbers, writes records through a {@link FileChannel} and forces them according to the
+ * {@link FsyncPolicy}. Writers never contend on a lock around the file, they only wait for their record to become
+ * durable. On start the existing segments are replayed into the repository before the log is attached to it.
+ * <p>
+ * Record layout: {@code [int length][int crc32c][long sequence][byte op][body]}, where length and crc cover
+ * everything after the crc. A record whose length or checksum does not match marks a torn write; the segment is
+ * truncated there on recovery. Segments are forced before the log rolls to the next one, so only the last segment
+ * can end in a torn write, and only if no intact record follows the bad one: a torn write is the last thing the
+ * file holds. A bad record in an earlier segment, a bad record in the last segment that later intact records
+ * follow, or a gap in the sequence numbers, means records were lost, and recovery fails instead of applying later
+ * records over the hole or truncating them away.
+ * <p>
+ * If an append fails, the log is broken: the mutations of the failed batch, and of every record queued behind it,
+ * are already visible in the repository but may not be on disk, and their callers get the error. From then on every
+ * record method throws, so the repository refuses all later mutations instead of building on writes a restart may
+ * lose. Reads keep working. Only a restart, which replays what reached the disk, makes the repository writable
+ * again.
+ */
+public class WriteAheadLog implements TransactionJournal, SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteAheadLog.class);
+
+    static final String SEGMENT_PREFIX = "wal-";
+    static final String SEGMENT_SUFFIX = ".log";
+
+    private static final int HEADER_BYTES = Integer.BYTES * 2;
+    private static final int MAX_BATCH = 4096;
+
+    private static final byte OP_DELETE = 2;
+    private static final byte OP_CLEAR = 3;
+    private static final byte OP_SAVE = 4;
+
+    private final Path directory;
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalMillis;
+    private final long segmentSizeBytes;
+    private final TransactionRepository repository;
+
+    private final BlockingQueue<PendingRecord> queue = new LinkedBlockingQueue<>();
+    private final CRC32C checksum = new CRC32C();
+    private ByteBuffer writeBuffer = ByteBuffer.allocateDirect(64 * 1024);
+
+    private volatile boolean running;
+    private Thread appender;
+    private FileChannel segment;
+    private long recoverAfterSequence;
+    private long nextSequence = 1;
+    private volatile long lastAppendedSequence;
+    private volatile Throwable failure;
+    private boolean unforcedWrites;
+    private volatile ReplayResult lastReplay = new ReplayResult(0, 0, 0);
+
+    public WriteAheadLog(Path directory, FsyncPolicy fsyncPolicy, long fsyncIntervalMillis, long segmentSizeBytes,
+                         TransactionRepository repository) {
+        this.directory = directory;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalMillis = fsyncIntervalMillis;
+        this.segmentSizeBytes = segmentSizeBytes;
+        this.repository = repository;
+    }
+
+    @Override
+    public CompletableFuture<Void> recordSave(Transaction transaction) {
+        return enqueue(OP_SAVE, transaction, null);
+    }
+
+    @Override
+    public CompletableFuture<Void> recordDelete(String id) {
+        return enqueue(OP_DELETE, null, id);
+    }
+
+    @Override
+    public CompletableFuture<Void> recordClear() {
+        return enqueue(OP_CLEAR, null, null);
+    }
+
+    /**
+     * Sequence number of the last record handed to the file. Every mutation with a sequence up to this one has
+     * already been applied to the repository.
+     */
+    public long lastAppendedSequence() {
+        return lastAppendedSequence;
+    }
+
+    /**
+     * Whether an append failed, after which the log refuses every record until it is restarted.
+     */
+    public boolean isFailed() {
+        return failure != null;
+    }
+
+    /**
+     * Makes the next {@link #start()} skip records up to and including {@code sequence}, because their effect was
+     * already restored from a snapshot.
+     */
+    public synchronized void recoverAfter(long sequence) {
+        if (running) {
+            throw new IllegalStateException("Write-ahead log is already running");
+        }
+        this.recoverAfterSequence = sequence;
+    }
+
+    /**
+     * Closes the current segment once everything queued so far has been written and starts a new one.
+     *
+     * @return the sequence number the new segment starts at; every earlier record is in an older segment
+     */
+    public CompletableFuture<Long> rollSegment() {
+        if (!running) {
+            throw new IllegalStateException("Write-ahead log is not running");
+        }
+        checkNotFailed();
+        CompletableFuture<Long> rolled = new CompletableFuture<>();
+        queue.add(new PendingRecord(null, null, rolled));
+        return rolled;
+    }
+
+    /**
+     * Deletes segments that only hold records before {@code sequence}.
+     */
+    public void deleteSegmentsBefore(long sequence) throws IOException {
+        for (Path path : segments()) {
+            if (firstSequenceOf(path) < sequence) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    public long lastReplayedRecords() {
+        return lastReplay.records();
+    }
+
+    public long lastReplayMillis() {
+        return lastReplay.millis();
+    }
+
+    private CompletableFuture<Void> enqueue(byte op, Transaction transaction, String id) {
+        if (!running) {
+            throw new IllegalStateException("Write-ahead log is not running");
+        }
+        checkNotFailed();
+        CompletableFuture<Void> durable = fsyncPolicy == FsyncPolicy.INTERVAL ? null : new CompletableFuture<>();
+        queue.add(new PendingRecord(encode(op, transaction, id), durable, null));
+        return durable != null ? durable : COMPLETED;
+    }
+
+    private void checkNotFailed() {
+        Throwable cause = failure;
+        if (cause != null) {
+            throw new IllegalStateException("Write-ahead log failed to append; writes are refused until restart",
+                    cause);
+        }
+    }
+
+    private static byte[] encode(byte op, Transaction transaction, String id) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(op);
+            if (op == OP_SAVE) {
+                TransactionCodec.write(out, transaction);
+            } else if (op == OP_DELETE) {
+                out.writeUTF(id);
+            }
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Lifecycle
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            long lastSequence = replay(recoverAfterSequence);
+            nextSequence = lastSequence + 1;
+            lastAppendedSequence = lastSequence;
+            openSegment();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open write-ahead log in " + directory, e);
+        }
+        running = true;
+        repository.addJournal(this);
+        appender = new Thread(this::appendLoop, "wal-appender");
+        appender.setDaemon(true);
+        appender.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        repository.removeJournal(this);
+        running = false;
+        try {
+            appender.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Anything that slipped in after the appender drained the queue can no longer be made durable
+        PendingRecord late;
+        while ((late = queue.poll()) != null) {
+            late.fail(new IllegalStateException("Write-ahead log was stopped"));
+        }
+        try {
+            segment.force(false);
+            segment.close();
+        } catch (IOException e) {
+            log.error("Failed to close write-ahead log segment", e);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Start before, and stop after, the embedded web server
+        return 0;
+    }
+
+    // Appending
+
+    private void appendLoop() {
+        List<PendingRecord> batch = new ArrayList<>();
+        long lastForce = System.nanoTime();
+        long pollMillis = fsyncPolicy == FsyncPolicy.INTERVAL ? Math.max(1, fsyncIntervalMillis) : 100;
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingRecord first = queue.poll(pollMillis, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    if (fsyncPolicy != FsyncPolicy.PER_WRITE) {
+                        queue.drainTo(batch, MAX_BATCH);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+
+            if (failure != null) {
+                Throwable cause = failure;
+                batch.forEach(record -> record.fail(cause));
+                batch.clear();
+                continue;
+            }
+            try {
+                if (fsyncPolicy == FsyncPolicy.PER_WRITE) {
+                    for (PendingRecord record : batch) {
+                        write(List.of(record));
+                        force();
+                        record.complete();
+                    }
+                } else if (!batch.isEmpty()) {
+                    write(batch);
+                    if (fsyncPolicy == FsyncPolicy.GROUP) {
+                        force();
+                    }
+                    batch.forEach(PendingRecord::complete);
+                }
+                if (fsyncPolicy == FsyncPolicy.INTERVAL && unforcedWrites
+                        && System.nanoTime() - lastForce >= TimeUnit.MILLISECONDS.toNanos(fsyncIntervalMillis)) {
+                    force();
+                    lastForce = System.nanoTime();
+                }
+            } catch (IOException | RuntimeException e) {
+                log.error("Failed to append to write-ahead log; refusing writes until restart", e);
+                failure = e;
+                batch.forEach(record -> record.fail(e));
+            }
+            batch.clear();
+        }
+    }
+
+    private void write(List<PendingRecord> records) throws IOException {
+        for (PendingRecord record : records) {
+            if (record.rolled() != null) {
+                flushBuffer();
+                lastAppendedSequence = nextSequence - 1;
+                force();
+                segment.close();
+                openSegment();
+                record.rolled().complete(nextSequence);
+                continue;
+            }
+            int length = Long.BYTES + record.body().length;
+            ensureCapacity(HEADER_BYTES + length);
+            if (writeBuffer.remaining() < HEADER_BYTES + length) {
+                flushBuffer();
+            }
+            long sequence = nextSequence++;
+            int start = writeBuffer.position();
+            writeBuffer.putInt(length);
+            writeBuffer.putInt(0);
+            writeBuffer.putLong(sequence);
+            writeBuffer.put(record.body());
+
+            checksum.reset();
+            checksum.update(writeBuffer.duplicate().position(start + HEADER_BYTES).limit(writeBuffer.position()));
+            writeBuffer.putInt(start + Integer.BYTES, (int) checksum.getValue());
+        }
+        flushBuffer();
+        lastAppendedSequence = nextSequence - 1;
+        if (segment.position() >= segmentSizeBytes) {
+            force();
+            segment.close();
+            openSegment();
+        }
+    }
+
+    private void ensureCapacity(int recordBytes) throws IOException {
+        if (recordBytes > writeBuffer.capacity()) {
+            flushBuffer();
+            writeBuffer = ByteBuffer.allocateDirect(Integer.highestOneBit(recordBytes) << 1);
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        writeBuffer.flip();
+        while (writeBuffer.hasRemaining()) {
+            segment.write(writeBuffer);
+        }
+        writeBuffer.clear();
+        unforcedWrites = true;
+    }
+
+    private void force() throws IOException {
+        if (unforcedWrites) {
+            segment.force(false);
+            unforcedWrites = false;
+        }
+    }
+
+    private void openSegment() throws IOException {
+        Path path = directory.resolve(segmentName(nextSequence));
+        segment = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    static String segmentName(long firstSequence) {
+        return String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX);
+    }
+
+    private static long firstSequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    // Recovery
+
+    List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private long replay(long afterSequence) throws IOException {
+        long started = System.nanoTime();
+        long lastSequence = afterSequence;
+        long records = 0;
+        List<Path> segments = segments();
+        for (int i = 0; i < segments.size(); i++) {
+            ReplayResult result = replaySegment(segments.get(i), lastSequence, i == segments.size() - 1);
+            lastSequence = result.lastSequence();
+            records += result.records();
+        }
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        lastReplay = new ReplayResult(lastSequence, records, millis);
+        if (records > 0) {
+            log.info("Replayed {} write-ahead log records from {} in {} ms", records, directory, millis);
+        }
+        return lastSequence;
+    }
+
+    private ReplayResult replaySegment(Path path, long lastSequence, boolean lastSegment) throws IOException {
+        long records = 0;
+        long validEnd;
+        long size;
+        boolean intactRecordFollows;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            size = channel.size();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            CRC32C crc = new CRC32C();
+            while (true) {
+                int start = buffer.position();
+                if (buffer.remaining() < HEADER_BYTES) {
+                    validEnd = start;
+                    break;
+                }
+                int length = buffer.getInt();
+                int expectedChecksum = buffer.getInt();
+                if (length <= Long.BYTES || length > buffer.remaining()) {
+                    validEnd = start;
+                    break;
+                }
+                crc.reset();
+                crc.update(buffer.duplicate().limit(buffer.position() + length));
+                if ((int) crc.getValue() != expectedChecksum) {
+                    validEnd = start;
+                    break;
+                }
+                long sequence = buffer.getLong();
+                byte[] body = new byte[length - Long.BYTES];
+                buffer.get(body);
+                if (sequence > lastSequence) {
+                    if (sequence != lastSequence + 1) {
+                        throw new IOException("Write-ahead log segment " + path + " continues at sequence "
+                                + sequence + " after " + lastSequence + "; the records in between are missing");
+                    }
+                    apply(body);
+                    lastSequence = sequence;
+                    records++;
+                }
+            }
+            intactRecordFollows = validEnd < size && lastSegment
+                    && hasIntactRecordAfter(buffer, (int) validEnd + 1, lastSequence);
+        }
+        if (validEnd < size) {
+            if (!lastSegment) {
+                throw new IOException("Write-ahead log segment " + path + " is corrupt at byte " + validEnd + " of "
+                        + size + ", and later segments follow it");
+            }
+            if (intactRecordFollows) {
+                throw new IOException("Write-ahead log segment " + path + " is corrupt at byte " + validEnd + " of "
+                        + size + ", and intact records follow it");
+            }
+            log.warn("Truncating torn write-ahead log segment {} at byte {} of {}", path, validEnd, size);
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                channel.truncate(validEnd);
+                channel.force(true);
+            }
+        }
+        return new ReplayResult(lastSequence, records, 0);
+    }
+
+    /**
+     * Whether a record that passes its checksum, with a sequence after {@code lastSequence}, starts at or after
+     * {@code from}. Looks at every offset, since the bad record's length cannot be trusted to find the next one.
+     */
+    private static boolean hasIntactRecordAfter(ByteBuffer buffer, int from, long lastSequence) {
+        CRC32C crc = new CRC32C();
+        int limit = buffer.limit();
+        for (int start = from; start + HEADER_BYTES + Long.BYTES <= limit; start++) {
+            int length = buffer.getInt(start);
+            int body = start + HEADER_BYTES;
+            if (length <= Long.BYTES || length > limit - body || buffer.getLong(body) <= lastSequence) {
+                continue;
+            }
+            crc.reset();
+            crc.update(buffer.duplicate().position(body).limit(body + length));
+            if ((int) crc.getValue() == buffer.getInt(start + Integer.BYTES)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void apply(byte[] body) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        byte op = in.readByte();
+        switch (op) {
+            case OP_SAVE -> repository.save(TransactionCodec.read(in));
+            case OP_DELETE -> repository.deleteById(in.readUTF());
+            case OP_CLEAR -> repository.deleteAll();
+            default -> throw new IOException("Unknown write-ahead log operation " + op);
+        }
+    }
+
+    private record ReplayResult(long lastSequence, long records, long millis) {
+    }
+
+    /**
+     * A record waiting for the appender, or a request to roll the segment when {@code rolled} is set.
+     */
+    private record PendingRecord(byte[] body, CompletableFuture<Void> durable, CompletableFuture<Long> rolled) {
+        void complete() {
+            if (durable != null) {
+                durable.complete(null);
+            }
+        }
+
+        void fail(Throwable cause) {
+            if (durable != null) {
+                durable.completeExceptionally(cause);
+            }
+            if (rolled != null) {
+                rolled.completeExceptionally(cause);
+            }
+        }
+    }
+}
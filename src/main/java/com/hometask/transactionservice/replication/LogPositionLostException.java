@@ -0,0 +1,12 @@
+package com.hometask.transactionservice.replication;
+
+/**
+ * Thrown when a follower asks for records the log no longer holds, or for a log this node no longer has. The
+ * follower has to start again from a snapshot.
+ */
+public class LogPositionLostException extends RuntimeException {
+
+    public LogPositionLostException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,19 @@
+package com.hometask.transactionservice.replication;
+
+import com.hometask.transactionservice.model.Transaction;
+
+/**
+ * One mutation in a {@link ReplicationLog}.
+ *
+ * @param sequence         position in the log, starting at 1
+ * @param appendedAtMillis wall-clock time the mutation was applied on the node that logged it
+ * @param transaction      the saved transaction, for {@link Operation#SAVE}
+ * @param id               the deleted transaction's id, for {@link Operation#DELETE}
+ */
+public record LogRecord(long sequence, long appendedAtMillis, Operation operation, Transaction transaction,
+                        String id) {
+
+    public enum Operation {
+        SAVE, DELETE, CLEAR
+    }
+}
@@ -0,0 +1,51 @@
+package com.hometask.transactionservice.replication;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hometask.transactionservice.exception.GlobalExceptionHandler.ErrorResponse;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+/**
+ * Rejects API writes with {@code 503 Service Unavailable} while this node follows a primary, since a write applied
+ * here would be lost or overwritten by the primary's log. Reads are served from the replicated data.
+ */
+public class ReadOnlyFollowerFilter extends OncePerRequestFilter {
+
+    private final ReplicationFollower follower;
+    private final ObjectMapper objectMapper;
+
+    public ReadOnlyFollowerFilter(ReplicationFollower follower, ObjectMapper objectMapper) {
+        this.follower = follower;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String method = request.getMethod();
+        return HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method)
+                || HttpMethod.OPTIONS.matches(method);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String primary = follower.primaryUrl();
+        if (primary == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ErrorResponse(HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "This node is a read-only follower of " + primary, LocalDateTime.now()));
+    }
+}
@@ -0,0 +1,92 @@
+package com.hometask.transactionservice.replication;
+
+import com.hometask.transactionservice.repository.TransactionRepository;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Serves this node's {@link ReplicationLog} to followers. A follower first downloads a snapshot, then keeps asking
+ * for the records after the last one it applied; a request with nothing to return waits for the next record, so
+ * records reach an up-to-date follower as soon as they are appended. A follower whose position is not in the log
+ * gets {@code 410 Gone} and starts again from a snapshot.
+ * <p>
+ * Both endpoints write the replication stream themselves, so they handle their own failures: once the stream's
+ * content type is set, the error handler could not write an error body anyway. A follower that goes away mid-stream
+ * only costs this request, and a request interrupted while waiting answers {@code 503} and the follower asks again.
+ */
+@RestController
+@RequestMapping("/internal/replication")
+@ConditionalOnProperty(name = "transaction.replication.enabled", havingValue = "true")
+public class ReplicationController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicationController.class);
+
+    private static final int MAX_BATCH_RECORDS = 10_000;
+    private static final long MAX_WAIT_MILLIS = 30_000;
+
+    private final ReplicationLog log;
+    private final TransactionRepository repository;
+
+    public ReplicationController(ReplicationLog log, TransactionRepository repository) {
+        this.log = log;
+        this.repository = repository;
+    }
+
+    @GetMapping("/log")
+    public void log(@RequestParam String logId,
+                    @RequestParam long after,
+                    @RequestParam(defaultValue = "1000") int max,
+                    @RequestParam(defaultValue = "0") long waitMillis,
+                    HttpServletResponse response) {
+        if (!logId.equals(log.id())) {
+            response.setStatus(HttpStatus.GONE.value());
+            return;
+        }
+        List<LogRecord> records;
+        try {
+            records = log.read(after, Math.min(Math.max(max, 1), MAX_BATCH_RECORDS),
+                    Math.min(waitMillis, MAX_WAIT_MILLIS));
+        } catch (LogPositionLostException e) {
+            response.setStatus(HttpStatus.GONE.value());
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            return;
+        }
+        response.setContentType(ReplicationStream.CONTENT_TYPE);
+        try {
+            ReplicationStream.writeBatch(response.getOutputStream(), log.id(), log.lastSequence(), records);
+        } catch (IOException e) {
+            followerGone(e);
+        }
+    }
+
+    @GetMapping("/snapshot")
+    public void snapshot(HttpServletResponse response) {
+        // Every mutation up to this sequence is in the snapshot once it has reached the store; later ones may be
+        // too, and are applied again from the log, which leaves the same result
+        long sequence = log.lastSequence();
+        repository.awaitMutationsInFlight();
+        response.setContentType(ReplicationStream.CONTENT_TYPE);
+        try {
+            ReplicationStream.writeSnapshot(response.getOutputStream(), log.id(), sequence, repository::forEach);
+        } catch (IOException e) {
+            followerGone(e);
+        }
+    }
+
+    private static void followerGone(Exception e) {
+        logger.debug("Replication stream to a follower ended early: {}", e.toString());
+    }
+}
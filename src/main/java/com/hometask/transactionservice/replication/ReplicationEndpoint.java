@@ -0,0 +1,80 @@
+package com.hometask.transactionservice.replication;
+
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.lang.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Actuator endpoint ({@code /actuator/replication}) reporting this node's role, its log and, on a follower, how far
+ * it is behind. A POST without a body promotes a follower to primary, or answers {@code 503} while the follower is
+ * still loading its snapshot; a POST with {@code primaryUrl} makes the node follow that primary instead.
+ */
+@Endpoint(id = "replication")
+public class ReplicationEndpoint {
+
+    private final ReplicationLog replicationLog;
+    private final ReplicationFollower follower;
+
+    public ReplicationEndpoint(ReplicationLog replicationLog, ReplicationFollower follower) {
+        this.replicationLog = replicationLog;
+        this.follower = follower;
+    }
+
+    @ReadOperation
+    public Map<String, Object> replication() {
+        Map<String, Object> log = new LinkedHashMap<>();
+        log.put("id", replicationLog.id());
+        log.put("lastSequence", replicationLog.lastSequence());
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("role", follower.isFollowing() ? "follower" : "primary");
+        result.put("log", log);
+        if (follower.isFollowing() || follower.appliedRecords() > 0) {
+            result.put("follower", followerStatus());
+        }
+        return result;
+    }
+
+    @WriteOperation
+    public WebEndpointResponse<Map<String, Object>> changeRole(@Nullable String primaryUrl) {
+        if (primaryUrl == null || primaryUrl.isBlank()) {
+            if (!follower.promote()) {
+                Map<String, Object> result = replication();
+                result.put("error", "Still loading a snapshot from " + follower.primaryUrl() + "; not promoted");
+                return new WebEndpointResponse<>(result, WebEndpointResponse.STATUS_SERVICE_UNAVAILABLE);
+            }
+        } else {
+            follower.follow(primaryUrl.trim());
+        }
+        return new WebEndpointResponse<>(replication());
+    }
+
+    private Map<String, Object> followerStatus() {
+        Map<String, Object> lagPercentiles = new LinkedHashMap<>();
+        HistogramSnapshot lag = follower.lagTimer().takeSnapshot();
+        for (ValueAtPercentile percentile : lag.percentileValues()) {
+            lagPercentiles.put("p" + Math.round(percentile.percentile() * 100),
+                    percentile.value(TimeUnit.MILLISECONDS));
+        }
+
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("primaryUrl", follower.primaryUrl());
+        status.put("logId", follower.logId());
+        status.put("appliedSequence", follower.appliedSequence());
+        status.put("primarySequence", follower.primarySequence());
+        status.put("lagRecords", follower.lagRecords());
+        status.put("lagMillis", follower.lagMillis());
+        status.put("appliedRecords", follower.appliedRecords());
+        status.put("lagPercentilesMillis", lagPercentiles);
+        status.put("lastError", follower.lastError());
+        return status;
+    }
+}
@@ -0,0 +1,317 @@
+package com.hometask.transactionservice.replication;
+
+import com.hometask.transactionservice.repository.TransactionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.context.SmartLifecycle;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps this node a copy of a primary by reading the primary's {@link ReplicationLog} and applying its records in
+ * order. The follower starts from a snapshot of the primary, then asks for the records after the last one it
+ * applied, waiting at the primary while there are none. If it is not told about a primary, or once it has been
+ * {@link #promote promoted}, the node is a primary itself.
+ * <p>
+ * Replication lag is measured per record as the time from the mutation being applied on the primary to it being
+ * applied here, so it includes any difference between the two clocks.
+ */
+public class ReplicationFollower implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicationFollower.class);
+
+    private final TransactionRepository repository;
+    private final Cache transactionCache;
+    private final HttpClient client;
+    private final int batchRecords;
+    private final long pollWaitMillis;
+    private final long retryMillis;
+    private final Timer lagTimer;
+    private final Counter appliedRecords;
+    private final Counter snapshots;
+
+    private volatile String primaryUrl;
+    private volatile String logId;
+    private volatile long appliedSequence;
+    private volatile long primarySequence;
+    private volatile long lastAppendedAtMillis;
+    private volatile String lastError;
+    private volatile boolean running;
+    private Thread worker;
+
+    /**
+     * @param transactionCache cache of transactions by id to evict replicated changes from, or null
+     * @param primaryUrl       base URL of the primary to follow, or null if this node is the primary
+     */
+    public ReplicationFollower(TransactionRepository repository, Cache transactionCache, String primaryUrl,
+                               int batchRecords, long pollWaitMillis, long retryMillis, Duration connectTimeout,
+                               MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.transactionCache = transactionCache;
+        this.primaryUrl = primaryUrl;
+        this.batchRecords = batchRecords;
+        this.pollWaitMillis = pollWaitMillis;
+        this.retryMillis = retryMillis;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(connectTimeout)
+                .build();
+        this.lagTimer = Timer.builder("transaction.replication.lag")
+                .description("Time from a mutation being applied on the primary to it being applied on this follower")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofMinutes(1))
+                .register(meterRegistry);
+        this.appliedRecords = Counter.builder("transaction.replication.applied")
+                .description("Log records applied by this follower")
+                .register(meterRegistry);
+        this.snapshots = Counter.builder("transaction.replication.snapshots")
+                .description("Snapshots this follower started again from")
+                .register(meterRegistry);
+        Gauge.builder("transaction.replication.lag.records", this, ReplicationFollower::lagRecords)
+                .description("Records in the primary's log this follower has not applied yet")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Stops following and lets this node accept writes. Records already received are applied first. A follower
+     * that has not finished loading its snapshot holds only part of the primary's data, so it is not promoted and
+     * keeps loading.
+     *
+     * @return false if the node is still loading a snapshot and stays a follower
+     */
+    public synchronized boolean promote() {
+        if (primaryUrl == null) {
+            return true;
+        }
+        if (logId == null) {
+            return false;
+        }
+        stopWorker();
+        if (logId == null) {
+            // The log position was lost just before stopping, and the snapshot load that followed was cut short
+            if (running) {
+                startWorker();
+            }
+            return false;
+        }
+        log.info("Promoted to primary after applying sequence {} of log {} from {}", appliedSequence, logId,
+                primaryUrl);
+        primaryUrl = null;
+        return true;
+    }
+
+    /**
+     * Makes this node follow {@code url}, starting from a snapshot unless it already follows that primary.
+     */
+    public synchronized void follow(String url) {
+        stopWorker();
+        if (!url.equals(primaryUrl)) {
+            logId = null;
+        }
+        primaryUrl = url;
+        lastError = null;
+        if (running) {
+            startWorker();
+        }
+    }
+
+    /**
+     * Whether this node follows a primary, and so must not accept writes.
+     */
+    public boolean isFollowing() {
+        return primaryUrl != null;
+    }
+
+    public String primaryUrl() {
+        return primaryUrl;
+    }
+
+    public String logId() {
+        return logId;
+    }
+
+    public long appliedSequence() {
+        return appliedSequence;
+    }
+
+    public long primarySequence() {
+        return primarySequence;
+    }
+
+    public long lagRecords() {
+        return isFollowing() && logId != null ? Math.max(0, primarySequence - appliedSequence) : 0;
+    }
+
+    /**
+     * Age of the last record applied while there are more to apply, otherwise 0.
+     */
+    public long lagMillis() {
+        return lagRecords() > 0 ? Math.max(0, System.currentTimeMillis() - lastAppendedAtMillis) : 0;
+    }
+
+    public String lastError() {
+        return lastError;
+    }
+
+    public Timer lagTimer() {
+        return lagTimer;
+    }
+
+    public long appliedRecords() {
+        return (long) appliedRecords.count();
+    }
+
+    @Override
+    public synchronized void start() {
+        if (!running) {
+            running = true;
+            if (primaryUrl != null) {
+                startWorker();
+            }
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (running) {
+            running = false;
+            stopWorker();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void startWorker() {
+        worker = new Thread(this::followLoop, "replication-follower");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void stopWorker() {
+        if (worker == null) {
+            return;
+        }
+        worker.interrupt();
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        worker = null;
+    }
+
+    private void followLoop() {
+        String primary = primaryUrl;
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                if (logId == null) {
+                    bootstrap(primary);
+                } else {
+                    pull(primary);
+                }
+                lastError = null;
+            } catch (LogPositionLostException e) {
+                log.info("Position {} of log {} is gone at {}; starting again from a snapshot", appliedSequence,
+                        logId, primary);
+                logId = null;
+            } catch (IOException e) {
+                lastError = e.toString();
+                log.warn("Replication from {} failed: {}", primary, e.toString());
+                try {
+                    Thread.sleep(retryMillis);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void bootstrap(String primary) throws IOException, InterruptedException {
+        HttpResponse<InputStream> response = client.send(request(primary + "/internal/replication/snapshot",
+                Duration.ofMinutes(10)), HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() != 200) {
+            response.body().close();
+            throw new IOException("Snapshot request to " + primary + " returned " + response.statusCode());
+        }
+        long started = System.nanoTime();
+        repository.deleteAll();
+        if (transactionCache != null) {
+            transactionCache.clear();
+        }
+        long[] records = {0};
+        ReplicationStream.Header header = ReplicationStream.read(response.body(), record -> {
+            repository.save(record.transaction());
+            records[0]++;
+        });
+        logId = header.logId();
+        appliedSequence = header.sequence();
+        primarySequence = header.sequence();
+        snapshots.increment();
+        log.info("Loaded snapshot of {} transactions from {} at sequence {} of log {} in {} ms", records[0], primary,
+                header.sequence(), header.logId(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    private void pull(String primary) throws IOException, InterruptedException {
+        String uri = primary + "/internal/replication/log?logId=" + logId + "&after=" + appliedSequence
+                + "&max=" + batchRecords + "&waitMillis=" + pollWaitMillis;
+        HttpResponse<byte[]> response = client.send(request(uri, Duration.ofMillis(pollWaitMillis * 2 + 5_000)),
+                HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() == 410) {
+            throw new LogPositionLostException("Primary " + primary + " no longer has log " + logId
+                    + " after sequence " + appliedSequence);
+        }
+        if (response.statusCode() != 200) {
+            throw new IOException("Log request to " + primary + " returned " + response.statusCode());
+        }
+        ReplicationStream.Header header = ReplicationStream.read(new ByteArrayInputStream(response.body()),
+                this::apply);
+        primarySequence = header.sequence();
+    }
+
+    private void apply(LogRecord record) {
+        switch (record.operation()) {
+            case SAVE -> repository.save(record.transaction());
+            case DELETE -> repository.deleteById(record.id());
+            case CLEAR -> repository.deleteAll();
+        }
+        if (transactionCache != null) {
+            if (record.operation() == LogRecord.Operation.CLEAR) {
+                transactionCache.clear();
+            } else {
+                transactionCache.evict(record.id());
+            }
+        }
+        appliedSequence = record.sequence();
+        lastAppendedAtMillis = record.appendedAtMillis();
+        lagTimer.record(Math.max(0, System.currentTimeMillis() - record.appendedAtMillis()), TimeUnit.MILLISECONDS);
+        appliedRecords.increment();
+    }
+
+    private static HttpRequest request(String uri, Duration timeout) {
+        return HttpRequest.newBuilder(URI.create(uri))
+                .timeout(timeout)
+                .header("Accept", ReplicationStream.CONTENT_TYPE)
+                .GET()
+                .build();
+    }
+}
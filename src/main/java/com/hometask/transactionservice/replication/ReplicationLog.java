@@ -0,0 +1,135 @@
+package com.hometask.transactionservice.replication;
+
+import com.hometask.transactionservice.model.Transaction;
+import com.hometask.transactionservice.replication.LogRecord.Operation;
+import com.hometask.transactionservice.repository.TransactionJournal;
+import com.hometask.transactionservice.repository.TransactionRepository;
+import org.springframework.context.SmartLifecycle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory log of the mutations applied to this node's repository, numbered in the order they were applied, which
+ * followers read to keep a copy of the data. It only holds the most recent {@code capacity} records; a follower that
+ * falls further behind starts again from a snapshot.
+ * <p>
+ * Replication is asynchronous: recording a mutation never waits for a follower. Each log gets a new random id when
+ * it is created, so a follower can tell that the node it reads from has restarted, or that it now reads from another
+ * node, and that its position means nothing in this log.
+ */
+public class ReplicationLog implements TransactionJournal, SmartLifecycle {
+
+    private final String id = UUID.randomUUID().toString();
+    private final TransactionRepository repository;
+    private final LogRecord[] records;
+    // A ReentrantLock rather than synchronized so that followers waiting for records do not pin virtual threads
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private volatile long lastSequence;
+    private volatile boolean running;
+
+    public ReplicationLog(TransactionRepository repository, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Replication log capacity must be at least 1, was " + capacity);
+        }
+        this.repository = repository;
+        this.records = new LogRecord[capacity];
+    }
+
+    @Override
+    public CompletableFuture<Void> recordSave(Transaction transaction) {
+        return append(Operation.SAVE, transaction, transaction.getId());
+    }
+
+    @Override
+    public CompletableFuture<Void> recordDelete(String id) {
+        return append(Operation.DELETE, null, id);
+    }
+
+    @Override
+    public CompletableFuture<Void> recordClear() {
+        return append(Operation.CLEAR, null, null);
+    }
+
+    private CompletableFuture<Void> append(Operation operation, Transaction transaction, String transactionId) {
+        lock.lock();
+        try {
+            long sequence = lastSequence + 1;
+            records[(int) (sequence % records.length)] =
+                    new LogRecord(sequence, System.currentTimeMillis(), operation, transaction, transactionId);
+            lastSequence = sequence;
+            appended.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        return COMPLETED;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    /**
+     * Sequence of the last record appended; every mutation up to it has at least started to be applied.
+     */
+    public long lastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Returns up to {@code max} records following {@code afterSequence}. If there are none yet, waits up to
+     * {@code waitMillis} for one to be appended and returns an empty list if none is.
+     *
+     * @throws LogPositionLostException if records following {@code afterSequence} have already been overwritten,
+     *                                  or {@code afterSequence} lies beyond the end of this log
+     */
+    public List<LogRecord> read(long afterSequence, int max, long waitMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMillis);
+        lock.lock();
+        try {
+            long remaining = deadline - System.nanoTime();
+            while (lastSequence == afterSequence && remaining > 0) {
+                remaining = appended.awaitNanos(remaining);
+            }
+            if (afterSequence > lastSequence || afterSequence < lastSequence - records.length) {
+                throw new LogPositionLostException("Records after sequence " + afterSequence
+                        + " are not in log " + id + ", which is at sequence " + lastSequence);
+            }
+            int count = (int) Math.min(max, lastSequence - afterSequence);
+            List<LogRecord> batch = new ArrayList<>(count);
+            for (long sequence = afterSequence + 1; sequence <= afterSequence + count; sequence++) {
+                batch.add(records[(int) (sequence % records.length)]);
+            }
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        if (!running) {
+            repository.addJournal(this);
+            running = true;
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (running) {
+            repository.removeJournal(this);
+            running = false;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
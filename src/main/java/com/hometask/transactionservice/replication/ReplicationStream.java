@@ -0,0 +1,122 @@
+package com.hometask.transactionservice.replication;
+
+import com.hometask.transactionservice.model.Transaction;
+import com.hometask.transactionservice.persistence.TransactionCodec;
+import com.hometask.transactionservice.replication.LogRecord.Operation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Wire format of log batches and snapshots sent from a primary to its followers: a header naming the log and a
+ * sequence, followed by records, all gzip-compressed. In a batch the sequence is the last one in the primary's log
+ * when the batch was read; in a snapshot it is the sequence the follower continues reading the log after. Snapshot
+ * records are saves.
+ */
+final class ReplicationStream {
+
+    static final String CONTENT_TYPE = "application/x-transaction-log";
+
+    private static final byte END = 0;
+    private static final byte SAVE = 1;
+    private static final byte DELETE = 2;
+    private static final byte CLEAR = 3;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private ReplicationStream() {
+    }
+
+    record Header(String logId, long sequence) {
+    }
+
+    static void writeBatch(OutputStream target, String logId, long lastSequence, List<LogRecord> records)
+            throws IOException {
+        try (DataOutputStream out = open(target, logId, lastSequence)) {
+            for (LogRecord record : records) {
+                writeRecord(out, record);
+            }
+            out.writeByte(END);
+        }
+    }
+
+    /**
+     * @param source passes every transaction in the snapshot to its argument
+     */
+    static void writeSnapshot(OutputStream target, String logId, long sequence,
+                              Consumer<Consumer<Transaction>> source) throws IOException {
+        try (DataOutputStream out = open(target, logId, sequence)) {
+            long now = System.currentTimeMillis();
+            try {
+                source.accept(transaction -> {
+                    try {
+                        writeRecord(out, new LogRecord(sequence, now, Operation.SAVE, transaction, null));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            out.writeByte(END);
+        }
+    }
+
+    /**
+     * Reads a batch or snapshot, passing each record to {@code apply} as soon as it has been read.
+     */
+    static Header read(InputStream source, Consumer<LogRecord> apply) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new GZIPInputStream(source, BUFFER_SIZE), BUFFER_SIZE))) {
+            Header header = new Header(in.readUTF(), in.readLong());
+            for (byte operation = in.readByte(); operation != END; operation = in.readByte()) {
+                long sequence = in.readLong();
+                long appendedAtMillis = in.readLong();
+                apply.accept(switch (operation) {
+                    case SAVE -> {
+                        Transaction transaction = TransactionCodec.read(in);
+                        yield new LogRecord(sequence, appendedAtMillis, Operation.SAVE, transaction,
+                                transaction.getId());
+                    }
+                    case DELETE -> new LogRecord(sequence, appendedAtMillis, Operation.DELETE, null, in.readUTF());
+                    case CLEAR -> new LogRecord(sequence, appendedAtMillis, Operation.CLEAR, null, null);
+                    default -> throw new IOException("Unknown replication record type " + operation);
+                });
+            }
+            return header;
+        }
+    }
+
+    private static DataOutputStream open(OutputStream target, String logId, long sequence) throws IOException {
+        DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new GZIPOutputStream(target, BUFFER_SIZE), BUFFER_SIZE));
+        out.writeUTF(logId);
+        out.writeLong(sequence);
+        return out;
+    }
+
+    private static void writeRecord(DataOutputStream out, LogRecord record) throws IOException {
+        switch (record.operation()) {
+            case SAVE -> out.writeByte(SAVE);
+            case DELETE -> out.writeByte(DELETE);
+            case CLEAR -> out.writeByte(CLEAR);
+        }
+        out.writeLong(record.sequence());
+        out.writeLong(record.appendedAtMillis());
+        switch (record.operation()) {
+            case SAVE -> TransactionCodec.write(out, record.transaction());
+            case DELETE -> out.writeUTF(record.id());
+            case CLEAR -> {
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.hometask.transactionservice.repository;
+
+import com.hometask.transactionservice.model.Transaction;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Running balance per account. Each transaction's effect is added when it is stored and subtracted when it is
+ * replaced or deleted, so an update applies exactly the delta. Changes to one account are atomic merges on that
+ * account's entry; additions commute, so concurrent writers need no further coordination.
+ */
+class AccountBalances {
+
+    private final Map<String, BigDecimal> balances = new ConcurrentHashMap<>();
+
+    void add(Transaction transaction) {
+        forEachEffect(transaction, (account, delta) -> balances.merge(account, delta, BigDecimal::add));
+    }
+
+    void subtract(Transaction transaction) {
+        forEachEffect(transaction, (account, delta) -> balances.merge(account, delta.negate(), BigDecimal::add));
+    }
+
+    BigDecimal get(String accountNumber) {
+        return balances.getOrDefault(accountNumber, BigDecimal.ZERO);
+    }
+
+    int size() {
+        return balances.size();
+    }
+
+    Map<String, BigDecimal> snapshot() {
+        return new HashMap<>(balances);
+    }
+
+    void clear() {
+        balances.clear();
+    }
+
+    /**
+     * Passes each (account, signed amount) change the transaction makes: a deposit credits the account, a
+     * withdrawal debits it, and a transfer debits the source and credits the destination.
+     */
+    static void forEachEffect(Transaction transaction, BiConsumer<String, BigDecimal> effect) {
+        BigDecimal amount = transaction.getAmount();
+        String account = transaction.getAccountNumber();
+        if (amount == null || account == null || transaction.getType() == null) {
+            return;
+        }
+        switch (transaction.getType().toUpperCase(Locale.ROOT)) {
+            case "DEPOSIT" -> effect.accept(account, amount);
+            case "WITHDRAWAL" -> effect.accept(account, amount.negate());
+            case "TRANSFER" -> {
+                effect.accept(account, amount.negate());
+                if (transaction.getDestinationAccount() != null) {
+                    effect.accept(transaction.getDestinationAccount(), amount);
+                }
+            }
+            default -> {
+            }
+        }
+    }
+}
@@ -0,0 +1,560 @@
+package com.hometask.transactionservice.repository;
+
+import com.hometask.transactionservice.model.Transaction;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Keeps transactions in packed primitive columns and only materializes {@link Transaction} objects when they are
+ * read, which takes a fraction of the memory of one object graph per row.
+ * <p>
+ * Per row: the id as two longs when it is a canonical UUID, the amount as an unscaled long plus a scale byte, the
+ * timestamp as epoch nanoseconds (UTC), account numbers and type as {@link StringDictionary} codes, the
+ * description as UTF-8 in a shared byte arena, and the version as a long. Values that do not fit (non-UUID ids,
+ * amounts beyond a long, timestamps outside 1677-2262) are kept on the side, so every transaction round-trips
+ * exactly.
+ * <p>
+ * Rows are spread over {@value #SEGMENTS} segments by id hash. Each segment has its own open-addressing id table
+ * and read-write lock, so {@link #compute} is atomic per id and writes to different segments do not contend.
+ * Every read builds a new instance.
+ */
+public class CompactTransactionStore implements TransactionStore {
+
+    private static final int SEGMENTS = 64;
+    private static final int SEGMENT_SHIFT = Integer.SIZE - Integer.numberOfTrailingZeros(SEGMENTS);
+
+    private final StringDictionary dictionary = new StringDictionary();
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    public CompactTransactionStore() {
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    @Override
+    public Transaction get(String id) {
+        RowKey key = RowKey.of(id);
+        Segment segment = segmentFor(key);
+        segment.lock.readLock().lock();
+        try {
+            int slot = segment.find(key);
+            return slot < 0 ? null : segment.materialize(segment.slots[slot] - 1, id);
+        } finally {
+            segment.lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean containsKey(String id) {
+        RowKey key = RowKey.of(id);
+        Segment segment = segmentFor(key);
+        segment.lock.readLock().lock();
+        try {
+            return segment.find(key) >= 0;
+        } finally {
+            segment.lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Transaction compute(String id, BiFunction<String, Transaction, Transaction> remapping) {
+        return update(id, remapping, false);
+    }
+
+    @Override
+    public Transaction computeIfPresent(String id, BiFunction<String, Transaction, Transaction> remapping) {
+        return update(id, remapping, true);
+    }
+
+    private Transaction update(String id, BiFunction<String, Transaction, Transaction> remapping,
+                               boolean onlyIfPresent) {
+        RowKey key = RowKey.of(id);
+        Segment segment = segmentFor(key);
+        segment.lock.writeLock().lock();
+        try {
+            int slot = segment.find(key);
+            if (slot < 0 && onlyIfPresent) {
+                return null;
+            }
+            Transaction previous = slot < 0 ? null : segment.materialize(segment.slots[slot] - 1, id);
+            Transaction next = remapping.apply(id, previous);
+            if (next != null && next == previous) {
+                // Left as it was; the columns already hold it
+                return next;
+            }
+            if (next == null) {
+                if (slot >= 0) {
+                    segment.remove(slot);
+                }
+            } else {
+                if (!id.equals(next.getId())) {
+                    throw new IllegalArgumentException("Transaction id " + next.getId() + " does not match " + id);
+                }
+                if (slot >= 0) {
+                    segment.write(segment.slots[slot] - 1, next);
+                } else {
+                    segment.insert(key, next);
+                }
+            }
+            return next;
+        } finally {
+            segment.lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void forEach(Consumer<Transaction> action) {
+        for (Segment segment : segments) {
+            // Materialize one segment at a time so a slow consumer does not hold up writers
+            List<Transaction> rows;
+            segment.lock.readLock().lock();
+            try {
+                rows = segment.materializeAll();
+            } finally {
+                segment.lock.readLock().unlock();
+            }
+            rows.forEach(action);
+        }
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.lock.writeLock().lock();
+            try {
+                segment.reset();
+            } finally {
+                segment.lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private Segment segmentFor(RowKey key) {
+        return segments[key.hash() >>> SEGMENT_SHIFT];
+    }
+
+    /**
+     * A transaction id, parsed into two longs when it is a canonical (lower-case) UUID string.
+     */
+    private record RowKey(String id, boolean uuid, long msb, long lsb, int hash) {
+
+        static RowKey of(String id) {
+            if (id.length() == 36 && id.charAt(8) == '-' && id.charAt(13) == '-' && id.charAt(18) == '-'
+                    && id.charAt(23) == '-') {
+                long time = hex(id, 0, 8);
+                long middle = hex(id, 9, 13);
+                long version = hex(id, 14, 18);
+                long variant = hex(id, 19, 23);
+                long node = hex(id, 24, 36);
+                if ((time | middle | version | variant | node) >= 0) {
+                    long msb = time << 32 | middle << 16 | version;
+                    long lsb = variant << 48 | node;
+                    return new RowKey(id, true, msb, lsb, hash(msb, lsb));
+                }
+            }
+            return new RowKey(id, false, 0, 0, hash(id));
+        }
+
+        /**
+         * Parses lower-case hex digits, or returns -1 if any other character is present, so only ids that
+         * {@link UUID#toString()} reproduces exactly are stored as UUIDs.
+         */
+        private static long hex(String s, int from, int to) {
+            long value = 0;
+            for (int i = from; i < to; i++) {
+                char c = s.charAt(i);
+                int digit;
+                if (c >= '0' && c <= '9') {
+                    digit = c - '0';
+                } else if (c >= 'a' && c <= 'f') {
+                    digit = c - 'a' + 10;
+                } else {
+                    return -1;
+                }
+                value = value << 4 | digit;
+            }
+            return value;
+        }
+
+        static int hash(long msb, long lsb) {
+            return mix(msb * 31 + lsb);
+        }
+
+        static int hash(String id) {
+            return mix(id.hashCode());
+        }
+
+        private static int mix(long value) {
+            long h = value * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+
+    /**
+     * One shard of rows. All fields are guarded by {@link #lock}, except {@link #size}, which is also read without
+     * it.
+     */
+    private final class Segment {
+
+        private static final int INITIAL_ROWS = 16;
+        private static final byte NULL_SCALE = Byte.MIN_VALUE;
+        private static final byte BIG_AMOUNT = Byte.MIN_VALUE + 1;
+        private static final long NULL_TIMESTAMP = Long.MIN_VALUE;
+        private static final long FAR_TIMESTAMP = Long.MIN_VALUE + 1;
+
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        volatile int size;
+
+        // Open-addressing id table: row + 1, or 0 for an empty slot
+        int[] slots;
+
+        long[] idMsb;
+        long[] idLsb;
+        String[] otherIds;
+        long[] unscaledAmounts;
+        byte[] scales;
+        long[] timestamps;
+        int[] accounts;
+        int[] destinations;
+        int[] types;
+        int[] descriptionOffsets;
+        int[] descriptionLengths;
+        long[] versions;
+
+        final Map<Integer, BigDecimal> bigAmounts = new HashMap<>();
+        final Map<Integer, LocalDateTime> farTimestamps = new HashMap<>();
+
+        byte[] text;
+        int textUsed;
+        int textLive;
+
+        int[] freeRows;
+        int freeCount;
+        int rowsUsed;
+
+        Segment() {
+            reset();
+        }
+
+        void reset() {
+            slots = new int[INITIAL_ROWS * 2];
+            idMsb = new long[INITIAL_ROWS];
+            idLsb = new long[INITIAL_ROWS];
+            otherIds = null;
+            unscaledAmounts = new long[INITIAL_ROWS];
+            scales = new byte[INITIAL_ROWS];
+            timestamps = new long[INITIAL_ROWS];
+            accounts = new int[INITIAL_ROWS];
+            destinations = new int[INITIAL_ROWS];
+            types = new int[INITIAL_ROWS];
+            descriptionOffsets = new int[INITIAL_ROWS];
+            descriptionLengths = new int[INITIAL_ROWS];
+            versions = new long[INITIAL_ROWS];
+            bigAmounts.clear();
+            farTimestamps.clear();
+            text = new byte[INITIAL_ROWS * 32];
+            textUsed = 0;
+            textLive = 0;
+            freeRows = new int[INITIAL_ROWS];
+            freeCount = 0;
+            rowsUsed = 0;
+            size = 0;
+        }
+
+        // Id table
+
+        /**
+         * Returns the slot holding {@code key}, or a negative value if it is not stored.
+         */
+        int find(RowKey key) {
+            int mask = slots.length - 1;
+            int slot = key.hash() & mask;
+            while (true) {
+                int entry = slots[slot];
+                if (entry == 0) {
+                    return -1;
+                }
+                if (matches(entry - 1, key)) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        private boolean matches(int row, RowKey key) {
+            String other = otherIds == null ? null : otherIds[row];
+            if (key.uuid()) {
+                return other == null && idMsb[row] == key.msb() && idLsb[row] == key.lsb();
+            }
+            return key.id().equals(other);
+        }
+
+        private int hashOf(int row) {
+            String other = otherIds == null ? null : otherIds[row];
+            return other == null ? RowKey.hash(idMsb[row], idLsb[row]) : RowKey.hash(other);
+        }
+
+        void insert(RowKey key, Transaction transaction) {
+            int row = allocateRow();
+            if (key.uuid()) {
+                idMsb[row] = key.msb();
+                idLsb[row] = key.lsb();
+                if (otherIds != null) {
+                    otherIds[row] = null;
+                }
+            } else {
+                if (otherIds == null) {
+                    otherIds = new String[idMsb.length];
+                }
+                otherIds[row] = key.id();
+            }
+            write(row, transaction);
+
+            if ((size + 1) * 4 > slots.length * 3) {
+                rehash(slots.length * 2);
+            }
+            place(row, key.hash());
+            size++;
+        }
+
+        private void place(int row, int hash) {
+            int mask = slots.length - 1;
+            int slot = hash & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = row + 1;
+        }
+
+        private void rehash(int capacity) {
+            int[] old = slots;
+            slots = new int[capacity];
+            for (int entry : old) {
+                if (entry != 0) {
+                    place(entry - 1, hashOf(entry - 1));
+                }
+            }
+        }
+
+        void remove(int slot) {
+            int row = slots[slot] - 1;
+            releaseDescription(row);
+            bigAmounts.remove(row);
+            farTimestamps.remove(row);
+            if (otherIds != null) {
+                otherIds[row] = null;
+            }
+            if (freeCount == freeRows.length) {
+                freeRows = Arrays.copyOf(freeRows, freeCount * 2);
+            }
+            freeRows[freeCount++] = row;
+
+            // Backward-shift deletion keeps probe sequences intact without tombstones
+            int mask = slots.length - 1;
+            int hole = slot;
+            int next = slot;
+            slots[hole] = 0;
+            while (true) {
+                next = (next + 1) & mask;
+                int entry = slots[next];
+                if (entry == 0) {
+                    break;
+                }
+                int home = hashOf(entry - 1) & mask;
+                boolean movable = hole <= next ? (home <= hole || home > next) : (home <= hole && home > next);
+                if (movable) {
+                    slots[hole] = entry;
+                    slots[next] = 0;
+                    hole = next;
+                }
+            }
+            size--;
+        }
+
+        // Rows
+
+        private int allocateRow() {
+            if (freeCount > 0) {
+                return freeRows[--freeCount];
+            }
+            if (rowsUsed == idMsb.length) {
+                growRows(rowsUsed * 2);
+            }
+            return rowsUsed++;
+        }
+
+        private void growRows(int capacity) {
+            idMsb = Arrays.copyOf(idMsb, capacity);
+            idLsb = Arrays.copyOf(idLsb, capacity);
+            if (otherIds != null) {
+                otherIds = Arrays.copyOf(otherIds, capacity);
+            }
+            unscaledAmounts = Arrays.copyOf(unscaledAmounts, capacity);
+            scales = Arrays.copyOf(scales, capacity);
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            accounts = Arrays.copyOf(accounts, capacity);
+            destinations = Arrays.copyOf(destinations, capacity);
+            types = Arrays.copyOf(types, capacity);
+            descriptionOffsets = Arrays.copyOf(descriptionOffsets, capacity);
+            descriptionLengths = Arrays.copyOf(descriptionLengths, capacity);
+            versions = Arrays.copyOf(versions, capacity);
+        }
+
+        /**
+         * Overwrites every column except the id.
+         */
+        void write(int row, Transaction transaction) {
+            writeAmount(row, transaction.getAmount());
+            writeTimestamp(row, transaction.getTimestamp());
+            accounts[row] = dictionary.encode(transaction.getAccountNumber());
+            destinations[row] = dictionary.encode(transaction.getDestinationAccount());
+            types[row] = dictionary.encode(transaction.getType());
+            releaseDescription(row);
+            writeDescription(row, transaction.getDescription());
+            versions[row] = transaction.getVersion();
+        }
+
+        private void writeAmount(int row, BigDecimal amount) {
+            bigAmounts.remove(row);
+            if (amount == null) {
+                scales[row] = NULL_SCALE;
+            } else if (amount.scale() > BIG_AMOUNT && amount.scale() <= Byte.MAX_VALUE
+                    && amount.unscaledValue().bitLength() < Long.SIZE) {
+                unscaledAmounts[row] = amount.unscaledValue().longValue();
+                scales[row] = (byte) amount.scale();
+            } else {
+                scales[row] = BIG_AMOUNT;
+                bigAmounts.put(row, amount);
+            }
+        }
+
+        private void writeTimestamp(int row, LocalDateTime timestamp) {
+            farTimestamps.remove(row);
+            if (timestamp == null) {
+                timestamps[row] = NULL_TIMESTAMP;
+                return;
+            }
+            long seconds = timestamp.toEpochSecond(ZoneOffset.UTC);
+            // Epoch nanoseconds fit in a long between 1677 and 2262
+            if (seconds > Long.MIN_VALUE / 1_000_000_000L + 1 && seconds < Long.MAX_VALUE / 1_000_000_000L - 1) {
+                timestamps[row] = seconds * 1_000_000_000L + timestamp.getNano();
+            } else {
+                timestamps[row] = FAR_TIMESTAMP;
+                farTimestamps.put(row, timestamp);
+            }
+        }
+
+        private void writeDescription(int row, String description) {
+            if (description == null) {
+                descriptionLengths[row] = -1;
+                return;
+            }
+            byte[] bytes = description.getBytes(StandardCharsets.UTF_8);
+            if (textUsed + bytes.length > text.length) {
+                makeRoom(bytes.length);
+            }
+            System.arraycopy(bytes, 0, text, textUsed, bytes.length);
+            descriptionOffsets[row] = textUsed;
+            descriptionLengths[row] = bytes.length;
+            textUsed += bytes.length;
+            textLive += bytes.length;
+        }
+
+        private void releaseDescription(int row) {
+            int length = descriptionLengths[row];
+            if (length > 0) {
+                textLive -= length;
+            }
+            descriptionLengths[row] = -1;
+        }
+
+        /**
+         * Grows the description arena, or compacts it in place of growing when at least half of it is taken by
+         * descriptions of updated or deleted rows.
+         */
+        private void makeRoom(int needed) {
+            int capacity = text.length;
+            if (textLive + needed > capacity / 2) {
+                capacity = Math.max(capacity * 2, textLive + needed);
+            }
+            byte[] compacted = new byte[capacity];
+            int used = 0;
+            for (int entry : slots) {
+                if (entry == 0) {
+                    continue;
+                }
+                int row = entry - 1;
+                int length = descriptionLengths[row];
+                if (length > 0) {
+                    System.arraycopy(text, descriptionOffsets[row], compacted, used, length);
+                    descriptionOffsets[row] = used;
+                    used += length;
+                }
+            }
+            text = compacted;
+            textUsed = used;
+        }
+
+        Transaction materialize(int row, String id) {
+            BigDecimal amount = switch (scales[row]) {
+                case NULL_SCALE -> null;
+                case BIG_AMOUNT -> bigAmounts.get(row);
+                default -> BigDecimal.valueOf(unscaledAmounts[row], scales[row]);
+            };
+
+            long nanos = timestamps[row];
+            LocalDateTime timestamp;
+            if (nanos == NULL_TIMESTAMP) {
+                timestamp = null;
+            } else if (nanos == FAR_TIMESTAMP) {
+                timestamp = farTimestamps.get(row);
+            } else {
+                timestamp = LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, 1_000_000_000L),
+                        (int) Math.floorMod(nanos, 1_000_000_000L), ZoneOffset.UTC);
+            }
+
+            int length = descriptionLengths[row];
+            String description = length < 0 ? null
+                    : new String(text, descriptionOffsets[row], length, StandardCharsets.UTF_8);
+
+            return new Transaction(id, dictionary.decode(accounts[row]), amount, dictionary.decode(types[row]),
+                    description, timestamp, dictionary.decode(destinations[row]), versions[row]);
+        }
+
+        List<Transaction> materializeAll() {
+            List<Transaction> rows = new ArrayList<>(size);
+            for (int entry : slots) {
+                if (entry == 0) {
+                    continue;
+                }
+                int row = entry - 1;
+                String other = otherIds == null ? null : otherIds[row];
+                String id = other != null ? other : new UUID(idMsb[row], idLsb[row]).toString();
+                rows.add(materialize(row, id));
+            }
+            return rows;
+        }
+    }
+}
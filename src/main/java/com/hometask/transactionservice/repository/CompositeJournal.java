@@ -0,0 +1,42 @@
+package com.hometask.transactionservice.repository;
+
+import com.hometask.transactionservice.model.Transaction;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Passes each mutation to several journals, e.g. the write-ahead log and the replication log.
+ */
+final class CompositeJournal implements TransactionJournal {
+
+    private final TransactionJournal[] journals;
+
+    CompositeJournal(List<TransactionJournal> journals) {
+        this.journals = journals.toArray(TransactionJournal[]::new);
+    }
+
+    @Override
+    public CompletableFuture<Void> recordSave(Transaction transaction) {
+        return recordAll(journal -> journal.recordSave(transaction));
+    }
+
+    @Override
+    public CompletableFuture<Void> recordDelete(String id) {
+        return recordAll(journal -> journal.recordDelete(id));
+    }
+
+    @Override
+    public CompletableFuture<Void> recordClear() {
+        return recordAll(TransactionJournal::recordClear);
+    }
+
+    private CompletableFuture<Void> recordAll(Function<TransactionJournal, CompletableFuture<Void>> record) {
+        CompletableFuture<?>[] recorded = new CompletableFuture<?>[journals.length];
+        for (int i = 0; i < journals.length; i++) {
+            recorded[i] = record.apply(journals[i]);
+        }
+        return CompletableFuture.allOf(recorded);
+    }
+}
@@ -0,0 +1,52 @@
+package com.hometask.transactionservice.repository;
+
+import com.hometask.transactionservice.model.Transaction;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the {@link Transaction} objects themselves in a {@link ConcurrentHashMap}. Reads return the stored instance
+ * without copying.
+ */
+public class ConcurrentMapTransactionStore implements TransactionStore {
+
+    private final Map<String, Transaction> transactions = new ConcurrentHashMap<>();
+
+    @Override
+    public Transaction get(String id) {
+        return transactions.get(id);
+    }
+
+    @Override
+    public boolean containsKey(String id) {
+        return transactions.containsKey(id);
+    }
+
+    @Override
+    public Transaction compute(String id, BiFunction<String, Transaction, Transaction> remapping) {
+        return transactions.compute(id, remapping);
+    }
+
+    @Override
+    public Transaction computeIfPresent(String id, BiFunction<String, Transaction, Transaction> remapping) {
+        return transactions.computeIfPresent(id, remapping);
+    }
+
+    @Override
+    public void forEach(Consumer<Transaction> action) {
+        transactions.values().forEach(action);
+    }
+
+    @Override
+    public int size() {
+        return transactions.size();
+    }
+
+    @Override
+    public void clear() {
+        transactions.clear();
+    }
+}
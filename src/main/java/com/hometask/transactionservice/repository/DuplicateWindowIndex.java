@@ -0,0 +1,144 @@
+package com.hometask.transactionservice.repository;
+
+import com.hometask.transactionservice.model.Transaction;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Recent transactions keyed by {@link TransactionSignature}, so a duplicate check is a hash lookup instead of a
+ * scan over the whole store. Entries are grouped into one-second expiry buckets and dropped a bucket at a time
+ * once they fall out of the duplicate window.
+ * <p>
+ * Inserts that must not create a duplicate {@link #claim} the signature first. A claim is a {@code putIfAbsent}
+ * on the signature, so only identical transactions contend, and it is held until the transaction is in the index.
+ */
+class DuplicateWindowIndex {
+
+    private static final long BUCKET_MILLIS = 1_000;
+
+    private final long windowMillis;
+    private final Function<String, Transaction> currentVersion;
+    private final Map<TransactionSignature, List<Entry>> entriesBySignature = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, Queue<Entry>> expiryBuckets = new ConcurrentSkipListMap<>();
+    private final Map<TransactionSignature, String> claims = new ConcurrentHashMap<>();
+
+    /**
+     * @param currentVersion resolves an id to the stored transaction, used to ignore entries whose transaction has
+     *                       since been changed or removed
+     */
+    DuplicateWindowIndex(long windowMillis, Function<String, Transaction> currentVersion) {
+        this.windowMillis = windowMillis;
+        this.currentVersion = currentVersion;
+    }
+
+    void add(Transaction transaction) {
+        long now = epochMillis(LocalDateTime.now());
+        expire(now);
+
+        long timestamp = epochMillis(transaction.getTimestamp());
+        if (timestamp <= now - windowMillis) {
+            return;
+        }
+
+        Entry entry = new Entry(TransactionSignature.of(transaction), transaction.getId(), timestamp);
+        entriesBySignature.merge(entry.signature(), List.of(entry), (existing, added) -> {
+            List<Entry> entries = new ArrayList<>(existing.size() + 1);
+            for (Entry e : existing) {
+                if (!e.id().equals(entry.id())) {
+                    entries.add(e);
+                }
+            }
+            entries.add(entry);
+            return List.copyOf(entries);
+        });
+        expiryBuckets.computeIfAbsent(timestamp / BUCKET_MILLIS, bucket -> new ConcurrentLinkedQueue<>()).add(entry);
+    }
+
+    void remove(Transaction transaction) {
+        String id = transaction.getId();
+        entriesBySignature.computeIfPresent(TransactionSignature.of(transaction),
+                (signature, entries) -> without(entries, e -> e.id().equals(id)));
+    }
+
+    boolean containsDuplicateOf(Transaction transaction) {
+        TransactionSignature signature = TransactionSignature.of(transaction);
+        List<Entry> entries = entriesBySignature.get(signature);
+        if (entries == null) {
+            return false;
+        }
+
+        long timestamp = epochMillis(transaction.getTimestamp());
+        for (Entry entry : entries) {
+            if (entry.id().equals(transaction.getId()) || Math.abs(entry.timestamp() - timestamp) >= windowMillis) {
+                continue;
+            }
+            Transaction existing = currentVersion.apply(entry.id());
+            if (existing != null && signature.equals(TransactionSignature.of(existing))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reserves the signature for the insert of transaction {@code id}.
+     *
+     * @return false if an insert of an identical transaction holds it
+     */
+    boolean claim(TransactionSignature signature, String id) {
+        return claims.putIfAbsent(signature, id) == null;
+    }
+
+    void release(TransactionSignature signature, String id) {
+        claims.remove(signature, id);
+    }
+
+    int size() {
+        return entriesBySignature.size();
+    }
+
+    void clear() {
+        entriesBySignature.clear();
+        expiryBuckets.clear();
+    }
+
+    private void expire(long now) {
+        long cutoffBucket = (now - windowMillis) / BUCKET_MILLIS;
+        Map.Entry<Long, Queue<Entry>> oldest;
+        while ((oldest = expiryBuckets.firstEntry()) != null && oldest.getKey() < cutoffBucket) {
+            if (expiryBuckets.remove(oldest.getKey(), oldest.getValue())) {
+                for (Entry expired : oldest.getValue()) {
+                    entriesBySignature.computeIfPresent(expired.signature(),
+                            (signature, entries) -> without(entries, expired::equals));
+                }
+            }
+        }
+    }
+
+    private static List<Entry> without(List<Entry> entries, Predicate<Entry> filter) {
+        List<Entry> remaining = new ArrayList<>(entries.size());
+        for (Entry e : entries) {
+            if (!filter.test(e)) {
+                remaining.add(e);
+            }
+        }
+        return remaining.isEmpty() ? null : List.copyOf(remaining);
+    }
+
+    static long epochMillis(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000 + timestamp.getNano() / 1_000_000;
+    }
+
+    private record Entry(TransactionSignature signature, String id, long timestamp) {
+    }
+}
@@ -0,0 +1,44 @@
+package com.hometask.transactionservice.repository;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lets a reader wait for every mutation that had already started, without making mutations contend on a shared
+ * lock. Mutations register in the current epoch's striped counter; {@link #awaitInFlight()} advances the epoch and
+ * waits for the previous one to drain.
+ */
+final class MutationBarrier {
+
+    private final LongAdder[] inFlight = {new LongAdder(), new LongAdder()};
+    private volatile long epoch;
+
+    /**
+     * Registers a mutation and returns the token to pass to {@link #exit(long)}.
+     */
+    long enter() {
+        while (true) {
+            long current = epoch;
+            LongAdder counter = inFlight[(int) (current & 1)];
+            counter.increment();
+            // If the epoch moved before we registered, a waiter may already have seen the old counter drain
+            if (epoch == current) {
+                return current;
+            }
+            counter.decrement();
+        }
+    }
+
+    void exit(long token) {
+        inFlight[(int) (token & 1)].decrement();
+    }
+
+    synchronized void awaitInFlight() {
+        long previous = epoch;
+        epoch = previous + 1;
+        LongAdder counter = inFlight[(int) (previous & 1)];
+        while (counter.sum() != 0) {
+            LockSupport.parkNanos(50_000);
+        }
+    }
+}
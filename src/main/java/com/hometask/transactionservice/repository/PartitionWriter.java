@@ -0,0 +1,30 @@
+package com.hometask.transactionservice.repository;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Applies the mutations of one partition on a single thread, in the order they were submitted. The partition then
+ * has exactly one writer: its store and indexes are never contended, and a check followed by an insert cannot
+ * interleave with another mutation of the partition. The thread stops after a while without work and is started
+ * again by the next mutation.
+ */
+final class PartitionWriter {
+
+    private static final long IDLE_SECONDS = 30;
+
+    private final ThreadPoolExecutor executor;
+
+    PartitionWriter(String name) {
+        executor = new ThreadPoolExecutor(1, 1, IDLE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                Thread.ofPlatform().name(name).daemon().factory());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    <T> CompletableFuture<T> submit(Supplier<T> mutation) {
+        return CompletableFuture.supplyAsync(mutation, executor);
+    }
+}
@@ -0,0 +1,25 @@
+package com.hometask.transactionservice.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+
+/**
+ * Count, sum, smallest and largest amount of an account's transactions of one type in the bucket starting at
+ * {@code start}.
+ */
+public record Rollup(String type, LocalDateTime start, long count, BigDecimal sum, BigDecimal min, BigDecimal max) {
+
+    /** Bucket start, then type; rollups of the same bucket and type compare equal whatever their values. */
+    public static final Comparator<Rollup> ORDER = Comparator
+            .comparing(Rollup::start)
+            .thenComparing(Rollup::type);
+
+    /**
+     * Combines two rollups of the same bucket and type over disjoint sets of transactions.
+     */
+    public Rollup merge(Rollup other) {
+        return new Rollup(type, start, count + other.count, sum.add(other.sum), min.min(other.min),
+                max.max(other.max));
+    }
+}
@@ -0,0 +1,42 @@
+package com.hometask.transactionservice.repository;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+
+/**
+ * Width of the time buckets transactions are rolled up into.
+ */
+public enum RollupGranularity {
+    MINUTE(ChronoUnit.MINUTES),
+    HOUR(ChronoUnit.HOURS),
+    DAY(ChronoUnit.DAYS);
+
+    private final ChronoUnit unit;
+
+    RollupGranularity(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    /**
+     * Start of the bucket {@code timestamp} falls in.
+     */
+    public LocalDateTime bucketOf(LocalDateTime timestamp) {
+        return timestamp.truncatedTo(unit);
+    }
+
+    /**
+     * Start of the bucket after the one starting at {@code start}.
+     */
+    LocalDateTime next(LocalDateTime start) {
+        return start.plus(1, unit);
+    }
+
+    public static RollupGranularity fromParameter(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Granularity must be minute, hour or day, was '" + value + "'");
+        }
+    }
+}
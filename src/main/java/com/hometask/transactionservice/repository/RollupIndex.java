@@ -0,0 +1,215 @@
+package com.hometask.transactionservice.repository;
+
+import com.hometask.transactionservice.model.Transaction;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+
+/**
+ * Count, sum, min and max of the amounts of each account's transactions per type and per minute, hour and day
+ * bucket. Like the balances, a transaction is added when it is stored and subtracted when it is replaced or
+ * deleted. Count and sum subtract exactly; min and max do not, so removing an amount equal to a bucket's min or max
+ * only marks them stale. The next read recomputes them from the bucket's transactions, found through the account's
+ * ordered index. That happens outside the store's locks, which a writer holds while it updates the indexes.
+ * <p>
+ * A transaction is rolled up under its own account, which for a transfer is the source. Each bucket is replaced as
+ * a whole by a side-effect-free function, so concurrent writers need no further coordination. Buckets of a
+ * granularity that start before its compaction horizon are dropped and no longer maintained; the transactions in
+ * them are still counted in the coarser buckets.
+ */
+final class RollupIndex {
+
+    private final Map<Series, ConcurrentSkipListMap<BucketKey, Bucket>> series = new ConcurrentHashMap<>();
+    private final Map<RollupGranularity, LocalDateTime> horizons = new ConcurrentHashMap<>();
+    private final Function<String, NavigableSet<TimelineKey>> accountKeys;
+    private final Function<String, Transaction> lookup;
+
+    /**
+     * @param accountKeys the keys of an account's transactions, used to recompute min and max
+     * @param lookup      the stored transaction with an id
+     */
+    RollupIndex(Function<String, NavigableSet<TimelineKey>> accountKeys, Function<String, Transaction> lookup) {
+        this.accountKeys = accountKeys;
+        this.lookup = lookup;
+    }
+
+    void add(Transaction transaction) {
+        if (!isRolledUp(transaction)) {
+            return;
+        }
+        String type = typeOf(transaction);
+        Bucket single = Bucket.of(transaction.getAmount());
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            LocalDateTime start = granularity.bucketOf(transaction.getTimestamp());
+            if (isCompacted(granularity, start)) {
+                continue;
+            }
+            series.computeIfAbsent(new Series(transaction.getAccountNumber(), granularity),
+                            s -> new ConcurrentSkipListMap<>())
+                    .merge(new BucketKey(start, type), single, Bucket::plus);
+        }
+    }
+
+    void subtract(Transaction transaction) {
+        if (!isRolledUp(transaction)) {
+            return;
+        }
+        String type = typeOf(transaction);
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            LocalDateTime start = granularity.bucketOf(transaction.getTimestamp());
+            NavigableMap<BucketKey, Bucket> buckets = series.get(
+                    new Series(transaction.getAccountNumber(), granularity));
+            if (buckets == null || isCompacted(granularity, start)) {
+                continue;
+            }
+            buckets.computeIfPresent(new BucketKey(start, type),
+                    (key, bucket) -> bucket.minus(transaction.getAmount()));
+        }
+    }
+
+    /**
+     * The account's buckets at {@code granularity} that start in {@code [from, to)}, ordered by start and then
+     * type. Either bound may be null.
+     */
+    List<Rollup> get(String accountNumber, RollupGranularity granularity, LocalDateTime from, LocalDateTime to) {
+        ConcurrentSkipListMap<BucketKey, Bucket> all = series.get(new Series(accountNumber, granularity));
+        if (all == null) {
+            return List.of();
+        }
+        // Buckets a writer re-created just after compaction are below the horizon and stay hidden
+        LocalDateTime horizon = horizons.get(granularity);
+        if (horizon != null && (from == null || from.isBefore(horizon))) {
+            from = horizon;
+        }
+        if (from != null && to != null && !from.isBefore(to)) {
+            return List.of();
+        }
+        // The empty string sorts before every type, so these bounds include all buckets at "from" and none at "to"
+        NavigableMap<BucketKey, Bucket> buckets = all;
+        if (from != null) {
+            buckets = buckets.tailMap(new BucketKey(from, ""), true);
+        }
+        if (to != null) {
+            buckets = buckets.headMap(new BucketKey(to, ""), false);
+        }
+        List<Rollup> rollups = new ArrayList<>();
+        buckets.forEach((key, bucket) -> {
+            if (!bucket.exact()) {
+                bucket = withExtremes(all, accountNumber, granularity, key, bucket);
+            }
+            rollups.add(new Rollup(key.type(), key.start(), bucket.count(), bucket.sum(), bucket.min(),
+                    bucket.max()));
+        });
+        return rollups;
+    }
+
+    /**
+     * Drops the buckets at {@code granularity} that end before or at {@code before} and stops maintaining them.
+     */
+    void compact(RollupGranularity granularity, LocalDateTime before) {
+        LocalDateTime horizon = horizons.merge(granularity, granularity.bucketOf(before),
+                (current, requested) -> requested.isAfter(current) ? requested : current);
+        series.forEach((key, buckets) -> {
+            if (key.granularity() == granularity) {
+                buckets.headMap(new BucketKey(horizon, ""), false).clear();
+            }
+        });
+    }
+
+    void clear() {
+        series.clear();
+    }
+
+    /**
+     * Recomputes the min and max of a stale bucket and installs them unless a writer changed the bucket meanwhile.
+     * A transaction that is being written while this runs is either counted here and added again, which leaves
+     * min and max as they are, or removed afterwards, which marks them stale again.
+     */
+    private Bucket withExtremes(ConcurrentSkipListMap<BucketKey, Bucket> buckets, String accountNumber,
+                                RollupGranularity granularity, BucketKey key, Bucket stale) {
+        BigDecimal min = null;
+        BigDecimal max = null;
+        NavigableSet<TimelineKey> keys = accountKeys.apply(accountNumber).subSet(
+                new TimelineKey(key.start(), ""), true,
+                new TimelineKey(granularity.next(key.start()), ""), false);
+        for (TimelineKey timelineKey : keys) {
+            Transaction transaction = lookup.apply(timelineKey.id());
+            if (transaction == null || !isRolledUp(transaction)
+                    || !accountNumber.equals(transaction.getAccountNumber())
+                    || !key.type().equals(typeOf(transaction))
+                    || !key.start().equals(granularity.bucketOf(transaction.getTimestamp()))) {
+                continue;
+            }
+            BigDecimal amount = transaction.getAmount();
+            min = min == null ? amount : min.min(amount);
+            max = max == null ? amount : max.max(amount);
+        }
+        if (min == null) {
+            return stale;
+        }
+        Bucket exact = new Bucket(stale.count(), stale.sum(), min, max, true);
+        buckets.replace(key, stale, exact);
+        return exact;
+    }
+
+    private boolean isCompacted(RollupGranularity granularity, LocalDateTime start) {
+        LocalDateTime horizon = horizons.get(granularity);
+        return horizon != null && start.isBefore(horizon);
+    }
+
+    private static boolean isRolledUp(Transaction transaction) {
+        return transaction.getAccountNumber() != null && transaction.getType() != null
+                && transaction.getAmount() != null && transaction.getTimestamp() != null;
+    }
+
+    private static String typeOf(Transaction transaction) {
+        return transaction.getType().toUpperCase(Locale.ROOT);
+    }
+
+    private record Series(String accountNumber, RollupGranularity granularity) {
+    }
+
+    private record BucketKey(LocalDateTime start, String type) implements Comparable<BucketKey> {
+        @Override
+        public int compareTo(BucketKey other) {
+            int byStart = start.compareTo(other.start);
+            return byStart != 0 ? byStart : type.compareTo(other.type);
+        }
+    }
+
+    /**
+     * @param exact false once an amount equal to min or max was removed; min and max then only bound the amounts
+     *              still in the bucket
+     */
+    private record Bucket(long count, BigDecimal sum, BigDecimal min, BigDecimal max, boolean exact) {
+
+        static Bucket of(BigDecimal amount) {
+            return new Bucket(1, amount, amount, amount, true);
+        }
+
+        Bucket plus(Bucket other) {
+            return new Bucket(count + other.count, sum.add(other.sum), min.min(other.min), max.max(other.max),
+                    exact && other.exact);
+        }
+
+        /**
+         * @return null once the last transaction is removed
+         */
+        Bucket minus(BigDecimal amount) {
+            if (count <= 1) {
+                return null;
+            }
+            boolean extreme = amount.compareTo(min) <= 0 || amount.compareTo(max) >= 0;
+            return new Bucket(count - 1, sum.subtract(amount), min, max, exact && !extreme);
+        }
+    }
+}
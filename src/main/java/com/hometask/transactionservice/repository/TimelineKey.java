@@ -0,0 +1,50 @@
+package com.hometask.transactionservice.repository;
+
+import com.hometask.transactionservice.model.Transaction;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Comparator;
+
+/**
+ * Position of a transaction in the (timestamp, id) order used by the ordered indexes. Ties on timestamp are broken
+ * by id, so every transaction has exactly one position and paging over the order is deterministic.
+ */
+public record TimelineKey(LocalDateTime timestamp, String id) implements Comparable<TimelineKey> {
+
+    private static final Comparator<TimelineKey> ORDER = Comparator
+            .comparing(TimelineKey::timestamp)
+            .thenComparing(TimelineKey::id);
+
+    public static TimelineKey of(Transaction transaction) {
+        return new TimelineKey(transaction.getTimestamp(), transaction.getId());
+    }
+
+    @Override
+    public int compareTo(TimelineKey other) {
+        return ORDER.compare(this, other);
+    }
+
+    /**
+     * Encodes this key as an opaque cursor that resumes paging right after it.
+     */
+    public String toCursor() {
+        String raw = timestamp + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static TimelineKey fromCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            return new TimelineKey(LocalDateTime.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.hometask.transactionservice.repository;
+
+import com.hometask.transactionservice.model.Transaction;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * K-way merge of the ordered keys of several partitions into one sequence of transactions in (timestamp, id)
+ * order. It holds one key per partition at a time and looks each transaction up in its own partition as it goes;
+ * keys whose transaction is gone by then are skipped.
+ */
+final class TimelineMerge implements Iterator<Transaction> {
+
+    private final PriorityQueue<Cursor> cursors;
+    private Transaction next;
+
+    /**
+     * @param keys the keys to merge from each partition, in order
+     */
+    TimelineMerge(TransactionPartition[] partitions, Function<TransactionPartition, Iterable<TimelineKey>> keys) {
+        cursors = new PriorityQueue<>(partitions.length);
+        for (TransactionPartition partition : partitions) {
+            Iterator<TimelineKey> partitionKeys = keys.apply(partition).iterator();
+            if (partitionKeys.hasNext()) {
+                cursors.add(new Cursor(partition, partitionKeys, partitionKeys.next()));
+            }
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null && !cursors.isEmpty()) {
+            Cursor cursor = cursors.poll();
+            next = cursor.partition.get(cursor.key.id());
+            if (cursor.keys.hasNext()) {
+                cursor.key = cursor.keys.next();
+                cursors.add(cursor);
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public Transaction next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Transaction transaction = next;
+        next = null;
+        return transaction;
+    }
+
+    Stream<Transaction> stream() {
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    private static final class Cursor implements Comparable<Cursor> {
+        private final TransactionPartition partition;
+        private final Iterator<TimelineKey> keys;
+        private TimelineKey key;
+
+        Cursor(TransactionPartition partition, Iterator<TimelineKey> keys, TimelineKey key) {
+            this.partition = partition;
+            this.keys = keys;
+            this.key = key;
+        }
+
+        @Override
+        public int compareTo(Cursor other) {
+            return key.compareTo(other.key);
+        }
+    }
+}
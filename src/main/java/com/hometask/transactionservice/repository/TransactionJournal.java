@@ -0,0 +1,53 @@
+package com.hometask.transactionservice.repository;
+
+import com.hometask.transactionservice.model.Transaction;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Receives every mutation applied to the {@link TransactionRepository}, e.g. to make it durable.
+ * <p>
+ * The record methods are called while the repository holds the lock for the affected id, so mutations of the same
+ * transaction reach the journal in the order they were applied. Implementations must only enqueue work there; the
+ * repository waits on the returned future after releasing the lock. A record method that throws refuses the
+ * mutation: the repository calls the journal before changing anything, and the exception reaches the caller.
+ */
+public interface TransactionJournal {
+
+    CompletableFuture<Void> COMPLETED = CompletableFuture.completedFuture(null);
+
+    TransactionJournal NONE = new TransactionJournal() {
+        @Override
+        public CompletableFuture<Void> recordSave(Transaction transaction) {
+            return COMPLETED;
+        }
+
+        @Override
+        public CompletableFuture<Void> recordDelete(String id) {
+            return COMPLETED;
+        }
+
+        @Override
+        public CompletableFuture<Void> recordClear() {
+            return COMPLETED;
+        }
+    };
+
+    /**
+     * A journal that passes each mutation to all of {@code journals} in turn and completes when they all have.
+     */
+    static TransactionJournal of(List<TransactionJournal> journals) {
+        return switch (journals.size()) {
+            case 0 -> NONE;
+            case 1 -> journals.get(0);
+            default -> new CompositeJournal(journals);
+        };
+    }
+
+    CompletableFuture<Void> recordSave(Transaction transaction);
+
+    CompletableFuture<Void> recordDelete(String id);
+
+    CompletableFuture<Void> recordClear();
+}
@@ -0,0 +1,264 @@
+package com.hometask.transactionservice.repository;
+
+import com.hometask.transactionservice.model.Transaction;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A store and the indexes over the transactions in it: the duplicate window, the (timestamp, id) timeline, the
+ * per-account timelines, the account balances and the account rollups. The {@link TransactionRepository} spreads
+ * transactions over one or more partitions.
+ * <p>
+ * Mutations are applied through {@link #write} or {@link #submit}: with a {@link PartitionWriter} they run on the
+ * partition's writer thread, otherwise on the calling thread. Reads may run on any thread at any time.
+ */
+final class TransactionPartition {
+
+    private final TransactionStore store;
+    private final DuplicateWindowIndex duplicateWindow;
+    private final NavigableSet<TimelineKey> timeline = new ConcurrentSkipListSet<>();
+    private final Map<String, NavigableSet<TimelineKey>> accountIndex = new ConcurrentHashMap<>();
+    private final AccountBalances balances = new AccountBalances();
+    private final RollupIndex rollups;
+    private final PartitionWriter writer;
+
+    /**
+     * @param writer the single writer of this partition, or null to apply mutations on the calling thread
+     */
+    TransactionPartition(TransactionStore store, long duplicateWindowMillis, PartitionWriter writer) {
+        this.store = store;
+        this.duplicateWindow = new DuplicateWindowIndex(duplicateWindowMillis, store::get);
+        this.rollups = new RollupIndex(this::accountKeys, store::get);
+        this.writer = writer;
+    }
+
+    /**
+     * Applies {@code mutation} to this partition and returns its result.
+     */
+    <T> T write(Supplier<T> mutation) {
+        return writer == null ? mutation.get() : await(writer.submit(mutation));
+    }
+
+    /**
+     * Applies {@code mutation} to this partition without waiting for it, so mutations of several partitions can
+     * run at the same time. Pass the result to {@link #await}.
+     */
+    <T> CompletableFuture<T> submit(Supplier<T> mutation) {
+        return writer == null ? CompletableFuture.completedFuture(mutation.get()) : writer.submit(mutation);
+    }
+
+    /**
+     * Waits for a mutation and rethrows what it threw.
+     */
+    static <T> T await(CompletableFuture<T> mutation) {
+        try {
+            return mutation.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    CompletableFuture<?> store(Transaction transaction, TransactionJournal journal) {
+        CompletableFuture<?>[] durable = new CompletableFuture<?>[1];
+        // Indexes are updated inside compute so they change together with the entry for this id. The journal comes
+        // first: if it refuses the mutation, nothing has changed yet
+        store.compute(transaction.getId(), (id, previous) -> {
+            durable[0] = journal.recordSave(transaction);
+            if (previous != null) {
+                unindex(previous);
+            }
+            index(transaction);
+            return transaction;
+        });
+        return durable[0];
+    }
+
+    /**
+     * @return null, leaving the entry alone, if it no longer holds the version of {@code expected}
+     */
+    CompletableFuture<?> replace(Transaction expected, Transaction updated, TransactionJournal journal) {
+        CompletableFuture<?>[] durable = new CompletableFuture<?>[1];
+        store.computeIfPresent(expected.getId(), (id, current) -> {
+            if (current.getVersion() != expected.getVersion()) {
+                return current;
+            }
+            durable[0] = journal.recordSave(updated);
+            unindex(current);
+            index(updated);
+            return updated;
+        });
+        return durable[0];
+    }
+
+    CompletableFuture<?> delete(String id, TransactionJournal journal) {
+        CompletableFuture<?>[] durable = {TransactionJournal.COMPLETED};
+        store.computeIfPresent(id, (key, existing) -> {
+            durable[0] = journal.recordDelete(id);
+            unindex(existing);
+            return null;
+        });
+        return durable[0];
+    }
+
+    /**
+     * Removes everything; returns a value only so it can be passed to {@link #submit}.
+     */
+    Void clear() {
+        store.clear();
+        duplicateWindow.clear();
+        timeline.clear();
+        accountIndex.clear();
+        balances.clear();
+        rollups.clear();
+        return null;
+    }
+
+    boolean claim(TransactionSignature signature, String id) {
+        return duplicateWindow.claim(signature, id);
+    }
+
+    void release(TransactionSignature signature, String id) {
+        duplicateWindow.release(signature, id);
+    }
+
+    boolean isDuplicate(Transaction transaction) {
+        return duplicateWindow.containsDuplicateOf(transaction);
+    }
+
+    Transaction get(String id) {
+        return store.get(id);
+    }
+
+    boolean contains(String id) {
+        return store.containsKey(id);
+    }
+
+    void forEach(Consumer<Transaction> action) {
+        store.forEach(action);
+    }
+
+    int size() {
+        return store.size();
+    }
+
+    NavigableSet<TimelineKey> timeline() {
+        return timeline;
+    }
+
+    /**
+     * Keys of the transactions in this partition where the account is the source or the destination.
+     */
+    NavigableSet<TimelineKey> accountKeys(String accountNumber) {
+        NavigableSet<TimelineKey> keys = accountIndex.get(accountNumber);
+        return keys != null ? keys : Collections.emptyNavigableSet();
+    }
+
+    /**
+     * The account's balance over the transactions in this partition.
+     */
+    BigDecimal balance(String accountNumber) {
+        return balances.get(accountNumber);
+    }
+
+    Map<String, BigDecimal> balances() {
+        return balances.snapshot();
+    }
+
+    /**
+     * Rebuilds the account's balance over the transactions in this partition from the transactions themselves.
+     */
+    BigDecimal recomputeBalance(String accountNumber) {
+        BigDecimal[] sum = {BigDecimal.ZERO};
+        for (TimelineKey key : accountKeys(accountNumber)) {
+            Transaction transaction = store.get(key.id());
+            if (transaction != null) {
+                AccountBalances.forEachEffect(transaction, (account, delta) -> {
+                    if (account.equals(accountNumber)) {
+                        sum[0] = sum[0].add(delta);
+                    }
+                });
+            }
+        }
+        return sum[0];
+    }
+
+    /**
+     * The account's rollups over the transactions in this partition; see {@link RollupIndex#get}.
+     */
+    List<Rollup> rollups(String accountNumber, RollupGranularity granularity, LocalDateTime from,
+                         LocalDateTime to) {
+        return rollups.get(accountNumber, granularity, from, to);
+    }
+
+    void compactRollups(RollupGranularity granularity, LocalDateTime before) {
+        rollups.compact(granularity, before);
+    }
+
+    int duplicateWindowSize() {
+        return duplicateWindow.size();
+    }
+
+    int accountIndexSize() {
+        return accountIndex.size();
+    }
+
+    int balancesSize() {
+        return balances.size();
+    }
+
+    private void index(Transaction transaction) {
+        TimelineKey key = TimelineKey.of(transaction);
+        duplicateWindow.add(transaction);
+        balances.add(transaction);
+        timeline.add(key);
+        for (String account : accountsOf(transaction)) {
+            accountIndex.compute(account, (k, keys) -> {
+                NavigableSet<TimelineKey> accountKeys = keys != null ? keys : new ConcurrentSkipListSet<>();
+                accountKeys.add(key);
+                return accountKeys;
+            });
+        }
+        // After the account index, so a recompute of min and max sees every transaction already rolled up
+        rollups.add(transaction);
+    }
+
+    private void unindex(Transaction transaction) {
+        TimelineKey key = TimelineKey.of(transaction);
+        duplicateWindow.remove(transaction);
+        balances.subtract(transaction);
+        timeline.remove(key);
+        for (String account : accountsOf(transaction)) {
+            accountIndex.computeIfPresent(account, (k, keys) -> {
+                keys.remove(key);
+                return keys.isEmpty() ? null : keys;
+            });
+        }
+        rollups.subtract(transaction);
+    }
+
+    private static List<String> accountsOf(Transaction transaction) {
+        String source = transaction.getAccountNumber();
+        String destination = transaction.getDestinationAccount();
+        if (destination == null || destination.equals(source)) {
+            return source == null ? List.of() : List.of(source);
+        }
+        return source == null ? List.of(destination) : List.of(source, destination);
+    }
+}
@@ -1,78 +1,604 @@
 package com.hometask.transactionservice.repository;
 
+import com.hometask.transactionservice.metrics.OperationTimers;
 import com.hometask.transactionservice.model.Transaction;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
 
+/**
+ * In-memory transaction storage with the indexes the service queries by.
+ * <p>
+ * Transactions are spread over one or more {@link TransactionPartition partitions} by a hash of the account they are
+ * created with; a transaction stays in that partition when an update changes its account. Each partition owns its
+ * store, indexes and duplicate window. With a single partition every mutation runs on the calling thread. With
+ * several, each partition applies its mutations on its own writer thread, so writes to different partitions never
+ * contend and writes within a partition never contend with each other. Reads by id probe the partitions; ordered
+ * reads and per-account reads merge the partitions' indexes, because a transfer is stored only with its source
+ * account. A duplicate is detected in the partition of the new transaction's account, so it is not detected against
+ * a transaction whose account was changed by an update to one that hashes to another partition.
+ */
 @Repository
 public class TransactionRepository {
+
+    private static final long DUPLICATE_WINDOW_MILLIS = 60_000;
+    
+    private final TransactionPartition[] partitions;
+    private final MutationBarrier mutations = new MutationBarrier();
+    private final List<TransactionJournal> journals = new ArrayList<>();
+    private volatile TransactionJournal journal = TransactionJournal.NONE;
+    
+    private final Timer saveTimer;
+    private final Timer saveAllTimer;
+    private final Timer replaceTimer;
+    private final Timer saveIfNotDuplicateTimer;
+    private final Timer saveAllIfNotDuplicateTimer;
+    private final Timer findAllTimer;
+    private final Timer forEachTimer;
+    private final Timer findAllPaginatedTimer;
+    private final Timer findPageAfterTimer;
+    private final Timer findByAccountAfterTimer;
+    private final Timer findInRangeAfterTimer;
+    private final Timer deleteByIdTimer;
+    private final Timer deleteAllTimer;
+    private final Timer getBalancesTimer;
+    private final Timer recomputeBalancesTimer;
+    private final Timer recomputeBalanceTimer;
+    private final Timer getRollupsTimer;
+    private final Timer compactRollupsTimer;
+    
+    public TransactionRepository() {
+        this(new ConcurrentMapTransactionStore());
+    }
+    
+    public TransactionRepository(TransactionStore transactionStore) {
+        // A composite registry without children hands out no-op meters
+        this(transactionStore, new CompositeMeterRegistry());
+    }
+    
+    public TransactionRepository(TransactionStore transactionStore, MeterRegistry meterRegistry) {
+        this(() -> transactionStore, 1, meterRegistry);
+    }
+    
+    @Autowired
+    public TransactionRepository(ObjectProvider<TransactionStore> transactionStores,
+                                 @Value("${transaction.storage.partitions:1}") int partitions,
+                                 MeterRegistry meterRegistry) {
+        this(transactionStores::getObject, partitions, meterRegistry);
+    }
+    
+    /**
+     * @param transactionStores creates the store of each partition
+     * @param partitions        number of partitions; 1 keeps all transactions in one partition that is written
+     *                          from the calling threads
+     */
+    public TransactionRepository(Supplier<TransactionStore> transactionStores, int partitions,
+                                 MeterRegistry meterRegistry) {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("transaction.storage.partitions must be at least 1, was "
+                    + partitions);
+        }
+        this.partitions = new TransactionPartition[partitions];
+        for (int i = 0; i < partitions; i++) {
+            PartitionWriter writer = partitions == 1 ? null : new PartitionWriter("transaction-partition-" + i);
+            this.partitions[i] = new TransactionPartition(transactionStores.get(), DUPLICATE_WINDOW_MILLIS, writer);
+        }
+        
+        // Lookups by id or account (findById, existsById, isDuplicate, getBalance) take well under a microsecond, so
+        // a timer would cost about a third of the call; they are timed by the service methods that use them.
+        OperationTimers timers = new OperationTimers(meterRegistry, "transaction.repository",
+                "Time spent in TransactionRepository operations", Duration.ofNanos(1_000), Duration.ofSeconds(1));
+        saveTimer = timers.timer("save");
+        saveAllTimer = timers.timer("saveAll");
+        replaceTimer = timers.timer("replace");
+        saveIfNotDuplicateTimer = timers.timer("saveIfNotDuplicate");
+        saveAllIfNotDuplicateTimer = timers.timer("saveAllIfNotDuplicate");
+        findAllTimer = timers.timer("findAll");
+        forEachTimer = timers.timer("forEach");
+        findAllPaginatedTimer = timers.timer("findAllPaginated");
+        findPageAfterTimer = timers.timer("findPageAfter");
+        findByAccountAfterTimer = timers.timer("findByAccountAfter");
+        findInRangeAfterTimer = timers.timer("findInRangeAfter");
+        deleteByIdTimer = timers.timer("deleteById");
+        deleteAllTimer = timers.timer("deleteAll");
+        getBalancesTimer = timers.timer("getBalances");
+        recomputeBalancesTimer = timers.timer("recomputeBalances");
+        recomputeBalanceTimer = timers.timer("recomputeBalance");
+        getRollupsTimer = timers.timer("getRollups");
+        compactRollupsTimer = timers.timer("compactRollups");
+        
+        // Only sizes that are cheap to read; the timeline holds one key per stored transaction, so it is the store
+        // size, and counting a skip list walks all of it. Index sizes are summed over the partitions, so an account
+        // with transactions in several partitions is counted once for each.
+        Gauge.builder("transaction.store.size", this.partitions, p -> total(p, TransactionPartition::size))
+                .description("Transactions in the store")
+                .register(meterRegistry);
+        Gauge.builder("transaction.index.size", this.partitions,
+                        p -> total(p, TransactionPartition::duplicateWindowSize))
+                .description("Entries in a repository index")
+                .tag("index", "duplicateWindow")
+                .register(meterRegistry);
+        Gauge.builder("transaction.index.size", this.partitions, p -> total(p, TransactionPartition::accountIndexSize))
+                .description("Entries in a repository index")
+                .tag("index", "account")
+                .register(meterRegistry);
+        Gauge.builder("transaction.index.size", this.partitions, p -> total(p, TransactionPartition::balancesSize))
+                .description("Entries in a repository index")
+                .tag("index", "balance")
+                .register(meterRegistry);
+    }
+    
+    /**
+     * Sends every mutation applied from now on to {@code journal} as well, after the journals added before it.
+     */
+    public synchronized void addJournal(TransactionJournal journal) {
+        journals.add(journal);
+        this.journal = TransactionJournal.of(journals);
+    }
     
-    private final Map<String, Transaction> transactionStore = new ConcurrentHashMap<>();
+    public synchronized void removeJournal(TransactionJournal journal) {
+        journals.remove(journal);
+        this.journal = TransactionJournal.of(journals);
+    }
     
     public Transaction save(Transaction transaction) {
-        transactionStore.put(transaction.getId(), transaction);
-        return transaction;
+        return saveTimer.record(() -> {
+            TransactionPartition partition = placementOf(transaction);
+            CompletableFuture<?> durable;
+            long token = mutations.enter();
+            try {
+                durable = partition.write(() -> partition.store(transaction, journal));
+            } finally {
+                mutations.exit(token);
+            }
+            durable.join();
+            return transaction;
+        });
+    }
+    
+    /**
+     * Saves all transactions and waits for the journal once, so they are made durable by a single group commit
+     * rather than one commit each. Partitions apply their share of the batch at the same time.
+     */
+    public List<Transaction> saveAll(List<Transaction> transactions) {
+        return saveAllTimer.record(() -> {
+            List<CompletableFuture<?>> durable = applyByPartition(transactions, (partition, transaction) ->
+                    partition.store(transaction, journal));
+            CompletableFuture.allOf(durable.toArray(CompletableFuture<?>[]::new)).join();
+            return transactions;
+        });
+    }
+    
+    /**
+     * Saves the transaction unless it is a duplicate, as one atomic step: of several identical transactions saved
+     * concurrently, exactly one is stored. The signature is claimed before the duplicate check and released after
+     * the save, so an identical insert either finds the claim or, once it is released, the stored transaction.
+     * Inserts of different transactions do not contend. An insert that finds the claim is reported as a duplicate
+     * of the one holding it.
+     *
+     * @return false, without saving, if the transaction is a duplicate
+     */
+    public boolean saveIfNotDuplicate(Transaction transaction) {
+        return saveIfNotDuplicateTimer.record(() -> {
+            TransactionPartition partition = placementOf(transaction);
+            CompletableFuture<?> durable;
+            long token = mutations.enter();
+            try {
+                durable = partition.write(() -> storeIfNotDuplicate(partition, transaction));
+            } finally {
+                mutations.exit(token);
+            }
+            if (durable == null) {
+                return false;
+            }
+            durable.join();
+            return true;
+        });
+    }
+    
+    /**
+     * Batch form of {@link #saveIfNotDuplicate}: saves every transaction that is not a duplicate of a stored one or
+     * of an earlier one in the list, with a single commit.
+     *
+     * @return for each transaction, whether it was saved
+     */
+    public boolean[] saveAllIfNotDuplicate(List<Transaction> transactions) {
+        return saveAllIfNotDuplicateTimer.record(() -> {
+            List<CompletableFuture<?>> durable = applyByPartition(transactions, this::storeIfNotDuplicate);
+            boolean[] saved = new boolean[transactions.size()];
+            for (int i = 0; i < saved.length; i++) {
+                saved[i] = durable.get(i) != null;
+            }
+            CompletableFuture.allOf(durable.stream()
+                    .filter(future -> future != null)
+                    .toArray(CompletableFuture<?>[]::new)).join();
+            return saved;
+        });
+    }
+    
+    /**
+     * @return null, without saving, if the transaction is a duplicate
+     */
+    private CompletableFuture<?> storeIfNotDuplicate(TransactionPartition partition, Transaction transaction) {
+        TransactionSignature signature = TransactionSignature.of(transaction);
+        if (!partition.claim(signature, transaction.getId())) {
+            return null;
+        }
+        try {
+            if (partition.isDuplicate(transaction)) {
+                return null;
+            }
+            return partition.store(transaction, journal);
+        } finally {
+            partition.release(signature, transaction.getId());
+        }
+    }
+    
+    /**
+     * Applies {@code mutation} to every transaction in its partition, each partition's share in list order and all
+     * partitions at the same time, and returns the results in list order once all have been applied.
+     */
+    private List<CompletableFuture<?>> applyByPartition(
+            List<Transaction> transactions,
+            BiFunction<TransactionPartition, Transaction, CompletableFuture<?>> mutation) {
+        Map<TransactionPartition, List<Integer>> positions = new LinkedHashMap<>();
+        for (int i = 0; i < transactions.size(); i++) {
+            positions.computeIfAbsent(placementOf(transactions.get(i)), p -> new ArrayList<>()).add(i);
+        }
+        
+        CompletableFuture<?>[] results = new CompletableFuture<?>[transactions.size()];
+        List<CompletableFuture<Void>> applied = new ArrayList<>(positions.size());
+        long token = mutations.enter();
+        try {
+            positions.forEach((partition, indexes) -> applied.add(partition.submit(() -> {
+                for (int i : indexes) {
+                    results[i] = mutation.apply(partition, transactions.get(i));
+                }
+                return null;
+            })));
+            applied.forEach(TransactionPartition::await);
+        } finally {
+            mutations.exit(token);
+        }
+        return Arrays.asList(results);
+    }
+    
+    /**
+     * Installs {@code updated} in place of {@code expected}, as a compare-and-swap on the entry: only if the entry
+     * still holds the version of {@code expected}. Readers see either the old or the new instance, never a mix.
+     *
+     * @return false, leaving the entry alone, if it was changed or deleted since {@code expected} was read
+     */
+    public boolean replace(Transaction expected, Transaction updated) {
+        if (!expected.getId().equals(updated.getId())) {
+            throw new IllegalArgumentException("Transaction id " + updated.getId() + " does not match "
+                    + expected.getId());
+        }
+        return replaceTimer.record(() -> {
+            TransactionPartition partition = partitionHolding(expected.getId());
+            if (partition == null) {
+                return false;
+            }
+            CompletableFuture<?> durable;
+            long token = mutations.enter();
+            try {
+                durable = partition.write(() -> partition.replace(expected, updated, journal));
+            } finally {
+                mutations.exit(token);
+            }
+            if (durable == null) {
+                return false;
+            }
+            durable.join();
+            return true;
+        });
     }
     
     public Optional<Transaction> findById(String id) {
-        return Optional.ofNullable(transactionStore.get(id));
+        for (TransactionPartition partition : partitions) {
+            Transaction transaction = partition.get(id);
+            if (transaction != null) {
+                return Optional.of(transaction);
+            }
+        }
+        return Optional.empty();
     }
     
     public List<Transaction> findAll() {
-        return new ArrayList<>(transactionStore.values());
+        return findAllTimer.record(() -> {
+            List<Transaction> transactions = new ArrayList<>(count());
+            for (TransactionPartition partition : partitions) {
+                partition.forEach(transactions::add);
+            }
+            return transactions;
+        });
+    }
+    
+    /**
+     * Visits every stored transaction without copying the store. Writes may continue while this runs; each
+     * transaction is visited at most once, in its state at some point during the iteration.
+     */
+    public void forEach(Consumer<Transaction> action) {
+        forEachTimer.record(() -> {
+            for (TransactionPartition partition : partitions) {
+                partition.forEach(action);
+            }
+        });
     }
     
     public List<Transaction> findAllPaginated(int page, int size) {
-        return transactionStore.values().stream()
+        return findAllPaginatedTimer.record(() -> new TimelineMerge(partitions, TransactionPartition::timeline)
+                .stream()
                 .skip((long) page * size)
                 .limit(size)
-                .collect(Collectors.toList());
+                .toList());
+    }
+    
+    /**
+     * Returns up to {@code size} transactions in (timestamp, id) order, starting right after {@code after},
+     * or from the oldest transaction when {@code after} is null.
+     */
+    public List<Transaction> findPageAfter(TimelineKey after, int size) {
+        return findPageAfterTimer.record(() -> resolvePage(TransactionPartition::timeline, after, size));
+    }
+    
+    /**
+     * Same as {@link #findPageAfter} but limited to transactions where the account is either the source or the
+     * destination.
+     */
+    public List<Transaction> findByAccountAfter(String accountNumber, TimelineKey after, int size) {
+        return findByAccountAfterTimer.record(() ->
+                resolvePage(partition -> partition.accountKeys(accountNumber), after, size));
+    }
+    
+    /**
+     * Streams transactions in (timestamp, id) order, optionally limited to one account (source or destination) and
+     * to timestamps in {@code [from, to)}. The stream walks the ordered indexes lazily and looks each row up as it
+     * goes, so its memory use does not depend on how many transactions it returns. It is not timed: the work
+     * happens as the caller consumes it.
+     */
+    public Stream<Transaction> streamInOrder(String accountNumber, LocalDateTime from, LocalDateTime to) {
+        return new TimelineMerge(partitions, partition -> range(partition, accountNumber, from, to)).stream();
+    }
+    
+    /**
+     * Same as {@link #findPageAfter} but limited to timestamps in {@code [from, to)} and, if {@code accountNumber}
+     * is not null, to transactions where the account is the source or the destination. Either bound may be null.
+     * The page is read from the ordered index starting at the range's lower end, so it costs O(log n + size)
+     * however many transactions lie outside the range.
+     */
+    public List<Transaction> findInRangeAfter(String accountNumber, LocalDateTime from, LocalDateTime to,
+                                              TimelineKey after, int size) {
+        return findInRangeAfterTimer.record(() ->
+                resolvePage(partition -> range(partition, accountNumber, from, to), after, size));
+    }
+    
+    private static NavigableSet<TimelineKey> range(TransactionPartition partition, String accountNumber,
+                                                   LocalDateTime from, LocalDateTime to) {
+        NavigableSet<TimelineKey> keys = accountNumber == null
+                ? partition.timeline() : partition.accountKeys(accountNumber);
+        // The empty string sorts before every id, so these bounds include all rows at "from" and none at "to"
+        if (from != null) {
+            keys = keys.tailSet(new TimelineKey(from, ""), true);
+        }
+        if (to != null) {
+            keys = keys.headSet(new TimelineKey(to, ""), false);
+        }
+        return keys;
+    }
+    
+    private List<Transaction> resolvePage(Function<TransactionPartition, NavigableSet<TimelineKey>> index,
+                                          TimelineKey after, int size) {
+        TimelineMerge transactions = new TimelineMerge(partitions, partition -> {
+            NavigableSet<TimelineKey> keys = index.apply(partition);
+            return after == null ? keys : keys.tailSet(after, false);
+        });
+        List<Transaction> page = new ArrayList<>(Math.min(size, 1024));
+        while (page.size() < size && transactions.hasNext()) {
+            page.add(transactions.next());
+        }
+        return page;
     }
     
     public void deleteById(String id) {
-        transactionStore.remove(id);
+        deleteByIdTimer.record(() -> {
+            TransactionPartition partition = partitionHolding(id);
+            if (partition == null) {
+                return;
+            }
+            CompletableFuture<?> durable;
+            long token = mutations.enter();
+            try {
+                durable = partition.write(() -> partition.delete(id, journal));
+            } finally {
+                mutations.exit(token);
+            }
+            durable.join();
+        });
+    }
+    
+    public void deleteAll() {
+        deleteAllTimer.record(() -> {
+            CompletableFuture<Void> durable;
+            long token = mutations.enter();
+            try {
+                durable = journal.recordClear();
+                List<CompletableFuture<Void>> cleared = new ArrayList<>(partitions.length);
+                for (TransactionPartition partition : partitions) {
+                    cleared.add(partition.submit(partition::clear));
+                }
+                cleared.forEach(TransactionPartition::await);
+            } finally {
+                mutations.exit(token);
+            }
+            durable.join();
+        });
+    }
+    
+    /**
+     * Waits until every save or delete that had already started has been applied to the store. Mutations that
+     * start meanwhile are not waited for.
+     */
+    public void awaitMutationsInFlight() {
+        mutations.awaitInFlight();
     }
     
     public int count() {
-        return transactionStore.size();
+        return (int) total(partitions, TransactionPartition::size);
     }
     
     public boolean existsById(String id) {
-        return transactionStore.containsKey(id);
+        return partitionHolding(id) != null;
     }
     
-    public boolean isDuplicate(Transaction transaction) {
-        // Generate a simple "signature" for the transaction that combines account, amount, and type
-        String transactionSignature = transaction.getAccountNumber() + "_" + 
-                                     transaction.getAmount() + "_" + 
-                                     transaction.getType() + "_" + 
-                                     transaction.getDestinationAccount();
-        
-        // Check if we have a transaction with the same signature in the last 60 seconds
-        return transactionStore.values().stream().anyMatch(existing -> {
-            // Different id (not updating the same record)
-            if (existing.getId().equals(transaction.getId())) {
-                return false;
+    /**
+     * Current balance of the account, maintained as transactions are stored, updated and deleted.
+     */
+    public BigDecimal getBalance(String accountNumber) {
+        if (partitions.length == 1) {
+            return partitions[0].balance(accountNumber);
+        }
+        BigDecimal balance = BigDecimal.ZERO;
+        for (TransactionPartition partition : partitions) {
+            balance = balance.add(partition.balance(accountNumber));
+        }
+        return balance;
+    }
+    
+    public Map<String, BigDecimal> getBalances() {
+        return getBalancesTimer.record(() -> {
+            if (partitions.length == 1) {
+                return partitions[0].balances();
+            }
+            Map<String, BigDecimal> balances = new HashMap<>();
+            for (TransactionPartition partition : partitions) {
+                partition.balances().forEach((account, balance) -> balances.merge(account, balance, BigDecimal::add));
             }
-            
-            // Generate signature for existing transaction
-            String existingSignature = existing.getAccountNumber() + "_" + 
-                                      existing.getAmount() + "_" + 
-                                      existing.getType() + "_" + 
-                                      existing.getDestinationAccount();
-            
-            // Check if signatures match and if transaction is within the last 60 seconds
-            return existingSignature.equals(transactionSignature) && 
-                   Math.abs(ChronoUnit.SECONDS.between(existing.getTimestamp(), transaction.getTimestamp())) < 60;
+            return balances;
         });
     }
-} 
+    
+    /**
+     * Rebuilds every account balance from the stored transactions, in parallel, without touching the maintained
+     * balances.
+     */
+    public Map<String, BigDecimal> recomputeBalances() {
+        return recomputeBalancesTimer.record(() -> findAll().parallelStream()
+                .collect(() -> new HashMap<String, BigDecimal>(),
+                        (sums, transaction) -> AccountBalances.forEachEffect(transaction,
+                                (account, delta) -> sums.merge(account, delta, BigDecimal::add)),
+                        (left, right) -> right.forEach((account, sum) -> left.merge(account, sum, BigDecimal::add))));
+    }
+    
+    /**
+     * Rebuilds one account's balance from its transactions.
+     */
+    public BigDecimal recomputeBalance(String accountNumber) {
+        return recomputeBalanceTimer.record(() -> {
+            BigDecimal sum = BigDecimal.ZERO;
+            for (TransactionPartition partition : partitions) {
+                sum = sum.add(partition.recomputeBalance(accountNumber));
+            }
+            return sum;
+        });
+    }
+    
+    /**
+     * The account's rollups at {@code granularity} for the buckets that start in {@code [from, to)}, ordered by
+     * bucket start and then type; either bound may be null. The rollups are maintained as transactions are stored,
+     * updated and deleted, so this reads O(buckets) entries however many transactions they cover.
+     */
+    public List<Rollup> getRollups(String accountNumber, RollupGranularity granularity, LocalDateTime from,
+                                   LocalDateTime to) {
+        return getRollupsTimer.record(() -> {
+            if (partitions.length == 1) {
+                return partitions[0].rollups(accountNumber, granularity, from, to);
+            }
+            TreeMap<Rollup, Rollup> rollups = new TreeMap<>(Rollup.ORDER);
+            for (TransactionPartition partition : partitions) {
+                for (Rollup rollup : partition.rollups(accountNumber, granularity, from, to)) {
+                    rollups.merge(rollup, rollup, Rollup::merge);
+                }
+            }
+            return new ArrayList<>(rollups.values());
+        });
+    }
+    
+    /**
+     * Drops the rollups at {@code granularity} of buckets that end by {@code before}. They are no longer
+     * maintained or returned; the coarser granularities still cover their transactions.
+     */
+    public void compactRollups(RollupGranularity granularity, LocalDateTime before) {
+        compactRollupsTimer.record(() -> {
+            for (TransactionPartition partition : partitions) {
+                partition.compactRollups(granularity, before);
+            }
+        });
+    }
+    
+    public boolean isDuplicate(Transaction transaction) {
+        // A transaction with the same account, amount, type and destination within the last 60 seconds
+        return partitionFor(transaction.getAccountNumber()).isDuplicate(transaction);
+    }
+    
+    /**
+     * The partition that holds the transaction if it is stored, otherwise the one its account hashes to.
+     */
+    private TransactionPartition placementOf(Transaction transaction) {
+        if (partitions.length == 1) {
+            return partitions[0];
+        }
+        TransactionPartition holding = partitionHolding(transaction.getId());
+        return holding != null ? holding : partitionFor(transaction.getAccountNumber());
+    }
+    
+    private TransactionPartition partitionFor(String accountNumber) {
+        if (partitions.length == 1 || accountNumber == null) {
+            return partitions[0];
+        }
+        int hash = accountNumber.hashCode();
+        return partitions[Math.floorMod(hash ^ (hash >>> 16), partitions.length)];
+    }
+    
+    private TransactionPartition partitionHolding(String id) {
+        for (TransactionPartition partition : partitions) {
+            if (partition.contains(id)) {
+                return partition;
+            }
+        }
+        return null;
+    }
+    
+    private static double total(TransactionPartition[] partitions, ToIntFunction<TransactionPartition> size) {
+        long total = 0;
+        for (TransactionPartition partition : partitions) {
+            total += size.applyAsInt(partition);
+        }
+        return total;
+    }
+}
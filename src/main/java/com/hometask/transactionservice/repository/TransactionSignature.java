@@ -0,0 +1,19 @@
+package com.hometask.transactionservice.repository;
+
+import com.hometask.transactionservice.model.Transaction;
+
+import java.math.BigDecimal;
+
+/**
+ * The fields that make two transactions look like the same payment for duplicate detection.
+ */
+public record TransactionSignature(String accountNumber, BigDecimal amount, String type, String destinationAccount) {
+
+    public static TransactionSignature of(Transaction transaction) {
+        return new TransactionSignature(
+                transaction.getAccountNumber(),
+                transaction.getAmount(),
+                transaction.getType(),
+                transaction.getDestinationAccount());
+    }
+}
@@ -0,0 +1,39 @@
+package com.hometask.transactionservice.repository;
+
+import com.hometask.transactionservice.model.Transaction;
+
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Storage engine behind the {@link TransactionRepository}, keyed by transaction id.
+ * <p>
+ * {@link #compute} and {@link #computeIfPresent} run the remapping function atomically for the id, the same way
+ * {@link java.util.concurrent.ConcurrentHashMap} does. The repository relies on that to keep its indexes in step with
+ * the stored rows; the function must not read or write other ids of the store.
+ */
+public interface TransactionStore {
+
+    Transaction get(String id);
+
+    boolean containsKey(String id);
+
+    /**
+     * Replaces the transaction stored under {@code id} with the function's result, or removes it when the result
+     * is null. The function receives null when nothing is stored under the id; returning the instance it received
+     * leaves the entry as it is.
+     */
+    Transaction compute(String id, BiFunction<String, Transaction, Transaction> remapping);
+
+    Transaction computeIfPresent(String id, BiFunction<String, Transaction, Transaction> remapping);
+
+    /**
+     * Visits every stored transaction. Writes may continue meanwhile; each transaction is visited at most once, in
+     * its state at some point during the iteration.
+     */
+    void forEach(Consumer<Transaction> action);
+
+    int size();
+
+    void clear();
+}
@@ -0,0 +1,479 @@
+package com.hometask.transactionservice.search;
+
+import com.hometask.transactionservice.metrics.OperationTimers;
+import com.hometask.transactionservice.model.Transaction;
+import com.hometask.transactionservice.repository.TimelineKey;
+import com.hometask.transactionservice.repository.TransactionJournal;
+import com.hometask.transactionservice.repository.TransactionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.context.SmartLifecycle;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory inverted index from the terms in transaction descriptions to the transactions that contain them, for
+ * searches such as "invoice 4411" or "rent".
+ * <p>
+ * A description is split into lower-case runs of letters and digits. Each query term matches every term it is a
+ * prefix of, a transaction must match all query terms, and results come newest first. The index hears about writes
+ * as a journal of the repository but only enqueues them there; one background thread applies them in order, so a
+ * write never waits for the index. When the queue is full the change is dropped instead and the index marked stale:
+ * the background thread then throws away what is queued and rebuilds the index from the repository, once the writes
+ * that made those changes have finished.
+ * <p>
+ * The index remembers the terms it holds for each transaction, so an update replaces them and a delete removes
+ * them. A search can run ahead of the background thread, so every hit is still checked against the stored
+ * transaction before it is returned.
+ * <p>
+ * Memory is bounded by {@code maxPostings} postings in all. Every term and every transaction the index holds has at
+ * least one posting, so there are no more terms or transactions than that either, and a term has at most
+ * {@value #MAX_TERM_LENGTH} characters. Beyond the budget the oldest transactions lose all their postings, so old
+ * transactions stop being found first. A term also keeps at most {@code maxPostingsPerTerm} postings and drops its
+ * oldest beyond that, so a search for a very common term finds only its most recent transactions.
+ */
+public class DescriptionIndex implements TransactionJournal, SmartLifecycle {
+
+    static final int MAX_TERMS = 32;
+    static final int MAX_TERM_LENGTH = 32;
+    private static final int MAX_QUERY_TERMS = 8;
+
+    private final TransactionRepository repository;
+    private final int maxPostingsPerTerm;
+    private final long maxPostings;
+    private final NavigableMap<String, Postings> terms = new ConcurrentSkipListMap<>();
+    // Postings and this map are changed only on the updater thread; searches only read the postings
+    private final Map<String, Indexed> indexed = new HashMap<>();
+    // The transactions in indexed, oldest first, to evict from when over maxPostings
+    private final NavigableSet<TimelineKey> byAge = new TreeSet<>();
+    private final ThreadPoolExecutor updater;
+    private final AtomicInteger termCount = new AtomicInteger();
+    private final AtomicLong postingCount = new AtomicLong();
+    private final Timer searchTimer;
+    private final Timer indexTimer;
+    private final Counter rebuilds;
+    // Set when a change was dropped; the updater rebuilds before applying any further change
+    private volatile boolean stale;
+    private boolean running;
+
+    public DescriptionIndex(TransactionRepository repository, int maxPostingsPerTerm, long maxPostings,
+                            int queueCapacity, MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.maxPostingsPerTerm = maxPostingsPerTerm;
+        this.maxPostings = maxPostings;
+        updater = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("description-index").daemon().factory(),
+                this::dropAndRebuild);
+        updater.allowCoreThreadTimeOut(true);
+
+        OperationTimers timers = new OperationTimers(meterRegistry, "transaction.search",
+                "Time spent in description search operations", Duration.ofNanos(1_000), Duration.ofSeconds(1));
+        searchTimer = timers.timer("search");
+        indexTimer = timers.timer("index");
+        rebuilds = Counter.builder("transaction.search.rebuilds")
+                .description("Rebuilds of the description index after its queue overflowed")
+                .register(meterRegistry);
+        Gauge.builder("transaction.search.terms", termCount, AtomicInteger::get)
+                .description("Distinct terms in the description index")
+                .register(meterRegistry);
+        Gauge.builder("transaction.search.postings", postingCount, AtomicLong::get)
+                .description("Postings in the description index")
+                .register(meterRegistry);
+        Gauge.builder("transaction.search.queue", updater, executor -> executor.getQueue().size())
+                .description("Writes waiting to be added to the description index")
+                .register(meterRegistry);
+    }
+
+    /**
+     * The newest transactions, at most {@code limit}, whose description has, for every term of {@code query}, a
+     * term starting with it.
+     */
+    public List<Transaction> search(String query, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must not be less than one");
+        }
+        List<String> queryTerms = terms(query == null ? "" : query);
+        if (queryTerms.isEmpty()) {
+            throw new IllegalArgumentException("Query must contain at least one letter or digit");
+        }
+        if (queryTerms.size() > MAX_QUERY_TERMS) {
+            throw new IllegalArgumentException("Query must not have more than " + MAX_QUERY_TERMS + " terms");
+        }
+        return searchTimer.record(() -> {
+            List<Transaction> results = new ArrayList<>(Math.min(limit, 100));
+            // Candidates come from the query term with the fewest postings, newest first; the rest are checked
+            NewestFirst candidates = new NewestFirst(matching(mostSelective(queryTerms)));
+            TimelineKey previous = null;
+            while (results.size() < limit && candidates.hasNext()) {
+                Posting posting = candidates.next();
+                if (posting.key().equals(previous)) {
+                    continue;
+                }
+                previous = posting.key();
+                // The postings may not have caught up with an update or delete yet
+                Transaction transaction = repository.findById(posting.key().id()).orElse(null);
+                if (transaction != null && TimelineKey.of(transaction).equals(posting.key())
+                        && matchesAll(terms(transaction.getDescription()), queryTerms)) {
+                    results.add(transaction);
+                }
+            }
+            return results;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> recordSave(Transaction transaction) {
+        // Also without a description, which may replace one that was indexed
+        enqueue(() -> add(transaction));
+        return COMPLETED;
+    }
+
+    @Override
+    public CompletableFuture<Void> recordDelete(String id) {
+        enqueue(() -> remove(id));
+        return COMPLETED;
+    }
+
+    @Override
+    public CompletableFuture<Void> recordClear() {
+        enqueue(this::clear);
+        return COMPLETED;
+    }
+
+    /**
+     * Lower-case runs of letters and digits in {@code text}, each cut to {@value #MAX_TERM_LENGTH} characters,
+     * without repeats and at most {@value #MAX_TERMS} of them.
+     */
+    static List<String> terms(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        Set<String> terms = new LinkedHashSet<>();
+        int start = -1;
+        for (int i = 0; i <= text.length() && terms.size() < MAX_TERMS; i++) {
+            boolean inTerm = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (inTerm && start < 0) {
+                start = i;
+            } else if (!inTerm && start >= 0) {
+                terms.add(text.substring(start, Math.min(i, start + MAX_TERM_LENGTH)).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return List.copyOf(terms);
+    }
+
+    int termCount() {
+        return termCount.get();
+    }
+
+    long postingCount() {
+        return postingCount.get();
+    }
+
+    /**
+     * Waits until every write enqueued so far has been added to the index, rebuilding it if a write was dropped.
+     */
+    void awaitUpdates() {
+        CompletableFuture.runAsync(() -> {
+            if (stale) {
+                rebuild();
+            }
+        }, updater).join();
+    }
+
+    private void enqueue(Runnable change) {
+        updater.execute(new Change(change));
+    }
+
+    /**
+     * Rejection handler of the updater. The writer is inside its mutation of the repository, so it must not wait
+     * for room: the change is dropped and the index marked stale. Running the change on the writer instead would
+     * apply it ahead of the changes already queued, an older version of the same transaction included.
+     */
+    private void dropAndRebuild(Runnable task, ThreadPoolExecutor executor) {
+        if (!(task instanceof Change)) {
+            // Only awaitUpdates(), which is not a writer, queues anything else
+            try {
+                executor.getQueue().put(task);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException(e);
+            }
+            return;
+        }
+        stale = true;
+        // The next change to run rebuilds; if the updater has emptied the queue meanwhile, this is that change
+        executor.getQueue().offer(new Change(() -> {
+        }));
+    }
+
+    /**
+     * Replaces the postings with what the repository holds. The changes still queued are dropped as well: they were
+     * made by writes that started before this one, so once those have finished the repository holds their
+     * outcome. Changes queued after the drain are applied on top; one can be older than the version the rebuild
+     * read, if its write finished before the read, and is then skipped.
+     */
+    private void rebuild() {
+        stale = false;
+        List<Runnable> queued = new ArrayList<>();
+        updater.getQueue().drainTo(queued);
+        repository.awaitMutationsInFlight();
+        clear();
+        repository.forEach(this::add);
+        rebuilds.increment();
+        queued.stream().filter(task -> !(task instanceof Change)).forEach(Runnable::run);
+    }
+
+    private void add(Transaction transaction) {
+        indexTimer.record(() -> {
+            Indexed current = indexed.get(transaction.getId());
+            if (current != null && current.version() > transaction.getVersion()) {
+                return;
+            }
+            TimelineKey key = TimelineKey.of(transaction);
+            List<String> descriptionTerms = terms(transaction.getDescription());
+            remove(transaction.getId());
+            if (descriptionTerms.isEmpty()) {
+                return;
+            }
+            indexed.put(transaction.getId(), new Indexed(key, transaction.getVersion(),
+                    new ArrayList<>(descriptionTerms)));
+            byAge.add(key);
+            for (String term : descriptionTerms) {
+                Postings postings = terms.get(term);
+                if (postings == null) {
+                    postings = new Postings();
+                    terms.put(term, postings);
+                    termCount.incrementAndGet();
+                }
+                if (postings.keys.add(key)) {
+                    postingCount.incrementAndGet();
+                    if (postings.size.incrementAndGet() > maxPostingsPerTerm) {
+                        dropOldest(term, postings);
+                    }
+                }
+            }
+            while (postingCount.get() > maxPostings && !byAge.isEmpty()) {
+                remove(byAge.first().id());
+            }
+        });
+    }
+
+    /**
+     * Removes the postings held for transaction {@code id}, if any.
+     */
+    private void remove(String id) {
+        Indexed entry = indexed.remove(id);
+        if (entry == null) {
+            return;
+        }
+        byAge.remove(entry.key());
+        for (String term : entry.terms()) {
+            Postings postings = terms.get(term);
+            if (postings == null || !postings.keys.remove(entry.key())) {
+                continue;
+            }
+            postingCount.decrementAndGet();
+            if (postings.size.decrementAndGet() == 0) {
+                terms.remove(term);
+                termCount.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Drops the oldest posting of a term that is over its limit, and the term from what its transaction holds, so
+     * what the index holds for a transaction matches its postings.
+     */
+    private void dropOldest(String term, Postings postings) {
+        TimelineKey oldest = postings.keys.pollFirst();
+        postings.size.decrementAndGet();
+        postingCount.decrementAndGet();
+        Indexed entry = indexed.get(oldest.id());
+        if (entry != null && entry.key().equals(oldest)) {
+            entry.terms().remove(term);
+            if (entry.terms().isEmpty()) {
+                indexed.remove(oldest.id());
+                byAge.remove(oldest);
+            }
+        }
+    }
+
+    private void clear() {
+        terms.clear();
+        indexed.clear();
+        byAge.clear();
+        termCount.set(0);
+        postingCount.set(0);
+    }
+
+    /**
+     * The query term whose matching terms have the fewest postings in total.
+     */
+    private String mostSelective(List<String> queryTerms) {
+        String best = null;
+        long fewest = Long.MAX_VALUE;
+        for (String queryTerm : queryTerms) {
+            long total = 0;
+            // Stop counting once it cannot be the fewest, so a one-letter prefix does not walk half the terms
+            for (Iterator<Postings> it = matching(queryTerm).values().iterator(); it.hasNext() && total < fewest; ) {
+                total += it.next().size.get();
+            }
+            if (total < fewest) {
+                best = queryTerm;
+                fewest = total;
+            }
+        }
+        return best;
+    }
+
+    private NavigableMap<String, Postings> matching(String prefix) {
+        // Terms hold only letters and digits, so every term starting with the prefix sorts below prefix + U+FFFF
+        return terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    private static boolean matchesAll(List<String> descriptionTerms, List<String> queryTerms) {
+        for (String queryTerm : queryTerms) {
+            if (descriptionTerms.stream().noneMatch(term -> term.startsWith(queryTerm))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (!running) {
+            repository.addJournal(this);
+            running = true;
+            // Transactions stored before the index was registered, e.g. restored from disk, are read by a rebuild
+            // on the updater. It waits for the writes that may have missed the journal, and a change queued since
+            // is applied after it, so an older version it reads cannot overwrite a newer one
+            stale = true;
+            enqueue(() -> {
+            });
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (running) {
+            repository.removeJournal(this);
+            running = false;
+        }
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * A change to the index from a write. The updater drops it in favour of a rebuild once the index is stale.
+     */
+    private final class Change implements Runnable {
+        private final Runnable change;
+
+        Change(Runnable change) {
+            this.change = change;
+        }
+
+        @Override
+        public void run() {
+            if (stale) {
+                rebuild();
+            } else {
+                change.run();
+            }
+        }
+    }
+
+    private static final class Postings {
+        private final ConcurrentSkipListSet<TimelineKey> keys = new ConcurrentSkipListSet<>();
+        private final AtomicInteger size = new AtomicInteger();
+    }
+
+    private record Posting(String term, TimelineKey key) {
+    }
+
+    /**
+     * What the index holds for one transaction: its key, the version indexed and the terms that have a posting for
+     * it.
+     */
+    private record Indexed(TimelineKey key, long version, List<String> terms) {
+    }
+
+    /**
+     * Merges the postings of several terms into one sequence, newest first. A transaction with more than one of
+     * the terms comes out once per term, one right after the other.
+     */
+    private static final class NewestFirst implements Iterator<Posting> {
+
+        private final PriorityQueue<Cursor> cursors = new PriorityQueue<>();
+
+        NewestFirst(Map<String, Postings> terms) {
+            terms.forEach((term, postings) -> {
+                Iterator<TimelineKey> keys = postings.keys.descendingIterator();
+                if (keys.hasNext()) {
+                    cursors.add(new Cursor(term, keys, keys.next()));
+                }
+            });
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !cursors.isEmpty();
+        }
+
+        @Override
+        public Posting next() {
+            Cursor cursor = cursors.poll();
+            Posting posting = new Posting(cursor.term, cursor.key);
+            if (cursor.keys.hasNext()) {
+                cursor.key = cursor.keys.next();
+                cursors.add(cursor);
+            }
+            return posting;
+        }
+
+        private static final class Cursor implements Comparable<Cursor> {
+            private final String term;
+            private final Iterator<TimelineKey> keys;
+            private TimelineKey key;
+
+            Cursor(String term, Iterator<TimelineKey> keys, TimelineKey key) {
+                this.term = term;
+                this.keys = keys;
+                this.key = key;
+            }
+
+            @Override
+            public int compareTo(Cursor other) {
+                return other.key.compareTo(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.hometask.transactionservice.service;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint ({@code /actuator/balances}) showing the last balance verification.
+ * A POST runs a verification immediately.
+ */
+@Component
+@Endpoint(id = "balances")
+public class BalanceVerificationEndpoint {
+
+    private final BalanceVerifier verifier;
+
+    public BalanceVerificationEndpoint(BalanceVerifier verifier) {
+        this.verifier = verifier;
+    }
+
+    @ReadOperation
+    public BalanceVerificationReport lastReport() {
+        return verifier.lastReport();
+    }
+
+    @WriteOperation
+    public BalanceVerificationReport verify() {
+        return verifier.verify();
+    }
+}
@@ -0,0 +1,19 @@
+package com.hometask.transactionservice.service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Result of comparing the maintained account balances with balances rebuilt from the stored transactions.
+ */
+public record BalanceVerificationReport(int accountsChecked, List<Drift> drift, long durationMillis,
+                                        Instant completedAt) {
+
+    /**
+     * @param expected balance rebuilt from the account's transactions
+     * @param actual   balance the service was reporting
+     */
+    public record Drift(String accountNumber, BigDecimal expected, BigDecimal actual) {
+    }
+}
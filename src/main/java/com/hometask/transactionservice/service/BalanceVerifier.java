@@ -0,0 +1,78 @@
+package com.hometask.transactionservice.service;
+
+import com.hometask.transactionservice.repository.TransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically rebuilds every account balance from scratch and reports accounts whose maintained balance has
+ * drifted.
+ * <p>
+ * The rebuild runs while writes continue, so an account written to meanwhile can differ without being wrong. Such
+ * accounts are rebuilt a second time on their own and only reported if the difference is still there and the
+ * maintained balance did not move during the recheck.
+ */
+@Component
+public class BalanceVerifier {
+
+    private static final Logger log = LoggerFactory.getLogger(BalanceVerifier.class);
+
+    private final TransactionRepository repository;
+    private volatile BalanceVerificationReport lastReport;
+
+    @Autowired
+    public BalanceVerifier(TransactionRepository repository) {
+        this.repository = repository;
+    }
+
+    @Scheduled(initialDelayString = "${transaction.balances.verify-interval-ms:3600000}",
+            fixedDelayString = "${transaction.balances.verify-interval-ms:3600000}")
+    public BalanceVerificationReport verify() {
+        long started = System.nanoTime();
+        Map<String, BigDecimal> maintained = repository.getBalances();
+        Map<String, BigDecimal> rebuilt = repository.recomputeBalances();
+
+        Set<String> accounts = new HashSet<>(maintained.keySet());
+        accounts.addAll(rebuilt.keySet());
+        List<BalanceVerificationReport.Drift> drift = new ArrayList<>();
+        for (String account : accounts) {
+            BigDecimal expected = rebuilt.getOrDefault(account, BigDecimal.ZERO);
+            BigDecimal actual = maintained.getOrDefault(account, BigDecimal.ZERO);
+            if (expected.compareTo(actual) == 0) {
+                continue;
+            }
+            BigDecimal before = repository.getBalance(account);
+            BigDecimal recheck = repository.recomputeBalance(account);
+            BigDecimal after = repository.getBalance(account);
+            if (before.compareTo(after) == 0 && recheck.compareTo(after) != 0) {
+                drift.add(new BalanceVerificationReport.Drift(account, recheck, after));
+            }
+        }
+
+        BalanceVerificationReport report = new BalanceVerificationReport(accounts.size(), drift,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), Instant.now());
+        lastReport = report;
+        if (drift.isEmpty()) {
+            log.info("Verified {} account balances in {} ms", report.accountsChecked(), report.durationMillis());
+        } else {
+            log.warn("Balance drift in {} of {} accounts: {}", drift.size(), report.accountsChecked(), drift);
+        }
+        return report;
+    }
+
+    public BalanceVerificationReport lastReport() {
+        return lastReport;
+    }
+}
@@ -0,0 +1,40 @@
+package com.hometask.transactionservice.service;
+
+import com.hometask.transactionservice.repository.RollupGranularity;
+import com.hometask.transactionservice.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Periodically drops the minute and hour rollups older than their retention. The hour and day rollups are
+ * maintained alongside the minute ones, so old history stays available at the coarser granularities while the
+ * number of fine buckets kept per account stays bounded. Day rollups are kept for good.
+ */
+@Component
+public class RollupCompactor {
+
+    private final TransactionRepository repository;
+    private final Duration minuteRetention;
+    private final Duration hourRetention;
+
+    @Autowired
+    public RollupCompactor(TransactionRepository repository,
+                           @Value("${transaction.rollups.minute-retention-ms:172800000}") long minuteRetentionMillis,
+                           @Value("${transaction.rollups.hour-retention-ms:7776000000}") long hourRetentionMillis) {
+        this.repository = repository;
+        this.minuteRetention = Duration.ofMillis(minuteRetentionMillis);
+        this.hourRetention = Duration.ofMillis(hourRetentionMillis);
+    }
+
+    @Scheduled(fixedDelayString = "${transaction.rollups.compact-interval-ms:600000}")
+    public void compact() {
+        LocalDateTime now = LocalDateTime.now();
+        repository.compactRollups(RollupGranularity.MINUTE, now.minus(minuteRetention));
+        repository.compactRollups(RollupGranularity.HOUR, now.minus(hourRetention));
+    }
+}
@@ -1,57 +1,178 @@
 package com.hometask.transactionservice.service;
 
+import com.hometask.transactionservice.dto.AccountBalance;
+import com.hometask.transactionservice.dto.AccountRollups;
+import com.hometask.transactionservice.dto.TransactionBatchItem;
+import com.hometask.transactionservice.dto.TransactionBatchResponse;
+import com.hometask.transactionservice.dto.TransactionPage;
 import com.hometask.transactionservice.dto.TransactionRequest;
 import com.hometask.transactionservice.exception.DuplicateTransactionException;
 import com.hometask.transactionservice.exception.TransactionNotFoundException;
+import com.hometask.transactionservice.metrics.OperationTimers;
 import com.hometask.transactionservice.model.Transaction;
+import com.hometask.transactionservice.repository.Rollup;
+import com.hometask.transactionservice.repository.RollupGranularity;
+import com.hometask.transactionservice.repository.TimelineKey;
 import com.hometask.transactionservice.repository.TransactionRepository;
+import com.hometask.transactionservice.validation.TransactionRequestValidator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
 
 @Service
 public class TransactionService {
     
+    public static final int MAX_BATCH_SIZE = 1000;
+    
     private final TransactionRepository repository;
     
-    @Autowired
+    private final Timer createTimer;
+    private final Timer createBatchTimer;
+    private final Timer getTimer;
+    private final Timer getAllTimer;
+    private final Timer getPaginatedTimer;
+    private final Timer getPageTimer;
+    private final Timer getAccountPageTimer;
+    private final Timer getRangePageTimer;
+    private final Timer getBalanceTimer;
+    private final Timer getRollupsTimer;
+    private final Timer deleteTimer;
+    private final Timer updateTimer;
+    private final Timer countTimer;
+    
     public TransactionService(TransactionRepository repository) {
+        this(repository, new CompositeMeterRegistry());
+    }
+    
+    @Autowired
+    public TransactionService(TransactionRepository repository, MeterRegistry meterRegistry) {
         this.repository = repository;
+        
+        OperationTimers timers = new OperationTimers(meterRegistry, "transaction.service",
+                "Time spent in TransactionService operations", Duration.ofNanos(10_000), Duration.ofSeconds(10));
+        createTimer = timers.timer("createTransaction");
+        createBatchTimer = timers.timer("createTransactions");
+        getTimer = timers.timer("getTransaction");
+        getAllTimer = timers.timer("getAllTransactions");
+        getPaginatedTimer = timers.timer("getPaginatedTransactions");
+        getPageTimer = timers.timer("getTransactionPage");
+        getAccountPageTimer = timers.timer("getAccountTransactionPage");
+        getRangePageTimer = timers.timer("getTransactionRangePage");
+        getBalanceTimer = timers.timer("getAccountBalance");
+        getRollupsTimer = timers.timer("getAccountRollups");
+        deleteTimer = timers.timer("deleteTransaction");
+        updateTimer = timers.timer("updateTransaction");
+        countTimer = timers.timer("getTransactionCount");
     }
     
     public Transaction createTransaction(TransactionRequest request) {
-        Transaction transaction = new Transaction(
+        return createTransaction(request, true);
+    }
+    
+    /**
+     * @param checkDuplicates false to skip the duplicate window, for requests whose retries are recognised by their
+     *                        idempotency key instead, so an identical payment made on purpose is stored
+     */
+    public Transaction createTransaction(TransactionRequest request, boolean checkDuplicates) {
+        return createTimer.record(() -> {
+            Transaction transaction = toTransaction(request);
+            if (!checkDuplicates) {
+                return repository.save(transaction);
+            }
+            
+            // The duplicate check and the insert are one atomic step, so identical concurrent requests store only one
+            if (!repository.saveIfNotDuplicate(transaction)) {
+                System.out.println("Duplicate transaction detected: " + request.getAccountNumber() + 
+                                   ", amount: " + request.getAmount() + 
+                                   ", type: " + request.getType());
+                throw new DuplicateTransactionException(duplicateMessage(request));
+            }
+            
+            return transaction;
+        });
+    }
+    
+    /**
+     * Validates a batch, then de-duplicates and saves it atomically with a single commit. A request is a duplicate
+     * if it matches a transaction in the store, one being created concurrently, or an earlier request in the batch.
+     */
+    public TransactionBatchResponse createTransactions(List<TransactionRequest> requests) {
+        if (requests.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Batch must not contain more than " + MAX_BATCH_SIZE + " transactions");
+        }
+        return createBatchTimer.record(() -> storeBatch(requests));
+    }
+    
+    private TransactionBatchResponse storeBatch(List<TransactionRequest> requests) {
+        Map<Integer, Map<String, String>> invalid = new HashMap<>();
+        List<Transaction> candidates = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            Map<String, String> errors = TransactionRequestValidator.validate(requests.get(i));
+            if (errors.isEmpty()) {
+                candidates.add(toTransaction(requests.get(i)));
+            } else {
+                invalid.put(i, errors);
+            }
+        }
+        
+        boolean[] saved = repository.saveAllIfNotDuplicate(candidates);
+        
+        List<TransactionBatchItem> results = new ArrayList<>(requests.size());
+        int candidate = 0;
+        for (int i = 0; i < requests.size(); i++) {
+            if (invalid.containsKey(i)) {
+                results.add(TransactionBatchItem.invalid(i, invalid.get(i)));
+            } else if (saved[candidate]) {
+                results.add(TransactionBatchItem.created(i, candidates.get(candidate++)));
+            } else {
+                results.add(TransactionBatchItem.duplicate(i, duplicateMessage(requests.get(i))));
+                candidate++;
+            }
+        }
+        return new TransactionBatchResponse(results);
+    }
+    
+    private static Transaction toTransaction(TransactionRequest request) {
+        return new Transaction(
                 request.getAccountNumber(),
                 request.getAmount(),
                 request.getType(),
-                request.getDescription()
+                request.getDescription(),
+                request.getDestinationAccount()
         );
-        transaction.setDestinationAccount(request.getDestinationAccount());
-        
-        // Check for duplicate transactions
-        if (repository.isDuplicate(transaction)) {
-            System.out.println("Duplicate transaction detected: " + request.getAccountNumber() + 
-                               ", amount: " + request.getAmount() + 
-                               ", type: " + request.getType());
-            throw new DuplicateTransactionException("This appears to be a duplicate transaction for account " + 
-                request.getAccountNumber() + " with amount " + request.getAmount() + " and type " + request.getType());
-        }
-        
-        return repository.save(transaction);
     }
     
+    private static String duplicateMessage(TransactionRequest request) {
+        return "This appears to be a duplicate transaction for account " + request.getAccountNumber() + 
+                " with amount " + request.getAmount() + " and type " + request.getType();
+    }
+    
+    /**
+     * Only cache misses reach this method through the caching proxy, so its timer measures the repository path;
+     * hits show up in the {@code transactionCache} statistics.
+     */
     @Cacheable(value = "transactionCache", key = "#id")
     public Transaction getTransaction(String id) {
-        return repository.findById(id)
-                .orElseThrow(() -> new TransactionNotFoundException("Transaction not found with id: " + id));
+        return getTimer.record(() -> repository.findById(id)
+                .orElseThrow(() -> new TransactionNotFoundException("Transaction not found with id: " + id)));
     }
     
-    @Cacheable(value = "allTransactionsCache")
     public List<Transaction> getAllTransactions() {
-        return repository.findAll();
+        return getAllTimer.record(repository::findAll);
     }
     
     public List<Transaction> getPaginatedTransactions(int page, int size) {
@@ -61,31 +182,126 @@ public class TransactionService {
         if (size < 1) {
             throw new IllegalArgumentException("Page size must not be less than one");
         }
-        return repository.findAllPaginated(page, size);
+        return getPaginatedTimer.record(() -> repository.findAllPaginated(page, size));
     }
     
-    @CacheEvict(value = {"transactionCache", "allTransactionsCache"}, key = "#id")
-    public void deleteTransaction(String id) {
-        if (!repository.existsById(id)) {
-            throw new TransactionNotFoundException("Transaction not found with id: " + id);
+    public TransactionPage getTransactionPage(String cursor, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must not be less than one");
         }
-        repository.deleteById(id);
+        // Fetch one extra row to find out whether there is a next page
+        return getPageTimer.record(() -> toPage(repository.findPageAfter(decodeCursor(cursor), size + 1), size));
     }
     
-    @CacheEvict(value = {"transactionCache", "allTransactionsCache"}, key = "#id")
+    public TransactionPage getAccountTransactionPage(String accountNumber, String cursor, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must not be less than one");
+        }
+        return getAccountPageTimer.record(() ->
+                toPage(repository.findByAccountAfter(accountNumber, decodeCursor(cursor), size + 1), size));
+    }
+    
+    /**
+     * A page of the transactions with timestamps in {@code [from, to)}, optionally limited to one account, in
+     * (timestamp, id) order. Either bound may be null.
+     */
+    public TransactionPage getTransactionRangePage(String accountNumber, LocalDateTime from, LocalDateTime to,
+                                                   String cursor, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must not be less than one");
+        }
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+        return getRangePageTimer.record(() ->
+                toPage(repository.findInRangeAfter(accountNumber, from, to, decodeCursor(cursor), size + 1), size));
+    }
+    
+    /**
+     * Transactions in (timestamp, id) order matching every filter that is not null; {@code from} is inclusive and
+     * {@code to} exclusive. The stream is lazy, so it can be written out without holding the result in memory.
+     */
+    public Stream<Transaction> exportTransactions(String accountNumber, String type, LocalDateTime from,
+                                                  LocalDateTime to) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+        Stream<Transaction> transactions = repository.streamInOrder(accountNumber, from, to);
+        return type == null ? transactions : transactions.filter(t -> type.equalsIgnoreCase(t.getType()));
+    }
+    
+    public AccountBalance getAccountBalance(String accountNumber) {
+        return getBalanceTimer.record(() -> new AccountBalance(accountNumber, repository.getBalance(accountNumber)));
+    }
+    
+    /**
+     * The account's rollups at {@code granularity} ("minute", "hour" or "day") for the buckets that start in
+     * {@code [from, to)}, optionally limited to one transaction type. Either bound may be null.
+     */
+    public AccountRollups getAccountRollups(String accountNumber, String granularity, String type,
+                                            LocalDateTime from, LocalDateTime to) {
+        RollupGranularity bucketSize = RollupGranularity.fromParameter(granularity);
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+        return getRollupsTimer.record(() -> {
+            List<Rollup> buckets = repository.getRollups(accountNumber, bucketSize, from, to);
+            if (type != null) {
+                buckets = buckets.stream().filter(rollup -> rollup.type().equalsIgnoreCase(type)).toList();
+            }
+            return new AccountRollups(accountNumber, bucketSize.name().toLowerCase(Locale.ROOT), buckets);
+        });
+    }
+    
+    private static TimelineKey decodeCursor(String cursor) {
+        return cursor == null || cursor.isEmpty() ? null : TimelineKey.fromCursor(cursor);
+    }
+    
+    private static TransactionPage toPage(List<Transaction> items, int size) {
+        String nextCursor = null;
+        if (items.size() > size) {
+            items.remove(size);
+            nextCursor = TimelineKey.of(items.get(size - 1)).toCursor();
+        }
+        return new TransactionPage(items, nextCursor);
+    }
+    
+    @CacheEvict(value = "transactionCache", key = "#id")
+    public void deleteTransaction(String id) {
+        deleteTimer.record(() -> {
+            if (!repository.existsById(id)) {
+                throw new TransactionNotFoundException("Transaction not found with id: " + id);
+            }
+            repository.deleteById(id);
+        });
+    }
+    
+    /**
+     * Installs the next version of the transaction with a compare-and-swap, retrying on top of any version that was
+     * installed concurrently, and puts the new version in the cache. The cache keeps the newer of two versions, so
+     * a put that arrives late cannot replace a later update.
+     */
+    @CachePut(value = "transactionCache", key = "#id")
     public Transaction updateTransaction(String id, TransactionRequest request) {
-        Transaction existingTransaction = getTransaction(id);
-        
-        existingTransaction.setAccountNumber(request.getAccountNumber());
-        existingTransaction.setAmount(request.getAmount());
-        existingTransaction.setType(request.getType());
-        existingTransaction.setDescription(request.getDescription());
-        existingTransaction.setDestinationAccount(request.getDestinationAccount());
-        
-        return repository.save(existingTransaction);
+        return updateTimer.record(() -> {
+            while (true) {
+                Transaction current = repository.findById(id)
+                        .orElseThrow(() -> new TransactionNotFoundException("Transaction not found with id: " + id));
+                Transaction updated = current.withDetails(
+                        request.getAccountNumber(),
+                        request.getAmount(),
+                        request.getType(),
+                        request.getDescription(),
+                        request.getDestinationAccount()
+                );
+                if (repository.replace(current, updated)) {
+                    return updated;
+                }
+            }
+        });
     }
     
     public int getTransactionCount() {
-        return repository.count();
+        return countTimer.record(repository::count);
     }
 } 
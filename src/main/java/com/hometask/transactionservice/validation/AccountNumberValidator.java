@@ -3,10 +3,7 @@ package com.hometask.transactionservice.validation;
 import jakarta.validation.ConstraintValidator;
 import jakarta.validation.ConstraintValidatorContext;
 
-import java.util.regex.Pattern;
-
 public class AccountNumberValidator implements ConstraintValidator<AccountNumber, String> {
-    private static final Pattern ACCOUNT_NUMBER_PATTERN = Pattern.compile("^\\d{5,20}$");
     
     @Override
     public boolean isValid(String value, ConstraintValidatorContext context) {
@@ -15,7 +12,7 @@ public class AccountNumberValidator implements ConstraintValidator<AccountNumber
             return true;
         }
         
-        // Check if the value matches the pattern
-        return ACCOUNT_NUMBER_PATTERN.matcher(value).matches();
+        // 5 to 20 digits, checked without a regular expression
+        return TransactionRequestValidator.isAccountNumber(value);
     }
 } 
@@ -0,0 +1,27 @@
+package com.hometask.transactionservice.validation;
+
+/**
+ * The transaction types a request may have, matched ignoring case.
+ */
+public enum AllowedType {
+    DEPOSIT,
+    WITHDRAWAL,
+    TRANSFER;
+
+    private static final AllowedType[] TYPES = values();
+
+    /**
+     * The type {@code value} names, or null if it names none; compares in place instead of upper-casing a copy.
+     */
+    public static AllowedType of(String value) {
+        if (value == null) {
+            return null;
+        }
+        for (AllowedType type : TYPES) {
+            if (type.name().equalsIgnoreCase(value)) {
+                return type;
+            }
+        }
+        return null;
+    }
+}
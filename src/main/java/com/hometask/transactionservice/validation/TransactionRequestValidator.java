@@ -0,0 +1,114 @@
+package com.hometask.transactionservice.validation;
+
+import com.hometask.transactionservice.dto.TransactionRequest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The constraints declared on {@link TransactionRequest}, checked directly instead of through Bean Validation, for
+ * the create and batch endpoints. The errors are keyed and worded as {@code GlobalExceptionHandler} reports
+ * violations: by field, and by {@value #OBJECT_NAME} for the transfer rule. A field that breaks two constraints,
+ * such as a missing type, gets the message of the first one declared; Bean Validation reports them in no fixed
+ * order. A valid request allocates nothing.
+ */
+public final class TransactionRequestValidator {
+
+    public static final String OBJECT_NAME = "transactionRequest";
+
+    static final int MIN_ACCOUNT_DIGITS = 5;
+    static final int MAX_ACCOUNT_DIGITS = 20;
+    private static final int MAX_DESCRIPTION_LENGTH = 255;
+
+    private TransactionRequestValidator() {
+    }
+
+    /**
+     * @return the errors by field, empty if the request is valid
+     */
+    public static Map<String, String> validate(TransactionRequest request) {
+        if (request == null) {
+            return Map.of(OBJECT_NAME, "Transaction is required");
+        }
+        Map<String, String> errors = null;
+        String accountNumber = request.getAccountNumber();
+        if (isBlank(accountNumber)) {
+            errors = put(errors, "accountNumber", "Account number is required");
+        } else if (!isAccountNumber(accountNumber)) {
+            errors = put(errors, "accountNumber", "Invalid account number format. Must be 5-20 digits");
+        }
+        if (request.getAmount() == null) {
+            errors = put(errors, "amount", "Amount is required");
+        } else if (request.getAmount().signum() <= 0) {
+            errors = put(errors, "amount", "Amount must be positive");
+        }
+        AllowedType type = AllowedType.of(request.getType());
+        if (isBlank(request.getType())) {
+            errors = put(errors, "type", "Transaction type is required");
+        } else if (type == null) {
+            errors = put(errors, "type",
+                    "Invalid transaction type. Allowed types are: DEPOSIT, WITHDRAWAL, TRANSFER");
+        }
+        if (request.getDescription() != null && request.getDescription().length() > MAX_DESCRIPTION_LENGTH) {
+            errors = put(errors, "description", "Description cannot exceed 255 characters");
+        }
+        String destination = request.getDestinationAccount();
+        if (destination != null && !isAccountNumber(destination)) {
+            errors = put(errors, "destinationAccount", "Invalid destination account format");
+        }
+        if (!isValidTransfer(request)) {
+            errors = put(errors, OBJECT_NAME, "Destination account is required for TRANSFER transactions");
+        }
+        return errors != null ? errors : Map.of();
+    }
+
+    /**
+     * The transfer rule, shared with {@code @ValidTransferTransaction}: a transfer needs a destination account other
+     * than its own. Requests of any other type pass.
+     */
+    public static boolean isValidTransfer(TransactionRequest request) {
+        if (AllowedType.of(request.getType()) != AllowedType.TRANSFER) {
+            return true;
+        }
+        String destination = request.getDestinationAccount();
+        return destination != null && !destination.isEmpty() && !destination.equals(request.getAccountNumber());
+    }
+
+    /**
+     * Whether {@code value} is 5 to 20 ASCII digits.
+     */
+    public static boolean isAccountNumber(String value) {
+        int length = value.length();
+        if (length < MIN_ACCOUNT_DIGITS || length > MAX_ACCOUNT_DIGITS) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Blank as {@code @NotBlank} sees it: nothing left after {@link String#trim()}.
+     */
+    private static boolean isBlank(String value) {
+        if (value == null) {
+            return true;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Map<String, String> put(Map<String, String> errors, String field, String message) {
+        Map<String, String> map = errors != null ? errors : new HashMap<>();
+        map.put(field, message);
+        return map;
+    }
+}
@@ -8,17 +8,6 @@ public class ValidTransferTransactionValidator implements ConstraintValidator<Va
 
     @Override
     public boolean isValid(TransactionRequest request, ConstraintValidatorContext context) {
-        if (request == null) {
-            return true;
-        }
-        
-        if ("TRANSFER".equalsIgnoreCase(request.getType())) {
-            // For TRANSFER type, destination account must be non-null and different from source
-            return request.getDestinationAccount() != null && 
-                   !request.getDestinationAccount().isEmpty() &&
-                   !request.getDestinationAccount().equals(request.getAccountNumber());
-        }
-        
-        return true;
+        return request == null || TransactionRequestValidator.isValidTransfer(request);
     }
 } 
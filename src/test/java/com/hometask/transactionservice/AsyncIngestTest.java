@@ -0,0 +1,65 @@
+package com.hometask.transactionservice;
+
+import com.hometask.transactionservice.dto.IngestStatus;
+import com.hometask.transactionservice.dto.TransactionRequest;
+import com.hometask.transactionservice.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Creates sent with {@code Prefer: respond-async} are answered {@code 202} and all end up stored. Their latency
+ * against synchronous creates is measured by {@code AsyncIngestBenchmark}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "transaction.ingest.enabled=true")
+public class AsyncIngestTest {
+
+    private static final int REQUESTS = 200;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private TransactionRepository repository;
+
+    @Test
+    public void asyncCreateShouldAcceptAndStoreEveryRequest() throws Exception {
+        repository.deleteAll();
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Prefer", "respond-async");
+        for (int n = 0; n < REQUESTS; n++) {
+            ResponseEntity<IngestStatus> response = restTemplate.postForEntity("/api/transactions",
+                    new HttpEntity<>(request(n), headers), IngestStatus.class);
+            assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+            assertNotNull(response.getHeaders().getLocation());
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (repository.count() < REQUESTS && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(REQUESTS, repository.count());
+    }
+
+    private static TransactionRequest request(int n) {
+        TransactionRequest request = new TransactionRequest();
+        // Distinct amounts so nothing is rejected as a duplicate
+        request.setAccountNumber(String.valueOf(10_000 + n % 100));
+        request.setAmount(new BigDecimal(n + 1).movePointLeft(2));
+        request.setType("DEPOSIT");
+        request.setDescription("Async " + n);
+        return request;
+    }
+}
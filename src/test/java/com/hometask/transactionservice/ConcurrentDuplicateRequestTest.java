@@ -0,0 +1,80 @@
+package com.hometask.transactionservice;
+
+import com.hometask.transactionservice.dto.TransactionRequest;
+import com.hometask.transactionservice.service.TransactionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Fires thousands of identical create requests at once; the duplicate check and the insert must behave as one
+ * step, so exactly one request is created and every other one is rejected as a duplicate.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class ConcurrentDuplicateRequestTest {
+
+    private static final int REQUESTS = 2_000;
+    private static final int CLIENT_THREADS = 200;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Test
+    public void identicalConcurrentRequestsShouldCreateExactlyOneTransaction() throws Exception {
+        TransactionRequest request = new TransactionRequest();
+        request.setAccountNumber("8080808080");
+        request.setAmount(new BigDecimal("4242.42"));
+        request.setType("DEPOSIT");
+        request.setDescription("Burst of identical requests");
+        String url = "http://localhost:" + port + "/api/transactions";
+
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENT_THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<HttpStatusCode>> responses = new ArrayList<>(REQUESTS);
+        try {
+            for (int i = 0; i < REQUESTS; i++) {
+                responses.add(executor.submit(() -> {
+                    start.await();
+                    ResponseEntity<String> response = restTemplate.postForEntity(url, request, String.class);
+                    return response.getStatusCode();
+                }));
+            }
+            start.countDown();
+
+            List<HttpStatusCode> statuses = new ArrayList<>(REQUESTS);
+            for (Future<HttpStatusCode> response : responses) {
+                statuses.add(response.get());
+            }
+            Map<Integer, Long> byStatus = statuses.stream()
+                    .collect(Collectors.groupingBy(HttpStatusCode::value, Collectors.counting()));
+
+            assertEquals(Map.of(201, 1L, 409, (long) REQUESTS - 1), byStatus);
+            assertEquals(1, transactionService.getAccountTransactionPage("8080808080", null, 10)
+                    .getItems().size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package com.hometask.transactionservice;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hometask.transactionservice.dto.TransactionBatchItem;
+import com.hometask.transactionservice.dto.TransactionBatchResponse;
+import com.hometask.transactionservice.dto.TransactionPage;
 import com.hometask.transactionservice.dto.TransactionRequest;
 import com.hometask.transactionservice.model.Transaction;
 import com.hometask.transactionservice.repository.TransactionRepository;
@@ -18,11 +21,16 @@ import org.springframework.http.*;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.web.util.UriComponentsBuilder;
 
-import java.lang.reflect.Field;
 import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -46,12 +54,9 @@ public class EndToEndApiTest {
     private String baseUrl;
     
     @BeforeEach
-    public void setup() throws Exception {
+    public void setup() {
         // Clear the repository before each test
-        Field transactionStoreField = TransactionRepository.class.getDeclaredField("transactionStore");
-        transactionStoreField.setAccessible(true);
-        Map<String, Transaction> transactionStore = (Map<String, Transaction>) transactionStoreField.get(repository);
-        transactionStore.clear();
+        repository.deleteAll();
         
         baseUrl = "http://localhost:" + port + "/api/transactions";
     }
@@ -132,19 +137,12 @@ public class EndToEndApiTest {
     @Order(4)
     public void testGetTransactionsWithPagination() {
         // First clear the repository to ensure we have exactly the number of transactions we create
-        try {
-            Field transactionStoreField = TransactionRepository.class.getDeclaredField("transactionStore");
-            transactionStoreField.setAccessible(true);
-            Map<String, Transaction> transactionStore = (Map<String, Transaction>) transactionStoreField.get(repository);
-            transactionStore.clear();
-        } catch (Exception e) {
-            fail("Failed to clear repository: " + e.getMessage());
-        }
+        repository.deleteAll();
 
         // Create transactions with unique account numbers to avoid duplicate detection
         // Create exactly 5 transactions for predictable pagination results
         for (int i = 1; i <= 5; i++) {
-            String uniqueAccountNumber = String.format("%d%d", i, System.currentTimeMillis() % 10000);
+            String uniqueAccountNumber = String.format("%d%04d", i, System.currentTimeMillis() % 10000);
 
             // Add a small delay to ensure unique timestamps
             try {
@@ -223,14 +221,7 @@ public class EndToEndApiTest {
     @Order(5)
     public void testUpdateTransaction() {
         // First clear the repository to prevent any issues with existing transactions
-        try {
-            Field transactionStoreField = TransactionRepository.class.getDeclaredField("transactionStore");
-            transactionStoreField.setAccessible(true);
-            Map<String, Transaction> transactionStore = (Map<String, Transaction>) transactionStoreField.get(repository);
-            transactionStore.clear();
-        } catch (Exception e) {
-            fail("Failed to clear repository: " + e.getMessage());
-        }
+        repository.deleteAll();
         
         // First create a transaction with a unique account number
         String uniqueAccountNumber = "13579";
@@ -337,14 +328,7 @@ public class EndToEndApiTest {
     @Order(9)
     public void testTransferTransaction() {
         // First clear the repository to prevent any issues with existing transactions
-        try {
-            Field transactionStoreField = TransactionRepository.class.getDeclaredField("transactionStore");
-            transactionStoreField.setAccessible(true);
-            Map<String, Transaction> transactionStore = (Map<String, Transaction>) transactionStoreField.get(repository);
-            transactionStore.clear();
-        } catch (Exception e) {
-            fail("Failed to clear repository: " + e.getMessage());
-        }
+        repository.deleteAll();
         
         // Create a transfer transaction with unique account numbers
         String sourceAccount = "1" + System.currentTimeMillis();
@@ -370,14 +354,7 @@ public class EndToEndApiTest {
     @Order(10)
     public void testInvalidTransferTransaction() {
         // First clear the repository to prevent any issues with existing transactions
-        try {
-            Field transactionStoreField = TransactionRepository.class.getDeclaredField("transactionStore");
-            transactionStoreField.setAccessible(true);
-            Map<String, Transaction> transactionStore = (Map<String, Transaction>) transactionStoreField.get(repository);
-            transactionStore.clear();
-        } catch (Exception e) {
-            fail("Failed to clear repository: " + e.getMessage());
-        }
+        repository.deleteAll();
         
         // Create an invalid transfer (missing destination) with unique account number
         String sourceAccount = "invalid_source_" + System.currentTimeMillis();
@@ -391,4 +368,123 @@ public class EndToEndApiTest {
         // Verify response
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
     }
-} 
\ No newline at end of file
+
+    @Test
+    @Order(11)
+    public void testCursorPaginationVisitsEveryTransactionOnce() {
+        for (int i = 1; i <= 5; i++) {
+            ResponseEntity<Transaction> response = restTemplate.postForEntity(baseUrl,
+                    createSampleRequest("5555" + i, new BigDecimal("10.00"), "DEPOSIT"), Transaction.class);
+            assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        }
+
+        List<String> seenIds = new ArrayList<>();
+        String cursor = "";
+        do {
+            String url = UriComponentsBuilder.fromHttpUrl(baseUrl)
+                    .queryParam("cursor", cursor)
+                    .queryParam("size", 2)
+                    .toUriString();
+            ResponseEntity<TransactionPage> response = restTemplate.getForEntity(url, TransactionPage.class);
+
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            assertTrue(response.getBody().getItems().size() <= 2);
+            response.getBody().getItems().forEach(transaction -> seenIds.add(transaction.getId()));
+            cursor = response.getBody().getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(5, seenIds.size());
+        assertEquals(5, seenIds.stream().distinct().count());
+    }
+
+    @Test
+    @Order(12)
+    public void testInvalidCursor() {
+        ResponseEntity<Object> response = restTemplate.getForEntity(baseUrl + "?cursor=garbage", Object.class);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    @Order(13)
+    public void testBatchCreateReportsEachItem() {
+        TransactionRequest first = createSampleRequest("66661", new BigDecimal("10.00"), "DEPOSIT");
+        TransactionRequest invalid = createSampleRequest("123", new BigDecimal("10.00"), "DEPOSIT");
+        TransactionRequest second = createSampleRequest("66662", new BigDecimal("20.00"), "DEPOSIT");
+
+        ResponseEntity<TransactionBatchResponse> response = restTemplate.postForEntity(baseUrl + "/batch",
+                List.of(first, invalid, second, first), TransactionBatchResponse.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        TransactionBatchResponse body = response.getBody();
+        assertEquals(2, body.getCreated());
+        assertEquals(1, body.getInvalid());
+        assertEquals(1, body.getDuplicates());
+        assertEquals(TransactionBatchItem.Status.INVALID, body.getResults().get(1).getStatus());
+        assertTrue(body.getResults().get(1).getErrors().containsKey("accountNumber"));
+        assertEquals(TransactionBatchItem.Status.DUPLICATE, body.getResults().get(3).getStatus());
+        assertEquals(2, repository.count());
+
+        // The batch is also checked against transactions that are already stored
+        ResponseEntity<TransactionBatchResponse> again = restTemplate.postForEntity(baseUrl + "/batch",
+                List.of(second), TransactionBatchResponse.class);
+        assertEquals(1, again.getBody().getDuplicates());
+    }
+
+    @Test
+    @Order(14)
+    public void testStreamPushesNewTransactionsOfTheAccount() throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest subscribe = HttpRequest.newBuilder(URI.create(baseUrl + "/stream?accountNumber=77771"))
+                .header("Accept", "text/event-stream")
+                .build();
+        HttpResponse<Stream<String>> stream = client.send(subscribe, HttpResponse.BodyHandlers.ofLines());
+        assertEquals(200, stream.statusCode());
+        assertTrue(stream.headers().firstValue("Content-Type").orElseThrow().startsWith("text/event-stream"));
+
+        restTemplate.postForEntity(baseUrl, createSampleRequest("77772", new BigDecimal("5.00"), "DEPOSIT"),
+                Transaction.class);
+        Transaction created = restTemplate.postForEntity(baseUrl,
+                createSampleRequest("77771", new BigDecimal("10.00"), "DEPOSIT"), Transaction.class).getBody();
+
+        Iterator<String> lines = stream.body().iterator();
+        String data = null;
+        while (data == null && lines.hasNext()) {
+            String line = lines.next();
+            if (line.startsWith("data: ")) {
+                data = line.substring("data: ".length());
+            }
+        }
+        stream.body().close();
+
+        Transaction pushed = objectMapper.readValue(data, Transaction.class);
+        assertEquals(created.getId(), pushed.getId());
+        assertEquals("77771", pushed.getAccountNumber());
+    }
+
+    @Test
+    @Order(15)
+    public void testGetTransactionFollowsUpdatesAndDeletes() {
+        Transaction created = restTemplate.postForEntity(baseUrl,
+                createSampleRequest("24680", new BigDecimal("10.00"), "DEPOSIT"), Transaction.class).getBody();
+        String url = baseUrl + "/" + created.getId();
+
+        // The second read is answered from the response cache
+        for (int i = 0; i < 2; i++) {
+            ResponseEntity<Transaction> read = restTemplate.getForEntity(url, Transaction.class);
+            assertEquals(HttpStatus.OK, read.getStatusCode());
+            assertEquals(MediaType.APPLICATION_JSON, read.getHeaders().getContentType());
+            assertEquals(Transaction.INITIAL_VERSION, read.getBody().getVersion());
+            assertEquals(0, new BigDecimal("10.00").compareTo(read.getBody().getAmount()));
+        }
+
+        TransactionRequest update = createSampleRequest("24680", new BigDecimal("20.00"), "DEPOSIT");
+        restTemplate.exchange(url, HttpMethod.PUT, new HttpEntity<>(update), Transaction.class);
+        Transaction updated = restTemplate.getForObject(url, Transaction.class);
+        assertEquals(Transaction.INITIAL_VERSION + 1, updated.getVersion());
+        assertEquals(0, new BigDecimal("20.00").compareTo(updated.getAmount()));
+
+        restTemplate.delete(url);
+        assertEquals(HttpStatus.NOT_FOUND, restTemplate.getForEntity(url, String.class).getStatusCode());
+    }
+}
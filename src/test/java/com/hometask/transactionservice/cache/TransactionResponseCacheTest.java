@@ -0,0 +1,144 @@
+package com.hometask.transactionservice.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.hometask.transactionservice.config.CborHttpMessageConverter;
+import com.hometask.transactionservice.dto.TransactionRequest;
+import com.hometask.transactionservice.exception.TransactionNotFoundException;
+import com.hometask.transactionservice.model.Transaction;
+import com.hometask.transactionservice.repository.TransactionRepository;
+import com.hometask.transactionservice.service.TransactionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionResponseCacheTest {
+
+    private final ObjectMapper jsonMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final ObjectMapper cborMapper = CborHttpMessageConverter.cborMapper(jsonMapper);
+    private final TransactionRepository repository = new TransactionRepository();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    // Lets a test change what a read loads, as a write racing the read would
+    private UnaryOperator<Transaction> onLoad = UnaryOperator.identity();
+    private final TransactionService service = new TransactionService(repository) {
+        @Override
+        public Transaction getTransaction(String id) {
+            return onLoad.apply(super.getTransaction(id));
+        }
+    };
+    private final TransactionResponseCache cache = new TransactionResponseCache(repository, service, jsonMapper,
+            cborMapper, 100, meterRegistry);
+
+    TransactionResponseCacheTest() {
+        cache.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cache.stop();
+    }
+
+    private static TransactionRequest request(String amount) {
+        TransactionRequest request = new TransactionRequest();
+        request.setAccountNumber("12345");
+        request.setAmount(new BigDecimal(amount));
+        request.setType("DEPOSIT");
+        request.setDescription("Cached");
+        return request;
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("transaction.response.cache").tag("result", result).counter().count();
+    }
+
+    @Test
+    void body_ShouldEncodeOnceAndReturnTheSameBytesAfterwards() throws IOException {
+        Transaction created = service.createTransaction(request("10.00"));
+
+        byte[] json = cache.body(created.getId(), false);
+        assertArrayEquals(jsonMapper.writeValueAsBytes(created), json);
+        assertSame(json, cache.body(created.getId(), false));
+
+        byte[] cbor = cache.body(created.getId(), true);
+        assertEquals(created.getId(), cborMapper.readValue(cbor, Transaction.class).getId());
+        assertSame(cbor, cache.body(created.getId(), true));
+        assertSame(json, cache.body(created.getId(), false));
+        assertEquals(3, count("hit"));
+        assertEquals(2, count("miss"));
+    }
+
+    @Test
+    void body_ShouldBeEncodedAgainAfterAnUpdate() throws IOException {
+        Transaction created = service.createTransaction(request("10.00"));
+        cache.body(created.getId(), false);
+        cache.body(created.getId(), true);
+
+        service.updateTransaction(created.getId(), request("20.00"));
+
+        Transaction json = jsonMapper.readValue(cache.body(created.getId(), false), Transaction.class);
+        assertEquals(Transaction.INITIAL_VERSION + 1, json.getVersion());
+        assertEquals(0, new BigDecimal("20.00").compareTo(json.getAmount()));
+        Transaction cbor = cborMapper.readValue(cache.body(created.getId(), true), Transaction.class);
+        assertEquals(Transaction.INITIAL_VERSION + 1, cbor.getVersion());
+    }
+
+    @Test
+    void body_ShouldFailAfterADeleteAndAfterAClear() {
+        Transaction deleted = service.createTransaction(request("10.00"));
+        Transaction cleared = service.createTransaction(request("11.00"));
+        cache.body(deleted.getId(), false);
+        cache.body(cleared.getId(), false);
+
+        service.deleteTransaction(deleted.getId());
+        assertThrows(TransactionNotFoundException.class, () -> cache.body(deleted.getId(), false));
+        repository.deleteAll();
+        assertThrows(TransactionNotFoundException.class, () -> cache.body(cleared.getId(), false));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void body_ShouldNotKeepAVersionThatWasUpdatedWhileItWasEncoded() throws IOException {
+        Transaction created = service.createTransaction(request("10.00"));
+        // The read loads version 1, and an update is stored before the read stores its body
+        onLoad = loaded -> {
+            onLoad = UnaryOperator.identity();
+            service.updateTransaction(created.getId(), request("20.00"));
+            return loaded;
+        };
+
+        Transaction stale = jsonMapper.readValue(cache.body(created.getId(), false), Transaction.class);
+        assertEquals(Transaction.INITIAL_VERSION, stale.getVersion());
+
+        Transaction current = jsonMapper.readValue(cache.body(created.getId(), false), Transaction.class);
+        assertEquals(Transaction.INITIAL_VERSION + 1, current.getVersion());
+    }
+
+    @Test
+    void body_ShouldNotKeepATransactionDeletedWhileItWasEncoded() {
+        Transaction created = service.createTransaction(request("10.00"));
+        onLoad = loaded -> {
+            onLoad = UnaryOperator.identity();
+            service.deleteTransaction(created.getId());
+            return loaded;
+        };
+
+        cache.body(created.getId(), false);
+
+        assertThrows(TransactionNotFoundException.class, () -> cache.body(created.getId(), false));
+    }
+
+    @Test
+    void body_ShouldNotKeepEntriesForUnknownIds() {
+        for (int i = 0; i < 10; i++) {
+            String id = "missing-" + i;
+            assertThrows(TransactionNotFoundException.class, () -> cache.body(id, false));
+        }
+        assertEquals(0, cache.size());
+    }
+}
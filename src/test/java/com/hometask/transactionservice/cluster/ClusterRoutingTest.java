@@ -0,0 +1,252 @@
+package com.hometask.transactionservice.cluster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hometask.transactionservice.TransactionServiceApplication;
+import com.hometask.transactionservice.config.CborHttpMessageConverter;
+import com.hometask.transactionservice.dto.AccountBalance;
+import com.hometask.transactionservice.dto.TransactionBatchItem;
+import com.hometask.transactionservice.dto.TransactionBatchResponse;
+import com.hometask.transactionservice.dto.TransactionPage;
+import com.hometask.transactionservice.dto.TransactionRequest;
+import com.hometask.transactionservice.model.Transaction;
+import com.hometask.transactionservice.repository.TransactionRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs three clustered instances on localhost and checks that requests give the same answers whichever node
+ * receives them.
+ */
+public class ClusterRoutingTest {
+
+    private static final int NODES = 3;
+
+    private static final List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+    private static final List<String> urls = new ArrayList<>();
+    private final TestRestTemplate restTemplate = new TestRestTemplate();
+
+    @BeforeAll
+    static void startCluster() throws IOException {
+        List<ServerSocket> sockets = new ArrayList<>();
+        for (int i = 0; i < NODES; i++) {
+            sockets.add(new ServerSocket(0));
+            urls.add("http://localhost:" + sockets.get(i).getLocalPort());
+        }
+        for (ServerSocket socket : sockets) {
+            socket.close();
+        }
+        for (int i = 0; i < NODES; i++) {
+            contexts.add(new SpringApplicationBuilder(TransactionServiceApplication.class).run(
+                    "--server.port=" + sockets.get(i).getLocalPort(),
+                    "--transaction.cluster.enabled=true",
+                    "--transaction.cluster.self-url=" + urls.get(i),
+                    "--transaction.cluster.peers=" + String.join(",", urls)));
+        }
+    }
+
+    @AfterAll
+    static void stopCluster() {
+        contexts.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @BeforeEach
+    void clear() {
+        contexts.forEach(context -> context.getBean(TransactionRepository.class).deleteAll());
+    }
+
+    private static TransactionRequest request(String account, String amount, String type, String destination) {
+        TransactionRequest request = new TransactionRequest();
+        request.setAccountNumber(account);
+        request.setAmount(new BigDecimal(amount));
+        request.setType(type);
+        request.setDescription("Cluster test");
+        request.setDestinationAccount(destination);
+        return request;
+    }
+
+    private static String account(int i) {
+        return String.valueOf(5_000_000 + i);
+    }
+
+    private static int ownerOf(String account) {
+        return urls.indexOf(contexts.get(0).getBean(PeerDirectory.class).ownerOf(account));
+    }
+
+    private static int holderOf(String id) {
+        for (int i = 0; i < NODES; i++) {
+            if (contexts.get(i).getBean(TransactionRepository.class).existsById(id)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private ResponseEntity<Transaction> create(int node, TransactionRequest request) {
+        return restTemplate.postForEntity(urls.get(node) + "/api/transactions", request, Transaction.class);
+    }
+
+    @Test
+    void create_ShouldStoreOnTheOwnerAndRejectDuplicatesThroughAnyNode() {
+        Set<Integer> owners = new HashSet<>();
+        for (int i = 0; i < 30; i++) {
+            TransactionRequest request = request(account(i), "10.00", "DEPOSIT", null);
+            ResponseEntity<Transaction> created = create(i % NODES, request);
+            assertEquals(HttpStatus.CREATED, created.getStatusCode());
+            assertEquals(ownerOf(account(i)), holderOf(created.getBody().getId()));
+            owners.add(ownerOf(account(i)));
+
+            // A retry that lands on another node meets the same duplicate window
+            assertEquals(HttpStatus.CONFLICT, create((i + 1) % NODES, request).getStatusCode());
+        }
+        assertEquals(NODES, owners.size());
+    }
+
+    @Test
+    void reads_ShouldCombineTheTransactionsOfEveryNode() {
+        // Transfers into one account from accounts owned by every node
+        String target = account(1000);
+        BigDecimal expected = BigDecimal.ZERO;
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            Transaction created = create(i % NODES, request(account(i), (i + 1) + ".00", "TRANSFER", target)).getBody();
+            ids.add(created.getId());
+            expected = expected.add(created.getAmount());
+        }
+
+        for (int node = 0; node < NODES; node++) {
+            AccountBalance balance = restTemplate.getForObject(
+                    urls.get(node) + "/api/accounts/" + target + "/balance", AccountBalance.class);
+            assertEquals(0, expected.compareTo(balance.getBalance()));
+        }
+
+        // Walk the merged account history and the merged global order in small pages
+        assertEquals(ids.size(), walk(urls.get(0) + "/api/accounts/" + target + "/transactions?size=5&cursor=")
+                .size());
+        List<Transaction> all = walk(urls.get(1) + "/api/transactions?size=5&cursor=");
+        assertEquals(new HashSet<>(ids), new HashSet<>(all.stream().map(Transaction::getId).toList()));
+
+        Transaction[] secondPage = restTemplate.getForObject(urls.get(2) + "/api/transactions?page=1&size=5",
+                Transaction[].class);
+        assertEquals(all.subList(5, 10).stream().map(Transaction::getId).toList(),
+                List.of(secondPage).stream().map(Transaction::getId).toList());
+    }
+
+    @Test
+    void offsetPages_ShouldBeRefusedBeyondTheOffsetLimit() {
+        create(0, request(account(1), "10.00", "DEPOSIT", null));
+
+        assertEquals(HttpStatus.OK, restTemplate.getForEntity(urls.get(0) + "/api/transactions?page=99&size=10",
+                String.class).getStatusCode());
+        ResponseEntity<String> deep = restTemplate.getForEntity(urls.get(0) + "/api/transactions?page=100&size=10",
+                String.class);
+        assertEquals(HttpStatus.BAD_REQUEST, deep.getStatusCode());
+        assertTrue(deep.getBody().contains("cursor"), deep.getBody());
+        assertEquals(HttpStatus.BAD_REQUEST, restTemplate.getForEntity(
+                urls.get(1) + "/api/transactions?size=" + Integer.MAX_VALUE, String.class).getStatusCode());
+    }
+
+    private List<Transaction> walk(String firstPage) {
+        List<Transaction> walked = new ArrayList<>();
+        TransactionPage page = restTemplate.getForObject(firstPage, TransactionPage.class);
+        walked.addAll(page.getItems());
+        while (page.getNextCursor() != null) {
+            page = restTemplate.getForObject(firstPage + page.getNextCursor(), TransactionPage.class);
+            walked.addAll(page.getItems());
+        }
+        return walked;
+    }
+
+    @Test
+    void updateAndDelete_ShouldReachTheNodeHoldingTheTransaction() {
+        Transaction created = create(0, request(account(1), "10.00", "DEPOSIT", null)).getBody();
+        int elsewhere = (holderOf(created.getId()) + 1) % NODES;
+        String url = urls.get(elsewhere) + "/api/transactions/" + created.getId();
+
+        ResponseEntity<Transaction> updated = restTemplate.exchange(url, HttpMethod.PUT,
+                new HttpEntity<>(request(account(1), "25.00", "DEPOSIT", null)), Transaction.class);
+        assertEquals(HttpStatus.OK, updated.getStatusCode());
+        assertEquals(0, new BigDecimal("25.00").compareTo(updated.getBody().getAmount()));
+
+        assertEquals(HttpStatus.NO_CONTENT,
+                restTemplate.exchange(url, HttpMethod.DELETE, null, Void.class).getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND,
+                restTemplate.exchange(url, HttpMethod.DELETE, null, String.class).getStatusCode());
+    }
+
+    @Test
+    void batch_ShouldBeSplitByOwnerAndAnsweredInRequestOrder() {
+        List<TransactionRequest> batch = new ArrayList<>();
+        for (int i = 0; i < 9; i++) {
+            batch.add(request(account(i), "7.00", "DEPOSIT", null));
+        }
+        batch.add(request(account(4), "7.00", "DEPOSIT", null));
+        batch.add(request("bad", "7.00", "DEPOSIT", null));
+
+        TransactionBatchResponse response = restTemplate.postForObject(urls.get(0) + "/api/transactions/batch",
+                batch, TransactionBatchResponse.class);
+
+        assertEquals(9, response.getCreated());
+        assertEquals(1, response.getDuplicates());
+        assertEquals(1, response.getInvalid());
+        for (int i = 0; i < batch.size(); i++) {
+            TransactionBatchItem item = response.getResults().get(i);
+            assertEquals(i, item.getIndex());
+            if (i < 9) {
+                assertEquals(ownerOf(account(i)), holderOf(item.getTransaction().getId()));
+            }
+        }
+        assertEquals(TransactionBatchItem.Status.DUPLICATE, response.getResults().get(9).getStatus());
+        assertEquals(TransactionBatchItem.Status.INVALID, response.getResults().get(10).getStatus());
+    }
+
+    @Test
+    void cbor_ShouldBeKeptWhenForwardedAndUsedForMergedAnswers() throws IOException {
+        ObjectMapper cborMapper = contexts.get(0).getBean(CborHttpMessageConverter.class).getObjectMapper();
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_CBOR);
+        headers.setAccept(List.of(MediaType.APPLICATION_CBOR));
+
+        List<TransactionRequest> batch = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            batch.add(request(account(i), "3.00", "DEPOSIT", null));
+        }
+        ResponseEntity<byte[]> created = restTemplate.exchange(urls.get(0) + "/api/transactions/batch",
+                HttpMethod.POST, new HttpEntity<>(cborMapper.writeValueAsBytes(batch), headers), byte[].class);
+        assertEquals(MediaType.APPLICATION_CBOR, created.getHeaders().getContentType());
+        TransactionBatchResponse response = cborMapper.readValue(created.getBody(), TransactionBatchResponse.class);
+        assertEquals(6, response.getCreated());
+        for (int i = 0; i < batch.size(); i++) {
+            assertEquals(ownerOf(account(i)), holderOf(response.getResults().get(i).getTransaction().getId()));
+        }
+
+        ResponseEntity<byte[]> listed = restTemplate.exchange(urls.get(1) + "/api/transactions?size=10",
+                HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+        assertEquals(MediaType.APPLICATION_CBOR, listed.getHeaders().getContentType());
+        Transaction[] all = cborMapper.readValue(listed.getBody(), Transaction[].class);
+        assertEquals(6, all.length);
+        assertEquals(0, Arrays.stream(all).map(Transaction::getAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add).compareTo(new BigDecimal("18.00")));
+    }
+}
@@ -0,0 +1,51 @@
+package com.hometask.transactionservice.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HashRingTest {
+
+    private static final List<String> NODES = List.of("http://10.0.0.1:8080", "http://10.0.0.2:8080",
+            "http://10.0.0.3:8080");
+    private static final int ACCOUNTS = 30_000;
+
+    @Test
+    void ownerOf_ShouldSpreadAccountsEvenlyAndNotDependOnMemberOrder() {
+        HashRing ring = new HashRing(NODES, 128);
+        HashRing reordered = new HashRing(List.of(NODES.get(2), NODES.get(0), NODES.get(1)), 128);
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            String account = String.valueOf(10_000_000 + i);
+            assertEquals(ring.ownerOf(account), reordered.ownerOf(account));
+            counts.merge(ring.ownerOf(account), 1, Integer::sum);
+        }
+
+        assertEquals(NODES.size(), counts.size());
+        counts.values().forEach(count -> assertTrue(count > ACCOUNTS / 4 && count < ACCOUNTS / 2,
+                "Uneven share: " + counts));
+    }
+
+    @Test
+    void ownerOf_WhenANodeJoins_ShouldOnlyMoveAccountsToIt() {
+        HashRing before = new HashRing(NODES, 128);
+        String joined = "http://10.0.0.4:8080";
+        HashRing after = new HashRing(List.of(NODES.get(0), NODES.get(1), NODES.get(2), joined), 128);
+
+        int moved = 0;
+        for (int i = 0; i < ACCOUNTS; i++) {
+            String account = String.valueOf(10_000_000 + i);
+            if (!before.ownerOf(account).equals(after.ownerOf(account))) {
+                assertEquals(joined, after.ownerOf(account));
+                moved++;
+            }
+        }
+
+        assertTrue(moved > ACCOUNTS / 6 && moved < ACCOUNTS / 3, "Moved " + moved + " of " + ACCOUNTS);
+    }
+}
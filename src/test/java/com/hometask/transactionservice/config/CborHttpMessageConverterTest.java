@@ -0,0 +1,70 @@
+package com.hometask.transactionservice.config;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.hometask.transactionservice.model.Transaction;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CborHttpMessageConverterTest {
+
+    @Test
+    void isPreferred_ShouldPickCborOnlyWhenNoJsonTypeRanksAboveIt() {
+        assertTrue(CborHttpMessageConverter.isPreferred("application/cbor"));
+        assertTrue(CborHttpMessageConverter.isPreferred("*/*, application/cbor"));
+        assertTrue(CborHttpMessageConverter.isPreferred("application/json;q=0.5, application/cbor"));
+
+        assertFalse(CborHttpMessageConverter.isPreferred(null));
+        assertFalse(CborHttpMessageConverter.isPreferred("*/*"));
+        // What RestTemplate sends when it can read both
+        assertFalse(CborHttpMessageConverter.isPreferred("application/json, application/cbor, application/*+json"));
+        assertFalse(CborHttpMessageConverter.isPreferred("application/cbor;q=0.5, application/json"));
+        assertFalse(CborHttpMessageConverter.isPreferred("application/cbor;q=0"));
+        assertFalse(CborHttpMessageConverter.isPreferred("application/cbor;q=oops"));
+    }
+
+    @Test
+    void cborMapper_ShouldReadBackAPageAsWrittenInFewerBytesThanJson() throws IOException {
+        ObjectMapper jsonMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        ObjectMapper cborMapper = CborHttpMessageConverter.cborMapper(jsonMapper);
+        List<Transaction> page = new ArrayList<>();
+        LocalDateTime base = LocalDateTime.of(2024, 3, 1, 9, 30, 15, 123_456_789);
+        for (int i = 0; i < 100; i++) {
+            page.add(new Transaction("7f3c1a52-9d4e-4b6a-8c2f-" + String.format("%012d", i), "10" + (1000 + i),
+                    new BigDecimal(12_345 + i * 17).movePointLeft(2), i % 3 == 0 ? "TRANSFER" : "DEPOSIT",
+                    "Invoice " + i, base.plusSeconds(i * 37L), i % 3 == 0 ? "20" + (2000 + i) : null));
+        }
+
+        int jsonBytes = roundTrip(jsonMapper, page);
+        int cborBytes = roundTrip(cborMapper, page);
+
+        assertTrue(cborBytes < jsonBytes, "CBOR page should be smaller (" + cborBytes + " vs " + jsonBytes + ")");
+    }
+
+    private static int roundTrip(ObjectMapper mapper, List<Transaction> page) throws IOException {
+        JavaType type = mapper.getTypeFactory().constructCollectionType(List.class, Transaction.class);
+        byte[] encoded = mapper.writerFor(type).writeValueAsBytes(page);
+        List<Transaction> decoded = mapper.readerFor(type).readValue(encoded);
+        assertEquals(page.size(), decoded.size());
+        for (int i = 0; i < page.size(); i++) {
+            assertEquals(page.get(i).getId(), decoded.get(i).getId());
+            assertEquals(0, page.get(i).getAmount().compareTo(decoded.get(i).getAmount()));
+            assertEquals(page.get(i).getTimestamp(), decoded.get(i).getTimestamp());
+            assertEquals(page.get(i).getDestinationAccount(), decoded.get(i).getDestinationAccount());
+        }
+        return encoded.length;
+    }
+}
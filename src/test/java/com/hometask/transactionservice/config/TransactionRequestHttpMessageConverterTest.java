@@ -0,0 +1,140 @@
+package com.hometask.transactionservice.config;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hometask.transactionservice.dto.TransactionRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionRequestHttpMessageConverterTest {
+
+    private static final Type REQUEST_LIST = ResolvableType.forClassWithGenerics(List.class, TransactionRequest.class)
+            .getType();
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final TransactionRequestHttpMessageConverter converter =
+            new TransactionRequestHttpMessageConverter(objectMapper);
+
+    private Object read(Type type, String body, MediaType contentType) throws IOException {
+        Charset charset = contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+        MockHttpInputMessage message = new MockHttpInputMessage(body.getBytes(charset));
+        message.getHeaders().setContentType(contentType);
+        return converter.read(type, null, message);
+    }
+
+    private TransactionRequest read(String body) throws IOException {
+        return (TransactionRequest) read(TransactionRequest.class, body, MediaType.APPLICATION_JSON);
+    }
+
+    private static void assertSameRequest(TransactionRequest expected, TransactionRequest actual) {
+        assertEquals(expected.getAccountNumber(), actual.getAccountNumber());
+        assertEquals(expected.getAmount(), actual.getAmount());
+        assertEquals(expected.getType(), actual.getType());
+        assertEquals(expected.getDescription(), actual.getDescription());
+        assertEquals(expected.getDestinationAccount(), actual.getDestinationAccount());
+    }
+
+    @Test
+    void canRead_ShouldOnlyTakeJsonRequests() {
+        assertTrue(converter.canRead(TransactionRequest.class, null, MediaType.APPLICATION_JSON));
+        assertTrue(converter.canRead(REQUEST_LIST, null, MediaType.valueOf("application/merge-patch+json")));
+        assertTrue(converter.canRead(TransactionRequest.class, null, null));
+
+        assertFalse(converter.canRead(TransactionRequest.class, null, MediaType.valueOf("application/cbor")));
+        assertFalse(converter.canRead(List.class, null, MediaType.APPLICATION_JSON));
+        assertFalse(converter.canRead(String.class, null, MediaType.APPLICATION_JSON));
+        assertFalse(converter.canWrite(TransactionRequest.class, MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    void read_ShouldDecodeWhatTheMapperDecodes() throws IOException {
+        String[] bodies = {
+                "{\"accountNumber\":\"12345\",\"amount\":100.50,\"type\":\"DEPOSIT\",\"description\":\"Salary\"}",
+                "{\"type\":\"TRANSFER\",\"destinationAccount\":\"54321\",\"amount\":1E+3,\"accountNumber\":\"12345\"}",
+                "{\"accountNumber\":12345,\"amount\":\" 7.25 \",\"type\":true,\"description\":null}",
+                "{\"accountNumber\":\"12345\",\"amount\":\"\",\"unknown\":{\"nested\":[1,{\"a\":2}]},\"type\":\"x\"}",
+                "{\"description\":\"caf\\u00e9 ü\",\"amount\":12345678901234567890.123456789}",
+                "{\"amount\":\"null\",\"destinationAccount\":\"\"}",
+                "{}"
+        };
+        for (String body : bodies) {
+            assertSameRequest(objectMapper.readValue(body, TransactionRequest.class), read(body));
+        }
+    }
+
+    @Test
+    void read_ShouldDecodeBatchesWithNullItems() throws IOException {
+        String body = "[{\"accountNumber\":\"12345\",\"amount\":1,\"type\":\"DEPOSIT\"},null,{\"amount\":2}]";
+        JavaType type = objectMapper.getTypeFactory().constructCollectionType(List.class, TransactionRequest.class);
+        List<TransactionRequest> expected = objectMapper.readValue(body, type);
+
+        @SuppressWarnings("unchecked")
+        List<TransactionRequest> actual = (List<TransactionRequest>) read(REQUEST_LIST, body,
+                MediaType.APPLICATION_JSON);
+
+        assertEquals(expected.size(), actual.size());
+        assertSameRequest(expected.get(0), actual.get(0));
+        assertNull(actual.get(1));
+        assertSameRequest(expected.get(2), actual.get(2));
+        assertTrue(((List<?>) read(REQUEST_LIST, "[]", MediaType.APPLICATION_JSON)).isEmpty());
+    }
+
+    @Test
+    void read_ShouldHonourTheCharset() throws IOException {
+        String body = "{\"description\":\"Café\"}";
+        MediaType latin1 = new MediaType(MediaType.APPLICATION_JSON, StandardCharsets.ISO_8859_1);
+        MediaType utf16 = new MediaType(MediaType.APPLICATION_JSON, StandardCharsets.UTF_16);
+
+        assertEquals("Café", ((TransactionRequest) read(TransactionRequest.class, body, latin1))
+                .getDescription());
+        assertEquals("Café", ((TransactionRequest) read(TransactionRequest.class, body, utf16))
+                .getDescription());
+    }
+
+    @Test
+    void read_ShouldRejectWhatTheMapperRejects() {
+        String[] bodies = {
+                "{\"accountNumber\":{\"value\":\"12345\"}}",
+                "{\"type\":[\"DEPOSIT\"]}",
+                "{\"amount\":\"ten\"}",
+                "{\"amount\":true}",
+                "\"12345\"",
+                "{\"accountNumber\":\"12345\"",
+                "{accountNumber:\"12345\"}"
+        };
+        for (String body : bodies) {
+            assertThrows(IOException.class, () -> objectMapper.readValue(body, TransactionRequest.class), body);
+            HttpMessageNotReadableException e = assertThrows(HttpMessageNotReadableException.class,
+                    () -> read(body), body);
+            assertTrue(e.getMessage().startsWith("JSON parse error: "), e.getMessage());
+        }
+        assertThrows(HttpMessageNotReadableException.class,
+                () -> read(REQUEST_LIST, "{\"amount\":1}", MediaType.APPLICATION_JSON));
+        assertThrows(HttpMessageNotReadableException.class,
+                () -> read(REQUEST_LIST, "[1]", MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    void write_ShouldWriteWhatReadReadsBack() throws IOException {
+        TransactionRequest request = read("{\"accountNumber\":\"12345\",\"amount\":250.75,\"type\":\"TRANSFER\","
+                + "\"description\":\"Rent\",\"destinationAccount\":\"54321\"}");
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+        converter.write(request, TransactionRequest.class, MediaType.APPLICATION_JSON, message);
+
+        assertEquals(MediaType.APPLICATION_JSON, message.getHeaders().getContentType());
+        assertSameRequest(request, read(message.getBodyAsString()));
+    }
+}
@@ -0,0 +1,64 @@
+package com.hometask.transactionservice.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hometask.transactionservice.model.Transaction;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VersionedCaffeineCacheTest {
+
+    private final VersionedCaffeineCache cache =
+            new VersionedCaffeineCache("transactionCache", Caffeine.newBuilder().build(), true);
+
+    @Test
+    void put_ShouldNotReplaceANewerVersion() {
+        Transaction first = new Transaction("id-1", "12345", new BigDecimal("1.00"), "DEPOSIT", null,
+                LocalDateTime.now(), null);
+        Transaction second = first.withDetails("12345", new BigDecimal("2.00"), "DEPOSIT", null, null);
+
+        cache.put("id-1", second);
+        cache.put("id-1", first);
+        assertSame(second, cache.get("id-1", Transaction.class));
+
+        Transaction third = second.withDetails("12345", new BigDecimal("3.00"), "DEPOSIT", null, null);
+        cache.put("id-1", third);
+        assertSame(third, cache.get("id-1", Transaction.class));
+    }
+
+    @Test
+    void evict_ShouldStillRemoveTheEntry() {
+        cache.put("id-1", new Transaction("id-1", "12345", BigDecimal.ONE, "DEPOSIT", null, LocalDateTime.now(),
+                null));
+        cache.evict("id-1");
+
+        assertNull(cache.get("id-1"));
+    }
+
+    @Test
+    void put_ShouldNotBringBackADeletedTransaction() {
+        // A read that missed the cache before the delete, and puts what it read after the delete's evict
+        Transaction read = new Transaction("id-1", "12345", BigDecimal.ONE, "DEPOSIT", null, LocalDateTime.now(),
+                null);
+        cache.evict("id-1");
+        cache.put("id-1", read);
+        cache.put("id-1", read.withDetails("12345", BigDecimal.TEN, "DEPOSIT", null, null));
+
+        assertNull(cache.get("id-1"));
+        assertNull(cache.get("id-1", Transaction.class));
+    }
+
+    @Test
+    void get_ShouldLoadWithoutCachingOverATombstone() {
+        cache.evict("id-1");
+        Transaction loaded = new Transaction("id-1", "12345", BigDecimal.ONE, "DEPOSIT", null, LocalDateTime.now(),
+                null);
+
+        assertSame(loaded, cache.get("id-1", () -> loaded));
+        assertNull(cache.get("id-1"));
+        assertFalse(cache.evictIfPresent("id-1"));
+    }
+}
@@ -0,0 +1,96 @@
+package com.hometask.transactionservice.controller;
+
+import com.hometask.transactionservice.dto.AccountBalance;
+import com.hometask.transactionservice.dto.AccountRollups;
+import com.hometask.transactionservice.dto.TransactionPage;
+import com.hometask.transactionservice.model.Transaction;
+import com.hometask.transactionservice.repository.Rollup;
+import com.hometask.transactionservice.service.TransactionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(AccountController.class)
+public class AccountControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private TransactionService service;
+
+    @Test
+    void getAccountTransactions_ShouldReturnPageForAccount() throws Exception {
+        Transaction transaction = new Transaction("test-id", "123456789", new BigDecimal("100.00"), "DEPOSIT",
+                "Test deposit", LocalDateTime.now(), null);
+        when(service.getAccountTransactionPage("123456789", null, 10))
+                .thenReturn(new TransactionPage(List.of(transaction), null));
+
+        mockMvc.perform(get("/api/accounts/123456789/transactions"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].id", is("test-id")))
+                .andExpect(jsonPath("$.nextCursor", nullValue()));
+
+        verify(service, times(1)).getAccountTransactionPage("123456789", null, 10);
+    }
+
+    @Test
+    void getAccountTransactions_WithCursor_ShouldPassCursorAndSize() throws Exception {
+        when(service.getAccountTransactionPage("123456789", "abc", 5))
+                .thenReturn(new TransactionPage(List.of(), null));
+
+        mockMvc.perform(get("/api/accounts/123456789/transactions?cursor=abc&size=5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(0)));
+
+        verify(service, times(1)).getAccountTransactionPage("123456789", "abc", 5);
+    }
+
+    @Test
+    void getAccountBalance_ShouldReturnBalance() throws Exception {
+        when(service.getAccountBalance("123456789"))
+                .thenReturn(new AccountBalance("123456789", new BigDecimal("42.50")));
+
+        mockMvc.perform(get("/api/accounts/123456789/balance"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accountNumber", is("123456789")))
+                .andExpect(jsonPath("$.balance", is(42.50)));
+    }
+
+    @Test
+    void getAccountRollups_ShouldPassGranularityAndRange() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime to = from.plusDays(1);
+        Rollup rollup = new Rollup("DEPOSIT", from.plusHours(3), 2, new BigDecimal("30.00"),
+                new BigDecimal("10.00"), new BigDecimal("20.00"));
+        when(service.getAccountRollups("123456789", "hour", null, from, to))
+                .thenReturn(new AccountRollups("123456789", "hour", List.of(rollup)));
+
+        mockMvc.perform(get("/api/accounts/123456789/rollups?granularity=hour&from=2024-01-01T00:00:00"
+                        + "&to=2024-01-02T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.granularity", is("hour")))
+                .andExpect(jsonPath("$.buckets", hasSize(1)))
+                .andExpect(jsonPath("$.buckets[0].type", is("DEPOSIT")))
+                .andExpect(jsonPath("$.buckets[0].count", is(2)))
+                .andExpect(jsonPath("$.buckets[0].sum", is(30.00)))
+                .andExpect(jsonPath("$.buckets[0].min", is(10.00)))
+                .andExpect(jsonPath("$.buckets[0].max", is(20.00)));
+
+        verify(service, times(1)).getAccountRollups("123456789", "hour", null, from, to);
+    }
+}
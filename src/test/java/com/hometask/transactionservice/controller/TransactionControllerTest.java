@@ -1,25 +1,40 @@
 package com.hometask.transactionservice.controller;
 
+import com.hometask.transactionservice.cache.TransactionResponseCache;
+import com.hometask.transactionservice.config.CborHttpMessageConverter;
+import com.hometask.transactionservice.dto.IngestStatus;
+import com.hometask.transactionservice.dto.TransactionPage;
 import com.hometask.transactionservice.dto.TransactionRequest;
+import com.hometask.transactionservice.exception.IngestBufferFullException;
 import com.hometask.transactionservice.exception.TransactionNotFoundException;
+import com.hometask.transactionservice.ingest.IngestPipeline;
 import com.hometask.transactionservice.model.Transaction;
 import com.hometask.transactionservice.service.TransactionService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -34,9 +49,18 @@ public class TransactionControllerTest {
     @MockBean
     private TransactionService service;
 
+    @MockBean
+    private IngestPipeline ingestPipeline;
+
+    @MockBean
+    private TransactionResponseCache responseCache;
+
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private TransactionController controller;
+
     private Transaction transaction;
     private TransactionRequest request;
 
@@ -74,6 +98,81 @@ public class TransactionControllerTest {
         verify(service, times(1)).createTransaction(any(TransactionRequest.class));
     }
 
+    @Test
+    void createTransaction_WithCbor_ShouldReadAndAnswerCbor() throws Exception {
+        ObjectMapper cborMapper = CborHttpMessageConverter.cborMapper(objectMapper);
+        when(service.createTransaction(any(TransactionRequest.class))).thenReturn(transaction);
+
+        byte[] body = mockMvc.perform(post("/api/transactions")
+                .contentType(MediaType.APPLICATION_CBOR)
+                .accept(MediaType.APPLICATION_CBOR)
+                .content(cborMapper.writeValueAsBytes(request)))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        Transaction created = cborMapper.readValue(body, Transaction.class);
+        assertEquals("test-id", created.getId());
+        assertEquals(0, new BigDecimal("100.00").compareTo(created.getAmount()));
+        assertEquals(transaction.getTimestamp(), created.getTimestamp());
+        verify(service).createTransaction(argThat(r -> "123456789".equals(r.getAccountNumber())
+                && new BigDecimal("100.00").compareTo(r.getAmount()) == 0));
+    }
+
+    @Test
+    void getTransactions_WithoutAccept_ShouldStillAnswerJson() throws Exception {
+        when(service.getPaginatedTransactions(0, 10)).thenReturn(List.of(transaction));
+
+        mockMvc.perform(get("/api/transactions"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$[0].id", is("test-id")));
+    }
+
+    @Test
+    void createTransaction_PreferringAsync_ShouldQueueAndAnswerAccepted() throws Exception {
+        when(ingestPipeline.submit(any(TransactionRequest.class))).thenReturn(IngestStatus.pending("ticket-1"));
+
+        mockMvc.perform(post("/api/transactions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("Prefer", "respond-async")
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/transactions/ingest/ticket-1"))
+                .andExpect(header().string("Preference-Applied", "respond-async"))
+                .andExpect(jsonPath("$.ticket", is("ticket-1")))
+                .andExpect(jsonPath("$.state", is("PENDING")));
+
+        verify(service, never()).createTransaction(any(TransactionRequest.class));
+    }
+
+    @Test
+    void createTransaction_PreferringAsyncWithAFullBuffer_ShouldReturnTooManyRequests() throws Exception {
+        when(ingestPipeline.submit(any(TransactionRequest.class)))
+                .thenThrow(new IngestBufferFullException("Ingest buffer is full, retry later"));
+
+        mockMvc.perform(post("/api/transactions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("Prefer", "respond-async")
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.status", is(429)));
+    }
+
+    @Test
+    void createTransaction_PreferringAsyncWithAnInvalidRequest_ShouldNotQueueIt() throws Exception {
+        request.setAmount(new BigDecimal("-1.00"));
+
+        mockMvc.perform(post("/api/transactions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("Prefer", "respond-async")
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+
+        verify(ingestPipeline, never()).submit(any(TransactionRequest.class));
+    }
+
     @Test
     void getAllTransactions_ShouldReturnAllTransactions() throws Exception {
         List<Transaction> transactions = Arrays.asList(
@@ -114,6 +213,21 @@ public class TransactionControllerTest {
         verify(service, times(1)).updateTransaction(eq("test-id"), any(TransactionRequest.class));
     }
 
+    @Test
+    void createTransaction_WithIdempotencyKey_ShouldSkipTheDuplicateWindow() throws Exception {
+        when(service.createTransaction(any(TransactionRequest.class), eq(false))).thenReturn(transaction);
+
+        mockMvc.perform(post("/api/transactions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("Idempotency-Key", "payment-1")
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id", is("test-id")));
+
+        verify(service, times(1)).createTransaction(any(TransactionRequest.class), eq(false));
+        verify(service, never()).createTransaction(any(TransactionRequest.class));
+    }
+
     @Test
     void createTransaction_WithInvalidData_ShouldReturnBadRequest() throws Exception {
         request.setAccountNumber("");
@@ -126,4 +240,168 @@ public class TransactionControllerTest {
 
         verify(service, never()).createTransaction(any(TransactionRequest.class));
     }
-} 
+
+    @Test
+    void getTransactions_WithCursor_ShouldReturnPageWithNextCursor() throws Exception {
+        when(service.getTransactionPage("abc", 1)).thenReturn(new TransactionPage(List.of(transaction), "def"));
+
+        mockMvc.perform(get("/api/transactions?cursor=abc&size=1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].id", is("test-id")))
+                .andExpect(jsonPath("$.nextCursor", is("def")));
+
+        verify(service, never()).getPaginatedTransactions(anyInt(), anyInt());
+    }
+
+    @Test
+    void getTransactions_WithTimeRange_ShouldReturnPageOfTheRange() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2024, 2, 1, 0, 0);
+        when(service.getTransactionRangePage("123456789", from, to, "abc", 5))
+                .thenReturn(new TransactionPage(List.of(transaction), "def"));
+        when(service.getTransactionRangePage(null, from, null, null, 10))
+                .thenReturn(new TransactionPage(List.of(), null));
+
+        mockMvc.perform(get("/api/transactions?from=2024-01-01T00:00:00&to=2024-02-01T00:00:00"
+                        + "&accountNumber=123456789&cursor=abc&size=5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id", is("test-id")))
+                .andExpect(jsonPath("$.nextCursor", is("def")));
+        // An empty bound leaves that end of the range open
+        mockMvc.perform(get("/api/transactions?from=2024-01-01T00:00:00&to="))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(0)));
+
+        verify(service, never()).getTransactionPage(any(), anyInt());
+        verify(service, never()).getPaginatedTransactions(anyInt(), anyInt());
+    }
+
+    @Test
+    void getTransaction_ShouldWriteTheCachedBodyInTheAcceptedFormat() throws Exception {
+        byte[] json = objectMapper.writeValueAsBytes(transaction);
+        byte[] cbor = CborHttpMessageConverter.cborMapper(objectMapper).writeValueAsBytes(transaction);
+        when(responseCache.body("test-id", false)).thenReturn(json);
+        when(responseCache.body("test-id", true)).thenReturn(cbor);
+
+        mockMvc.perform(get("/api/transactions/test-id"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().bytes(json))
+                .andExpect(jsonPath("$.id", is("test-id")));
+        mockMvc.perform(get("/api/transactions/test-id").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(content().bytes(cbor));
+
+        verify(service, never()).getTransaction(any());
+    }
+
+    @Test
+    void getTransaction_WhenNotFound_ShouldReturnNotFound() throws Exception {
+        when(responseCache.body("missing", false))
+                .thenThrow(new TransactionNotFoundException("Transaction not found with id: missing"));
+
+        mockMvc.perform(get("/api/transactions/missing"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message", is("Transaction not found with id: missing")));
+    }
+
+    @Test
+    void exportTransactions_ShouldWriteOneJsonObjectPerLine() throws Exception {
+        Transaction second = new Transaction("test-id-2", "987654321", new BigDecimal("200.00"), "WITHDRAWAL",
+                "Test withdrawal", LocalDateTime.now(), null);
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+        when(service.exportTransactions("123456789", "DEPOSIT", from, null))
+                .thenReturn(Stream.of(transaction, second));
+
+        String body = mockMvc.perform(get("/api/transactions/export?accountNumber=123456789&type=DEPOSIT"
+                        + "&from=2024-01-01T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("test-id", objectMapper.readValue(lines[0], Transaction.class).getId());
+        assertEquals("test-id-2", objectMapper.readValue(lines[1], Transaction.class).getId());
+        assertTrue(body.endsWith("\n"));
+    }
+
+    @Test
+    void exportTransactions_AcceptingCbor_ShouldWriteACborSequence() throws Exception {
+        Transaction second = new Transaction("test-id-2", "987654321", new BigDecimal("200.00"), "WITHDRAWAL",
+                "Test withdrawal", LocalDateTime.now(), null);
+        when(service.exportTransactions(null, null, null, null)).thenReturn(Stream.of(transaction, second));
+
+        byte[] body = mockMvc.perform(get("/api/transactions/export").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/cbor-seq"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        ObjectMapper cborMapper = CborHttpMessageConverter.cborMapper(objectMapper);
+        List<Transaction> rows = cborMapper.readerFor(Transaction.class).<Transaction>readValues(body).readAll();
+        assertEquals(List.of("test-id", "test-id-2"), rows.stream().map(Transaction::getId).toList());
+    }
+
+    @Test
+    void exportTransactions_ShouldWriteRowsAsTheyAreRead() throws Exception {
+        int rows = 5_000;
+        int[] pulled = new int[1];
+        when(service.exportTransactions(null, null, null, null)).thenReturn(Stream.iterate(0, i -> i + 1)
+                .limit(rows)
+                .map(i -> new Transaction("id-" + i, "123456789", new BigDecimal("1.00"), "DEPOSIT", null,
+                        LocalDateTime.now(), null))
+                .peek(row -> pulled[0]++));
+        List<Integer> pulledAtFlush = new ArrayList<>();
+        long[] written = new long[1];
+        HttpServletResponse response = new HttpServletResponseWrapper(new MockHttpServletResponse()) {
+            @Override
+            public ServletOutputStream getOutputStream() {
+                return new ServletOutputStream() {
+                    @Override
+                    public void write(int b) {
+                        written[0]++;
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) {
+                        written[0] += len;
+                    }
+
+                    @Override
+                    public void flush() {
+                        if (written[0] > 0) {
+                            pulledAtFlush.add(pulled[0]);
+                        }
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return true;
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener writeListener) {
+                    }
+                };
+            }
+        };
+
+        controller.exportTransactions(null, null, null, null, null, response);
+
+        assertEquals(rows, pulled[0]);
+        // Rows go out in chunks while the rest are still unread, so nothing holds the whole result
+        assertTrue(pulledAtFlush.size() >= 5, "Export should flush as it goes, flushed " + pulledAtFlush);
+        assertTrue(pulledAtFlush.get(0) <= 1_000, "First chunk waited for " + pulledAtFlush.get(0) + " rows");
+    }
+
+    @Test
+    void exportTransactions_WithInvalidRange_ShouldReturnBadRequest() throws Exception {
+        when(service.exportTransactions(any(), any(), any(), any()))
+                .thenThrow(new IllegalArgumentException("'from' must be before 'to'"));
+
+        mockMvc.perform(get("/api/transactions/export?from=2024-01-02T00:00:00&to=2024-01-01T00:00:00"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,185 @@
+package com.hometask.transactionservice.feed;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.hometask.transactionservice.exception.FeedUnavailableException;
+import com.hometask.transactionservice.model.Transaction;
+import com.hometask.transactionservice.repository.TransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionFeedTest {
+
+    private final TransactionRepository repository = new TransactionRepository();
+    private TransactionFeed feed;
+
+    @AfterEach
+    void tearDown() {
+        if (feed != null) {
+            feed.stop();
+        }
+    }
+
+    private TransactionFeed start(int bufferSize, int maxSubscribers) {
+        feed = new TransactionFeed(repository, new ObjectMapper().registerModule(new JavaTimeModule()), 1000,
+                bufferSize, maxSubscribers, FeedOverflow.DROP, Duration.ofMillis(50), new SimpleMeterRegistry());
+        feed.start();
+        return feed;
+    }
+
+    private Transaction save(String id, String accountNumber, String type, String destinationAccount) {
+        return repository.save(new Transaction(id, accountNumber, new BigDecimal("10.00"), type, "Feed",
+                LocalDateTime.of(2024, 1, 1, 0, 0), destinationAccount));
+    }
+
+    /**
+     * The events waiting for the subscriber once everything published so far is dispatched.
+     */
+    private List<String> received(FeedSubscription subscription) throws InterruptedException {
+        feed.awaitDispatch();
+        List<String> events = new ArrayList<>();
+        for (byte[] event; (event = subscription.next(0, TimeUnit.NANOSECONDS)) != null; ) {
+            events.add(new String(event, StandardCharsets.UTF_8));
+        }
+        return events;
+    }
+
+    private static String name(String event) {
+        return event.lines().filter(line -> line.startsWith("event: ")).findFirst().orElseThrow().substring(7);
+    }
+
+    @Test
+    void subscribe_ShouldReceiveCreatesUpdatesAndDeletesInOrder() throws InterruptedException {
+        start(100, 10);
+        FeedSubscription subscription = feed.subscribe(null, null, null);
+
+        Transaction created = save("t1", "12345", "DEPOSIT", null);
+        repository.save(created.withDetails("12345", new BigDecimal("20.00"), "DEPOSIT", "Changed", null));
+        repository.deleteById("t1");
+
+        List<String> events = received(subscription);
+        assertEquals(List.of("created", "updated", "deleted"),
+                events.stream().map(TransactionFeedTest::name).toList());
+        assertTrue(events.get(0).startsWith("id: 1\n"));
+        assertTrue(events.get(0).contains("data: {\"id\":\"t1\""));
+        assertTrue(events.get(1).contains("\"version\":2"));
+        assertTrue(events.get(2).endsWith("data: {\"id\":\"t1\"}\n\n"));
+    }
+
+    @Test
+    void subscribe_ShouldOnlyReceiveMatchingAccountsAndTypes() throws InterruptedException {
+        start(100, 10);
+        FeedSubscription account = feed.subscribe("12345", null, null);
+        FeedSubscription withdrawals = feed.subscribe(null, "withdrawal", null);
+
+        save("own", "12345", "DEPOSIT", null);
+        save("incoming", "99999", "TRANSFER", "12345");
+        save("other", "99999", "WITHDRAWAL", null);
+
+        List<String> forAccount = received(account);
+        assertEquals(2, forAccount.size());
+        assertTrue(forAccount.get(0).contains("\"id\":\"own\""));
+        assertTrue(forAccount.get(1).contains("\"id\":\"incoming\""));
+        List<String> forType = received(withdrawals);
+        assertEquals(1, forType.size());
+        assertTrue(forType.get(0).contains("\"id\":\"other\""));
+    }
+
+    @Test
+    void dropOverflow_ShouldTellTheSubscriberWhereEventsWereDropped() throws InterruptedException {
+        start(2, 10);
+        FeedSubscription subscription = feed.subscribe(null, null, FeedOverflow.DROP);
+
+        for (int i = 1; i <= 5; i++) {
+            save("t" + i, "12345", "DEPOSIT", null);
+        }
+        List<String> first = received(subscription);
+        assertEquals(2, first.size());
+        assertTrue(first.get(1).contains("\"id\":\"t2\""));
+
+        save("t6", "12345", "DEPOSIT", null);
+        List<String> after = received(subscription);
+        assertEquals("event: dropped\ndata: {\"count\":3}\n\n", after.get(0));
+        assertTrue(after.get(1).contains("\"id\":\"t6\""));
+        assertFalse(subscription.isClosed());
+    }
+
+    @Test
+    void disconnectOverflow_ShouldCloseTheSubscription() throws InterruptedException {
+        start(2, 10);
+        FeedSubscription slow = feed.subscribe(null, null, FeedOverflow.DISCONNECT);
+        FeedSubscription other = feed.subscribe("55555", null, FeedOverflow.DISCONNECT);
+
+        for (int i = 1; i <= 3; i++) {
+            save("t" + i, "12345", "DEPOSIT", null);
+        }
+        feed.awaitDispatch();
+
+        assertTrue(slow.isClosed());
+        assertNull(slow.next(0, TimeUnit.NANOSECONDS));
+        assertFalse(other.isClosed());
+    }
+
+    @Test
+    void subscribe_ShouldRefuseSubscribersBeyondTheLimit() {
+        start(10, 2);
+        FeedSubscription first = feed.subscribe(null, null, null);
+        feed.subscribe("12345", null, null);
+
+        assertThrows(FeedUnavailableException.class, () -> feed.subscribe(null, null, null));
+        feed.unsubscribe(first);
+        feed.unsubscribe(first);
+        assertEquals(1, feed.subscriberCount());
+        assertNotNull(feed.subscribe(null, null, null));
+    }
+
+    @Test
+    void stream_ShouldWriteEventsAndHeartbeatsUntilTheFeedStops() throws Exception {
+        start(100, 10);
+        FeedSubscription subscription = feed.subscribe("12345", null, null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Thread connection = Thread.ofVirtual().start(() -> {
+            try {
+                feed.stream(subscription, out);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        save("t1", "12345", "DEPOSIT", null);
+        feed.awaitDispatch();
+        Thread.sleep(120);
+        feed.stop();
+        connection.join(TimeUnit.SECONDS.toMillis(10));
+
+        assertFalse(connection.isAlive());
+        String written = out.toString(StandardCharsets.UTF_8);
+        assertTrue(written.startsWith(":\n\n"));
+        assertTrue(written.contains("event: created\n"));
+        assertTrue(written.indexOf(":\n\n", 3) > 0, "A heartbeat should follow while no events arrive");
+        assertEquals(0, feed.subscriberCount());
+    }
+
+    @Test
+    void recordSave_ShouldNotQueueChangesWhileNobodyIsSubscribed() throws InterruptedException {
+        start(1, 10);
+        for (int i = 0; i < 10; i++) {
+            save("t" + i, "12345", "DEPOSIT", null);
+        }
+        FeedSubscription subscription = feed.subscribe(null, null, null);
+
+        assertTrue(received(subscription).isEmpty());
+    }
+}
@@ -0,0 +1,157 @@
+package com.hometask.transactionservice.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IdempotencyFilterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final IdempotencyFilter filter =
+            new IdempotencyFilter(1_000, Duration.ofMinutes(5), new ObjectMapper().findAndRegisterModules(), registry);
+    private final AtomicInteger executions = new AtomicInteger();
+
+    /**
+     * Stands in for the controller: creates a transaction with a new id per execution.
+     */
+    private final FilterChain create = (request, response) -> {
+        int execution = executions.incrementAndGet();
+        request.getInputStream().readAllBytes();
+        HttpServletResponse http = (HttpServletResponse) response;
+        http.setStatus(HttpStatus.CREATED.value());
+        http.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        http.getOutputStream().write(("{\"id\":\"tx-" + execution + "\"}").getBytes(StandardCharsets.UTF_8));
+    };
+
+    private static MockHttpServletRequest post(String key, String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/transactions");
+        request.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        if (key != null) {
+            request.addHeader(IdempotencyFilter.HEADER, key);
+        }
+        return request;
+    }
+
+    private MockHttpServletResponse send(MockHttpServletRequest request, FilterChain chain) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    @Test
+    public void retryShouldGetTheFirstResponseWithoutRunningAgain() throws Exception {
+        MockHttpServletResponse first = send(post("key-1", "{\"amount\":1}"), create);
+        MockHttpServletResponse retry = send(post("key-1", "{\"amount\":1}"), create);
+
+        assertEquals(1, executions.get());
+        assertEquals(201, retry.getStatus());
+        assertEquals(first.getContentAsString(), retry.getContentAsString());
+        assertEquals(MediaType.APPLICATION_JSON_VALUE, retry.getContentType());
+        assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertNull(first.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals(0.5, filter.hitRatio());
+
+        // Another key, or no key at all, runs the request
+        send(post("key-2", "{\"amount\":1}"), create);
+        send(post(null, "{\"amount\":1}"), create);
+        assertEquals(3, executions.get());
+    }
+
+    @Test
+    public void keyReusedWithAnotherBodyShouldBeRejected() throws Exception {
+        send(post("key-1", "{\"amount\":1}"), create);
+        MockHttpServletResponse reused = send(post("key-1", "{\"amount\":2}"), create);
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY.value(), reused.getStatus());
+        assertEquals(1, executions.get());
+        assertEquals(400, send(post(" ", "{}"), create).getStatus());
+    }
+
+    @Test
+    public void concurrentRequestShouldWaitForTheFirst() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FilterChain slowCreate = (request, response) -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            create.doFilter(request, response);
+        };
+
+        CompletableFuture<MockHttpServletResponse> first =
+                CompletableFuture.supplyAsync(() -> sendUnchecked(slowCreate));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<MockHttpServletResponse> second =
+                CompletableFuture.supplyAsync(() -> sendUnchecked(slowCreate));
+        Thread.sleep(50);
+        assertFalse(second.isDone());
+
+        release.countDown();
+        assertEquals(first.get(5, TimeUnit.SECONDS).getContentAsString(),
+                second.get(5, TimeUnit.SECONDS).getContentAsString());
+        assertEquals(1, executions.get());
+    }
+
+    private MockHttpServletResponse sendUnchecked(FilterChain chain) {
+        try {
+            return send(post("key-1", "{\"amount\":1}"), chain);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    public void serverErrorShouldNotBeKept() throws Exception {
+        FilterChain failing = (request, response) -> {
+            executions.incrementAndGet();
+            ((HttpServletResponse) response).setStatus(503);
+        };
+        assertEquals(503, send(post("key-1", "{}"), failing).getStatus());
+        assertEquals(201, send(post("key-1", "{}"), create).getStatus());
+        assertEquals(2, executions.get());
+        assertEquals(1, filter.keys());
+    }
+
+    @Test
+    public void keysBeyondTheLimitShouldBeEvicted() throws Exception {
+        IdempotencyFilter small = new IdempotencyFilter(10, Duration.ofMinutes(5), new ObjectMapper(), registry);
+        for (int i = 0; i < 50; i++) {
+            small.doFilter(post("key-" + i, "{}"), new MockHttpServletResponse(), create);
+        }
+        assertEquals(10, small.keys());
+        assertEquals(small.keys() * small.bytesPerKey(), small.storedBytes(), 0.001);
+    }
+
+    @Test
+    public void bytesPerKeyShouldAddTheKeyFingerprintAndResponseToAFixedOverhead() throws Exception {
+        for (int i = 1; i <= 9; i++) {
+            send(post("key-" + i, "{\"amount\":" + i + "}"), create);
+        }
+
+        // Each kept response: the 256-byte overhead, a 5-character key, a SHA-256 fingerprint, the 13-byte body
+        // {"id":"tx-N"} and its content type
+        int expected = 256 + "key-1".length() + 32 + "{\"id\":\"tx-1\"}".length()
+                + MediaType.APPLICATION_JSON_VALUE.length();
+        assertEquals(9, filter.keys());
+        assertEquals(expected, filter.bytesPerKey(), 0.001);
+    }
+}
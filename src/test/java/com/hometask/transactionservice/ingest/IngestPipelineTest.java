@@ -0,0 +1,170 @@
+package com.hometask.transactionservice.ingest;
+
+import com.hometask.transactionservice.dto.IngestStatus;
+import com.hometask.transactionservice.dto.TransactionBatchResponse;
+import com.hometask.transactionservice.dto.TransactionRequest;
+import com.hometask.transactionservice.exception.IngestBufferFullException;
+import com.hometask.transactionservice.exception.TransactionNotFoundException;
+import com.hometask.transactionservice.model.Transaction;
+import com.hometask.transactionservice.repository.TransactionRepository;
+import com.hometask.transactionservice.service.TransactionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IngestPipelineTest {
+
+    private final TransactionRepository repository = new TransactionRepository();
+    private IngestPipeline pipeline;
+
+    @AfterEach
+    void tearDown() {
+        if (pipeline != null) {
+            pipeline.stop();
+        }
+    }
+
+    private IngestPipeline start(TransactionService service, int capacity, int consumers) {
+        pipeline = new IngestPipeline(service, capacity, consumers, 100, 10_000, Duration.ofMinutes(1),
+                new SimpleMeterRegistry());
+        pipeline.start();
+        return pipeline;
+    }
+
+    private TransactionService realService() {
+        return new TransactionService(repository);
+    }
+
+    private static TransactionRequest request(String accountNumber, String amount) {
+        TransactionRequest request = new TransactionRequest();
+        request.setAccountNumber(accountNumber);
+        request.setAmount(new BigDecimal(amount));
+        request.setType("DEPOSIT");
+        request.setDescription("Ingest");
+        return request;
+    }
+
+    private IngestStatus awaitOutcome(String ticket) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        IngestStatus status = pipeline.status(ticket);
+        while (status.getState() == IngestStatus.State.PENDING && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+            status = pipeline.status(ticket);
+        }
+        return status;
+    }
+
+    @Test
+    void submit_ShouldStoreTheRequestAndRecordItsOutcome() throws InterruptedException {
+        start(realService(), 100, 1);
+
+        IngestStatus accepted = pipeline.submit(request("12345", "10.00"));
+        assertEquals(IngestStatus.State.PENDING, accepted.getState());
+
+        IngestStatus outcome = awaitOutcome(accepted.getTicket());
+        assertEquals(IngestStatus.State.CREATED, outcome.getState());
+        assertEquals(accepted.getTicket(), outcome.getTicket());
+        Transaction stored = repository.findById(outcome.getTransaction().getId()).orElseThrow();
+        assertEquals(0, new BigDecimal("10.00").compareTo(stored.getAmount()));
+    }
+
+    @Test
+    void submit_ShouldReportDuplicatesAndInvalidRequests() throws InterruptedException {
+        start(realService(), 100, 1);
+
+        String first = pipeline.submit(request("12345", "10.00")).getTicket();
+        String repeat = pipeline.submit(request("12345", "10.00")).getTicket();
+        String invalid = pipeline.submit(request("12345", "-1.00")).getTicket();
+
+        assertEquals(IngestStatus.State.CREATED, awaitOutcome(first).getState());
+        assertEquals(IngestStatus.State.DUPLICATE, awaitOutcome(repeat).getState());
+        IngestStatus rejected = awaitOutcome(invalid);
+        assertEquals(IngestStatus.State.INVALID, rejected.getState());
+        assertTrue(rejected.getErrors().containsKey("amount"));
+        assertEquals(1, repository.count());
+    }
+
+    @Test
+    void submit_ShouldRefuseWhenTheBufferIsFull() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        TransactionService blocked = blockingService(release);
+        start(blocked, 2, 1);
+
+        String taken = pipeline.submit(request("12345", "1.00")).getTicket();
+        // Wait until the consumer holds the first request, so the buffer is empty again
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (pipeline.queued() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        String second = pipeline.submit(request("12345", "2.00")).getTicket();
+        String third = pipeline.submit(request("12345", "3.00")).getTicket();
+        assertThrows(IngestBufferFullException.class, () -> pipeline.submit(request("12345", "4.00")));
+
+        release.countDown();
+        for (String ticket : List.of(taken, second, third)) {
+            assertEquals(IngestStatus.State.CREATED, awaitOutcome(ticket).getState());
+        }
+        // Room again once the consumer caught up
+        assertEquals(IngestStatus.State.PENDING, pipeline.submit(request("12345", "5.00")).getState());
+    }
+
+    @Test
+    void stop_ShouldStoreEverythingAcceptedBeforeReturning() {
+        start(realService(), 10_000, 2);
+
+        List<String> tickets = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            tickets.add(pipeline.submit(request(String.valueOf(10_000 + i % 100), (i + 1) + ".00")).getTicket());
+        }
+        pipeline.stop();
+
+        assertEquals(5_000, repository.count());
+        assertEquals(0, pipeline.queued());
+        for (String ticket : tickets) {
+            assertEquals(IngestStatus.State.CREATED, pipeline.status(ticket).getState());
+        }
+        assertThrows(IngestBufferFullException.class, () -> pipeline.submit(request("12345", "1.00")));
+    }
+
+    @Test
+    void status_ShouldRejectUnknownTickets() {
+        start(realService(), 10, 1);
+
+        assertThrows(TransactionNotFoundException.class, () -> pipeline.status("unknown"));
+    }
+
+    @Test
+    void constructor_ShouldRejectBatchesLargerThanTheServiceStores() {
+        assertThrows(IllegalArgumentException.class, () -> new IngestPipeline(realService(), 10, 1,
+                TransactionService.MAX_BATCH_SIZE + 1, 10, Duration.ofMinutes(1), new SimpleMeterRegistry()));
+        assertThrows(IllegalArgumentException.class, () -> new IngestPipeline(realService(), 10, 0, 10, 10,
+                Duration.ofMinutes(1), new SimpleMeterRegistry()));
+    }
+
+    /**
+     * A service that creates every request of a batch, but only once {@code release} is counted down.
+     */
+    private static TransactionService blockingService(CountDownLatch release) {
+        TransactionRepository repository = new TransactionRepository();
+        return new TransactionService(repository) {
+            @Override
+            public TransactionBatchResponse createTransactions(List<TransactionRequest> requests) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.createTransactions(requests);
+            }
+        };
+    }
+}
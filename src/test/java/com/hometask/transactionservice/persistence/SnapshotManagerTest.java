@@ -0,0 +1,130 @@
+package com.hometask.transactionservice.persistence;
+
+import com.hometask.transactionservice.model.Transaction;
+import com.hometask.transactionservice.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SnapshotManagerTest {
+
+    @TempDir
+    Path directory;
+
+    private record Node(TransactionRepository repository, WriteAheadLog wal, SnapshotManager snapshots) {
+        void stop() {
+            snapshots.stop();
+            wal.stop();
+        }
+    }
+
+    private Node open() {
+        TransactionRepository repository = new TransactionRepository();
+        WriteAheadLog wal = new WriteAheadLog(directory.resolve("wal"), FsyncPolicy.GROUP, 10, 16 * 1024,
+                repository);
+        SnapshotManager snapshots = new SnapshotManager(directory.resolve("snapshots"), 0, repository, wal);
+        // Same order as the lifecycle phases
+        snapshots.start();
+        wal.start();
+        return new Node(repository, wal, snapshots);
+    }
+
+    private Transaction transaction(int i) {
+        return new Transaction("id-" + i, String.valueOf(10_000 + i % 50), new BigDecimal(i + ".10"), "DEPOSIT",
+                "Transaction " + i, LocalDateTime.of(2024, 1, 1, 0, 0).plusSeconds(i), null);
+    }
+
+    @Test
+    public void restartShouldLoadSnapshotAndReplayOnlyTheLogTail() throws IOException {
+        Node node = open();
+        for (int i = 0; i < 1_000; i++) {
+            node.repository().save(transaction(i));
+        }
+        SnapshotStats written = node.snapshots().snapshot();
+        node.repository().save(transaction(1_000));
+        node.repository().deleteById("id-0");
+        node.stop();
+
+        assertEquals(1_000, written.records());
+        assertEquals(1_000, written.sequence());
+        // Everything before the snapshot was deleted from the log
+        assertEquals(1, node.wal().segments().size());
+        assertEquals(1, node.snapshots().snapshots().size());
+
+        Node restarted = open();
+        restarted.stop();
+
+        assertEquals(1_000, restarted.repository().count());
+        assertTrue(restarted.repository().findById("id-0").isEmpty());
+        assertTrue(restarted.repository().findById("id-1000").isPresent());
+        assertEquals(1_000, restarted.snapshots().lastRestore().records());
+        assertEquals(2, restarted.wal().lastReplayedRecords());
+    }
+
+    @Test
+    public void writesDuringSnapshotsShouldSurviveRestart() throws Exception {
+        Node node = open();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<CompletableFuture<Void>> writes = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            int n = i;
+            writes.add(CompletableFuture.runAsync(() -> {
+                node.repository().save(transaction(n));
+                if (n % 3 == 0) {
+                    node.repository().deleteById("id-" + n);
+                }
+            }, executor));
+        }
+        CompletableFuture<Void> all = CompletableFuture.allOf(writes.toArray(new CompletableFuture[0]));
+        while (!all.isDone()) {
+            try {
+                node.snapshots().snapshot();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        all.join();
+        executor.shutdown();
+        node.stop();
+
+        Node restarted = open();
+        restarted.stop();
+
+        assertEquals(node.repository().count(), restarted.repository().count());
+        for (int i = 0; i < 20_000; i++) {
+            assertEquals(i % 3 != 0, restarted.repository().existsById("id-" + i), "id-" + i);
+        }
+    }
+
+    @Test
+    public void corruptedSnapshotShouldFailRestore() throws IOException {
+        Node node = open();
+        for (int i = 0; i < 10; i++) {
+            node.repository().save(transaction(i));
+        }
+        node.snapshots().snapshot();
+        node.stop();
+
+        Path snapshot = node.snapshots().snapshots().get(0);
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0x7f}), 40);
+        }
+
+        assertThrows(UncheckedIOException.class, this::open);
+    }
+}
@@ -0,0 +1,261 @@
+package com.hometask.transactionservice.persistence;
+
+import com.hometask.transactionservice.model.Transaction;
+import com.hometask.transactionservice.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WriteAheadLogTest {
+
+    @TempDir
+    Path directory;
+
+    private WriteAheadLog open(TransactionRepository repository, FsyncPolicy policy, long segmentSizeBytes) {
+        WriteAheadLog wal = new WriteAheadLog(directory, policy, 10, segmentSizeBytes, repository);
+        wal.start();
+        return wal;
+    }
+
+    private Transaction transaction(int i) {
+        return new Transaction("id-" + i, String.valueOf(10_000 + i), new BigDecimal(i + ".25"), "TRANSFER",
+                "Transaction " + i, LocalDateTime.of(2024, 1, 1, 0, 0).plusNanos(i * 1_000L), "99999");
+    }
+
+    @Test
+    public void replayShouldRestoreSavesUpdatesAndDeletes() {
+        for (FsyncPolicy policy : FsyncPolicy.values()) {
+            TransactionRepository original = new TransactionRepository();
+            WriteAheadLog wal = open(original, policy, 64 * 1024 * 1024);
+            original.save(transaction(1));
+            original.save(transaction(2));
+            Transaction first = transaction(1);
+            Transaction updated = first.withDetails(first.getAccountNumber(), new BigDecimal("500.00"),
+                    first.getType(), first.getDescription(), first.getDestinationAccount());
+            assertTrue(original.replace(first, updated));
+            original.deleteById("id-2");
+            wal.stop();
+
+            TransactionRepository recovered = new TransactionRepository();
+            WriteAheadLog reopened = open(recovered, policy, 64 * 1024 * 1024);
+            reopened.stop();
+
+            assertEquals(1, recovered.count(), policy.name());
+            Transaction restored = recovered.findById("id-1").orElseThrow();
+            assertEquals(new BigDecimal("500.00"), restored.getAmount());
+            assertEquals(updated.getTimestamp(), restored.getTimestamp());
+            assertEquals("99999", restored.getDestinationAccount());
+            assertEquals(updated.getVersion(), restored.getVersion());
+            assertTrue(recovered.findById("id-2").isEmpty());
+
+            deleteSegments();
+        }
+    }
+
+    @Test
+    public void concurrentWritersShouldAllBeRecoveredAcrossSegments() throws Exception {
+        TransactionRepository original = new TransactionRepository();
+        WriteAheadLog wal = open(original, FsyncPolicy.GROUP, 4 * 1024);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<CompletableFuture<Void>> writes = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            int n = i;
+            writes.add(CompletableFuture.runAsync(() -> original.save(transaction(n)), executor));
+        }
+        CompletableFuture.allOf(writes.toArray(new CompletableFuture[0])).join();
+        executor.shutdown();
+        wal.stop();
+
+        assertTrue(wal.segments().size() > 1, "Small segment size should have rolled the log");
+
+        TransactionRepository recovered = new TransactionRepository();
+        open(recovered, FsyncPolicy.GROUP, 4 * 1024).stop();
+
+        assertEquals(2_000, recovered.count());
+    }
+
+    @Test
+    public void recoveryShouldKeepEveryRecordBeforeATornWrite() throws IOException {
+        TransactionRepository original = new TransactionRepository();
+        WriteAheadLog wal = open(original, FsyncPolicy.PER_WRITE, 64 * 1024 * 1024);
+        for (int i = 0; i < 100; i++) {
+            original.save(transaction(i));
+        }
+        wal.stop();
+
+        // Cut the last record in half, as a crash in the middle of a write would
+        Path segment = wal.segments().get(wal.segments().size() - 1);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 20);
+        }
+
+        TransactionRepository recovered = new TransactionRepository();
+        WriteAheadLog reopened = open(recovered, FsyncPolicy.PER_WRITE, 64 * 1024 * 1024);
+
+        assertEquals(99, recovered.count());
+        for (int i = 0; i < 99; i++) {
+            assertEquals(transaction(i).getAmount(), recovered.findById("id-" + i).orElseThrow().getAmount());
+        }
+        assertTrue(recovered.findById("id-99").isEmpty());
+
+        // The torn tail was cut off, so records appended after recovery are replayed too
+        recovered.save(transaction(500));
+        reopened.stop();
+
+        TransactionRepository again = new TransactionRepository();
+        open(again, FsyncPolicy.PER_WRITE, 64 * 1024 * 1024).stop();
+        assertEquals(100, again.count());
+        assertTrue(again.findById("id-500").isPresent());
+    }
+
+    @Test
+    public void recoveryShouldIgnoreCorruptedRecord() throws IOException {
+        TransactionRepository original = new TransactionRepository();
+        WriteAheadLog wal = open(original, FsyncPolicy.GROUP, 64 * 1024 * 1024);
+        for (int i = 0; i < 10; i++) {
+            original.save(transaction(i));
+        }
+        wal.stop();
+
+        Path segment = wal.segments().get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0x7f}), channel.size() - 3);
+        }
+
+        TransactionRepository recovered = new TransactionRepository();
+        open(recovered, FsyncPolicy.GROUP, 64 * 1024 * 1024).stop();
+
+        assertEquals(9, recovered.count());
+    }
+
+    @Test
+    public void recoveryShouldFailOnACorruptRecordThatIntactRecordsFollow() throws IOException {
+        TransactionRepository original = new TransactionRepository();
+        WriteAheadLog wal = open(original, FsyncPolicy.GROUP, 64 * 1024 * 1024);
+        for (int i = 0; i < 100; i++) {
+            original.save(transaction(i));
+        }
+        wal.stop();
+
+        // A flipped bit in the middle of the only segment is not a torn write: committed records follow it
+        Path segment = wal.segments().get(0);
+        long size = Files.size(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer bit = ByteBuffer.allocate(1);
+            channel.read(bit, size / 2);
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) (bit.get(0) ^ 0x10)}), size / 2);
+        }
+
+        TransactionRepository recovered = new TransactionRepository();
+        assertThrows(UncheckedIOException.class, () -> open(recovered, FsyncPolicy.GROUP, 64 * 1024 * 1024));
+        // Nothing was truncated away
+        assertEquals(size, Files.size(segment));
+    }
+
+    @Test
+    public void recoveryShouldFailOnACorruptRecordBeforeTheLastSegment() throws IOException {
+        TransactionRepository original = new TransactionRepository();
+        WriteAheadLog wal = open(original, FsyncPolicy.GROUP, 4 * 1024);
+        for (int i = 0; i < 200; i++) {
+            original.save(transaction(i));
+        }
+        wal.stop();
+        List<Path> segments = wal.segments();
+        assertTrue(segments.size() > 2, "Small segment size should have rolled the log");
+
+        Path first = segments.get(0);
+        long firstSize = Files.size(first);
+        try (FileChannel channel = FileChannel.open(first, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0x7f}), firstSize / 2);
+        }
+
+        TransactionRepository recovered = new TransactionRepository();
+        assertThrows(UncheckedIOException.class, () -> open(recovered, FsyncPolicy.GROUP, 4 * 1024));
+        // The corrupt segment is left as it was, for an operator to look at
+        assertEquals(firstSize, Files.size(first));
+    }
+
+    @Test
+    public void failedAppendShouldMakeTheRepositoryRefuseLaterWrites() throws IOException {
+        TransactionRepository repository = new TransactionRepository();
+        WriteAheadLog wal = open(repository, FsyncPolicy.GROUP, 4 * 1024);
+        repository.save(transaction(0));
+
+        // Once the directory is gone, the next segment cannot be opened when the current one fills up
+        for (Path segment : wal.segments()) {
+            Files.delete(segment);
+        }
+        Files.delete(directory);
+        Files.createFile(directory);
+        int saved = 1;
+        while (!wal.isFailed() && saved < 1_000) {
+            try {
+                repository.save(transaction(saved));
+            } catch (RuntimeException e) {
+                // The write that hit the failure is reported to its caller
+            }
+            saved++;
+        }
+        assertTrue(wal.isFailed());
+
+        int count = repository.count();
+        Transaction stored = repository.findById("id-0").orElseThrow();
+        assertThrows(IllegalStateException.class, () -> repository.save(transaction(5_000)));
+        assertThrows(IllegalStateException.class, () -> repository.deleteById("id-0"));
+        assertThrows(IllegalStateException.class, () -> repository.replace(stored,
+                stored.withDetails(stored.getAccountNumber(), new BigDecimal("1.00"), stored.getType(),
+                        stored.getDescription(), stored.getDestinationAccount())));
+
+        // Refused writes left the store and its indexes as they were
+        assertEquals(count, repository.count());
+        assertTrue(repository.findById("id-5000").isEmpty());
+        assertEquals(stored.getAmount(), repository.findById("id-0").orElseThrow().getAmount());
+        assertEquals(count, repository.findAll().size());
+        wal.stop();
+        Files.delete(directory);
+    }
+
+    @Test
+    public void recoveryShouldFailOnAGapInTheSequence() throws IOException {
+        TransactionRepository original = new TransactionRepository();
+        WriteAheadLog wal = open(original, FsyncPolicy.GROUP, 4 * 1024);
+        for (int i = 0; i < 200; i++) {
+            original.save(transaction(i));
+        }
+        wal.stop();
+        List<Path> segments = wal.segments();
+        assertTrue(segments.size() > 2, "Small segment size should have rolled the log");
+
+        Files.delete(segments.get(1));
+
+        TransactionRepository recovered = new TransactionRepository();
+        assertThrows(UncheckedIOException.class, () -> open(recovered, FsyncPolicy.GROUP, 4 * 1024));
+    }
+
+    private void deleteSegments() {
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.hometask.transactionservice.replication;
+
+import com.hometask.transactionservice.model.Transaction;
+import com.hometask.transactionservice.repository.TransactionRepository;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReplicationControllerTest {
+
+    private final TransactionRepository repository = new TransactionRepository();
+    private final ReplicationLog log = new ReplicationLog(repository, 100);
+    private final ReplicationController controller = new ReplicationController(log, repository);
+
+    /**
+     * A response whose client has gone away: every write fails.
+     */
+    private static MockHttpServletResponse abortedResponse() {
+        return new MockHttpServletResponse() {
+            @Override
+            public ServletOutputStream getOutputStream() {
+                return new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        throw new IOException("Broken pipe");
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return true;
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener writeListener) {
+                    }
+                };
+            }
+        };
+    }
+
+    @Test
+    public void streamsShouldEndQuietlyWhenTheFollowerGoesAway() {
+        log.start();
+        repository.save(new Transaction("id-1", "12345", new BigDecimal("1.00"), "DEPOSIT", "Replicated",
+                LocalDateTime.now(), null));
+
+        MockHttpServletResponse logResponse = abortedResponse();
+        assertDoesNotThrow(() -> controller.log(log.id(), 0, 10, 0, logResponse));
+        assertEquals(ReplicationStream.CONTENT_TYPE, logResponse.getContentType());
+
+        MockHttpServletResponse snapshotResponse = abortedResponse();
+        assertDoesNotThrow(() -> controller.snapshot(snapshotResponse));
+    }
+
+    @Test
+    public void interruptedPollShouldAnswerServiceUnavailable() {
+        log.start();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        Thread.currentThread().interrupt();
+        try {
+            controller.log(log.id(), 0, 10, 10_000, response);
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+        assertEquals(503, response.getStatus());
+        assertNull(response.getContentType());
+    }
+}
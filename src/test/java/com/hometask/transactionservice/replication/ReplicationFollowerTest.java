@@ -0,0 +1,39 @@
+package com.hometask.transactionservice.replication;
+
+import com.hometask.transactionservice.repository.TransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReplicationFollowerTest {
+
+    @Test
+    public void promoteShouldBeRefusedWhileTheSnapshotIsLoading() throws Exception {
+        // A primary that accepts the snapshot request and never answers it
+        try (ServerSocket primary = new ServerSocket(0)) {
+            TransactionRepository repository = new TransactionRepository();
+            ReplicationFollower follower = new ReplicationFollower(repository, null,
+                    "http://localhost:" + primary.getLocalPort(), 100, 1000, 1000, Duration.ofSeconds(1),
+                    new SimpleMeterRegistry());
+            ReplicationEndpoint endpoint = new ReplicationEndpoint(new ReplicationLog(repository, 100), follower);
+            follower.start();
+            try {
+                assertFalse(follower.promote());
+                assertTrue(follower.isFollowing());
+
+                WebEndpointResponse<Map<String, Object>> response = endpoint.changeRole(null);
+                assertEquals(WebEndpointResponse.STATUS_SERVICE_UNAVAILABLE, response.getStatus());
+                assertEquals("follower", response.getBody().get("role"));
+                assertTrue(follower.isFollowing());
+            } finally {
+                follower.stop();
+            }
+        }
+    }
+}
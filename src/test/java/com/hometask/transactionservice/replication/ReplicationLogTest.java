@@ -0,0 +1,118 @@
+package com.hometask.transactionservice.replication;
+
+import com.hometask.transactionservice.model.Transaction;
+import com.hometask.transactionservice.replication.LogRecord.Operation;
+import com.hometask.transactionservice.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReplicationLogTest {
+
+    private Transaction transaction(int i) {
+        return new Transaction("id-" + i, String.valueOf(10_000 + i), new BigDecimal(i + ".25"), "DEPOSIT",
+                "Transaction " + i, LocalDateTime.of(2024, 1, 1, 0, 0).plusNanos(i * 1_000L), null);
+    }
+
+    private ReplicationLog open(TransactionRepository repository, int capacity) {
+        ReplicationLog log = new ReplicationLog(repository, capacity);
+        log.start();
+        return log;
+    }
+
+    @Test
+    public void readShouldReturnMutationsInTheOrderTheyWereApplied() throws Exception {
+        TransactionRepository repository = new TransactionRepository();
+        ReplicationLog log = open(repository, 100);
+        repository.save(transaction(1));
+        repository.save(transaction(2));
+        repository.deleteById("id-1");
+        repository.deleteAll();
+
+        List<LogRecord> records = log.read(0, 10, 0);
+        assertEquals(List.of(Operation.SAVE, Operation.SAVE, Operation.DELETE, Operation.CLEAR),
+                records.stream().map(LogRecord::operation).toList());
+        assertEquals(List.of(1L, 2L, 3L, 4L), records.stream().map(LogRecord::sequence).toList());
+        assertEquals("id-1", records.get(2).id());
+
+        assertEquals(2, log.read(2, 10, 0).size());
+        assertEquals(1, log.read(0, 1, 0).size());
+        assertTrue(log.read(4, 10, 0).isEmpty());
+
+        // Once stopped the log no longer sees mutations
+        log.stop();
+        repository.save(transaction(3));
+        assertEquals(4, log.lastSequence());
+    }
+
+    @Test
+    public void readShouldWaitForTheNextRecord() throws Exception {
+        TransactionRepository repository = new TransactionRepository();
+        ReplicationLog log = open(repository, 100);
+
+        CompletableFuture<List<LogRecord>> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return log.read(0, 10, 10_000);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(50);
+        assertFalse(waiting.isDone());
+        repository.save(transaction(1));
+        assertEquals(1, waiting.get(5, TimeUnit.SECONDS).size());
+    }
+
+    @Test
+    public void readShouldReportPositionsNoLongerInTheLog() throws Exception {
+        TransactionRepository repository = new TransactionRepository();
+        ReplicationLog log = open(repository, 10);
+        for (int i = 0; i < 25; i++) {
+            repository.save(transaction(i));
+        }
+
+        assertEquals(10, log.read(15, 100, 0).size());
+        assertThrows(LogPositionLostException.class, () -> log.read(14, 100, 0));
+        assertThrows(LogPositionLostException.class, () -> log.read(26, 100, 0));
+    }
+
+    @Test
+    public void streamShouldRoundTripBatchesAndSnapshots() throws Exception {
+        TransactionRepository repository = new TransactionRepository();
+        ReplicationLog log = open(repository, 100);
+        repository.save(transaction(1));
+        repository.deleteById("id-1");
+        repository.save(transaction(2));
+        repository.deleteAll();
+
+        ByteArrayOutputStream batch = new ByteArrayOutputStream();
+        ReplicationStream.writeBatch(batch, log.id(), log.lastSequence(), log.read(0, 10, 0));
+        List<LogRecord> read = new ArrayList<>();
+        ReplicationStream.Header header = ReplicationStream.read(new ByteArrayInputStream(batch.toByteArray()),
+                read::add);
+        assertEquals(new ReplicationStream.Header(log.id(), 4), header);
+        assertEquals(log.read(0, 10, 0).stream().map(LogRecord::operation).toList(),
+                read.stream().map(LogRecord::operation).toList());
+        assertEquals(transaction(2).getAmount(), read.get(2).transaction().getAmount());
+        assertEquals("id-1", read.get(1).id());
+
+        repository.save(transaction(3));
+        repository.save(transaction(4));
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        ReplicationStream.writeSnapshot(snapshot, log.id(), log.lastSequence(), repository::forEach);
+        List<Transaction> restored = new ArrayList<>();
+        header = ReplicationStream.read(new ByteArrayInputStream(snapshot.toByteArray()),
+                record -> restored.add(record.transaction()));
+        assertEquals(6, header.sequence());
+        assertEquals(List.of("id-3", "id-4"), restored.stream().map(Transaction::getId).sorted().toList());
+    }
+}
@@ -0,0 +1,229 @@
+package com.hometask.transactionservice.replication;
+
+import com.hometask.transactionservice.TransactionServiceApplication;
+import com.hometask.transactionservice.dto.AccountBalance;
+import com.hometask.transactionservice.dto.TransactionPage;
+import com.hometask.transactionservice.dto.TransactionRequest;
+import com.hometask.transactionservice.model.Transaction;
+import com.hometask.transactionservice.repository.TransactionRepository;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs a primary and a follower on localhost and checks that the follower ends up with the primary's data.
+ */
+public class ReplicationTest {
+
+    private static ConfigurableApplicationContext primary;
+    private static ConfigurableApplicationContext follower;
+    private static String primaryUrl;
+    private static String followerUrl;
+    private final TestRestTemplate restTemplate = new TestRestTemplate();
+
+    @BeforeAll
+    static void start() throws IOException {
+        primaryUrl = "http://localhost:" + freePort();
+        followerUrl = "http://localhost:" + freePort();
+        primary = run(primaryUrl, null);
+        follower = run(followerUrl, primaryUrl);
+    }
+
+    @AfterAll
+    static void stop() {
+        follower.close();
+        primary.close();
+    }
+
+    @BeforeEach
+    void clear() {
+        primary.getBean(TransactionRepository.class).deleteAll();
+        awaitCaughtUp(follower);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static ConfigurableApplicationContext run(String url, String following) {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=" + url.substring(url.lastIndexOf(':') + 1),
+                "--transaction.replication.enabled=true",
+                "--transaction.replication.poll-wait-ms=1000"));
+        if (following != null) {
+            args.add("--transaction.replication.primary-url=" + following);
+        }
+        return new SpringApplicationBuilder(TransactionServiceApplication.class).run(args.toArray(String[]::new));
+    }
+
+    private static void awaitCaughtUp(ConfigurableApplicationContext replica) {
+        long primarySequence = primary.getBean(ReplicationLog.class).lastSequence();
+        ReplicationFollower state = replica.getBean(ReplicationFollower.class);
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (state.logId() == null || state.appliedSequence() < primarySequence) {
+            assertTrue(System.currentTimeMillis() < deadline, "Follower did not catch up: " + state.lastError());
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static void assertSameData(ConfigurableApplicationContext replica) {
+        TransactionRepository expected = primary.getBean(TransactionRepository.class);
+        TransactionRepository actual = replica.getBean(TransactionRepository.class);
+        assertEquals(expected.count(), actual.count());
+        expected.forEach(transaction -> {
+            Transaction copy = actual.findById(transaction.getId()).orElseThrow();
+            assertEquals(transaction.getVersion(), copy.getVersion());
+            assertEquals(transaction.getAmount(), copy.getAmount());
+            assertEquals(transaction.getTimestamp(), copy.getTimestamp());
+        });
+        assertEquals(expected.getBalances(), actual.getBalances());
+    }
+
+    private static TransactionRequest request(String account, String amount) {
+        TransactionRequest request = new TransactionRequest();
+        request.setAccountNumber(account);
+        request.setAmount(new BigDecimal(amount));
+        request.setType("DEPOSIT");
+        request.setDescription("Replication test");
+        return request;
+    }
+
+    private ResponseEntity<Transaction> create(String node, TransactionRequest request) {
+        return restTemplate.postForEntity(node + "/api/transactions", request, Transaction.class);
+    }
+
+    @Test
+    void follower_ShouldApplyThePrimarysMutationsInOrderUnderLoad() throws Exception {
+        int numThreads = 8;
+        int operationsPerThread = 100;
+        AtomicInteger successCount = new AtomicInteger();
+        long appliedBefore = follower.getBean(ReplicationFollower.class).appliedRecords();
+
+        ExecutorService executorService = Executors.newFixedThreadPool(numThreads);
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        long startTime = System.currentTimeMillis();
+        for (int t = 0; t < numThreads; t++) {
+            int thread = t;
+            futures.add(CompletableFuture.runAsync(() -> {
+                for (int j = 0; j < operationsPerThread; j++) {
+                    ResponseEntity<Transaction> created =
+                            create(primaryUrl, request(String.valueOf(10_000 + thread), (j + 1) + ".00"));
+                    if (!created.getStatusCode().is2xxSuccessful()) {
+                        continue;
+                    }
+                    successCount.incrementAndGet();
+                    String url = primaryUrl + "/api/transactions/" + created.getBody().getId();
+                    // Every third transaction is updated and every fifth deleted again
+                    if (j % 3 == 0) {
+                        restTemplate.exchange(url, HttpMethod.PUT, new HttpEntity<>(
+                                request(String.valueOf(10_000 + thread), (j + 1) + ".50")), Transaction.class);
+                    }
+                    if (j % 5 == 0) {
+                        restTemplate.exchange(url, HttpMethod.DELETE, null, Void.class);
+                    }
+                }
+            }, executorService));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(120, TimeUnit.SECONDS);
+        executorService.shutdown();
+        awaitCaughtUp(follower);
+        double totalTimeInSeconds = (System.currentTimeMillis() - startTime) / 1000.0;
+
+        assertEquals(numThreads * operationsPerThread, successCount.get());
+        assertSameData(follower);
+
+        ReplicationFollower state = follower.getBean(ReplicationFollower.class);
+        long applied = state.appliedRecords() - appliedBefore;
+        HistogramSnapshot lag = state.lagTimer().takeSnapshot();
+        System.out.println("Replication Test Results:");
+        System.out.println("Total time: " + totalTimeInSeconds + " seconds");
+        System.out.println("Records replicated: " + applied);
+        System.out.println("Replication throughput: " + applied / totalTimeInSeconds + " records/second");
+        for (ValueAtPercentile percentile : lag.percentileValues()) {
+            System.out.println("Replication lag p" + Math.round(percentile.percentile() * 100) + ": "
+                    + percentile.value(TimeUnit.MILLISECONDS) + " ms");
+        }
+        assertTrue(applied >= successCount.get());
+    }
+
+    @Test
+    void follower_ShouldServeReadsAndRejectWrites() {
+        Transaction created = create(primaryUrl, request("20002", "10.00")).getBody();
+        awaitCaughtUp(follower);
+        String balance = followerUrl + "/api/accounts/20002/balance";
+        assertEquals(0, new BigDecimal("10.00").compareTo(
+                restTemplate.getForObject(balance, AccountBalance.class).getBalance()));
+
+        restTemplate.exchange(primaryUrl + "/api/transactions/" + created.getId(), HttpMethod.PUT,
+                new HttpEntity<>(request("20002", "15.00")), Transaction.class);
+        awaitCaughtUp(follower);
+        TransactionPage page = restTemplate.getForObject(followerUrl + "/api/accounts/20002/transactions",
+                TransactionPage.class);
+        assertEquals(1, page.getItems().size());
+        assertEquals(0, new BigDecimal("15.00").compareTo(page.getItems().get(0).getAmount()));
+        assertEquals(0, new BigDecimal("15.00").compareTo(
+                restTemplate.getForObject(balance, AccountBalance.class).getBalance()));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, restTemplate.postForEntity(followerUrl + "/api/transactions",
+                request("20002", "20.00"), String.class).getStatusCode());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, restTemplate.exchange(
+                followerUrl + "/api/transactions/" + created.getId(), HttpMethod.DELETE, null, String.class)
+                .getStatusCode());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void newFollower_ShouldStartFromASnapshotAndAcceptWritesOncePromoted() throws IOException {
+        for (int i = 0; i < 50; i++) {
+            create(primaryUrl, request("30003", (i + 1) + ".00"));
+        }
+        String standbyUrl = "http://localhost:" + freePort();
+        ConfigurableApplicationContext standby = run(standbyUrl, primaryUrl);
+        try {
+            awaitCaughtUp(standby);
+            assertSameData(standby);
+            create(primaryUrl, request("30003", "100.00"));
+            awaitCaughtUp(standby);
+            assertSameData(standby);
+
+            Map<String, Object> status = restTemplate.postForObject(standbyUrl + "/actuator/replication",
+                    new HttpEntity<>(Map.of()), Map.class);
+            assertEquals("primary", status.get("role"));
+            assertEquals(HttpStatus.CREATED, create(standbyUrl, request("30003", "200.00")).getStatusCode());
+            assertEquals(52, standby.getBean(TransactionRepository.class).count());
+            assertEquals(51, primary.getBean(TransactionRepository.class).count());
+        } finally {
+            standby.close();
+        }
+    }
+}
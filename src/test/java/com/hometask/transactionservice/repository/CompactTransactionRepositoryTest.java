@@ -0,0 +1,12 @@
+package com.hometask.transactionservice.repository;
+
+/**
+ * Runs the repository tests against the compact storage engine.
+ */
+public class CompactTransactionRepositoryTest extends TransactionRepositoryTest {
+
+    @Override
+    TransactionRepository createRepository() {
+        return new TransactionRepository(new CompactTransactionStore());
+    }
+}
@@ -0,0 +1,154 @@
+package com.hometask.transactionservice.repository;
+
+import com.hometask.transactionservice.model.Transaction;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompactTransactionStoreTest {
+
+    private final CompactTransactionStore store = new CompactTransactionStore();
+
+    private static void assertSameFields(Transaction expected, Transaction actual) {
+        assertNotNull(actual, expected.getId());
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getAccountNumber(), actual.getAccountNumber());
+        // equals, not compareTo: the scale must survive too
+        assertEquals(expected.getAmount(), actual.getAmount());
+        assertEquals(expected.getType(), actual.getType());
+        assertEquals(expected.getDescription(), actual.getDescription());
+        assertEquals(expected.getTimestamp(), actual.getTimestamp());
+        assertEquals(expected.getDestinationAccount(), actual.getDestinationAccount());
+    }
+
+    private static void put(TransactionStore store, Transaction transaction) {
+        store.compute(transaction.getId(), (id, previous) -> transaction);
+    }
+
+    @Test
+    void shouldRoundTripEveryFieldExactly() {
+        List<Transaction> transactions = List.of(
+                new Transaction("12345", new BigDecimal("100.00"), "DEPOSIT", "Salary"),
+                new Transaction("custom-id", "12345", new BigDecimal("1E+3"), "TRANSFER", "Zahlung für Miete ✓",
+                        LocalDateTime.of(2024, 2, 29, 23, 59, 59, 123_456_789), "67890"),
+                new Transaction("UPPER-CASE-ISNT-A-CANONICAL-UUID-123", null, null, null, null, null, null),
+                new Transaction(UUID.randomUUID().toString(), "12345",
+                        new BigDecimal(new BigInteger("123456789012345678901234567890"), 4), "WITHDRAWAL", "",
+                        LocalDateTime.of(1500, 1, 1, 0, 0), null),
+                new Transaction(UUID.randomUUID().toString(), "12345", new BigDecimal("-0.000000000001"),
+                        "DEPOSIT", "Tiny", LocalDateTime.of(3000, 12, 31, 0, 0), null),
+                new Transaction(UUID.randomUUID().toString().toUpperCase(), "12345", BigDecimal.ONE, "DEPOSIT",
+                        "Upper-case UUID", LocalDateTime.of(1970, 1, 1, 0, 0), null));
+
+        transactions.forEach(transaction -> put(store, transaction));
+
+        assertEquals(transactions.size(), store.size());
+        for (Transaction transaction : transactions) {
+            assertTrue(store.containsKey(transaction.getId()));
+            assertSameFields(transaction, store.get(transaction.getId()));
+        }
+        Map<String, Transaction> visited = new HashMap<>();
+        store.forEach(transaction -> visited.put(transaction.getId(), transaction));
+        assertEquals(transactions.size(), visited.size());
+        transactions.forEach(transaction -> assertSameFields(transaction, visited.get(transaction.getId())));
+    }
+
+    @Test
+    void computeShouldSeePreviousVersionAndRemoveOnNull() {
+        Transaction original = new Transaction("12345", new BigDecimal("10.00"), "DEPOSIT", "Original");
+        put(store, original);
+
+        Transaction updated = new Transaction(original.getId(), "12345", new BigDecimal("20.00"), "DEPOSIT",
+                "Updated", original.getTimestamp(), null);
+        store.compute(original.getId(), (id, previous) -> {
+            assertSameFields(original, previous);
+            return updated;
+        });
+        assertSameFields(updated, store.get(original.getId()));
+
+        assertNull(store.computeIfPresent("missing", (id, previous) -> fail("Should not be called")));
+        store.computeIfPresent(original.getId(), (id, previous) -> null);
+        assertNull(store.get(original.getId()));
+        assertEquals(0, store.size());
+
+        assertThrows(IllegalArgumentException.class, () -> store.compute("other", (id, previous) -> updated));
+    }
+
+    @Test
+    void shouldMatchAMapUnderRandomSavesUpdatesAndDeletes() {
+        Random random = new Random(42);
+        Map<String, Transaction> expected = new HashMap<>();
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            ids.add(i % 3 == 0 ? "id-" + i : UUID.randomUUID().toString());
+        }
+
+        for (int step = 0; step < 50_000; step++) {
+            String id = ids.get(random.nextInt(ids.size()));
+            if (random.nextInt(4) == 0) {
+                expected.remove(id);
+                store.computeIfPresent(id, (key, previous) -> null);
+            } else {
+                // Descriptions of varying length churn the description arena, which forces compaction
+                Transaction transaction = new Transaction(id, String.valueOf(10_000 + random.nextInt(50)),
+                        BigDecimal.valueOf(random.nextInt(1_000_000), 2), "DEPOSIT",
+                        "x".repeat(random.nextInt(200)), LocalDateTime.now(), null);
+                expected.put(id, transaction);
+                put(store, transaction);
+            }
+        }
+
+        assertEquals(expected.size(), store.size());
+        for (String id : ids) {
+            Transaction transaction = expected.get(id);
+            if (transaction == null) {
+                assertFalse(store.containsKey(id));
+            } else {
+                assertSameFields(transaction, store.get(id));
+            }
+        }
+
+        store.clear();
+        assertEquals(0, store.size());
+        assertNull(store.get(ids.get(0)));
+    }
+
+    @Test
+    void concurrentWritersShouldNotLoseRows() {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<CompletableFuture<Void>> writes = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            int offset = thread * 10_000;
+            writes.add(CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    Transaction transaction = new Transaction(String.valueOf(10_000 + i % 100),
+                            BigDecimal.valueOf(offset + i, 2), "DEPOSIT", "Concurrent");
+                    put(store, transaction);
+                    if (i % 2 == 0) {
+                        store.computeIfPresent(transaction.getId(), (id, previous) -> null);
+                    }
+                }
+            }, executor));
+        }
+        CompletableFuture.allOf(writes.toArray(new CompletableFuture[0])).join();
+        executor.shutdown();
+
+        assertEquals(40_000, store.size());
+        int[] visited = new int[1];
+        store.forEach(transaction -> visited[0]++);
+        assertEquals(40_000, visited[0]);
+    }
+}
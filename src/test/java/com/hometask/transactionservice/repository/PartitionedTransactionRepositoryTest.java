@@ -0,0 +1,72 @@
+package com.hometask.transactionservice.repository;
+
+import com.hometask.transactionservice.model.Transaction;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the repository tests with transactions spread over several partitions, each with its own writer thread.
+ */
+public class PartitionedTransactionRepositoryTest extends TransactionRepositoryTest {
+
+    private static final int PARTITIONS = 4;
+
+    @Override
+    TransactionRepository createRepository() {
+        return new TransactionRepository(ConcurrentMapTransactionStore::new, PARTITIONS, new CompositeMeterRegistry());
+    }
+
+    @Test
+    void findPageAfter_ShouldMergeAllPartitionsInTimestampOrder() {
+        TransactionRepository repository = createRepository();
+        LocalDateTime base = LocalDateTime.now().minusHours(1);
+        List<Transaction> saved = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            // Many accounts, so every partition holds some of the transactions
+            saved.add(repository.save(new Transaction(UUID.randomUUID().toString(), "ACC" + (i % 37),
+                    new BigDecimal("1.00"), "DEPOSIT", "Test transaction", base.plusSeconds(i % 50), null)));
+        }
+        saved.sort(Comparator.comparing(TimelineKey::of));
+
+        List<Transaction> walked = new ArrayList<>();
+        TimelineKey after = null;
+        List<Transaction> page;
+        while (!(page = repository.findPageAfter(after, 7)).isEmpty()) {
+            walked.addAll(page);
+            after = TimelineKey.of(page.get(page.size() - 1));
+        }
+
+        assertEquals(saved.stream().map(Transaction::getId).toList(), walked.stream().map(Transaction::getId).toList());
+        assertEquals(saved.get(70).getId(), repository.findAllPaginated(10, 7).get(0).getId());
+        assertEquals(200, repository.streamInOrder(null, null, null).count());
+    }
+
+    @Test
+    void update_ShouldKeepTheTransactionFindableWhenItsAccountMovesToAnotherPartition() {
+        TransactionRepository repository = createRepository();
+        Transaction original = repository.save(new Transaction("ACC1", new BigDecimal("10.00"), "DEPOSIT", "x"));
+
+        // Walk through accounts until one lands in another partition than ACC1's
+        for (int i = 2; i < 50; i++) {
+            Transaction current = repository.findById(original.getId()).orElseThrow();
+            Transaction moved = current.withDetails("ACC" + i, new BigDecimal("10.00"), "DEPOSIT", "x", null);
+            assertTrue(repository.replace(current, moved));
+        }
+
+        assertEquals(1, repository.count());
+        assertEquals(49, repository.findById(original.getId()).orElseThrow().getVersion());
+        assertEquals(0, new BigDecimal("10.00").compareTo(repository.getBalance("ACC49")));
+        assertEquals(0, BigDecimal.ZERO.compareTo(repository.getBalance("ACC1")));
+        assertEquals(1, repository.findByAccountAfter("ACC49", null, 10).size());
+        assertTrue(repository.findByAccountAfter("ACC1", null, 10).isEmpty());
+    }
+}
@@ -0,0 +1,481 @@
+package com.hometask.transactionservice.repository;
+
+import com.hometask.transactionservice.model.Transaction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransactionRepositoryTest {
+
+    private TransactionRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = createRepository();
+    }
+
+    TransactionRepository createRepository() {
+        return new TransactionRepository();
+    }
+
+    private Transaction transaction(String accountNumber, String amount, String type, LocalDateTime timestamp) {
+        return new Transaction(UUID.randomUUID().toString(), accountNumber, new BigDecimal(amount), type,
+                "Test transaction", timestamp, null);
+    }
+
+    private Transaction transfer(String from, String to, String amount, LocalDateTime timestamp) {
+        return new Transaction(UUID.randomUUID().toString(), from, new BigDecimal(amount), "TRANSFER",
+                "Test transaction", timestamp, to);
+    }
+
+    @Test
+    void isDuplicate_WhenSameSignatureWithinWindow_ShouldReturnTrue() {
+        repository.save(transaction("12345", "100.00", "DEPOSIT", LocalDateTime.now()));
+
+        assertTrue(repository.isDuplicate(transaction("12345", "100.00", "DEPOSIT", LocalDateTime.now())));
+    }
+
+    @Test
+    void isDuplicate_WhenAnyFieldDiffers_ShouldReturnFalse() {
+        repository.save(transaction("12345", "100.00", "DEPOSIT", LocalDateTime.now()));
+
+        assertFalse(repository.isDuplicate(transaction("54321", "100.00", "DEPOSIT", LocalDateTime.now())));
+        assertFalse(repository.isDuplicate(transaction("12345", "100.01", "DEPOSIT", LocalDateTime.now())));
+        assertFalse(repository.isDuplicate(transaction("12345", "100.00", "WITHDRAWAL", LocalDateTime.now())));
+    }
+
+    @Test
+    void isDuplicate_WhenOutsideWindow_ShouldReturnFalse() {
+        repository.save(transaction("12345", "100.00", "DEPOSIT", LocalDateTime.now().minusSeconds(61)));
+
+        assertFalse(repository.isDuplicate(transaction("12345", "100.00", "DEPOSIT", LocalDateTime.now())));
+    }
+
+    @Test
+    void isDuplicate_ShouldIgnoreTheSameTransaction() {
+        Transaction saved = repository.save(transaction("12345", "100.00", "DEPOSIT", LocalDateTime.now()));
+
+        assertFalse(repository.isDuplicate(saved));
+    }
+
+    @Test
+    void isDuplicate_AfterDelete_ShouldReturnFalse() {
+        Transaction saved = repository.save(transaction("12345", "100.00", "DEPOSIT", LocalDateTime.now()));
+        repository.deleteById(saved.getId());
+
+        assertFalse(repository.isDuplicate(transaction("12345", "100.00", "DEPOSIT", LocalDateTime.now())));
+    }
+
+    @Test
+    void isDuplicate_AfterUpdate_ShouldMatchOnlyTheNewSignature() {
+        Transaction saved = repository.save(transaction("12345", "100.00", "DEPOSIT", LocalDateTime.now()));
+        repository.save(saved.withDetails(saved.getAccountNumber(), new BigDecimal("250.00"), saved.getType(),
+                saved.getDescription(), null));
+
+        assertFalse(repository.isDuplicate(transaction("12345", "100.00", "DEPOSIT", LocalDateTime.now())));
+        assertTrue(repository.isDuplicate(transaction("12345", "250.00", "DEPOSIT", LocalDateTime.now())));
+    }
+
+    @Test
+    void deleteAll_ShouldClearStoreAndDuplicateWindow() {
+        repository.save(transaction("12345", "100.00", "DEPOSIT", LocalDateTime.now()));
+        repository.deleteAll();
+
+        assertEquals(0, repository.count());
+        assertFalse(repository.isDuplicate(transaction("12345", "100.00", "DEPOSIT", LocalDateTime.now())));
+    }
+
+    @Test
+    void findPageAfter_ShouldWalkTransactionsInTimestampOrder() {
+        LocalDateTime base = LocalDateTime.now().minusHours(1);
+        Transaction first = repository.save(transaction("11111", "1.00", "DEPOSIT", base.plusSeconds(1)));
+        Transaction third = repository.save(transaction("33333", "3.00", "DEPOSIT", base.plusSeconds(3)));
+        Transaction second = repository.save(transaction("22222", "2.00", "DEPOSIT", base.plusSeconds(2)));
+
+        List<Transaction> firstPage = repository.findPageAfter(null, 2);
+        assertEquals(List.of(first, second), firstPage);
+
+        List<Transaction> secondPage = repository.findPageAfter(TimelineKey.of(second), 2);
+        assertEquals(List.of(third), secondPage);
+    }
+
+    @Test
+    void findPageAfter_ShouldNotSkipRowsWhenNewTransactionsArrive() {
+        LocalDateTime base = LocalDateTime.now().minusHours(1);
+        Transaction first = repository.save(transaction("11111", "1.00", "DEPOSIT", base.plusSeconds(1)));
+        Transaction second = repository.save(transaction("22222", "2.00", "DEPOSIT", base.plusSeconds(2)));
+
+        List<Transaction> firstPage = repository.findPageAfter(null, 1);
+        Transaction latest = repository.save(transaction("33333", "3.00", "DEPOSIT", base.plusSeconds(3)));
+
+        assertEquals(List.of(first), firstPage);
+        assertEquals(List.of(second, latest), repository.findPageAfter(TimelineKey.of(first), 10));
+    }
+
+    @Test
+    void findAllPaginated_ShouldServePagesFromTheOrderedIndex() {
+        LocalDateTime base = LocalDateTime.now().minusHours(1);
+        for (int i = 0; i < 5; i++) {
+            repository.save(transaction("1111" + i, "1.00", "DEPOSIT", base.plusSeconds(5 - i)));
+        }
+
+        List<Transaction> page0 = repository.findAllPaginated(0, 2);
+        List<Transaction> page1 = repository.findAllPaginated(1, 2);
+        List<Transaction> page2 = repository.findAllPaginated(2, 2);
+
+        assertEquals("11114", page0.get(0).getAccountNumber());
+        assertEquals("11113", page0.get(1).getAccountNumber());
+        assertEquals("11112", page1.get(0).getAccountNumber());
+        assertEquals(1, page2.size());
+        assertEquals("11110", page2.get(0).getAccountNumber());
+    }
+
+    @Test
+    void timelineKey_ShouldRoundTripThroughCursor() {
+        TimelineKey key = new TimelineKey(LocalDateTime.of(2024, 1, 2, 3, 4, 5, 600), "some-id");
+
+        assertEquals(key, TimelineKey.fromCursor(key.toCursor()));
+        assertThrows(IllegalArgumentException.class, () -> TimelineKey.fromCursor("not a cursor"));
+    }
+
+    @Test
+    void findByAccountAfter_ShouldIncludeIncomingTransfers() {
+        LocalDateTime base = LocalDateTime.now().minusHours(1);
+        Transaction deposit = repository.save(transaction("11111", "1.00", "DEPOSIT", base.plusSeconds(1)));
+        Transaction transfer = repository.save(transfer("22222", "11111", "2.00", base.plusSeconds(2)));
+        repository.save(transaction("33333", "3.00", "DEPOSIT", base.plusSeconds(3)));
+
+        assertEquals(List.of(deposit, transfer), repository.findByAccountAfter("11111", null, 10));
+        assertEquals(List.of(transfer), repository.findByAccountAfter("22222", null, 10));
+        assertEquals(List.of(transfer), repository.findByAccountAfter("11111", TimelineKey.of(deposit), 10));
+        assertTrue(repository.findByAccountAfter("99999", null, 10).isEmpty());
+    }
+
+    @Test
+    void findByAccountAfter_ShouldFollowAccountChangesAndDeletes() {
+        Transaction original = repository.save(transaction("11111", "1.00", "DEPOSIT", LocalDateTime.now()));
+        Transaction moved = new Transaction(original.getId(), "22222", original.getAmount(), original.getType(),
+                original.getDescription(), original.getTimestamp(), null);
+        repository.save(moved);
+
+        assertTrue(repository.findByAccountAfter("11111", null, 10).isEmpty());
+        assertEquals(List.of(moved), repository.findByAccountAfter("22222", null, 10));
+
+        repository.deleteById(moved.getId());
+
+        assertTrue(repository.findByAccountAfter("22222", null, 10).isEmpty());
+    }
+
+    @Test
+    void getBalance_ShouldFollowCreatesUpdatesAndDeletes() {
+        LocalDateTime base = LocalDateTime.now().minusHours(1);
+        Transaction deposit = repository.save(transaction("11111", "100.00", "DEPOSIT", base));
+        repository.save(transaction("11111", "30.00", "WITHDRAWAL", base.plusSeconds(1)));
+        Transaction transfer = repository.save(transfer("11111", "22222", "20.00", base.plusSeconds(2)));
+
+        assertEquals(0, new BigDecimal("50.00").compareTo(repository.getBalance("11111")));
+        assertEquals(0, new BigDecimal("20.00").compareTo(repository.getBalance("22222")));
+        assertEquals(0, BigDecimal.ZERO.compareTo(repository.getBalance("99999")));
+
+        // An update applies only the difference
+        repository.save(new Transaction(deposit.getId(), "11111", new BigDecimal("150.00"), "DEPOSIT",
+                "Corrected", deposit.getTimestamp(), null));
+        assertEquals(0, new BigDecimal("100.00").compareTo(repository.getBalance("11111")));
+
+        repository.deleteById(transfer.getId());
+        assertEquals(0, new BigDecimal("120.00").compareTo(repository.getBalance("11111")));
+        assertEquals(0, BigDecimal.ZERO.compareTo(repository.getBalance("22222")));
+    }
+
+    @Test
+    void getBalance_ShouldMatchRebuiltBalancesAfterConcurrentWriters() {
+        List<String> accounts = List.of("10001", "10002", "10003", "10004");
+        List<String> types = List.of("DEPOSIT", "WITHDRAWAL", "TRANSFER");
+        LocalDateTime base = LocalDateTime.now().minusHours(1);
+        IntStream.range(0, 20_000).parallel().forEach(i -> {
+            Transaction transaction = new Transaction("id-" + (i % 5_000), accounts.get(i % 4),
+                    BigDecimal.valueOf(i % 997, 2), types.get(i % 3), null, base.plusNanos(i * 1_000L),
+                    accounts.get((i + 1) % 4));
+            if (i % 7 == 0) {
+                repository.deleteById(transaction.getId());
+            } else {
+                repository.save(transaction);
+            }
+        });
+
+        Map<String, BigDecimal> rebuilt = repository.recomputeBalances();
+        for (String account : accounts) {
+            BigDecimal expected = rebuilt.getOrDefault(account, BigDecimal.ZERO);
+            assertEquals(0, expected.compareTo(repository.getBalance(account)), account);
+            assertEquals(0, expected.compareTo(repository.recomputeBalance(account)), account);
+        }
+    }
+
+    @Test
+    void streamInOrder_ShouldApplyAccountAndTimeRange() {
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        Transaction first = repository.save(transaction("11111", "1.00", "DEPOSIT", base));
+        Transaction second = repository.save(transaction("22222", "2.00", "DEPOSIT", base.plusHours(1)));
+        Transaction third = repository.save(transaction("11111", "3.00", "DEPOSIT", base.plusHours(2)));
+
+        assertEquals(List.of(first, second, third), repository.streamInOrder(null, null, null).toList());
+        assertEquals(List.of(first, third), repository.streamInOrder("11111", null, null).toList());
+        // from is inclusive, to exclusive
+        assertEquals(List.of(second), repository.streamInOrder(null, base.plusHours(1), base.plusHours(2)).toList());
+        assertEquals(List.of(third), repository.streamInOrder("11111", base.plusMinutes(1), null).toList());
+        assertTrue(repository.streamInOrder("99999", null, null).toList().isEmpty());
+    }
+
+    @Test
+    void findInRangeAfter_ShouldPageThroughTheRangeOnly() {
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<Transaction> saved = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            saved.add(repository.save(transaction(i % 2 == 0 ? "11111" : "22222", (i + 1) + ".00", "DEPOSIT",
+                    base.plusMinutes(i))));
+        }
+        LocalDateTime from = base.plusMinutes(2);
+        LocalDateTime to = base.plusMinutes(8);
+
+        List<Transaction> firstPage = repository.findInRangeAfter(null, from, to, null, 4);
+        assertEquals(saved.subList(2, 6), firstPage);
+        assertEquals(saved.subList(6, 8),
+                repository.findInRangeAfter(null, from, to, TimelineKey.of(firstPage.get(3)), 4));
+        assertEquals(List.of(saved.get(2), saved.get(4), saved.get(6)),
+                repository.findInRangeAfter("11111", from, to, null, 10));
+        assertEquals(saved.subList(0, 2), repository.findInRangeAfter(null, null, from, null, 10));
+        assertEquals(saved.subList(8, 10), repository.findInRangeAfter(null, to, null, null, 10));
+        assertTrue(repository.findInRangeAfter(null, base.plusHours(1), null, null, 10).isEmpty());
+    }
+
+    @Test
+    void findInRangeAfter_ShouldFollowUpdatesAndDeletes() {
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        Transaction inRange = repository.save(transaction("11111", "1.00", "DEPOSIT", base.plusMinutes(5)));
+        Transaction other = repository.save(transaction("11111", "2.00", "DEPOSIT", base.plusMinutes(6)));
+
+        Transaction moved = new Transaction(inRange.getId(), "22222", inRange.getAmount(), inRange.getType(),
+                inRange.getDescription(), base.plusHours(5), null);
+        repository.save(moved);
+        assertEquals(List.of(other), repository.findInRangeAfter(null, base, base.plusHours(1), null, 10));
+        assertEquals(List.of(moved), repository.findInRangeAfter("22222", base, null, null, 10));
+
+        repository.deleteById(other.getId());
+        assertTrue(repository.findInRangeAfter(null, base, base.plusHours(1), null, 10).isEmpty());
+    }
+
+    @Test
+    void getRollups_ShouldFollowCreatesUpdatesAndDeletes() {
+        LocalDateTime hour = LocalDateTime.of(2024, 1, 1, 10, 0);
+        Transaction smallest = repository.save(transaction("11111", "5.00", "DEPOSIT", hour.plusMinutes(1)));
+        Transaction largest = repository.save(transaction("11111", "50.00", "DEPOSIT", hour.plusMinutes(2)));
+        repository.save(transaction("11111", "20.00", "DEPOSIT", hour.plusMinutes(2).plusSeconds(30)));
+        repository.save(transaction("11111", "7.00", "WITHDRAWAL", hour.plusMinutes(3)));
+        repository.save(transfer("11111", "22222", "9.00", hour.plusHours(1)));
+
+        List<Rollup> hourly = repository.getRollups("11111", RollupGranularity.HOUR, null, null);
+        assertEquals(3, hourly.size());
+        assertRollup(hourly.get(0), "DEPOSIT", hour, 3, "75.00", "5.00", "50.00");
+        assertRollup(hourly.get(1), "WITHDRAWAL", hour, 1, "7.00", "7.00", "7.00");
+        assertRollup(hourly.get(2), "TRANSFER", hour.plusHours(1), 1, "9.00", "9.00", "9.00");
+        assertEquals(4, repository.getRollups("11111", RollupGranularity.MINUTE, null, null).size());
+        assertEquals(3, repository.getRollups("11111", RollupGranularity.DAY, null, null).size());
+        // Rolled up under the source account only
+        assertTrue(repository.getRollups("22222", RollupGranularity.HOUR, null, null).isEmpty());
+
+        // Removing the min or max recomputes it from the rest of the bucket
+        repository.save(new Transaction(largest.getId(), "11111", new BigDecimal("10.00"), "DEPOSIT",
+                "Corrected", largest.getTimestamp(), null));
+        repository.deleteById(smallest.getId());
+        hourly = repository.getRollups("11111", RollupGranularity.HOUR, hour, hour.plusHours(1));
+        assertEquals(2, hourly.size());
+        assertRollup(hourly.get(0), "DEPOSIT", hour, 2, "30.00", "10.00", "20.00");
+        List<Rollup> minutes = repository.getRollups("11111", RollupGranularity.MINUTE, hour.plusMinutes(2),
+                hour.plusMinutes(3));
+        assertEquals(1, minutes.size());
+        assertRollup(minutes.get(0), "DEPOSIT", hour.plusMinutes(2), 2, "30.00", "10.00", "20.00");
+        assertTrue(repository.getRollups("11111", RollupGranularity.MINUTE, hour.plusMinutes(1),
+                hour.plusMinutes(2)).isEmpty());
+
+        // A type change moves the amount to the other type's bucket
+        repository.save(new Transaction(largest.getId(), "11111", new BigDecimal("10.00"), "WITHDRAWAL",
+                "Corrected", largest.getTimestamp(), null));
+        hourly = repository.getRollups("11111", RollupGranularity.HOUR, hour, hour.plusHours(1));
+        assertRollup(hourly.get(0), "DEPOSIT", hour, 1, "20.00", "20.00", "20.00");
+        assertRollup(hourly.get(1), "WITHDRAWAL", hour, 2, "17.00", "7.00", "10.00");
+
+        repository.deleteAll();
+        assertTrue(repository.getRollups("11111", RollupGranularity.HOUR, null, null).isEmpty());
+    }
+
+    @Test
+    void getRollups_ShouldMatchTheTransactionsAfterConcurrentWriters() {
+        List<String> accounts = List.of("10001", "10002", "10003", "10004");
+        List<String> types = List.of("DEPOSIT", "WITHDRAWAL", "TRANSFER");
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        IntStream.range(0, 20_000).parallel().forEach(i -> {
+            Transaction transaction = new Transaction("id-" + (i % 5_000), accounts.get(i % 4),
+                    BigDecimal.valueOf(i % 997, 2), types.get(i % 3), null, base.plusSeconds(i % 7_200),
+                    accounts.get((i + 1) % 4));
+            if (i % 7 == 0) {
+                repository.deleteById(transaction.getId());
+            } else {
+                repository.save(transaction);
+            }
+        });
+
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            Map<String, List<Rollup>> expected = new HashMap<>();
+            for (Transaction transaction : repository.findAll()) {
+                LocalDateTime start = granularity.bucketOf(transaction.getTimestamp());
+                expected.computeIfAbsent(transaction.getAccountNumber(), account -> new ArrayList<>())
+                        .add(new Rollup(transaction.getType(), start, 1, transaction.getAmount(),
+                                transaction.getAmount(), transaction.getAmount()));
+            }
+            for (String account : accounts) {
+                Map<Rollup, Rollup> buckets = new TreeMap<>(Rollup.ORDER);
+                expected.getOrDefault(account, List.of()).forEach(r -> buckets.merge(r, r, Rollup::merge));
+                List<Rollup> actual = repository.getRollups(account, granularity, null, null);
+                assertEquals(buckets.size(), actual.size(), account + " " + granularity);
+                int i = 0;
+                for (Rollup bucket : buckets.values()) {
+                    Rollup rollup = actual.get(i++);
+                    assertRollup(rollup, bucket.type(), bucket.start(), bucket.count(), bucket.sum().toPlainString(),
+                            bucket.min().toPlainString(), bucket.max().toPlainString());
+                }
+            }
+        }
+    }
+
+    @Test
+    void compactRollups_ShouldDropOnlyTheFinerBucketsBeforeTheHorizon() {
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        Transaction old = repository.save(transaction("11111", "1.00", "DEPOSIT", base));
+        repository.save(transaction("11111", "2.00", "DEPOSIT", base.plusHours(3)));
+
+        repository.compactRollups(RollupGranularity.MINUTE, base.plusHours(1).plusSeconds(30));
+        List<Rollup> minutes = repository.getRollups("11111", RollupGranularity.MINUTE, null, null);
+        assertEquals(1, minutes.size());
+        assertEquals(base.plusHours(3), minutes.get(0).start());
+        assertEquals(2, repository.getRollups("11111", RollupGranularity.HOUR, null, null).size());
+
+        // A range that ends at or before the horizon holds no minute buckets any more
+        assertTrue(repository.getRollups("11111", RollupGranularity.MINUTE, null, base.plusMinutes(30)).isEmpty());
+        assertTrue(repository.getRollups("11111", RollupGranularity.MINUTE, base, base.plusHours(1)).isEmpty());
+        assertEquals(1, repository.getRollups("11111", RollupGranularity.MINUTE, base, base.plusHours(4)).size());
+
+        // Changes before the horizon still reach the coarser buckets, but no minute bucket is re-created
+        repository.save(transaction("11111", "4.00", "DEPOSIT", base.plusMinutes(5)));
+        repository.deleteById(old.getId());
+        assertEquals(1, repository.getRollups("11111", RollupGranularity.MINUTE, null, null).size());
+        List<Rollup> days = repository.getRollups("11111", RollupGranularity.DAY, null, null);
+        assertRollup(days.get(0), "DEPOSIT", base, 2, "6.00", "2.00", "4.00");
+    }
+
+    private static void assertRollup(Rollup rollup, String type, LocalDateTime start, long count, String sum,
+                                     String min, String max) {
+        assertEquals(type, rollup.type());
+        assertEquals(start, rollup.start());
+        assertEquals(count, rollup.count());
+        assertEquals(0, new BigDecimal(sum).compareTo(rollup.sum()), "sum");
+        assertEquals(0, new BigDecimal(min).compareTo(rollup.min()), "min");
+        assertEquals(0, new BigDecimal(max).compareTo(rollup.max()), "max");
+    }
+
+    @Test
+    void saveIfNotDuplicate_ShouldStoreExactlyOneOfConcurrentIdenticalInserts() {
+        LocalDateTime now = LocalDateTime.now();
+        long stored = IntStream.range(0, 5_000).parallel()
+                .filter(i -> repository.saveIfNotDuplicate(transaction("12345", "100.00", "DEPOSIT", now)))
+                .count();
+
+        assertEquals(1, stored);
+        assertEquals(1, repository.count());
+        assertEquals(0, new BigDecimal("100.00").compareTo(repository.getBalance("12345")));
+    }
+
+    @Test
+    void saveAllIfNotDuplicate_ShouldRejectDuplicatesOfStoredAndEarlierTransactions() {
+        repository.save(transaction("12345", "100.00", "DEPOSIT", LocalDateTime.now()));
+
+        boolean[] saved = repository.saveAllIfNotDuplicate(List.of(
+                transaction("12345", "100.00", "DEPOSIT", LocalDateTime.now()),
+                transaction("54321", "100.00", "DEPOSIT", LocalDateTime.now()),
+                transaction("54321", "100.00", "DEPOSIT", LocalDateTime.now())));
+
+        assertArrayEquals(new boolean[]{false, true, false}, saved);
+        assertEquals(2, repository.count());
+        // Claims are released, so a later identical insert is rejected by the stored transaction alone
+        assertFalse(repository.saveIfNotDuplicate(transaction("54321", "100.00", "DEPOSIT", LocalDateTime.now())));
+        assertTrue(repository.saveIfNotDuplicate(transaction("54321", "200.00", "DEPOSIT", LocalDateTime.now())));
+    }
+
+    @Test
+    void replace_ShouldOnlyInstallOverTheExpectedVersion() {
+        Transaction first = repository.save(transaction("12345", "100.00", "DEPOSIT", LocalDateTime.now()));
+        Transaction second = first.withDetails("12345", new BigDecimal("200.00"), "DEPOSIT", null, null);
+        Transaction stale = first.withDetails("12345", new BigDecimal("300.00"), "DEPOSIT", null, null);
+
+        assertTrue(repository.replace(first, second));
+        assertFalse(repository.replace(first, stale));
+
+        Transaction stored = repository.findById(first.getId()).orElseThrow();
+        assertEquals(Transaction.INITIAL_VERSION + 1, stored.getVersion());
+        assertEquals(new BigDecimal("200.00"), stored.getAmount());
+        assertEquals(0, new BigDecimal("200.00").compareTo(repository.getBalance("12345")));
+
+        repository.deleteById(first.getId());
+        assertFalse(repository.replace(second, second.withDetails("12345", BigDecimal.ONE, "DEPOSIT", null, null)));
+        assertFalse(repository.existsById(first.getId()));
+    }
+
+    @Test
+    void replace_ShouldNotLoseConcurrentUpdates() {
+        Transaction saved = repository.save(transaction("12345", "0", "DEPOSIT", LocalDateTime.now()));
+        int updates = 4_000;
+        IntStream.range(0, updates).parallel().forEach(i -> {
+            while (true) {
+                Transaction current = repository.findById(saved.getId()).orElseThrow();
+                Transaction next = current.withDetails(current.getAccountNumber(),
+                        current.getAmount().add(BigDecimal.ONE), current.getType(), null, null);
+                if (repository.replace(current, next)) {
+                    return;
+                }
+            }
+        });
+
+        Transaction stored = repository.findById(saved.getId()).orElseThrow();
+        assertEquals(Transaction.INITIAL_VERSION + updates, stored.getVersion());
+        assertEquals(0, BigDecimal.valueOf(updates).compareTo(stored.getAmount()));
+        assertEquals(0, BigDecimal.valueOf(updates).compareTo(repository.getBalance("12345")));
+    }
+
+    @Test
+    void operations_ShouldBeTimedAndSizesReportedAsGauges() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TransactionRepository timed = new TransactionRepository(new ConcurrentMapTransactionStore(), registry);
+        Transaction saved = timed.save(transaction("12345", "100.00", "DEPOSIT", LocalDateTime.now()));
+        timed.isDuplicate(transaction("12345", "100.00", "DEPOSIT", LocalDateTime.now()));
+        timed.isDuplicate(transaction("12345", "100.00", "DEPOSIT", LocalDateTime.now()));
+        timed.findById(saved.getId());
+
+        assertEquals(1, registry.get("transaction.repository").tag("operation", "save").timer().count());
+        assertNull(registry.find("transaction.repository").tag("operation", "isDuplicate").timer());
+        assertNull(registry.find("transaction.repository").tag("operation", "findById").timer());
+        assertEquals(1.0, registry.get("transaction.store.size").gauge().value());
+        assertEquals(1.0, registry.get("transaction.index.size").tag("index", "account").gauge().value());
+        assertEquals(1.0, registry.get("transaction.index.size").tag("index", "duplicateWindow").gauge().value());
+    }
+}
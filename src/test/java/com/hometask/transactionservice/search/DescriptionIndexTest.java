@@ -0,0 +1,290 @@
+package com.hometask.transactionservice.search;
+
+import com.hometask.transactionservice.model.Transaction;
+import com.hometask.transactionservice.repository.TransactionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DescriptionIndexTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private TransactionRepository repository;
+    private DescriptionIndex index;
+
+    @BeforeEach
+    void setUp() {
+        repository = new TransactionRepository();
+        index = new DescriptionIndex(repository, 100, 1_000_000, 1000, new SimpleMeterRegistry());
+        index.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        index.stop();
+    }
+
+    private Transaction save(String description, int minutes) {
+        return repository.save(new Transaction(UUID.randomUUID().toString(), "12345", new BigDecimal("10.00"),
+                "DEPOSIT", description, BASE.plusMinutes(minutes), null));
+    }
+
+    private List<Transaction> search(String query, int limit) {
+        index.awaitUpdates();
+        return index.search(query, limit);
+    }
+
+    @Test
+    void terms_ShouldSplitOnNonAlphanumericsAndLowerCase() {
+        assertEquals(List.of("invoice", "4411", "rent", "march"),
+                DescriptionIndex.terms("Invoice #4411: rent/March"));
+        assertEquals(List.of("café", "über"), DescriptionIndex.terms("  Café -- Über  café"));
+        assertTrue(DescriptionIndex.terms("  ,.-  ").isEmpty());
+        assertEquals(DescriptionIndex.MAX_TERM_LENGTH, DescriptionIndex.terms("x".repeat(100)).get(0).length());
+    }
+
+    @Test
+    void search_ShouldMatchAllTermsByPrefixNewestFirst() {
+        Transaction march = save("Invoice 4411 rent March", 1);
+        Transaction april = save("invoice 4412 rent april", 2);
+        Transaction other = save("Salary", 3);
+        Transaction invoices = save("Invoices paid", 4);
+
+        assertEquals(List.of(invoices, april, march), search("invoice", 10));
+        assertEquals(List.of(march), search("INVOICE 4411", 10));
+        assertEquals(List.of(april, march), search("rent 441", 10));
+        assertEquals(List.of(invoices, april), search("inv", 2));
+        assertEquals(List.of(other), search("sal", 10));
+        assertTrue(search("rent salary", 10).isEmpty());
+        assertTrue(search("nothing", 10).isEmpty());
+    }
+
+    @Test
+    void search_ShouldFollowUpdatesAndDeletes() {
+        Transaction rent = save("rent january", 1);
+        Transaction deleted = save("rent february", 2);
+        repository.save(new Transaction(rent.getId(), rent.getAccountNumber(), rent.getAmount(), rent.getType(),
+                "groceries", rent.getTimestamp(), null));
+        repository.deleteById(deleted.getId());
+
+        assertTrue(search("rent", 10).isEmpty());
+        assertEquals(rent.getId(), search("groceries", 10).get(0).getId());
+        // Only "groceries" is left; the update and the delete removed the other postings
+        assertEquals(1, index.postingCount());
+        assertEquals(1, index.termCount());
+
+        repository.save(new Transaction(rent.getId(), rent.getAccountNumber(), rent.getAmount(), rent.getType(),
+                null, rent.getTimestamp(), null));
+        assertTrue(search("groceries", 10).isEmpty());
+        assertEquals(0, index.postingCount());
+    }
+
+    @Test
+    void recordSave_ShouldApplyUpdatesInOrderWhenTheQueueIsFull() {
+        DescriptionIndex small = new DescriptionIndex(repository, 100, 1_000_000, 1, new SimpleMeterRegistry());
+        small.start();
+        try {
+            Transaction transaction = save("version 0", 0);
+            for (int i = 1; i <= 500; i++) {
+                transaction = repository.save(new Transaction(transaction.getId(), transaction.getAccountNumber(),
+                        transaction.getAmount(), transaction.getType(), "version " + i, transaction.getTimestamp(),
+                        null));
+            }
+            small.awaitUpdates();
+
+            assertEquals(List.of(transaction), small.search("version 500", 10));
+            assertTrue(small.search("version 499", 10).isEmpty());
+            assertEquals(2, small.postingCount());
+        } finally {
+            small.stop();
+        }
+    }
+
+    @Test
+    void recordSave_ShouldNotWaitForAFullQueueButRebuild() throws InterruptedException {
+        AtomicBoolean holdRebuild = new AtomicBoolean();
+        CountDownLatch rebuilding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        TransactionRepository slow = new TransactionRepository() {
+            @Override
+            public void forEach(Consumer<Transaction> action) {
+                if (holdRebuild.getAndSet(false)) {
+                    rebuilding.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                super.forEach(action);
+            }
+        };
+        MeterRegistry registry = new SimpleMeterRegistry();
+        DescriptionIndex small = new DescriptionIndex(slow, 10_000, 1_000_000, 1, registry);
+        small.start();
+        small.awaitUpdates();
+        try {
+            holdRebuild.set(true);
+            int items = 0;
+            while (rebuilding.getCount() > 0 && items < 100_000) {
+                slow.save(new Transaction(UUID.randomUUID().toString(), "12345", BigDecimal.ONE, "DEPOSIT",
+                        "item " + items, BASE.plusMinutes(items++), null));
+            }
+            assertEquals(0, rebuilding.getCount());
+
+            // The updater is stuck in the rebuild, so the queue stays full and every change is dropped
+            assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+                for (int i = 0; i < 1_000; i++) {
+                    slow.save(new Transaction(UUID.randomUUID().toString(), "12345", BigDecimal.ONE, "DEPOSIT",
+                            "late " + i, BASE.plusDays(1).plusMinutes(i), null));
+                }
+            });
+            release.countDown();
+            small.awaitUpdates();
+
+            assertEquals(items, small.search("item", 200_000).size());
+            assertEquals(1_000, small.search("late", 2_000).size());
+            assertTrue(registry.get("transaction.search.rebuilds").counter().count() >= 2);
+        } finally {
+            release.countDown();
+            small.stop();
+        }
+    }
+
+    @Test
+    void search_ShouldKeepOnlyTheNewestPostingsOfATerm() {
+        for (int i = 0; i < 150; i++) {
+            save("rent " + i, i);
+        }
+
+        List<Transaction> found = search("rent", 1000);
+        assertEquals(100, found.size());
+        assertEquals("rent 149", found.get(0).getDescription());
+        assertEquals("rent 50", found.get(99).getDescription());
+        // Terms of their own still find the older ones
+        assertTrue(search("7", 1000).stream().anyMatch(t -> t.getDescription().equals("rent 7")));
+    }
+
+    @Test
+    void search_ShouldEvictTheOldestTransactionsBeyondThePostingBudget() {
+        DescriptionIndex budgeted = new DescriptionIndex(repository, 100, 10, 1000, new SimpleMeterRegistry());
+        budgeted.start();
+        try {
+            save("alpha unique1 rent", 1);
+            Transaction middle = save("beta unique2 rent", 2);
+            Transaction newest = save("gamma unique3 rent", 3);
+            Transaction latest = save("delta unique4", 4);
+            budgeted.awaitUpdates();
+
+            // 11 postings are over the budget of 10, so the oldest transaction loses its three
+            assertEquals(8, budgeted.postingCount());
+            assertEquals(7, budgeted.termCount());
+            assertTrue(budgeted.search("alpha", 10).isEmpty());
+            assertTrue(budgeted.search("unique1", 10).isEmpty());
+            assertEquals(List.of(newest, middle), budgeted.search("rent", 10));
+            assertEquals(List.of(latest), budgeted.search("delta", 10));
+
+            // Freed by a delete, the budget takes a new transaction without evicting another
+            repository.deleteById(middle.getId());
+            save("epsilon", 5);
+            budgeted.awaitUpdates();
+            assertEquals(6, budgeted.postingCount());
+            assertEquals(List.of(newest), budgeted.search("rent", 10));
+            assertEquals(List.of(latest, newest), budgeted.search("unique", 10));
+        } finally {
+            budgeted.stop();
+        }
+    }
+
+    @Test
+    void start_ShouldIndexTransactionsStoredBeforeAndClearWithTheRepository() {
+        TransactionRepository restored = new TransactionRepository();
+        restored.save(new Transaction("restored", "12345", BigDecimal.ONE, "DEPOSIT", "Restored rent", BASE, null));
+        DescriptionIndex restoredIndex = new DescriptionIndex(restored, 100, 1_000_000, 1000, new SimpleMeterRegistry());
+        restoredIndex.start();
+        try {
+            restoredIndex.awaitUpdates();
+            assertEquals("restored", restoredIndex.search("rent", 10).get(0).getId());
+
+            restored.deleteAll();
+            restoredIndex.awaitUpdates();
+            assertEquals(0, restoredIndex.termCount());
+            assertTrue(restoredIndex.search("rent", 10).isEmpty());
+        } finally {
+            restoredIndex.stop();
+        }
+    }
+
+    @Test
+    void start_ShouldNotLetTheBackfillUndoAWriteMadeMeanwhile() throws InterruptedException {
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        TransactionRepository restored = new TransactionRepository() {
+            @Override
+            public void forEach(Consumer<Transaction> action) {
+                // Hands out the version read before the write below, as a backfill that lost the race would
+                super.forEach(transaction -> {
+                    reading.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    action.accept(transaction);
+                });
+            }
+        };
+        Transaction original = restored.save(new Transaction("restored", "12345", BigDecimal.ONE, "DEPOSIT",
+                "Restored rent", BASE, null));
+        DescriptionIndex restoredIndex = new DescriptionIndex(restored, 100, 1_000_000, 1000,
+                new SimpleMeterRegistry());
+        CompletableFuture<Void> started = CompletableFuture.runAsync(restoredIndex::start);
+        try {
+            assertTrue(reading.await(10, TimeUnit.SECONDS));
+            restored.save(original.withDetails("12345", BigDecimal.ONE, "DEPOSIT", "Salary", null));
+            release.countDown();
+            started.join();
+            restoredIndex.awaitUpdates();
+
+            assertEquals("restored", restoredIndex.search("salary", 10).get(0).getId());
+            assertEquals(1, restoredIndex.postingCount());
+        } finally {
+            release.countDown();
+            restoredIndex.stop();
+        }
+    }
+
+    @Test
+    void search_ShouldRejectEmptyQueriesAndLimits() {
+        assertThrows(IllegalArgumentException.class, () -> index.search(" ,. ", 10));
+        assertThrows(IllegalArgumentException.class, () -> index.search("rent", 0));
+        assertThrows(IllegalArgumentException.class, () -> index.search("a b c d e f g h i", 10));
+    }
+
+    @Test
+    void recordSave_ShouldIndexConcurrentWritesWithoutLosingAny() {
+        IntStream.range(0, 2_000).parallel().forEach(i -> save("batch " + (i % 2 == 0 ? "even" : "odd"), i));
+
+        assertEquals(100, search("even", 1000).size());
+        // Only the newest 100 postings of "batch" are kept, and half of those are odd
+        assertEquals(50, search("batch odd", 1000).size());
+        assertEquals(3, index.termCount());
+    }
+}
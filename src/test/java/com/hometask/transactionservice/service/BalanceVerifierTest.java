@@ -0,0 +1,30 @@
+package com.hometask.transactionservice.service;
+
+import com.hometask.transactionservice.model.Transaction;
+import com.hometask.transactionservice.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BalanceVerifierTest {
+
+    @Test
+    void verify_WhenBalancesAreConsistent_ShouldReportNoDrift() {
+        TransactionRepository repository = new TransactionRepository();
+        LocalDateTime base = LocalDateTime.now().minusHours(1);
+        for (int i = 0; i < 1_000; i++) {
+            repository.save(new Transaction("id-" + i, String.valueOf(10_000 + i % 10), BigDecimal.valueOf(i, 2),
+                    i % 2 == 0 ? "DEPOSIT" : "TRANSFER", null, base.plusSeconds(i), String.valueOf(20_000 + i % 3)));
+        }
+        BalanceVerifier verifier = new BalanceVerifier(repository);
+
+        BalanceVerificationReport report = verifier.verify();
+
+        assertEquals(13, report.accountsChecked());
+        assertTrue(report.drift().isEmpty());
+        assertSame(report, verifier.lastReport());
+    }
+}
@@ -1,24 +1,34 @@
 package com.hometask.transactionservice.service;
 
+import com.hometask.transactionservice.dto.TransactionBatchItem;
+import com.hometask.transactionservice.dto.TransactionBatchResponse;
 import com.hometask.transactionservice.dto.TransactionRequest;
+import com.hometask.transactionservice.exception.DuplicateTransactionException;
 import com.hometask.transactionservice.exception.TransactionNotFoundException;
 import com.hometask.transactionservice.model.Transaction;
 import com.hometask.transactionservice.repository.TransactionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,6 +37,9 @@ public class TransactionServiceTest {
     @Mock
     private TransactionRepository repository;
 
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private TransactionService service;
 
@@ -54,7 +67,7 @@ public class TransactionServiceTest {
 
     @Test
     void createTransaction_ShouldReturnCreatedTransaction() {
-        when(repository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(repository.saveIfNotDuplicate(any(Transaction.class))).thenReturn(true);
 
         Transaction result = service.createTransaction(request);
 
@@ -63,7 +76,15 @@ public class TransactionServiceTest {
         assertEquals(request.getAmount(), result.getAmount());
         assertEquals(request.getType(), result.getType());
         assertEquals(request.getDescription(), result.getDescription());
-        verify(repository, times(1)).save(any(Transaction.class));
+        verify(repository, times(1)).saveIfNotDuplicate(result);
+    }
+
+    @Test
+    void createTransaction_WhenDuplicate_ShouldThrowException() {
+        when(repository.saveIfNotDuplicate(any(Transaction.class))).thenReturn(false);
+
+        assertThrows(DuplicateTransactionException.class, () -> service.createTransaction(request));
+        verify(repository, never()).save(any(Transaction.class));
     }
 
     @Test
@@ -126,7 +147,7 @@ public class TransactionServiceTest {
     @Test
     void updateTransaction_WhenExisting_ShouldUpdateTransaction() {
         when(repository.findById("test-id")).thenReturn(Optional.of(transaction));
-        when(repository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(repository.replace(any(Transaction.class), any(Transaction.class))).thenReturn(true);
 
         request.setAmount(new BigDecimal("150.00"));
         request.setDescription("Updated description");
@@ -137,6 +158,127 @@ public class TransactionServiceTest {
         assertEquals(new BigDecimal("150.00"), result.getAmount());
         assertEquals("Updated description", result.getDescription());
         verify(repository, times(1)).findById("test-id");
-        verify(repository, times(1)).save(any(Transaction.class));
+        verify(repository, times(1)).replace(eq(transaction), any(Transaction.class));
+        verify(repository, never()).save(any(Transaction.class));
+    }
+
+    @Test
+    void updateTransaction_ShouldInstallNextVersionAndKeepIdAndTimestamp() {
+        when(repository.findById("test-id")).thenReturn(Optional.of(transaction));
+        when(repository.replace(any(Transaction.class), any(Transaction.class))).thenReturn(true);
+
+        request.setAccountNumber("555555555");
+
+        Transaction result = service.updateTransaction("test-id", request);
+
+        assertNotSame(transaction, result);
+        assertEquals("test-id", result.getId());
+        assertEquals(transaction.getTimestamp(), result.getTimestamp());
+        assertEquals("555555555", result.getAccountNumber());
+        assertEquals(transaction.getVersion() + 1, result.getVersion());
+        assertEquals("123456789", transaction.getAccountNumber());
+    }
+
+    @Test
+    void updateTransaction_WhenConcurrentlyChanged_ShouldRetryOnTopOfTheNewerVersion() {
+        Transaction concurrent = transaction.withDetails("987654321", transaction.getAmount(), transaction.getType(),
+                transaction.getDescription(), null);
+        when(repository.findById("test-id")).thenReturn(Optional.of(transaction), Optional.of(concurrent));
+        when(repository.replace(same(transaction), any(Transaction.class))).thenReturn(false);
+        when(repository.replace(same(concurrent), any(Transaction.class))).thenReturn(true);
+
+        Transaction result = service.updateTransaction("test-id", request);
+
+        assertEquals(concurrent.getVersion() + 1, result.getVersion());
+        assertEquals(request.getAccountNumber(), result.getAccountNumber());
+        verify(repository, times(2)).replace(any(Transaction.class), any(Transaction.class));
+    }
+
+    @Test
+    void createTransactions_ShouldReportCreatedDuplicateAndInvalidItemsAndSaveOnce() {
+        when(repository.saveAllIfNotDuplicate(argThat(candidates -> candidates.size() == 3)))
+                .thenReturn(new boolean[]{true, false, false});
+
+        TransactionRequest inStore = new TransactionRequest();
+        inStore.setAccountNumber("222222222");
+        inStore.setAmount(new BigDecimal("5.00"));
+        inStore.setType("DEPOSIT");
+
+        List<TransactionRequest> requests = new ArrayList<>();
+        requests.add(request);
+        requests.add(request);
+        requests.add(null);
+        requests.add(inStore);
+
+        TransactionBatchResponse response = service.createTransactions(requests);
+
+        assertEquals(1, response.getCreated());
+        assertEquals(2, response.getDuplicates());
+        assertEquals(1, response.getInvalid());
+        assertEquals(TransactionBatchItem.Status.CREATED, response.getResults().get(0).getStatus());
+        assertEquals(TransactionBatchItem.Status.DUPLICATE, response.getResults().get(1).getStatus());
+        assertEquals(TransactionBatchItem.Status.INVALID, response.getResults().get(2).getStatus());
+        assertEquals(TransactionBatchItem.Status.DUPLICATE, response.getResults().get(3).getStatus());
+        assertEquals(3, response.getResults().get(3).getIndex());
+        assertEquals("123456789", response.getResults().get(0).getTransaction().getAccountNumber());
+        verify(repository, times(1)).saveAllIfNotDuplicate(any());
+        verify(repository, never()).save(any(Transaction.class));
+    }
+
+    @Test
+    void createTransactions_WhenBatchTooLarge_ShouldThrowException() {
+        List<TransactionRequest> requests = Collections.nCopies(TransactionService.MAX_BATCH_SIZE + 1, request);
+
+        assertThrows(IllegalArgumentException.class, () -> service.createTransactions(requests));
+        verify(repository, never()).saveAllIfNotDuplicate(any());
+    }
+
+    @Test
+    void exportTransactions_ShouldFilterByTypeIgnoringCase() {
+        Transaction withdrawal = new Transaction("test-id-2", "123456789", new BigDecimal("5.00"), "WITHDRAWAL",
+                null, LocalDateTime.now(), null);
+        when(repository.streamInOrder("123456789", null, null)).thenReturn(Stream.of(transaction, withdrawal));
+
+        List<Transaction> result = service.exportTransactions("123456789", "withdrawal", null, null).toList();
+
+        assertEquals(List.of(withdrawal), result);
+    }
+
+    @Test
+    void exportTransactions_ShouldReadTheRepositoryLazily() {
+        int[] pulled = new int[1];
+        Stream<Transaction> rows = Stream.iterate(0, i -> i + 1)
+                .limit(1_000_000)
+                .map(i -> new Transaction("id-" + i, "123456789", new BigDecimal("1.00"), i % 2 == 0 ? "DEPOSIT"
+                        : "WITHDRAWAL", null, LocalDateTime.now(), null))
+                .peek(row -> pulled[0]++);
+        when(repository.streamInOrder(null, null, null)).thenReturn(rows);
+
+        Stream<Transaction> exported = service.exportTransactions(null, "withdrawal", null, null);
+        assertEquals(0, pulled[0]);
+        assertEquals("id-1", exported.iterator().next().getId());
+
+        // Only the rows up to the first match were read, and never the store as a whole
+        assertEquals(2, pulled[0]);
+        verify(repository, never()).findAll();
+        verify(repository, never()).forEach(any());
+    }
+
+    @Test
+    void exportTransactions_WhenFromIsNotBeforeTo_ShouldThrowException() {
+        LocalDateTime now = LocalDateTime.now();
+
+        assertThrows(IllegalArgumentException.class, () -> service.exportTransactions(null, null, now, now));
+        verify(repository, never()).streamInOrder(any(), any(), any());
+    }
+
+    @Test
+    void createTransaction_ShouldBeTimedIncludingRejectedDuplicates() {
+        when(repository.saveIfNotDuplicate(any(Transaction.class))).thenReturn(true, false);
+
+        service.createTransaction(request);
+        assertThrows(DuplicateTransactionException.class, () -> service.createTransaction(request));
+
+        assertEquals(2, meterRegistry.get("transaction.service").tag("operation", "createTransaction").timer().count());
     }
-} 
+}
@@ -0,0 +1,99 @@
+package com.hometask.transactionservice.validation;
+
+import com.hometask.transactionservice.dto.TransactionRequest;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TransactionRequestValidatorTest {
+
+    private final Validator beanValidator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    private static TransactionRequest request(String accountNumber, String amount, String type,
+                                              String description, String destinationAccount) {
+        TransactionRequest request = new TransactionRequest();
+        request.setAccountNumber(accountNumber);
+        request.setAmount(amount == null ? null : new BigDecimal(amount));
+        request.setType(type);
+        request.setDescription(description);
+        request.setDestinationAccount(destinationAccount);
+        return request;
+    }
+
+    private static List<TransactionRequest> requests() {
+        List<TransactionRequest> requests = new ArrayList<>();
+        String longDescription = "x".repeat(256);
+        for (String account : new String[]{"12345", "12345678901234567890", "1234", "123456789012345678901",
+                "12a45", "１２３４５", null, "", "   "}) {
+            for (String amount : new String[]{"10.00", "0", "-1", "0.01", null}) {
+                for (String type : new String[]{"DEPOSIT", "transfer", "Withdrawal", "REFUND", "", " ", null}) {
+                    requests.add(request(account, amount, type, "Test", null));
+                    requests.add(request(account, amount, type, longDescription, "54321"));
+                    requests.add(request(account, amount, type, null, account));
+                    requests.add(request(account, amount, type, "x".repeat(255), "9"));
+                    requests.add(request(account, amount, type, "", ""));
+                }
+            }
+        }
+        return requests;
+    }
+
+    private Map<String, List<String>> beanValidation(TransactionRequest request) {
+        Map<String, List<String>> errors = new HashMap<>();
+        Set<ConstraintViolation<TransactionRequest>> violations = beanValidator.validate(request);
+        for (ConstraintViolation<TransactionRequest> violation : violations) {
+            String field = violation.getPropertyPath().toString();
+            errors.computeIfAbsent(field.isEmpty() ? TransactionRequestValidator.OBJECT_NAME : field,
+                    key -> new ArrayList<>()).add(violation.getMessage());
+        }
+        return errors;
+    }
+
+    @Test
+    void validate_ShouldReportWhatBeanValidationReports() {
+        for (TransactionRequest request : requests()) {
+            Map<String, List<String>> expected = beanValidation(request);
+            Map<String, String> actual = TransactionRequestValidator.validate(request);
+
+            String context = request.getAccountNumber() + "/" + request.getAmount() + "/" + request.getType() + "/"
+                    + request.getDestinationAccount();
+            assertEquals(expected.keySet(), actual.keySet(), context);
+            // Where a field breaks two constraints Bean Validation may report either message
+            actual.forEach((field, message) ->
+                    assertTrue(expected.get(field).contains(message), context + ": " + field + " " + message));
+        }
+    }
+
+    @Test
+    void validate_ShouldAllocateNothingForAValidRequest() {
+        assertTrue(TransactionRequestValidator.validate(request("12345", "1", "DEPOSIT", null, null)).isEmpty());
+        assertSame(Map.of(), TransactionRequestValidator.validate(
+                request("12345", "1", "TRANSFER", "Rent", "54321")));
+    }
+
+    @Test
+    void validate_ShouldRejectAMissingRequest() {
+        assertEquals(Map.of(TransactionRequestValidator.OBJECT_NAME, "Transaction is required"),
+                TransactionRequestValidator.validate(null));
+    }
+
+    @Test
+    void allowedType_ShouldIgnoreCase() {
+        assertEquals(AllowedType.TRANSFER, AllowedType.of("tRaNsFeR"));
+        assertNull(AllowedType.of("REFUND"));
+        assertNull(AllowedType.of(null));
+    }
+}